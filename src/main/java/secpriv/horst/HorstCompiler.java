@@ -16,10 +16,14 @@ import picocli.CommandLine;
 import secpriv.horst.data.Predicate;
 import secpriv.horst.data.Rule;
 import secpriv.horst.evm.*;
+import secpriv.horst.execution.CombinedQuerySolver;
 import secpriv.horst.internals.SelectorFunctionHelper;
 import secpriv.horst.internals.SelectorFunctionInvoker;
 import secpriv.horst.parser.ASLexer;
 import secpriv.horst.parser.ASParser;
+import secpriv.horst.tools.HeapUsageHelper;
+import secpriv.horst.tools.ProviderClassCache;
+import secpriv.horst.tools.RuleCache;
 import secpriv.horst.tools.SmtLibGenerator;
 import secpriv.horst.translation.BigStepClauseWalker;
 import secpriv.horst.translation.MediumStepTransformer;
@@ -32,10 +36,14 @@ import secpriv.horst.visitors.RuleTypeOracle;
 import secpriv.horst.visitors.SExpressionRuleVisitor;
 import secpriv.horst.visitors.VisitorState;
 
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @CommandLine.Command(name = "HoRStCompiler", mixinStandardHelpOptions = true, version = "HoRSt Compiler version 0.0")
@@ -63,6 +71,10 @@ public class HorstCompiler implements Runnable {
     @CommandLine.Option(names = {"-o", "--one-sat-to-stop"}, description = "Finding a SAT instance stops the execution")
     private boolean oneSat = false;
 
+    @CommandLine.Option(names = {"--combined-query"}, description = "Together with -o, ask a single query that is implied by all queries first " +
+            "and only look for the satisfiable query if it is satisfiable. Tests are still executed one by one.")
+    private boolean combinedQuery = false;
+
     @CommandLine.Option(names = {"-l", "--write-to-log"}, description = "Write to only to log. Omitting this flag will cause output on stdout.")
     private boolean log = false;
 
@@ -70,6 +82,31 @@ public class HorstCompiler implements Runnable {
             description = "Use bound_relation and interval_relation settings when registering the relation.")
     private boolean settings = false;
 
+    @CommandLine.Option(names = {"--reuse-fixedpoint"}, description = "Load the rules once into a single fixedpoint that answers all queries " +
+            "instead of creating a fresh fixedpoint for every query.")
+    private boolean reuseFixedpoint = false;
+
+    @CommandLine.Option(names = {"--stream-rules"}, description = "Translate every rule leaving the translation pipeline right away and add it to a single " +
+            "fixedpoint that answers all queries, instead of keeping all rules in memory. Cannot be combined with -b.")
+    private boolean streamRules = false;
+
+    @CommandLine.Option(names = {"--delete-unreachable-clauses"}, description = "Delete the clauses no query or test depends on before solving. " +
+            "-b does this as well. Needs all rules at once, so --stream-rules only streams them into the fixedpoint afterwards.")
+    private boolean deleteUnreachableClauses = false;
+
+    @CommandLine.Option(names = {"--chained-simplification"}, description = "Simplify the instantiated rules with one pipeline step per simplification " +
+            "instead of a single fused step. The resulting rules are the same, the fused step is faster.")
+    private boolean chainedSimplification = false;
+
+    @CommandLine.Option(names = {"--pipeline-threads"}, description = "Number of threads the translation pipeline instantiates and simplifies the rules on. " +
+            "The parameter bindings are enumerated on one thread, the instances are created and simplified concurrently. " +
+            "The resulting rules are the same and in the same order as with a single thread.")
+    private int pipelineThreads = 1;
+
+    @CommandLine.Option(names = {"--pipeline-profile"}, description = "Write time, allocated bytes and rule, clause and expression node counts of every translation step " +
+            "as JSON to the given file.")
+    private String pipelineProfileFile;
+
     @CommandLine.Option(names = {"-f", "--selector-function-provider"}, description = "Provide a java file that will be used for evaluating selector functions. " +
             "Multiple files can be given. In case of a naming conflict, the first class containing a matching declaration will be used. If a file does not end " +
             "with .java it will not be used as a selector function provider but as a argument to the preceding selector function provider.", arity = "1..*")
@@ -85,6 +122,17 @@ public class HorstCompiler implements Runnable {
             "will be visible in the the subsequent files.", arity = "1..*")
     private String[] horstFiles = new String[0];
 
+    @CommandLine.Option(names = {"--cache-dir"}, description = "Directory the translated rules are cached in. The rules are translated again only if the " +
+            "specs, the selector function providers and their arguments, the contracts, -p or the compiler changed. The rules are not cached with --stream-rules. " +
+            "The classes compiled from -f are cached in its subdirectory providers, they are compiled again only if their source, the JDK or the compiler changed.")
+    private String cacheDir;
+
+    @CommandLine.Option(names = {"--cache-max-size"}, description = "Size in megabytes the --cache-dir may grow to before the least recently used entries are evicted.")
+    private long cacheMaxSize = 1024;
+
+    @CommandLine.Option(names = {"--cache-max-age"}, description = "Days after which unused entries of the --cache-dir are evicted.")
+    private long cacheMaxAge = 30;
+
     public static void main(String[] args) {
         CommandLine.run(new HorstCompiler(), args);
     }
@@ -114,6 +162,25 @@ public class HorstCompiler implements Runnable {
             System.exit(0);
         }
         configureLogger();
+
+        RuleCache ruleCache = null;
+        String cacheKey = null;
+        if (cacheDir != null) {
+            if (streamRules) {
+                logger.warn("The translated rules are not cached with --stream-rules");
+            } else {
+                ruleCache = new RuleCache(Paths.get(cacheDir), cacheMaxSize * 1024 * 1024, TimeUnit.DAYS.toMillis(cacheMaxAge));
+                cacheKey = getCacheKey();
+                Optional<RuleCache.Entry> cacheEntry = ruleCache.get(cacheKey);
+                if (cacheEntry.isPresent()) {
+                    logger.info("Loaded " + cacheEntry.get().rules.size() + " translated rules from the cache");
+                    VisitorState state = cacheEntry.get().toVisitorState();
+                    solve(cacheEntry.get().rules, new RuleTypeOracle(state), state);
+                    return;
+                }
+            }
+        }
+
         ContractInfoReader contractInfoReader;
 
         // TODO: This data flow is the ugliest thing in the whole code base. Rework after deadline.
@@ -133,9 +200,16 @@ public class HorstCompiler implements Runnable {
             SelectorFunctionHelper compiler = new SelectorFunctionHelper();
 
             try {
+                if (cacheDir != null) {
+                    compiler.setProviderClassCache(new ProviderClassCache(Paths.get(cacheDir, "providers")));
+                }
+                long providerStart = System.currentTimeMillis();
                 for (Map.Entry<String, List<String>> se : groupParameters(Arrays.asList(selectorFunctionProviders)).entrySet()) {
                     compiler.compileSelectorFunctionsProvider(se.getKey(), se.getValue());
                 }
+                if (selectorFunctionProviders.length > 0) {
+                    logger.info("Loaded the selector function providers in " + (System.currentTimeMillis() - providerStart) + " ms");
+                }
 
                 EvmSelectorFunctionProviderTemplate providerTemplate;
                 final boolean testMode = evmTestsSelectorFunctionProviderArguments.length > 0;
@@ -176,7 +250,7 @@ public class HorstCompiler implements Runnable {
             } catch (IOException e) {
                 logger.error("Error while handling file!", e);
                 System.exit(1);
-            } catch (InstantiationException | InvocationTargetException | NoSuchMethodException | IllegalAccessException | ClassNotFoundException e) {
+            } catch (InstantiationException | InvocationTargetException | NoSuchMethodException | IllegalAccessException | ClassNotFoundException | SelectorFunctionHelper.ProviderCompilationException e) {
                 logger.error("Error while compiling selector function definition!", e);
                 System.exit(1);
             } /*catch (ExportException e) {
@@ -198,104 +272,176 @@ public class HorstCompiler implements Runnable {
 
                 RuleTypeOracle ruleTypeOracle = new RuleTypeOracle(state);
 
-                TranslationPipeline pipeline = TranslationPipeline
+                SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(compiler);
+                TranslationPipeline.TranslationPipelineBuilder pipelineBuilder = TranslationPipeline
                         .builder()
                         //.enableDebug()
                         .addStep(new InlineOperationsRuleVisitor(new ArrayList<>(state.getOperations().values())))
                         .addStep(new InlineTypesRuleVisitor(new InlineTypesExpressionVisitor(new FlatTypeLayouterWithBoolean())))
-                        .addFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(compiler)))
-                        .addStep(new SimplifyPredicateArgumentsRuleVisitor())
-                        .addStep(new RenameFreeVariablesRuleVisitor())
-                        .addStep(new ConstantFoldingRuleVisitor())
-                        .addStep(new FilterUnapplicableClausesRuleVisitor(ruleTypeOracle))
-                        .build();
+                        .addDeferredFlatMappingStep(new InstantiateParametersRuleVisitor(selectorFunctionInvoker)::instantiateDeferred)
+                        .describeStep(InstantiateParametersRuleVisitor.class.getSimpleName())
+                        .profileSelectorFunctions(selectorFunctionInvoker)
+                        .parallel(pipelineThreads);
+
+                if (chainedSimplification) {
+                    pipelineBuilder.addChainedSimplificationSteps(ruleTypeOracle, false);
+                } else {
+                    pipelineBuilder.addSimplificationStep(ruleTypeOracle, false);
+                }
+
+                if (deleteUnreachableClauses) {
+                    pipelineBuilder.addUnreachableClauseEliminationStep(ruleTypeOracle);
+                }
+
+                if (pipelineProfileFile != null) {
+                    pipelineBuilder.enableProfiling();
+                }
+
+                TranslationPipeline pipeline = pipelineBuilder.build();
+
+                if (streamRules) {
+                    streamRulesAndExecQueries(pipeline, state, ruleTypeOracle);
+                    writePipelineProfile(pipeline);
+                    logPeakHeapUsage("at the end");
+                    logger.info("Done!");
+                    return;
+                }
 
                 List<Rule> renamedFreeVarRules = pipeline.apply(new ArrayList<>(state.getRules().values()));
-                List<Rule> finalRules = renamedFreeVarRules;
-
-                Map<Boolean, List<Rule>> rulePartitions = finalRules.stream().collect(Collectors.partitioningBy(ruleTypeOracle::isQueryOrTest));
-
-                List<Rule> queryRules = rulePartitions.get(true);
-        //        List<Rule> nonQueryRules = rulePartitions.get(false);
-
-                if (bigStep) {
-                    /*
-                    logger.info("");
-                    logger.info("###################");
-                    logger.info("# BIG STEP WALKER #");
-                    logger.info("###################");
-                    logger.info("");
-
-                    BigStepClauseWalker bscw = new BigStepClauseWalker(nonQueryRules);
-                    bscw.run();
-
-                    Set<List<Rule>> merges = bscw.getMerges();
-
-                    logger.info("");
-                    logger.info("################");
-                    logger.info("# APPLY MERGES #");
-                    logger.info("################");
-                    logger.info("");
-
-                    List<Rule> mergedRules = new ArrayList<>();
-                    ClauseMerger cm = new ClauseMerger();
-                    for (List<Rule> merge : merges) {
-                        if (merge.size() > 1) {
-                            // filter rules: delete the merged rules
-                            for (Rule r : merge) {
-                                nonQueryRules.remove(r);
-                            }
-                            mergedRules.add(cm.projectAndMerge(merge));
-                        }
+                writePipelineProfile(pipeline);
+
+                if (ruleCache != null) {
+                    putIntoCache(ruleCache, cacheKey, new RuleCache.Entry(renamedFreeVarRules, state));
+                }
+
+                solve(renamedFreeVarRules, ruleTypeOracle, state);
+            } catch (IOException e) {
+                logger.error("Input/Output error:", e);
+                System.exit(1);
+            }
+    }
+
+    /**
+     * Executes the queries and tests among the translated rules.
+     */
+    private void solve(List<Rule> translatedRules, RuleTypeOracle ruleTypeOracle, VisitorState state) {
+        List<Rule> finalRules = translatedRules;
+
+        Map<Boolean, List<Rule>> rulePartitions = finalRules.stream().collect(Collectors.partitioningBy(ruleTypeOracle::isQueryOrTest));
+
+        List<Rule> queryRules = rulePartitions.get(true);
+//        List<Rule> nonQueryRules = rulePartitions.get(false);
+
+        if (bigStep) {
+            /*
+            logger.info("");
+            logger.info("###################");
+            logger.info("# BIG STEP WALKER #");
+            logger.info("###################");
+            logger.info("");
+
+            BigStepClauseWalker bscw = new BigStepClauseWalker(nonQueryRules);
+            bscw.run();
+
+            Set<List<Rule>> merges = bscw.getMerges();
+
+            logger.info("");
+            logger.info("################");
+            logger.info("# APPLY MERGES #");
+            logger.info("################");
+            logger.info("");
+
+            List<Rule> mergedRules = new ArrayList<>();
+            ClauseMerger cm = new ClauseMerger();
+            for (List<Rule> merge : merges) {
+                if (merge.size() > 1) {
+                    // filter rules: delete the merged rules
+                    for (Rule r : merge) {
+                        nonQueryRules.remove(r);
                     }
+                    mergedRules.add(cm.projectAndMerge(merge));
+                }
+            }
 
-                    //mergedRules.forEach(r -> System.out.println(r.accept(new SExpressionRuleVisitor())));
+            //mergedRules.forEach(r -> System.out.println(r.accept(new SExpressionRuleVisitor())));
 
-                    nonQueryRules.addAll(mergedRules);
+            nonQueryRules.addAll(mergedRules);
 
-                     */
+             */
 
-                    finalRules = MediumStepTransformer.foldToMediumSteps(finalRules, ruleTypeOracle);
-                }
+            finalRules = MediumStepTransformer.foldToMediumSteps(finalRules, ruleTypeOracle);
+        }
 
-           //     List<Rule> finalRules = new ArrayList<>(nonQueryRules);
-            //    finalRules.addAll(queryRules);
+   //     List<Rule> finalRules = new ArrayList<>(nonQueryRules);
+    //    finalRules.addAll(queryRules);
 
-                //SmtLibGenerator.writeSmtLibToFile("/Users/ilgris/Desktop/with_big_step.smt2", finalRules, finalRules.stream().filter(ruleTypeOracle::isQueryOrTest).collect(Collectors.toList()));
+        //SmtLibGenerator.writeSmtLibToFile("/Users/ilgris/Desktop/with_big_step.smt2", finalRules, finalRules.stream().filter(ruleTypeOracle::isQueryOrTest).collect(Collectors.toList()));
 
-                logger.info("");
-                logger.info("###################");
-                logger.info("#     RESULTS     #");
-                logger.info("###################");
-                logger.info("");
+        logger.info("");
+        logger.info("###################");
+        logger.info("#     RESULTS     #");
+        logger.info("###################");
+        logger.info("");
 
-                //SmtLibGenerator.writeSmtLibToFile("/tmp/non-preanalysis.smt", finalRules, queryRules);
+        //SmtLibGenerator.writeSmtLibToFile("/tmp/non-preanalysis.smt", finalRules, queryRules);
 
-                Global.resetParameters();
+        Global.resetParameters();
 
-                Global.setParameter("fp.engine", "spacer");
+        TranslateToZ3VisitorState z3TranslationState = createZ3TranslationState();
 
-                TranslateToZ3VisitorState z3TranslationState;
-                if (bv) {
-                    z3TranslationState = TranslateToZ3VisitorState.withBitVectorIntegers();
-                } else {
-                    z3TranslationState = TranslateToZ3VisitorState.withGeneralIntegers();
-                }
+        List<BoolExpr> rulesForZ3 = new ArrayList<>();
 
-                List<BoolExpr> rulesForZ3 = new ArrayList<>();
+        for (Rule rule : finalRules) {
+            TranslateToZ3RuleVisitor translateToZ3RuleVisitor = new TranslateToZ3RuleVisitor(z3TranslationState);
+            rulesForZ3.addAll(rule.accept(translateToZ3RuleVisitor));
+        }
+        // the queries only need the translated rules and the predicate declarations
+        z3TranslationState.clearTranslationCache();
 
-                for (Rule rule : finalRules) {
-                    TranslateToZ3RuleVisitor translateToZ3RuleVisitor = new TranslateToZ3RuleVisitor(z3TranslationState);
-                    rulesForZ3.addAll(rule.accept(translateToZ3RuleVisitor));
-                }
+        logPeakHeapUsage("after loading the rules");
+        execQueries(queryRules, z3TranslationState, rulesForZ3, null, ruleTypeOracle, state);
 
-                execQueries(queryRules, z3TranslationState, rulesForZ3, ruleTypeOracle, state);
+        logPeakHeapUsage("at the end");
+        logger.info("Done!");
+    }
 
-                logger.info("Done!");
-            } catch (IOException e) {
-                logger.error("Input/Output error:", e);
-                System.exit(1);
+    private String getCacheKey() {
+        try {
+            RuleCache.KeyBuilder keyBuilder = RuleCache.keyBuilder()
+                    .addCodeSource(HorstCompiler.class)
+                    .addFlag("preanalysis", pre)
+                    .addFlag("delete-unreachable-clauses", deleteUnreachableClauses);
+            addInputsToCacheKey(keyBuilder, "specs", horstFiles);
+            addInputsToCacheKey(keyBuilder, "selector-function-providers", selectorFunctionProviders);
+            addInputsToCacheKey(keyBuilder, "evm", evmSelectorFunctionProviderArguments);
+            addInputsToCacheKey(keyBuilder, "evm-tests", evmTestsSelectorFunctionProviderArguments);
+            return keyBuilder.build();
+        } catch (IOException e) {
+            logger.error("Error while hashing the inputs!", e);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static void addInputsToCacheKey(RuleCache.KeyBuilder keyBuilder, String option, String[] inputs) throws IOException {
+        keyBuilder.addString(option + "=" + inputs.length);
+        for (String input : inputs) {
+            // arguments of selector function providers need not be files
+            File file = new File(input);
+            if (file.isFile()) {
+                keyBuilder.addFile(file);
+            } else {
+                keyBuilder.addString(input);
             }
+        }
+    }
+
+    private static void putIntoCache(RuleCache ruleCache, String cacheKey, RuleCache.Entry entry) {
+        try {
+            ruleCache.put(cacheKey, entry);
+        } catch (IOException e) {
+            logger.warn("Could not cache the translated rules!", e);
+        }
     }
     /*private void splitQueries(List<Rule> queryRules, List<Rule> queryReentrancy,
                               List<Rule> querySelfdestruct, List<Rule> queryCallcode, List<Rule> queryDelegateCall,
@@ -319,19 +465,120 @@ public class HorstCompiler implements Runnable {
         }
     }*/
 
+    private TranslateToZ3VisitorState createZ3TranslationState() {
+        TranslateToZ3VisitorState z3TranslationState;
+        if (bv) {
+            z3TranslationState = TranslateToZ3VisitorState.withBitVectorIntegers();
+        } else {
+            z3TranslationState = TranslateToZ3VisitorState.withGeneralIntegers();
+        }
+        z3TranslationState.setFixedpointParameter("engine", "spacer");
+        return z3TranslationState;
+    }
+
+    private void writePipelineProfile(TranslationPipeline pipeline) {
+        if (pipelineProfileFile == null) {
+            return;
+        }
+
+        try {
+            pipeline.writeProfileAsJson(pipelineProfileFile);
+        } catch (FileNotFoundException e) {
+            logger.error("Error while writing the pipeline profile!", e);
+        }
+    }
+
+    private void streamRulesAndExecQueries(TranslationPipeline pipeline, VisitorState state, RuleTypeOracle ruleTypeOracle) {
+        if (bigStep) {
+            logger.error("Big-step encoding needs all rules at once and cannot be combined with --stream-rules!");
+            System.exit(1);
+        }
+        if (combinedQuery) {
+            logger.warn("--combined-query is ignored with --stream-rules");
+        }
+
+        Global.resetParameters();
+        TranslateToZ3VisitorState z3TranslationState = createZ3TranslationState();
+        Fixedpoint fixedpoint = z3TranslationState.createFixedpoint(Collections.emptyList(), settings);
+        List<Rule> queryRules = new ArrayList<>();
+        int[] ruleCount = {0};
+
+        long start = System.currentTimeMillis();
+        pipeline.apply(new ArrayList<>(state.getRules().values()), rule -> {
+            if (ruleTypeOracle.isQueryOrTest(rule)) {
+                queryRules.add(rule);
+            }
+            TranslateToZ3RuleVisitor translateToZ3RuleVisitor = new TranslateToZ3RuleVisitor(z3TranslationState);
+            for (BoolExpr z3Rule : rule.accept(translateToZ3RuleVisitor)) {
+                fixedpoint.addRule(z3Rule, null);
+            }
+            // once the rule is in the fixedpoint, neither the rule nor its translated sub-expressions and variables are needed
+            z3TranslationState.clearTranslationCache();
+            ++ruleCount[0];
+        });
+        z3TranslationState.registerRelations(fixedpoint, settings);
+        logger.info("Streamed " + ruleCount[0] + " rules into the fixedpoint in " + (System.currentTimeMillis() - start) + " ms");
+        logPeakHeapUsage("after loading the rules");
+
+        logger.info("");
+        logger.info("###################");
+        logger.info("#     RESULTS     #");
+        logger.info("###################");
+        logger.info("");
+
+        execQueries(queryRules, z3TranslationState, Collections.emptyList(), fixedpoint, ruleTypeOracle, state);
+    }
+
+    private void logPeakHeapUsage(String when) {
+        logger.info("Java heap high-water mark " + when + ": " + HeapUsageHelper.format(HeapUsageHelper.getPeakHeapUsage()));
+    }
+
+    /**
+     * @param preloadedFixedpoint a fixedpoint that already contains the rules and answers all queries, or null to
+     *                            load rulesForZ3 into fresh fixedpoints
+     */
     private boolean execQueries(List<Rule> queryRules, TranslateToZ3VisitorState z3TranslationState,
-                             List<BoolExpr> rulesForZ3, RuleTypeOracle ruleTypeOracle, VisitorState state){
+                             List<BoolExpr> rulesForZ3, Fixedpoint preloadedFixedpoint, RuleTypeOracle ruleTypeOracle, VisitorState state){
         boolean once = false;
         int testCount = 0;
         int failedTestCount = 0;
         int failedSoundTestCount = 0;
         boolean satDerived = false;
+        Fixedpoint fixedpoint = preloadedFixedpoint;
+        long totalLoadTime = 0;
+        int loadCount = 0;
+
+        if (oneSat && combinedQuery && preloadedFixedpoint == null) {
+            List<Rule> queries = queryRules.stream().filter(q -> !ruleTypeOracle.isTest(q)).collect(Collectors.toList());
+            if (!queries.isEmpty()) {
+                long start = System.currentTimeMillis();
+                CombinedQuerySolver.Result result = new CombinedQuerySolver(z3TranslationState, rulesForZ3, settings, reuseFixedpoint).findSatisfiableQuery(queries);
+                logger.info("Combined query over " + queries.size() + " queries: " + result.status + " (" + result.solverCalls +
+                        " solver calls, " + (System.currentTimeMillis() - start) + " ms)");
+
+                if (result.status == Status.SATISFIABLE) {
+                    logger.info("    result: SATISFIABLE for query ID " + result.satisfiableQuery.get().name);
+                    logger.warn("We found a SAT instance and the option has been enabled to stop right after it");
+                    satDerived = true;
+                }
+                if (result.status != Status.UNKNOWN) {
+                    // the remaining queries are answered, the tests are still executed one by one
+                    checkBenchResult(result.status);
+                    queryRules = queryRules.stream().filter(ruleTypeOracle::isTest).collect(Collectors.toList());
+                } else {
+                    logger.warn("Combined query was inconclusive, executing the queries one by one");
+                }
+            }
+        }
+
         for (Rule query : queryRules) {
-            Fixedpoint fixedpoint = z3TranslationState.context.mkFixedpoint();
-            for (BoolExpr b : rulesForZ3) {
-                fixedpoint.addRule(b, null);
+            long loadStart = System.currentTimeMillis();
+            if (fixedpoint == null || (!reuseFixedpoint && preloadedFixedpoint == null)) {
+                fixedpoint = z3TranslationState.createFixedpoint(rulesForZ3, settings);
+                ++loadCount;
             }
-            z3TranslationState.registerRelations(fixedpoint, settings);
+            long loadTime = System.currentTimeMillis() - loadStart;
+            totalLoadTime += loadTime;
             if (!once) {
                 logger.info(fixedpoint);
                 once = true;
@@ -359,6 +606,7 @@ public class HorstCompiler implements Runnable {
                 }
 
                 logger.info("    result: " + result.toString());
+                logger.info("    rule loading time: " + loadTime + " ms");
                 logger.info("    query execution time: " + ((System.currentTimeMillis() - start)) + " ms");
                 if (result.toString().equals("SATISFIABLE")){
                     satDerived = true;
@@ -367,27 +615,7 @@ public class HorstCompiler implements Runnable {
                         break;
                     }
                 }
-                if (sat && unsat){
-                    logger.warn("Please be precise about expected result, it should be SAT or UNSAT, no both");
-                }
-                else{
-                    if (sat){
-                        if (result.toString().equals("SATISFIABLE")){
-                            logger.info("Bench test passed " + evmSelectorFunctionProviderArguments[0]);
-                        }
-                        else{
-                            logger.error("Bench test failed " + evmSelectorFunctionProviderArguments[0]);
-                        }
-                    }
-                    if (unsat){
-                        if (result.toString().equals("UNSATISFIABLE")){
-                            logger.info("Bench test passed " + evmSelectorFunctionProviderArguments[0]);
-                        }
-                        else{
-                            logger.error("Bench test failed " + evmSelectorFunctionProviderArguments[0]);
-                        }
-                    }
-                }
+                checkBenchResult(result);
             }
             // deal with exceptions properly
             catch (Exception e) {
@@ -395,6 +623,12 @@ public class HorstCompiler implements Runnable {
             }
         }
 
+        if (loadCount > 0) {
+            long averageLoadTime = totalLoadTime / loadCount;
+            logger.info("Loaded rules into " + loadCount + " fixedpoint(s) in " + totalLoadTime + " ms (" + averageLoadTime + " ms per load, " +
+                    (averageLoadTime * queryRules.size()) + " ms when loading once per query)");
+        }
+
         if (testCount != 0) {
             String testFileName = evmTestsSelectorFunctionProviderArguments.length > 0 ? evmTestsSelectorFunctionProviderArguments[0] : evmSelectorFunctionProviderArguments[0];
 
@@ -412,6 +646,30 @@ public class HorstCompiler implements Runnable {
         return satDerived;
     }
 
+    private void checkBenchResult(Status result) {
+        if (sat && unsat){
+            logger.warn("Please be precise about expected result, it should be SAT or UNSAT, no both");
+        }
+        else{
+            if (sat){
+                if (result.toString().equals("SATISFIABLE")){
+                    logger.info("Bench test passed " + evmSelectorFunctionProviderArguments[0]);
+                }
+                else{
+                    logger.error("Bench test failed " + evmSelectorFunctionProviderArguments[0]);
+                }
+            }
+            if (unsat){
+                if (result.toString().equals("UNSATISFIABLE")){
+                    logger.info("Bench test passed " + evmSelectorFunctionProviderArguments[0]);
+                }
+                else{
+                    logger.error("Bench test failed " + evmSelectorFunctionProviderArguments[0]);
+                }
+            }
+        }
+    }
+
     private static VisitorState.TestResult z3ToHorstResult(Status result) {
         switch (result) {
             case SATISFIABLE:
@@ -94,6 +94,25 @@ public abstract class BaseTypeValue {
         return new BaseTypeIntegerValue(i);
     }
 
+    // values are immutable, so the small ones selector functions mostly return (pcs, opcodes, offsets) are shared
+    private static final BaseTypeIntegerValue[] smallIntegerValues = new BaseTypeIntegerValue[1024];
+
+    static {
+        for (int i = 0; i < smallIntegerValues.length; ++i) {
+            smallIntegerValues[i] = new BaseTypeIntegerValue(BigInteger.valueOf(i));
+        }
+    }
+
+    /**
+     * @return the value of the long, which is only created if it is negative or not smaller than 1024
+     */
+    public static BaseTypeIntegerValue fromLong(long l) {
+        if (l >= 0 && l < smallIntegerValues.length) {
+            return smallIntegerValues[(int) l];
+        }
+        return new BaseTypeIntegerValue(BigInteger.valueOf(l));
+    }
+
     public static BaseTypeBooleanValue fromBoolean(Boolean b) {
         return new BaseTypeBooleanValue(b);
     }
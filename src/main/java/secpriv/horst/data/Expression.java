@@ -144,6 +144,21 @@ public abstract class Expression {
             return Type.Array.of(initializer.getType());
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ArrayInitExpression that = (ArrayInitExpression) o;
+
+            return initializer.equals(that.initializer);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * ArrayInitExpression.class.hashCode() + initializer.hashCode();
+        }
+
         @Override
         public <T> T accept(Visitor<T> visitor) {
             return visitor.visit(this);
@@ -257,34 +272,106 @@ public abstract class Expression {
         }
     }
 
+    // Compound expressions compare structurally. As expressions are immutable, the hash code of a compound
+    // expression is computed only once, so that hashing large terms stays cheap when they are used as keys.
+
     public static abstract class UnaryExpression extends Expression {
         public final Expression expression;
+        private int hashCode = 0;
 
         public UnaryExpression(Expression expression) {
             this.expression = expression;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            UnaryExpression that = (UnaryExpression) o;
+
+            return hashCode() == that.hashCode() && Objects.equals(expression, that.expression);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                hashCode = 31 * getClass().hashCode() + Objects.hashCode(expression);
+            }
+            return hashCode;
+        }
     }
 
     public static abstract class BinaryExpression extends Expression {
         public final Expression expression1;
         public final Expression expression2;
+        private int hashCode = 0;
 
         public BinaryExpression(Expression expression1, Expression expression2) {
             this.expression1 = Objects.requireNonNull(expression1, "Expression1 may not be null!");
             this.expression2 = Objects.requireNonNull(expression2, "Expression2 may not be null!");
         }
+
+        protected Object getOperation() {
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            BinaryExpression that = (BinaryExpression) o;
+
+            return hashCode() == that.hashCode() && getOperation() == that.getOperation() && expression1.equals(that.expression1) && expression2.equals(that.expression2);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                int result = getClass().hashCode();
+                result = 31 * result + Objects.hashCode(getOperation());
+                result = 31 * result + expression1.hashCode();
+                result = 31 * result + expression2.hashCode();
+                hashCode = result;
+            }
+            return hashCode;
+        }
     }
 
     public static abstract class TernaryExpression extends Expression {
         public final Expression expression1;
         public final Expression expression2;
         public final Expression expression3;
+        private int hashCode = 0;
 
         public TernaryExpression(Expression expression1, Expression expression2, Expression expression3) {
             this.expression1 = Objects.requireNonNull(expression1, "Expression1 may not be null!");
             this.expression2 = Objects.requireNonNull(expression2, "Expression2 may not be null!");
             this.expression3 = Objects.requireNonNull(expression3, "Expression3 may not be null!");
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            TernaryExpression that = (TernaryExpression) o;
+
+            return hashCode() == that.hashCode() && expression1.equals(that.expression1) && expression2.equals(that.expression2) && expression3.equals(that.expression3);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                int result = getClass().hashCode();
+                result = 31 * result + expression1.hashCode();
+                result = 31 * result + expression2.hashCode();
+                result = 31 * result + expression3.hashCode();
+                hashCode = result;
+            }
+            return hashCode;
+        }
     }
 
     public enum IntOperation {ADD, SUB, MUL, DIV, MOD, BVAND, BVXOR, BVOR}
@@ -302,6 +389,11 @@ public abstract class Expression {
             this.operation = Objects.requireNonNull(operation, "Operation may not be null!");
         }
 
+        @Override
+        protected Object getOperation() {
+            return operation;
+        }
+
         @Override
         public Type getType() {
             return Type.Integer;
@@ -321,6 +413,11 @@ public abstract class Expression {
             this.operation = Objects.requireNonNull(operation, "Operation may not be null!");
         }
 
+        @Override
+        protected Object getOperation() {
+            return operation;
+        }
+
         @Override
         public Type getType() {
             return Type.Boolean;
@@ -340,6 +437,11 @@ public abstract class Expression {
             this.operation = Objects.requireNonNull(operation, "Operation may not be null!");
         }
 
+        @Override
+        protected Object getOperation() {
+            return operation;
+        }
+
         @Override
         public <T> T accept(Visitor<T> visitor) {
             return visitor.visit(this);
@@ -403,6 +505,7 @@ public abstract class Expression {
         public final SumOperation operation;
         public final Expression body;
         public final CompoundSelectorFunctionInvocation selectorFunctionInvocation;
+        private int hashCode = 0;
 
         public SumExpression(CompoundSelectorFunctionInvocation selectorFunctionInvocation, Expression body, SumOperation operation) {
             this.operation = Objects.requireNonNull(operation, "Operation may not be null!");
@@ -419,6 +522,27 @@ public abstract class Expression {
         public Type getType() {
             return operation.getType();
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SumExpression that = (SumExpression) o;
+
+            return hashCode() == that.hashCode() && operation.equals(that.operation) && body.equals(that.body) && selectorFunctionInvocation.equals(that.selectorFunctionInvocation);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                int result = operation.hashCode();
+                result = 31 * result + body.hashCode();
+                result = 31 * result + selectorFunctionInvocation.hashCode();
+                hashCode = result;
+            }
+            return hashCode;
+        }
     }
 
     public static abstract class VariadicExpression extends Expression {
@@ -435,6 +559,7 @@ public abstract class Expression {
     public static class AppExpression extends VariadicExpression {
         public final Operation operation;
         public final List<Expression> parameters;
+        private int hashCode = 0;
 
         public AppExpression(Operation operation, List<Expression> parameters, List<Expression> arguments) {
             super(arguments);
@@ -447,6 +572,27 @@ public abstract class Expression {
             return operation.body.getType();
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            AppExpression that = (AppExpression) o;
+
+            return hashCode() == that.hashCode() && operation.equals(that.operation) && parameters.equals(that.parameters) && expressions.equals(that.expressions);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                int result = operation.hashCode();
+                result = 31 * result + parameters.hashCode();
+                result = 31 * result + expressions.hashCode();
+                hashCode = result;
+            }
+            return hashCode;
+        }
+
         @Override
         public <T> T accept(Visitor<T> visitor) {
             return visitor.visit(this);
@@ -456,6 +602,7 @@ public abstract class Expression {
     public static class ConstructorAppExpression extends VariadicExpression {
         public final Constructor constructor;
         private final Type.CustomType type;
+        private int hashCode = 0;
 
         public ConstructorAppExpression(Constructor constructor, Type.CustomType type, List<Expression> expressions) {
             super(expressions);
@@ -472,6 +619,27 @@ public abstract class Expression {
             return type;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ConstructorAppExpression that = (ConstructorAppExpression) o;
+
+            return hashCode() == that.hashCode() && constructor.equals(that.constructor) && type.equals(that.type) && expressions.equals(that.expressions);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                int result = constructor.hashCode();
+                result = 31 * result + type.hashCode();
+                result = 31 * result + expressions.hashCode();
+                hashCode = result;
+            }
+            return hashCode;
+        }
+
         @Override
         public <T> T accept(Visitor<T> visitor) {
             return visitor.visit(this);
@@ -482,6 +650,7 @@ public abstract class Expression {
         public final List<List<Pattern>> branchPatterns;
         public final List<Expression> matchedExpressions;
         public final List<Expression> resultExpressions;
+        private int hashCode = 0;
 
         public MatchExpression(List<List<Pattern>> branchPatterns, List<Expression> matchedExpressions, List<Expression> resultExpressions) {
             this.matchedExpressions = Collections.unmodifiableList(Objects.requireNonNull(matchedExpressions, "MatchedExpression may not be null!"));
@@ -498,6 +667,27 @@ public abstract class Expression {
             return resultExpressions.get(0).getType();
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            MatchExpression that = (MatchExpression) o;
+
+            return hashCode() == that.hashCode() && branchPatterns.equals(that.branchPatterns) && matchedExpressions.equals(that.matchedExpressions) && resultExpressions.equals(that.resultExpressions);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                int result = branchPatterns.hashCode();
+                result = 31 * result + matchedExpressions.hashCode();
+                result = 31 * result + resultExpressions.hashCode();
+                hashCode = result;
+            }
+            return hashCode;
+        }
+
         @Override
         public <T> T accept(Visitor<T> visitor) {
             return visitor.visit(this);
@@ -554,6 +744,24 @@ public abstract class Expression {
         public Type getType() {
             return value.getType();
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ConstExpression that = (ConstExpression) o;
+
+            if (!name.equals(that.name)) return false;
+            return value.equals(that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + value.hashCode();
+            return result;
+        }
     }
 
     public abstract Type getType();
@@ -0,0 +1,22 @@
+package secpriv.horst.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps structurally equal expressions to one canonical instance, so equal subterms share their memory and compare by
+ * reference. The canonical instances are kept alive by the interner, so it should be scoped to e.g. one clause.
+ */
+public class ExpressionInterner {
+    private final Map<Expression, Expression> canonicalExpressions = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T extends Expression> T intern(T expression) {
+        // equal expressions have the same class
+        return (T) canonicalExpressions.computeIfAbsent(expression, e -> e);
+    }
+
+    public int size() {
+        return canonicalExpressions.size();
+    }
+}
@@ -86,6 +86,7 @@ public abstract class SumOperation {
         }
     }
 
+    // shared by the instances of the rule, which may be created concurrently, see InstantiateParametersRuleVisitor#instantiateDeferred
     private static class CustomSumOperationFamilyCache {
         private final Set<InlinedCustomSumOperation> familyMembers = new HashSet<>();
         private final Map<Map<String, BaseTypeValue>, Map<InlinedCustomSumOperation, Expression>> invocationCache = new HashMap<>();
@@ -94,7 +95,7 @@ public abstract class SumOperation {
             familyMembers.add(sumOperation);
         }
 
-        public Expression apply(InlinedCustomSumOperation sumOperation, CompoundSelectorFunctionInvocation invocation, SelectorFunctionInvoker selectorFunctionInvoker, Map<String, BaseTypeValue> parameterMap) {
+        public synchronized Expression apply(InlinedCustomSumOperation sumOperation, CompoundSelectorFunctionInvocation invocation, SelectorFunctionInvoker selectorFunctionInvoker, Map<String, BaseTypeValue> parameterMap) {
             if (invocationCache.get(parameterMap) == null) {
                 fillInvocationCache(invocation, selectorFunctionInvoker, parameterMap);
 
@@ -308,7 +308,7 @@ public class ConstantAnalysis implements EvmSelectorFunctionProviderTemplate {
     //}
 
     @Override
-    public Iterable<BigInteger> interval(BigInteger a, BigInteger b) {
+    public long[] interval(BigInteger a, BigInteger b) {
         return evmSelectorFunctionProvider.interval(a, b);
     }
 
@@ -416,27 +416,27 @@ public class ConstantAnalysis implements EvmSelectorFunctionProviderTemplate {
     //}
 
     @Override
-    public Iterable<BigInteger> binOps() {
+    public long[] binOps() {
         return evmSelectorFunctionProvider.binOps();
     }
 
     @Override
-    public Iterable<BigInteger> unOps() {
+    public long[] unOps() {
         return evmSelectorFunctionProvider.unOps();
     }
 
     @Override
-    public Iterable<BigInteger> terOps() {
+    public long[] terOps() {
         return evmSelectorFunctionProvider.terOps();
     }
 
     @Override
-    public Iterable<BigInteger> unitOps() {
+    public long[] unitOps() {
         return evmSelectorFunctionProvider.unitOps();
     }
 
     @Override
-    public Iterable<BigInteger> copyOps() {
+    public long[] copyOps() {
         return evmSelectorFunctionProvider.copyOps();
     }
 
@@ -464,10 +464,10 @@ public class ConstantAnalysis implements EvmSelectorFunctionProviderTemplate {
         }
     }*/
     public Iterable<BigInteger> ids () { return evmSelectorFunctionProvider.ids(); }
-    public Iterable<BigInteger> pcsForIdAndOpcode (BigInteger id, BigInteger opcode) { return evmSelectorFunctionProvider.pcsForIdAndOpcode(id, opcode); }
-    public Iterable<BigInteger> pcsForId (BigInteger id) { return evmSelectorFunctionProvider.pcsForId(id); }
-    public Iterable<BigInteger> lastPcsForId (BigInteger id) { return evmSelectorFunctionProvider.lastPcsForId(id); }
-    public Iterable<BigInteger> jumpDestsForIdAndPc (BigInteger id, BigInteger pc) { return evmSelectorFunctionProvider.jumpDestsForIdAndPc(id, pc); }
+    public long[] pcsForIdAndOpcode (BigInteger id, BigInteger opcode) { return evmSelectorFunctionProvider.pcsForIdAndOpcode(id, opcode); }
+    public long[] pcsForId (BigInteger id) { return evmSelectorFunctionProvider.pcsForId(id); }
+    public long[] lastPcsForId (BigInteger id) { return evmSelectorFunctionProvider.lastPcsForId(id); }
+    public long[] jumpDestsForIdAndPc (BigInteger id, BigInteger pc) { return evmSelectorFunctionProvider.jumpDestsForIdAndPc(id, pc); }
     public Iterable<BigInteger> argumentsZeroForIdAndPc (BigInteger id, BigInteger pc) { return evmSelectorFunctionProvider.argumentsZeroForIdAndPc(id, pc); }
     public Iterable<BigInteger> argumentsOneForIdAndPc (BigInteger id, BigInteger pc) { return evmSelectorFunctionProvider.argumentsOneForIdAndPc(id, pc); }
     public Iterable<Tuple2<BigInteger, BigInteger>> argumentsTwoForIdAndPc (BigInteger id, BigInteger pc) { return evmSelectorFunctionProvider.argumentsTwoForIdAndPc(id, pc);}
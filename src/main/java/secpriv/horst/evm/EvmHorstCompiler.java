@@ -6,9 +6,13 @@ import picocli.CommandLine;
 import secpriv.horst.data.Rule;
 import secpriv.horst.execution.ExecutionResult;
 import secpriv.horst.execution.ExecutionResultHandler;
+import secpriv.horst.execution.ProcessQueryExecutor;
+import secpriv.horst.execution.QueryBudget;
+import secpriv.horst.execution.SolverConfiguration;
 import secpriv.horst.execution.Z3QueryExecutor;
 import secpriv.horst.internals.SelectorFunctionHelper;
 import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.tools.RuleCache;
 import secpriv.horst.parser.ASLexer;
 import secpriv.horst.parser.ASParser;
 import secpriv.horst.translation.MediumStepTransformer;
@@ -20,9 +24,14 @@ import secpriv.horst.visitors.RuleTypeOracle;
 import secpriv.horst.visitors.VisitorState;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @CommandLine.Command(name = "EvmRegressionTester", mixinStandardHelpOptions = true, version = "RegressionTester version 0.0")
 public class EvmHorstCompiler implements Runnable {
@@ -30,12 +39,85 @@ public class EvmHorstCompiler implements Runnable {
             "will be visible in the the subsequent files.", arity = "1..*")
     private String[] horstFiles = new String[0];
 
-    @CommandLine.Option(names = {"-b", "--big-step-encoding"}, description = "Apply big-step encoding")
+    @CommandLine.Option(names = {"-b", "--big-step-encoding"}, description = "Apply big-step encoding (ignored with --portfolio, use the big-step option of a configuration instead)")
     private boolean bigStep = false;
 
     @CommandLine.Option(names = {"-p", "--preanalysis"}, description = "Apply pre-analysis")
     private boolean pre = false;
 
+    @CommandLine.Option(names = {"--reuse-fixedpoint"}, description = "Load the rules once into a single fixedpoint that answers all queries " +
+            "instead of creating a fresh fixedpoint for every query.")
+    private boolean reuseFixedpoint = false;
+
+    @CommandLine.Option(names = {"-t", "--threads"}, description = "Number of queries that are executed in parallel. Every thread uses its own Z3 context.")
+    private int threads = 1;
+
+    @CommandLine.Option(names = {"--query-timeout"}, description = "Wall-clock time in milliseconds a single query may take (0 for no limit).")
+    private long queryTimeout = 0;
+
+    @CommandLine.Option(names = {"--query-rlimit"}, description = "Z3 resource limit of a single query (0 for no limit).")
+    private int queryResourceLimit = 0;
+
+    @CommandLine.Option(names = {"--contract-timeout"}, description = "Wall-clock time in milliseconds all queries of a contract may take (0 for no limit).")
+    private long contractTimeout = 0;
+
+    @CommandLine.Option(names = {"--memory-limit"}, description = "Memory in megabytes Z3 may allocate (0 for no limit).")
+    private int memoryLimit = 0;
+
+    @CommandLine.Option(names = {"--escalate"}, description = "Budgets of the form timeout[:rlimit] queries that exceeded their limits are re-run with, " +
+            "after all queries of the contract have been executed with the previous budget.", arity = "1..*")
+    private String[] escalationBudgets = new String[0];
+
+    @CommandLine.Option(names = {"--portfolio"}, description = "Solver configurations every query is raced on, the first definitive answer wins. " +
+            "A configuration is a comma separated list of int or bv, relations, big-step and fixedpoint parameters name=value, e.g. bv,relations,spacer.random_seed=3.", arity = "1..*")
+    private String[] portfolio = new String[0];
+
+    @CommandLine.Option(names = {"--slice"}, description = "Solve every query only on the clauses it depends on (cone of influence).")
+    private boolean sliceQueries = false;
+
+    @CommandLine.Option(names = {"--carry-lemmas"}, description = "Seed the fixedpoint of a query with the invariants learned while solving the previous queries. " +
+            "This disables the slicing transformation of Z3.")
+    private boolean carryLemmas = false;
+
+    @CommandLine.Option(names = {"--measure-lemma-savings"}, description = "With --carry-lemmas, solve every seeded query again without the carried lemmas " +
+            "and log the solving time they saved. This roughly doubles the solving time of these queries.")
+    private boolean measureLemmaSavings = false;
+
+    @CommandLine.Option(names = {"--delete-unreachable-clauses"}, description = "Delete the clauses no query or test depends on before solving. " +
+            "-b does this as well.")
+    private boolean deleteUnreachableClauses = false;
+
+    @CommandLine.Option(names = {"--chained-simplification"}, description = "Simplify the instantiated rules with one pipeline step per simplification " +
+            "instead of a single fused step. The resulting rules are the same, the fused step is faster.")
+    private boolean chainedSimplification = false;
+
+    @CommandLine.Option(names = {"--pipeline-threads"}, description = "Number of threads the translation pipeline instantiates and simplifies the rules on. " +
+            "The parameter bindings are enumerated on one thread, the instances are created and simplified concurrently. " +
+            "The resulting rules are the same and in the same order as with a single thread.")
+    private int pipelineThreads = 1;
+
+    @CommandLine.Option(names = {"--profile-pipeline"}, description = "Write time, allocated bytes and rule, clause and expression node counts of every translation step " +
+            "to <contract>.pipeline-profile.json in the --json-out-dir (or the working directory).")
+    private boolean profilePipeline = false;
+
+    @CommandLine.Option(names = {"--solver-command"}, description = "Solve every query in a separate process of the given solver command " +
+            "instead of using the Z3 bindings. The solver reads the rules in SMT-LIB followed by the query command on standard input. " +
+            "Uses --threads processes in parallel and --query-timeout as timeout.")
+    private String solverCommand;
+
+    @CommandLine.Option(names = {"--problem-dir"}, description = "Directory the SMT-LIB rules and the solver outputs for --solver-command are kept in.")
+    private String problemDir;
+
+    @CommandLine.Option(names = {"--cache-dir"}, description = "Directory the translated rules of every contract are cached in. A contract is translated " +
+            "again only if the specs, the contract, -p or the compiler changed.")
+    private String cacheDir;
+
+    @CommandLine.Option(names = {"--cache-max-size"}, description = "Size in megabytes the --cache-dir may grow to before the least recently used entries are evicted.")
+    private long cacheMaxSize = 1024;
+
+    @CommandLine.Option(names = {"--cache-max-age"}, description = "Days after which unused entries of the --cache-dir are evicted.")
+    private long cacheMaxAge = 30;
+
     @CommandLine.Parameters
     private File[] contractFiles;
 
@@ -55,49 +137,92 @@ public class EvmHorstCompiler implements Runnable {
             List<ExecutionResultHandler> resultHandlers = initializeResultHandlers(contractFile);
 
             System.out.println(contractFile.getName());
-            SelectorFunctionHelper compiler = new SelectorFunctionHelper();
-            ContractInfoReader contractInfoReader = new ContractInfoReader(EvmSourceProvider.fromAnyFile(contractFile), false);
-            EvmSelectorFunctionProviderTemplate providerTemplate;
-
-            if (pre) {
-                ConstantAnalysis ca = new ConstantAnalysis(contractInfoReader.getContractInfos());
-                ca.getBlocksFromBytecode();
-                ca.runBlocks();
-                //ca.splitToStandardAndRichOpcodeToPosition();
-                providerTemplate = ca;
-            } else {
-                providerTemplate = new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos());
-                //contractInfoReader.populateStandardOpcodes();
+
+            RuleCache ruleCache = null;
+            String cacheKey = null;
+            Optional<RuleCache.Entry> cacheEntry = Optional.empty();
+            if (cacheDir != null) {
+                ruleCache = new RuleCache(Paths.get(cacheDir), cacheMaxSize * 1024 * 1024, TimeUnit.DAYS.toMillis(cacheMaxAge));
+                cacheKey = getCacheKey(contractFile);
+                cacheEntry = ruleCache.get(cacheKey);
             }
 
-            compiler.registerProvider(providerTemplate);
+            List<Rule> allRules;
+            RuleTypeOracle ruleTypeOracle;
+            if (cacheEntry.isPresent()) {
+                allRules = cacheEntry.get().rules;
+                ruleTypeOracle = new RuleTypeOracle(cacheEntry.get().toVisitorState());
+            } else {
+                SelectorFunctionHelper compiler = new SelectorFunctionHelper();
+                ContractInfoReader contractInfoReader = new ContractInfoReader(EvmSourceProvider.fromAnyFile(contractFile), false);
+                EvmSelectorFunctionProviderTemplate providerTemplate;
+
+                if (pre) {
+                    ConstantAnalysis ca = new ConstantAnalysis(contractInfoReader.getContractInfos());
+                    ca.getBlocksFromBytecode();
+                    ca.runBlocks();
+                    //ca.splitToStandardAndRichOpcodeToPosition();
+                    providerTemplate = ca;
+                } else {
+                    providerTemplate = new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos());
+                    //contractInfoReader.populateStandardOpcodes();
+                }
 
-            VisitorState state = new VisitorState();
-            state.setSelectorFunctionHelper(compiler);
+                compiler.registerProvider(providerTemplate);
 
-            state = parseAllHorstFiles(state);
+                VisitorState state = new VisitorState();
+                state.setSelectorFunctionHelper(compiler);
 
-            RuleTypeOracle ruleTypeOracle = new RuleTypeOracle(state);
+                state = parseAllHorstFiles(state);
 
-            TranslationPipeline.TranslationPipelineBuilder pipelineBuilder = TranslationPipeline
-                    .builder()
-                    .addStep(new InlineOperationsRuleVisitor(new ArrayList<>(state.getOperations().values())))
-                    .addStep(new InlineTypesRuleVisitor(new InlineTypesExpressionVisitor(new FlatTypeLayouterWithBoolean())))
-                    .addFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(compiler)))
-                    .addStep(new SimplifyPredicateArgumentsRuleVisitor())
-                    .addStep(new RenameFreeVariablesRuleVisitor())
-                    .addStep(new ConstantFoldingRuleVisitor())
-                    .addStep(new FilterUnapplicableClausesRuleVisitor(ruleTypeOracle))
-                    .addStep(new RemoveTruePremiseRuleVisitor());
+                ruleTypeOracle = new RuleTypeOracle(state);
 
-            TranslationPipeline pipeline = pipelineBuilder.build();
-            List<Rule> allRules = pipeline.apply(new ArrayList<>(state.getRules().values()));
+                SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(compiler);
+                TranslationPipeline.TranslationPipelineBuilder pipelineBuilder = TranslationPipeline
+                        .builder()
+                        .addStep(new InlineOperationsRuleVisitor(new ArrayList<>(state.getOperations().values())))
+                        .addStep(new InlineTypesRuleVisitor(new InlineTypesExpressionVisitor(new FlatTypeLayouterWithBoolean())))
+                        .addDeferredFlatMappingStep(new InstantiateParametersRuleVisitor(selectorFunctionInvoker)::instantiateDeferred)
+                        .describeStep(InstantiateParametersRuleVisitor.class.getSimpleName())
+                        .profileSelectorFunctions(selectorFunctionInvoker)
+                        .parallel(pipelineThreads);
+
+                if (chainedSimplification) {
+                    pipelineBuilder.addChainedSimplificationSteps(ruleTypeOracle, true);
+                } else {
+                    pipelineBuilder.addSimplificationStep(ruleTypeOracle, true);
+                }
+
+                if (deleteUnreachableClauses) {
+                    pipelineBuilder.addUnreachableClauseEliminationStep(ruleTypeOracle);
+                }
+
+                if (profilePipeline) {
+                    pipelineBuilder.enableProfiling();
+                }
+
+                TranslationPipeline pipeline = pipelineBuilder.build();
+                allRules = pipeline.apply(new ArrayList<>(state.getRules().values()));
+
+                if (profilePipeline) {
+                    writePipelineProfile(pipeline, contractFile);
+                }
+
+                if (ruleCache != null) {
+                    putIntoCache(ruleCache, cacheKey, new RuleCache.Entry(allRules, state));
+                }
+            }
 
-            if (bigStep) {
+            if (bigStep && portfolio.length == 0) {
                 allRules = MediumStepTransformer.foldToMediumSteps(allRules, ruleTypeOracle);
             }
 
-            List<ExecutionResult> executionResults = (new Z3QueryExecutor()).executeQueries(allRules, ruleTypeOracle);
+            List<ExecutionResult> executionResults;
+            if (solverCommand != null) {
+                executionResults = executeQueriesInProcesses(allRules, ruleTypeOracle);
+            } else {
+                executionResults = executeQueriesWithZ3(allRules, ruleTypeOracle);
+            }
 
             for(ExecutionResultHandler resultHandler : resultHandlers) {
                 resultHandler.handle(executionResults);
@@ -105,6 +230,75 @@ public class EvmHorstCompiler implements Runnable {
         }
     }
 
+    private String getCacheKey(File contractFile) {
+        try {
+            RuleCache.KeyBuilder keyBuilder = RuleCache.keyBuilder()
+                    .addCodeSource(EvmHorstCompiler.class)
+                    .addFlag("preanalysis", pre)
+                    .addFlag("delete-unreachable-clauses", deleteUnreachableClauses)
+                    .addFile(contractFile);
+            for (String horstFile : horstFiles) {
+                keyBuilder.addFile(new File(horstFile));
+            }
+            return keyBuilder.build();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while hashing the inputs of " + contractFile.getName(), e);
+        }
+    }
+
+    private static void putIntoCache(RuleCache ruleCache, String cacheKey, RuleCache.Entry entry) {
+        try {
+            ruleCache.put(cacheKey, entry);
+        } catch (IOException e) {
+            System.err.println("Could not cache the translated rules: " + e.getMessage());
+        }
+    }
+
+    private List<ExecutionResult> executeQueriesWithZ3(List<Rule> allRules, RuleTypeOracle ruleTypeOracle) {
+        Z3QueryExecutor.Z3QueryExecutorBuilder executorBuilder = Z3QueryExecutor
+                .builder()
+                .reuseFixedpoint(reuseFixedpoint)
+                .threads(threads)
+                .queryBudget(new QueryBudget(queryTimeout, queryResourceLimit))
+                .contractTimeout(contractTimeout)
+                .memoryLimit(memoryLimit)
+                .sliceQueries(sliceQueries)
+                .carryLemmas(carryLemmas)
+                .measureLemmaSavings(measureLemmaSavings);
+
+        for (String escalationBudget : escalationBudgets) {
+            executorBuilder.escalateTo(QueryBudget.parse(escalationBudget));
+        }
+
+        for (String configuration : portfolio) {
+            executorBuilder.addConfiguration(SolverConfiguration.parse(configuration));
+        }
+
+        return executorBuilder.build().executeQueries(allRules, ruleTypeOracle);
+    }
+
+    private List<ExecutionResult> executeQueriesInProcesses(List<Rule> allRules, RuleTypeOracle ruleTypeOracle) {
+        ProcessQueryExecutor.ProcessQueryExecutorBuilder executorBuilder = ProcessQueryExecutor
+                .builder(Arrays.asList(solverCommand.trim().split("\\s+")))
+                .processes(threads)
+                .timeout(queryTimeout);
+
+        if (problemDir != null) {
+            executorBuilder.problemDirectory(new File(problemDir));
+        }
+
+        return executorBuilder.build().executeQueries(allRules, ruleTypeOracle);
+    }
+
+    private void writePipelineProfile(TranslationPipeline pipeline, File contractFile) {
+        String directory = jsonOutDir != null ? jsonOutDir : ".";
+        try {
+            pipeline.writeProfileAsJson(directory + "/" + contractFile.getName() + ".pipeline-profile.json");
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private List<ExecutionResultHandler> initializeResultHandlers(File contractFile) {
         List<ExecutionResultHandler> resultHandlers = new ArrayList<>();
 
@@ -37,6 +37,10 @@ public class EvmRegressionTester implements Runnable {
     @CommandLine.Option(names = {"-p", "--preanalysis"}, description = "Apply pre-analysis")
     private boolean pre = false;
 
+    @CommandLine.Option(names = {"--chained-simplification"}, description = "Simplify the instantiated rules with one pipeline step per simplification " +
+            "instead of a single fused step. The resulting rules are the same, the fused step is faster.")
+    private boolean chainedSimplification = false;
+
     @CommandLine.Parameters
     private File[] contractFiles;
 
@@ -74,17 +78,19 @@ public class EvmRegressionTester implements Runnable {
 
             RuleTypeOracle ruleTypeOracle = new RuleTypeOracle(state);
 
-            TranslationPipeline pipeline = TranslationPipeline
+            TranslationPipeline.TranslationPipelineBuilder pipelineBuilder = TranslationPipeline
                     .builder()
                     .addStep(new InlineOperationsRuleVisitor(new ArrayList<>(state.getOperations().values())))
                     .addStep(new InlineTypesRuleVisitor(new InlineTypesExpressionVisitor(new FlatTypeLayouterWithBoolean())))
-                    .addFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(compiler)))
-                    .addStep(new SimplifyPredicateArgumentsRuleVisitor())
-                    .addStep(new RenameFreeVariablesRuleVisitor())
-                    .addStep(new ConstantFoldingRuleVisitor())
-                    .addStep(new FilterUnapplicableClausesRuleVisitor(ruleTypeOracle))
-                    .addStep(new RemoveTruePremiseRuleVisitor())
-                    .build();
+                    .addLazyFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(compiler))::instantiate);
+
+            if (chainedSimplification) {
+                pipelineBuilder.addChainedSimplificationSteps(ruleTypeOracle, true);
+            } else {
+                pipelineBuilder.addSimplificationStep(ruleTypeOracle, true);
+            }
+
+            TranslationPipeline pipeline = pipelineBuilder.build();
 
             List<Rule> renamedFreeVarRules = pipeline.apply(new ArrayList<>(state.getRules().values()));
 
@@ -16,6 +16,7 @@ import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 public class EvmSelectorFunctionProvider implements EvmSelectorFunctionProviderTemplate {
     private static final Logger LOGGER = LogManager.getLogger(EvmSelectorFunctionProvider.class);
@@ -27,9 +28,11 @@ public class EvmSelectorFunctionProvider implements EvmSelectorFunctionProviderT
     //    return intervalProvider.interval(BigInteger.ZERO, a);
     //}
 
+    // the pcs and opcodes the functions with a single integer result return fit into a long, so they are returned as
+    // long[] and only turned into values when the bindings are created
     @Override
-    public Iterable<BigInteger> interval(BigInteger a, BigInteger b) {
-        return intervalProvider.interval(a, b);
+    public long[] interval(BigInteger a, BigInteger b) {
+        return LongStream.range(a.longValueExact(), b.longValueExact()).toArray();
     }
 
     public Iterable<Tuple2<BigInteger, BigInteger>> sizeAndOffSetForWordsize(BigInteger a) {
@@ -48,78 +51,78 @@ public class EvmSelectorFunctionProvider implements EvmSelectorFunctionProviderT
     }
 
     @Override
-    public Iterable<BigInteger> binOps() {
-        List<BigInteger> ret = new ArrayList<>();
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.MUL.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SUB.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.DIV.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SDIV.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.MOD.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SMOD.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.LT.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.GT.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SLT.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SGT.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.EQ.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.XOR.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.BYTE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SIGNEXTEND.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SHL.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SHR.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SAR.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.EXP.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.SHA3.opcode));
-        return ret;
+    public long[] binOps() {
+        return new long[]{
+                ContractLexer.Opcode.ADD.opcode,
+                ContractLexer.Opcode.MUL.opcode,
+                ContractLexer.Opcode.SUB.opcode,
+                ContractLexer.Opcode.DIV.opcode,
+                ContractLexer.Opcode.SDIV.opcode,
+                ContractLexer.Opcode.MOD.opcode,
+                ContractLexer.Opcode.SMOD.opcode,
+                ContractLexer.Opcode.LT.opcode,
+                ContractLexer.Opcode.GT.opcode,
+                ContractLexer.Opcode.SLT.opcode,
+                ContractLexer.Opcode.SGT.opcode,
+                ContractLexer.Opcode.EQ.opcode,
+                ContractLexer.Opcode.XOR.opcode,
+                ContractLexer.Opcode.BYTE.opcode,
+                ContractLexer.Opcode.SIGNEXTEND.opcode,
+                ContractLexer.Opcode.SHL.opcode,
+                ContractLexer.Opcode.SHR.opcode,
+                ContractLexer.Opcode.SAR.opcode,
+                ContractLexer.Opcode.EXP.opcode,
+                ContractLexer.Opcode.SHA3.opcode
+        };
     }
 
     @Override
-    public Iterable<BigInteger> unOps() {
-        List<BigInteger> ret = new ArrayList<>();
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.NOT.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.ISZERO.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.BALANCE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CALLDATALOAD.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.EXTCODESIZE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.BLOCKHASH.opcode));
-        return ret;
+    public long[] unOps() {
+        return new long[]{
+                ContractLexer.Opcode.NOT.opcode,
+                ContractLexer.Opcode.ISZERO.opcode,
+                ContractLexer.Opcode.BALANCE.opcode,
+                ContractLexer.Opcode.CALLDATALOAD.opcode,
+                ContractLexer.Opcode.EXTCODESIZE.opcode,
+                ContractLexer.Opcode.BLOCKHASH.opcode
+        };
     }
 
     @Override
-    public Iterable<BigInteger> terOps() {
-        List<BigInteger> ret = new ArrayList<>();
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.ADDMOD.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.MULMOD.opcode));
-        return ret;
+    public long[] terOps() {
+        return new long[]{
+                ContractLexer.Opcode.ADDMOD.opcode,
+                ContractLexer.Opcode.MULMOD.opcode
+        };
     }
 
     @Override
-    public Iterable<BigInteger> unitOps() {
-        List<BigInteger> ret = new ArrayList<>();
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.ADDRESS.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.ORIGIN.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CALLDATASIZE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CALLVALUE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CALLER.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CODESIZE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.GASPRICE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.RETURNDATASIZE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.COINBASE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.TIMESTAMP.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.NUMBER.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.DIFFICULTY.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.GASLIMIT.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.MSIZE.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.GAS.opcode));
-        return ret;
+    public long[] unitOps() {
+        return new long[]{
+                ContractLexer.Opcode.ADDRESS.opcode,
+                ContractLexer.Opcode.ORIGIN.opcode,
+                ContractLexer.Opcode.CALLDATASIZE.opcode,
+                ContractLexer.Opcode.CALLVALUE.opcode,
+                ContractLexer.Opcode.CALLER.opcode,
+                ContractLexer.Opcode.CODESIZE.opcode,
+                ContractLexer.Opcode.GASPRICE.opcode,
+                ContractLexer.Opcode.RETURNDATASIZE.opcode,
+                ContractLexer.Opcode.COINBASE.opcode,
+                ContractLexer.Opcode.TIMESTAMP.opcode,
+                ContractLexer.Opcode.NUMBER.opcode,
+                ContractLexer.Opcode.DIFFICULTY.opcode,
+                ContractLexer.Opcode.GASLIMIT.opcode,
+                ContractLexer.Opcode.MSIZE.opcode,
+                ContractLexer.Opcode.GAS.opcode
+        };
     }
 
-    public Iterable<BigInteger> copyOps() {
-        List<BigInteger> ret = new ArrayList<>();
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.RETURNDATACOPY.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CALLDATACOPY.opcode));
-        ret.add(BigInteger.valueOf(ContractLexer.Opcode.CODECOPY.opcode));
-        return ret;
+    public long[] copyOps() {
+        return new long[]{
+                ContractLexer.Opcode.RETURNDATACOPY.opcode,
+                ContractLexer.Opcode.CALLDATACOPY.opcode,
+                ContractLexer.Opcode.CODECOPY.opcode
+        };
     }
 
 
@@ -276,19 +279,17 @@ public class EvmSelectorFunctionProvider implements EvmSelectorFunctionProviderT
         return Collections.singletonList(constructor.apply(inst.args, inst.opcode));
     }
     public Iterable<BigInteger> ids () { return Collections.singletonList(contractInfos.keySet().iterator().next()); }
-    public Iterable<BigInteger> pcsForId (BigInteger id) {
+    public long[] pcsForId (BigInteger id) {
         ContractLexer.ContractInfo ci = contractInfos.getOrDefault(id, new ContractLexer.ContractInfo());
-        return ci.getAllProgramCounters();
+        return ci.getPositionToOpcode().keySet().stream().mapToLong(Integer::longValue).toArray();
     }
-    public Iterable<BigInteger> pcsForIdAndOpcode (BigInteger id, BigInteger opcode) {
-        ArrayList<BigInteger> ret = new ArrayList<>();
+    public long[] pcsForIdAndOpcode (BigInteger id, BigInteger opcode) {
         Optional<ContractLexer.Opcode> rez = ContractLexer.Opcode.findByInt(opcode.intValue());
         if (rez.isPresent()) {
             ContractLexer.ContractInfo ci = contractInfos.getOrDefault(id, new ContractLexer.ContractInfo());
-            ci.getInstancesForOpcode(rez.get()).forEach(i -> ret.add(BigInteger.valueOf(i.position)));
-            return ret;
+            return ci.getInstancesForOpcode(rez.get()).stream().mapToLong(i -> i.position).toArray();
         }
-        return ret;
+        return new long[0];
     }
     private boolean resultsExist(BigInteger id, BigInteger pc){
         List<Tuple2<BigInteger, BigInteger>> results = new ArrayList<>();
@@ -331,30 +332,27 @@ public class EvmSelectorFunctionProvider implements EvmSelectorFunctionProviderT
             return Collections.emptyList();
         }
     }
-    public Iterable<BigInteger> jumpDestsForIdAndPc (BigInteger id, BigInteger pc) {
+    public long[] jumpDestsForIdAndPc (BigInteger id, BigInteger pc) {
         ContractLexer.ContractInfo ci = contractInfos.getOrDefault(id, new ContractLexer.ContractInfo());
-        return ci.jumps.getOrDefault(pc, new ArrayList<>());
+        return ci.jumps.getOrDefault(pc, Collections.emptyList()).stream().mapToLong(BigInteger::longValueExact).toArray();
     }
     public Iterable<Boolean> jumpDestUniqueForIdAndPc (BigInteger id, BigInteger pc) {
-        List<BigInteger> targets = new ArrayList<>();
-        jumpDestsForIdAndPc(id, pc).forEach(targets::add);
-        if (targets.size() == 1){
+        if (jumpDestsForIdAndPc(id, pc).length == 1){
             return Collections.singletonList(true);
         }
         else{
             return Collections.singletonList(false);
         }
     }
-    public Iterable<BigInteger> lastPcsForId (BigInteger id) {
-        List<Tuple2<BigInteger, BigInteger>> ret = new ArrayList<>();
+    public long[] lastPcsForId (BigInteger id) {
         ContractLexer.ContractInfo ci = contractInfos.getOrDefault(id, new ContractLexer.ContractInfo());
         BigInteger max = ci.getMaxProgramCounter();
         ContractLexer.OpcodeInstance lastOpcode = ci.getOpcodeInstance(max.intValue());
         if (ContractLexer.Opcode.isPush(lastOpcode.opcode)){
-            return Collections.singletonList(max.add(BigInteger.valueOf(ContractLexer.Opcode.getNumberOfPushedBytes(lastOpcode.opcode))).add(BigInteger.ONE));
+            return new long[]{max.add(BigInteger.valueOf(ContractLexer.Opcode.getNumberOfPushedBytes(lastOpcode.opcode))).add(BigInteger.ONE).longValueExact()};
         }
         else{
-            return Collections.singletonList(max.add(BigInteger.ONE));
+            return new long[]{max.add(BigInteger.ONE).longValueExact()};
         }
     }
 }
@@ -10,7 +10,7 @@ import java.math.BigInteger;
 public interface EvmSelectorFunctionProviderTemplate {
     //Iterable<BigInteger> interval(BigInteger a);
 
-    Iterable<BigInteger> interval(BigInteger a, BigInteger b);
+    long[] interval(BigInteger a, BigInteger b);
 
     Iterable<Tuple2<BigInteger, BigInteger>> sizeAndOffSetForWordsize(BigInteger wordSize);
 
@@ -36,28 +36,28 @@ public interface EvmSelectorFunctionProviderTemplate {
 
     //Iterable<Tuple2<BigInteger, BigInteger>> allIdsAndPcs();
 
-    Iterable<BigInteger> binOps();
+    long[] binOps();
 
-    Iterable<BigInteger> unOps();
+    long[] unOps();
 
-    Iterable<BigInteger> terOps();
+    long[] terOps();
 
-    Iterable<BigInteger> unitOps();
+    long[] unitOps();
 
-    Iterable<BigInteger> copyOps();
+    long[] copyOps();
 
 
 
 
     Iterable<BigInteger> ids();
-    Iterable<BigInteger> pcsForIdAndOpcode(BigInteger id, BigInteger opcode);
+    long[] pcsForIdAndOpcode(BigInteger id, BigInteger opcode);
     Iterable<Tuple2<BigInteger, BigInteger>> resultsForIdAndPc(BigInteger id, BigInteger pc);
     Iterable<BigInteger> argumentsZeroForIdAndPc(BigInteger id, BigInteger pc);
     Iterable<BigInteger> argumentsOneForIdAndPc(BigInteger id, BigInteger pc);
     Iterable<Tuple2<BigInteger, BigInteger>> argumentsTwoForIdAndPc(BigInteger id, BigInteger pc);
     Iterable<Tuple3<BigInteger, BigInteger, BigInteger>> argumentsThreeForIdAndPc(BigInteger id, BigInteger pc);
-    Iterable<BigInteger> jumpDestsForIdAndPc(BigInteger id, BigInteger pc);
+    long[] jumpDestsForIdAndPc(BigInteger id, BigInteger pc);
     Iterable<Boolean> jumpDestUniqueForIdAndPc(BigInteger id, BigInteger pc);
-    Iterable<BigInteger> pcsForId(BigInteger id);
-    Iterable<BigInteger> lastPcsForId(BigInteger id);
+    long[] pcsForId(BigInteger id);
+    long[] lastPcsForId(BigInteger id);
 }
@@ -0,0 +1,187 @@
+package secpriv.horst.execution;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Fixedpoint;
+import com.microsoft.z3.Status;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import secpriv.horst.data.Predicate;
+import secpriv.horst.data.Rule;
+import secpriv.horst.translation.TranslateToZ3VisitorState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Decides whether any of a list of queries is satisfiable with a single solver call. Auxiliary goal predicates form a
+ * binary tree over the queries: every query implies the goal of its leaf and every goal implies the goal of its parent,
+ * so querying the goal of a node decides whether any query below it is satisfiable. Only the root goal is queried
+ * first. If it is satisfiable, the tree is descended to find a satisfiable query, which takes a logarithmic number of
+ * further solver calls. All goals are added to the fixedpoint up front, so the calls can share one fixedpoint.
+ */
+public class CombinedQuerySolver {
+    private static final Logger logger = LogManager.getLogger(CombinedQuerySolver.class);
+    private static final String GOAL_PREFIX = "__goal";
+
+    private final TranslateToZ3VisitorState z3TranslationState;
+    private final List<BoolExpr> rulesForZ3;
+    private final boolean settings;
+    private final boolean reuseFixedpoint;
+    private int goalCount = 0;
+    private int solverCalls = 0;
+
+    /**
+     * @param rulesForZ3      the translated rules including the queries
+     * @param settings        whether to register the relations with bound_relation and interval_relation settings
+     * @param reuseFixedpoint whether all solver calls of a search are made on one fixedpoint instead of a fresh one each
+     */
+    public CombinedQuerySolver(TranslateToZ3VisitorState z3TranslationState, List<BoolExpr> rulesForZ3, boolean settings, boolean reuseFixedpoint) {
+        this.z3TranslationState = Objects.requireNonNull(z3TranslationState, "Z3TranslationState may not be null!");
+        this.rulesForZ3 = Objects.requireNonNull(rulesForZ3, "RulesForZ3 may not be null!");
+        this.settings = settings;
+        this.reuseFixedpoint = reuseFixedpoint;
+    }
+
+    public static class Result {
+        /**
+         * {@link Status#SATISFIABLE} if some query is satisfiable, {@link Status#UNSATISFIABLE} if all queries are
+         * unsatisfiable and {@link Status#UNKNOWN} if neither could be established.
+         */
+        public final Status status;
+        /**
+         * A satisfiable query if {@link #status} is {@link Status#SATISFIABLE}. This is the first satisfiable query
+         * in the given order unless the solver returned {@link Status#UNKNOWN} during bisection.
+         */
+        public final Optional<Rule> satisfiableQuery;
+        public final int solverCalls;
+
+        private Result(Status status, Optional<Rule> satisfiableQuery, int solverCalls) {
+            this.status = status;
+            this.satisfiableQuery = satisfiableQuery;
+            this.solverCalls = solverCalls;
+        }
+    }
+
+    /**
+     * A node of the goal tree, it covers the queries from (inclusive) to (exclusive). Leaves use the query predicate
+     * itself as goal.
+     */
+    private static class Goal {
+        final int from;
+        final int to;
+        final BoolExpr atom;
+        final Goal left;
+        final Goal right;
+
+        private Goal(int from, int to, BoolExpr atom, Goal left, Goal right) {
+            this.from = from;
+            this.to = to;
+            this.atom = atom;
+            this.left = left;
+            this.right = right;
+        }
+
+        private boolean isLeaf() {
+            return left == null;
+        }
+    }
+
+    private class Search {
+        private final List<Rule> queries;
+        private final List<Predicate> goalPredicates = new ArrayList<>();
+        private final List<BoolExpr> goalRules = new ArrayList<>();
+        private final Goal root;
+        private List<BoolExpr> rules;
+        private Fixedpoint fixedpoint = null;
+
+        private Search(List<Rule> queries) {
+            this.queries = queries;
+            this.root = buildGoal(0, queries.size());
+        }
+
+        private Goal buildGoal(int from, int to) {
+            if (to - from == 1) {
+                Predicate queryPredicate = new Predicate(queries.get(from).name, Collections.emptyList(), Collections.emptyList());
+                return new Goal(from, to, (BoolExpr) z3TranslationState.getZ3PredicateDeclaration(queryPredicate).apply(), null, null);
+            }
+            // the same split as in bisect
+            int middle = from + (to - from) / 2;
+            Goal left = buildGoal(from, middle);
+            Goal right = buildGoal(middle, to);
+
+            Predicate goalPredicate = new Predicate(GOAL_PREFIX + goalCount++, Collections.emptyList(), Collections.emptyList());
+            goalPredicates.add(goalPredicate);
+            BoolExpr atom = (BoolExpr) z3TranslationState.getZ3PredicateDeclaration(goalPredicate).apply();
+            goalRules.add(z3TranslationState.context.mkImplies(left.atom, atom));
+            goalRules.add(z3TranslationState.context.mkImplies(right.atom, atom));
+
+            return new Goal(from, to, atom, left, right);
+        }
+
+        private Result find() {
+            rules = new ArrayList<>(rulesForZ3.size() + goalRules.size());
+            rules.addAll(rulesForZ3);
+            rules.addAll(goalRules);
+
+            Status status = solve(root);
+            if (status != Status.SATISFIABLE) {
+                return new Result(status, Optional.empty(), solverCalls);
+            }
+            return bisect();
+        }
+
+        private Result bisect() {
+            Goal goal = root;
+            while (!goal.isLeaf()) {
+                Status leftStatus = solve(goal.left);
+                if (leftStatus == Status.SATISFIABLE) {
+                    goal = goal.left;
+                } else if (leftStatus == Status.UNSATISFIABLE) {
+                    // the union is satisfiable, so the right half has to be
+                    goal = goal.right;
+                } else if (solve(goal.right) == Status.SATISFIABLE) {
+                    goal = goal.right;
+                } else {
+                    return new Result(Status.UNKNOWN, Optional.empty(), solverCalls);
+                }
+            }
+            return new Result(Status.SATISFIABLE, Optional.of(queries.get(goal.from)), solverCalls);
+        }
+
+        private Status solve(Goal goal) {
+            ++solverCalls;
+
+            long start = System.currentTimeMillis();
+            if (fixedpoint == null || !reuseFixedpoint) {
+                fixedpoint = z3TranslationState.createFixedpoint(rules, settings);
+            }
+            Status status = fixedpoint.query(goal.atom);
+            logger.info("Combined query over " + (goal.to - goal.from) + " queries (" + queries.get(goal.from).name +
+                    (goal.to - goal.from > 1 ? " to " + queries.get(goal.to - 1).name : "") + "): " + status +
+                    " (" + (System.currentTimeMillis() - start) + " ms)");
+            return status;
+        }
+
+        private void close() {
+            // the goals only exist for this search, later fixedpoints of the state must not register them
+            goalPredicates.forEach(z3TranslationState::removeZ3PredicateDeclaration);
+        }
+    }
+
+    public Result findSatisfiableQuery(List<Rule> queries) {
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("Queries may not be empty!");
+        }
+        solverCalls = 0;
+
+        Search search = new Search(queries);
+        try {
+            return search.find();
+        } finally {
+            search.close();
+        }
+    }
+}
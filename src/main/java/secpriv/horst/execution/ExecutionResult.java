@@ -9,22 +9,28 @@ public abstract class ExecutionResult {
     public final Status status;
     public final String queryId;
     public final Optional<String> info;
+    public final Optional<String> configuration;
 
     public interface Visitor<T> {
         T accept(QueryResult queryResult);
         T accept(TestResult testResult);
     }
 
-    private ExecutionResult(String queryId, Status status, long executionTime, Optional<String> info) {
+    private ExecutionResult(String queryId, Status status, long executionTime, Optional<String> info, Optional<String> configuration) {
         this.queryId = queryId;
         this.status = status;
         this.executionTime = executionTime;
         this.info = info;
+        this.configuration = configuration;
     }
 
     public static class QueryResult extends ExecutionResult {
         public QueryResult(String queryId, Status status, long executionTime, Optional<String> info) {
-            super(queryId, status, executionTime, info);
+            this(queryId, status, executionTime, info, Optional.empty());
+        }
+
+        public QueryResult(String queryId, Status status, long executionTime, Optional<String> info, Optional<String> configuration) {
+            super(queryId, status, executionTime, info, configuration);
         }
 
         public <T> T accept(Visitor<T> visitor) {
@@ -36,7 +42,11 @@ public abstract class ExecutionResult {
         public final boolean success;
 
         public TestResult(String queryId, Status status, long executionTime, boolean success, Optional<String> info) {
-            super(queryId, status, executionTime, info);
+            this(queryId, status, executionTime, success, info, Optional.empty());
+        }
+
+        public TestResult(String queryId, Status status, long executionTime, boolean success, Optional<String> info, Optional<String> configuration) {
+            super(queryId, status, executionTime, info, configuration);
             this.success = success;
         }
 
@@ -0,0 +1,241 @@
+package secpriv.horst.execution;
+
+import com.microsoft.z3.Status;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import secpriv.horst.data.Rule;
+import secpriv.horst.tools.SmtLibGenerator;
+import secpriv.horst.visitors.RuleTypeOracle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Executes every query in a separate solver process. The rules are written once in the SMT-LIB fixedpoint format of
+ * {@link SmtLibGenerator}, every process reads them followed by the {@code (query ...)} command of its query on its
+ * standard input. The solver is expected to print sat, unsat or unknown as first line of its output. A crashing or
+ * runaway solver only affects the query it was started for.
+ */
+public class ProcessQueryExecutor {
+    private static final Logger logger = LogManager.getLogger(ProcessQueryExecutor.class);
+    private static final int MAX_INFO_LENGTH = 1000;
+    private static final String RULES_FILE_NAME = "rules.smt2";
+
+    private final List<String> solverCommand;
+    private final int processes;
+    private final long timeout;
+    private final File problemDirectory;
+
+    private ProcessQueryExecutor(ProcessQueryExecutorBuilder builder) {
+        this.solverCommand = Collections.unmodifiableList(new ArrayList<>(builder.solverCommand));
+        this.processes = builder.processes;
+        this.timeout = builder.timeout;
+        this.problemDirectory = builder.problemDirectory;
+    }
+
+    /**
+     * @param solverCommand the solver executable and its arguments, the problem is passed on standard input
+     */
+    public static ProcessQueryExecutorBuilder builder(List<String> solverCommand) {
+        return new ProcessQueryExecutorBuilder(solverCommand);
+    }
+
+    public static class ProcessQueryExecutorBuilder {
+        private final List<String> solverCommand;
+        private int processes = 1;
+        private long timeout = 0;
+        private File problemDirectory = null;
+
+        private ProcessQueryExecutorBuilder(List<String> solverCommand) {
+            Objects.requireNonNull(solverCommand, "SolverCommand may not be null!");
+            if (solverCommand.isEmpty()) {
+                throw new IllegalArgumentException("SolverCommand may not be empty!");
+            }
+            this.solverCommand = solverCommand;
+        }
+
+        /**
+         * Sets the number of solver processes that run at the same time.
+         */
+        public ProcessQueryExecutorBuilder processes(int processes) {
+            if (processes < 1) {
+                throw new IllegalArgumentException("Number of processes has to be positive!");
+            }
+            this.processes = processes;
+            return this;
+        }
+
+        /**
+         * Sets the wall-clock time in milliseconds a solver process may run, 0 means unlimited. Processes that
+         * exceed it are killed and the query is reported as {@link Status#UNKNOWN}.
+         */
+        public ProcessQueryExecutorBuilder timeout(long timeout) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("Timeout may not be negative!");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Keeps the rules file and the output files of the queries in the given directory. By default they are
+         * written to a temporary directory that is deleted afterwards.
+         */
+        public ProcessQueryExecutorBuilder problemDirectory(File problemDirectory) {
+            this.problemDirectory = Objects.requireNonNull(problemDirectory, "ProblemDirectory may not be null!");
+            return this;
+        }
+
+        public ProcessQueryExecutor build() {
+            return new ProcessQueryExecutor(this);
+        }
+    }
+
+    public List<ExecutionResult> executeQueries(List<Rule> rules, RuleTypeOracle oracle) {
+        List<Rule> queries = rules.stream().filter(oracle::isQueryOrTest).collect(Collectors.toList());
+        String problem = SmtLibGenerator.generateSmtLib(rules, Collections.emptyList());
+
+        File directory;
+        File rulesFile;
+        try {
+            directory = problemDirectory != null ? Files.createDirectories(problemDirectory.toPath()).toFile() : Files.createTempDirectory("horst").toFile();
+            rulesFile = new File(directory, RULES_FILE_NAME);
+            Files.write(rulesFile.toPath(), problem.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Error while writing the rules for the solver", e);
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(processes, queries.size())));
+        try {
+            List<Future<ExecutionResult>> futures = new ArrayList<>();
+            for (int i = 0; i < queries.size(); ++i) {
+                Rule query = queries.get(i);
+                // query names may contain characters that are not allowed in file names, the index keeps the names unique
+                File outputFile = new File(directory, i + "-" + toFileName(query.name) + ".out");
+                futures.add(executorService.submit(() -> solve(query, rulesFile, outputFile, oracle)));
+            }
+
+            List<ExecutionResult> results = new ArrayList<>();
+            for (Future<ExecutionResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while executing queries", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error while executing queries", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+            if (problemDirectory == null) {
+                deleteDirectory(directory);
+            }
+        }
+    }
+
+    private ExecutionResult solve(Rule query, File rulesFile, File outputFile, RuleTypeOracle oracle) {
+        long start = System.currentTimeMillis();
+        Status result;
+        Optional<String> info = Optional.empty();
+
+        try {
+            Process process = new ProcessBuilder(solverCommand).redirectErrorStream(true).redirectOutput(outputFile).start();
+            writeProblem(process, rulesFile, "(query " + query.name + ")\n");
+
+            boolean finished;
+            if (timeout > 0) {
+                finished = process.waitFor(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                process.waitFor();
+                finished = true;
+            }
+
+            if (!finished) {
+                process.destroyForcibly().waitFor();
+                result = Status.UNKNOWN;
+                info = Optional.of("query timeout of " + timeout + " ms exceeded");
+            } else {
+                List<String> output = Files.readAllLines(outputFile.toPath(), StandardCharsets.UTF_8);
+                result = parseStatus(output);
+                if (result == Status.UNKNOWN) {
+                    info = Optional.of(abbreviate("exit code " + process.exitValue() + ": " + String.join("\n", output)));
+                }
+            }
+        } catch (IOException e) {
+            result = Status.UNKNOWN;
+            info = Optional.of(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for solver", e);
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        logger.info("Query " + query.name + ": " + result + info.map(s -> " [" + s + "]").orElse("") + " (" + duration + " ms)");
+
+        return Z3QueryExecutor.toExecutionResult(query, result, duration, info, Optional.empty(), oracle);
+    }
+
+    /**
+     * Writes the problem to the standard input of the solver in a separate thread, so a solver that does not read
+     * its input cannot block the timeout.
+     */
+    private static void writeProblem(Process process, File rulesFile, String queryCommand) {
+        Thread writer = new Thread(() -> {
+            try (OutputStream input = process.getOutputStream()) {
+                Files.copy(rulesFile.toPath(), input);
+                input.write(queryCommand.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // the solver stopped reading, its output and exit code tell why
+                logger.debug("Could not pass the problem to the solver: " + e.getMessage());
+            }
+        }, "solver-input");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static String toFileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    private static Status parseStatus(List<String> output) {
+        for (String line : output) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            switch (trimmed) {
+                case "sat":
+                    return Status.SATISFIABLE;
+                case "unsat":
+                    return Status.UNSATISFIABLE;
+                default:
+                    return Status.UNKNOWN;
+            }
+        }
+        return Status.UNKNOWN;
+    }
+
+    private static String abbreviate(String s) {
+        return s.length() > MAX_INFO_LENGTH ? s.substring(0, MAX_INFO_LENGTH) + "..." : s;
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    logger.warn("Could not delete " + file);
+                }
+            }
+        }
+        if (!directory.delete()) {
+            logger.warn("Could not delete " + directory);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package secpriv.horst.execution;
+
+public class QueryBudget {
+    public static final QueryBudget UNLIMITED = new QueryBudget(0, 0);
+
+    /**
+     * Wall-clock time in milliseconds a single query may take, 0 means unlimited.
+     */
+    public final long timeout;
+    /**
+     * Z3 resource limit ("rlimit") of a single query, 0 means unlimited.
+     */
+    public final int resourceLimit;
+
+    public QueryBudget(long timeout, int resourceLimit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout may not be negative!");
+        }
+        if (resourceLimit < 0) {
+            throw new IllegalArgumentException("Resource limit may not be negative!");
+        }
+        this.timeout = timeout;
+        this.resourceLimit = resourceLimit;
+    }
+
+    /**
+     * Parses a budget of the form {@code timeout[:rlimit]}, e.g. {@code 60000} or {@code 60000:5000000}.
+     */
+    public static QueryBudget parse(String s) {
+        String[] parts = s.split(":");
+        try {
+            if (parts.length == 1) {
+                return new QueryBudget(Long.parseLong(parts[0]), 0);
+            } else if (parts.length == 2) {
+                return new QueryBudget(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed query budget " + s + "! Expected timeout[:rlimit].", e);
+        }
+        throw new IllegalArgumentException("Malformed query budget " + s + "! Expected timeout[:rlimit].");
+    }
+
+    public boolean isUnlimited() {
+        return timeout == 0 && resourceLimit == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryBudget{timeout=" + (timeout == 0 ? "unlimited" : timeout + " ms") +
+                ", rlimit=" + (resourceLimit == 0 ? "unlimited" : resourceLimit) + "}";
+    }
+}
@@ -0,0 +1,78 @@
+package secpriv.horst.execution;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public class SolverConfiguration {
+    public static final SolverConfiguration DEFAULT = new SolverConfiguration("int", false, false, false, Collections.emptyMap());
+
+    public final String name;
+    public final boolean useBitVectorIntegers;
+    public final boolean useRelationSettings;
+    public final boolean bigStep;
+    public final Map<String, Object> fixedpointParameters;
+
+    public SolverConfiguration(String name, boolean useBitVectorIntegers, boolean useRelationSettings, boolean bigStep, Map<String, Object> fixedpointParameters) {
+        this.name = Objects.requireNonNull(name, "Name may not be null!");
+        this.useBitVectorIntegers = useBitVectorIntegers;
+        this.useRelationSettings = useRelationSettings;
+        this.bigStep = bigStep;
+        this.fixedpointParameters = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(fixedpointParameters, "FixedpointParameters may not be null!")));
+    }
+
+    /**
+     * Parses a comma separated list of options, e.g. {@code bv,relations,big-step,spacer.random_seed=3}.
+     * <ul>
+     * <li>{@code int} or {@code bv} select the integer domain (default is {@code int})</li>
+     * <li>{@code relations} registers the relations with bound_relation and interval_relation settings</li>
+     * <li>{@code big-step} applies the big-step encoding before translating the rules</li>
+     * <li>{@code name=value} sets a fixedpoint parameter, values are interpreted as boolean or integer if possible</li>
+     * </ul>
+     * The configuration is named after the given string.
+     */
+    public static SolverConfiguration parse(String s) {
+        boolean useBitVectorIntegers = false;
+        boolean useRelationSettings = false;
+        boolean bigStep = false;
+        Map<String, Object> fixedpointParameters = new LinkedHashMap<>();
+
+        for (String option : s.split(",")) {
+            option = option.trim();
+            if (option.equals("int")) {
+                useBitVectorIntegers = false;
+            } else if (option.equals("bv")) {
+                useBitVectorIntegers = true;
+            } else if (option.equals("relations")) {
+                useRelationSettings = true;
+            } else if (option.equals("big-step")) {
+                bigStep = true;
+            } else if (option.contains("=")) {
+                String name = option.substring(0, option.indexOf('='));
+                String value = option.substring(option.indexOf('=') + 1);
+                fixedpointParameters.put(name, parseParameterValue(value));
+            } else {
+                throw new IllegalArgumentException("Unknown solver configuration option " + option + " in " + s + "!");
+            }
+        }
+
+        return new SolverConfiguration(s, useBitVectorIntegers, useRelationSettings, bigStep, fixedpointParameters);
+    }
+
+    private static Object parseParameterValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
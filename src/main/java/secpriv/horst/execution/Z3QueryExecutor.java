@@ -1,66 +1,822 @@
 package secpriv.horst.execution;
 
 import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.BoolSort;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
 import com.microsoft.z3.Fixedpoint;
+import com.microsoft.z3.FuncDecl;
+import com.microsoft.z3.Global;
 import com.microsoft.z3.Status;
+import com.microsoft.z3.Z3Exception;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import secpriv.horst.data.Clause;
 import secpriv.horst.data.Predicate;
 import secpriv.horst.data.Rule;
+import secpriv.horst.translation.ConeOfInfluenceSlicer;
+import secpriv.horst.translation.MediumStepTransformer;
 import secpriv.horst.translation.TranslateToZ3VisitorState;
+import secpriv.horst.translation.visitors.TranslateToZ3ClauseVisitor;
 import secpriv.horst.translation.visitors.TranslateToZ3RuleVisitor;
 import secpriv.horst.visitors.RuleTypeOracle;
 import secpriv.horst.visitors.VisitorState;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Z3QueryExecutor {
+    private static final Logger logger = LogManager.getLogger(Z3QueryExecutor.class);
+
+    private final boolean reuseFixedpoint;
+    private final int threads;
+    private final Map<String, Object> fixedpointParameters;
+    private final List<QueryBudget> budgets;
+    private final long contractTimeout;
+    private final int memoryLimit;
+    private final List<SolverConfiguration> configurations;
+    private final boolean sliceQueries;
+    private final boolean carryLemmas;
+    private final boolean measureLemmaSavings;
+    private volatile LemmaStatistics lemmaStatistics = new LemmaStatistics();
+
+    public Z3QueryExecutor() {
+        this(builder());
+    }
+
+    private Z3QueryExecutor(Z3QueryExecutorBuilder builder) {
+        this.reuseFixedpoint = builder.reuseFixedpoint;
+        this.threads = builder.threads;
+        this.fixedpointParameters = new LinkedHashMap<>(builder.fixedpointParameters);
+        this.budgets = new ArrayList<>(builder.budgets);
+        this.contractTimeout = builder.contractTimeout;
+        this.memoryLimit = builder.memoryLimit;
+        this.sliceQueries = builder.sliceQueries;
+        this.carryLemmas = builder.carryLemmas;
+        this.measureLemmaSavings = builder.measureLemmaSavings;
+        this.configurations = builder.configurations.isEmpty() ? Collections.singletonList(SolverConfiguration.DEFAULT) : new ArrayList<>(builder.configurations);
+    }
+
+    public static Z3QueryExecutorBuilder builder() {
+        return new Z3QueryExecutorBuilder();
+    }
+
+    public static class Z3QueryExecutorBuilder {
+        private boolean reuseFixedpoint = false;
+        private int threads = 1;
+        private final Map<String, Object> fixedpointParameters = new LinkedHashMap<>();
+        private final List<QueryBudget> budgets = new ArrayList<>();
+        private long contractTimeout = 0;
+        private int memoryLimit = 0;
+        private final List<SolverConfiguration> configurations = new ArrayList<>();
+        private boolean sliceQueries = false;
+        private boolean carryLemmas = false;
+        private boolean measureLemmaSavings = false;
+
+        private Z3QueryExecutorBuilder() {
+            fixedpointParameters.put("engine", "spacer");
+            budgets.add(QueryBudget.UNLIMITED);
+        }
+
+        /**
+         * If set, each Z3 context loads the rules into a single fixedpoint which then answers all of its queries,
+         * otherwise a fresh fixedpoint is created for each query.
+         * Querying does not add rules to a fixedpoint, so the queries do not influence each other.
+         */
+        public Z3QueryExecutorBuilder reuseFixedpoint(boolean reuseFixedpoint) {
+            this.reuseFixedpoint = reuseFixedpoint;
+            return this;
+        }
+
+        /**
+         * Sets the number of queries that are executed concurrently. Every thread owns a Z3 context per configuration
+         * with its own copy of the translated rules, so memory consumption grows linearly with the number of threads.
+         */
+        public Z3QueryExecutorBuilder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Number of threads has to be positive!");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets a fixedpoint parameter for every context of the executor, see
+         * {@link TranslateToZ3VisitorState#setFixedpointParameter(String, Object)}.
+         */
+        public Z3QueryExecutorBuilder fixedpointParameter(String name, Object value) {
+            fixedpointParameters.put(Objects.requireNonNull(name, "Name may not be null!"), Objects.requireNonNull(value, "Value may not be null!"));
+            return this;
+        }
+
+        /**
+         * Sets the budget every query is executed with first.
+         */
+        public Z3QueryExecutorBuilder queryBudget(QueryBudget budget) {
+            budgets.set(0, Objects.requireNonNull(budget, "Budget may not be null!"));
+            return this;
+        }
+
+        /**
+         * Adds a step to the escalation ladder. Once all queries have been executed with the previous budget, the
+         * queries that ran out of time or resources are executed again with the given budget.
+         */
+        public Z3QueryExecutorBuilder escalateTo(QueryBudget budget) {
+            budgets.add(Objects.requireNonNull(budget, "Budget may not be null!"));
+            return this;
+        }
+
+        /**
+         * Sets the wall-clock time in milliseconds all queries of one call to
+         * {@link Z3QueryExecutor#executeQueries(List, RuleTypeOracle)} may take together, 0 means unlimited.
+         * Queries that are not finished in time are reported as {@link Status#UNKNOWN} and are not escalated.
+         */
+        public Z3QueryExecutorBuilder contractTimeout(long contractTimeout) {
+            if (contractTimeout < 0) {
+                throw new IllegalArgumentException("Contract timeout may not be negative!");
+            }
+            this.contractTimeout = contractTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the amount of memory in megabytes Z3 may allocate, 0 means unlimited. Z3 only supports this limit
+         * globally, so it is shared by all contexts of the process while {@link #executeQueries} runs and the previous
+         * value is restored afterwards.
+         */
+        public Z3QueryExecutorBuilder memoryLimit(int memoryLimit) {
+            if (memoryLimit < 0) {
+                throw new IllegalArgumentException("Memory limit may not be negative!");
+            }
+            this.memoryLimit = memoryLimit;
+            return this;
+        }
+
+        /**
+         * Adds a configuration to the portfolio. If more than one configuration is given, every query is started on all
+         * configurations in parallel, the first definitive answer is taken and the remaining configurations are canceled.
+         * The name of the winning configuration is recorded in the {@link ExecutionResult}.
+         * Without any configuration {@link SolverConfiguration#DEFAULT} is used.
+         */
+        public Z3QueryExecutorBuilder addConfiguration(SolverConfiguration configuration) {
+            configurations.add(Objects.requireNonNull(configuration, "Configuration may not be null!"));
+            return this;
+        }
+
+        /**
+         * If set, every query is solved on its cone of influence only, see {@link ConeOfInfluenceSlicer}.
+         * As each query gets a different set of clauses, a fresh fixedpoint is created for each query regardless of
+         * {@link #reuseFixedpoint(boolean)}.
+         */
+        public Z3QueryExecutorBuilder sliceQueries(boolean sliceQueries) {
+            this.sliceQueries = sliceQueries;
+            return this;
+        }
+
+        /**
+         * If set, the invariants spacer learned for a predicate while answering a query are added as covers to the
+         * fixedpoints of the following queries of the same context, so they do not have to be derived again. Only
+         * invariants of predicates whose defining clauses are all loaded are carried over, hence this is sound with
+         * {@link #sliceQueries(boolean)} as well. Covers require disabling the slicing transformation of Z3
+         * ({@code xform.slice}), which is only done if this is set. Disabled by default.
+         */
+        public Z3QueryExecutorBuilder carryLemmas(boolean carryLemmas) {
+            this.carryLemmas = carryLemmas;
+            return this;
+        }
+
+        /**
+         * If set together with {@link #carryLemmas(boolean)}, every query whose fixedpoint was seeded with carried
+         * lemmas is solved a second time on a fixedpoint without them, so the solving time the lemmas saved can be
+         * reported, see {@link Z3QueryExecutor#getLemmaStatistics()}. This roughly doubles the solving time of these queries and is
+         * meant for evaluation only. Disabled by default.
+         */
+        public Z3QueryExecutorBuilder measureLemmaSavings(boolean measureLemmaSavings) {
+            this.measureLemmaSavings = measureLemmaSavings;
+            return this;
+        }
+
+        public Z3QueryExecutor build() {
+            return new Z3QueryExecutor(this);
+        }
+    }
+
+    /**
+     * @return how the lemmas carried over with {@link Z3QueryExecutorBuilder#carryLemmas(boolean)} were used by the last
+     * call of {@link #executeQueries(List, RuleTypeOracle)}
+     */
+    public LemmaStatistics getLemmaStatistics() {
+        return lemmaStatistics;
+    }
+
     public List<ExecutionResult> executeQueries(List<Rule> rules, RuleTypeOracle oracle) {
-        List<ExecutionResult> results = new ArrayList<>();
+        LemmaStatistics statistics = new LemmaStatistics();
+        lemmaStatistics = statistics;
+        List<Rule> queries = rules.stream().filter(oracle::isQueryOrTest).collect(Collectors.toList());
+        ExecutionResult[] results = new ExecutionResult[queries.size()];
+        boolean[] limitReached = new boolean[queries.size()];
+        long contractDeadline = contractTimeout > 0 ? System.currentTimeMillis() + contractTimeout : Long.MAX_VALUE;
+
+        List<Rule> bigStepRules = configurations.stream().anyMatch(c -> c.bigStep) ? MediumStepTransformer.foldToMediumSteps(rules, oracle) : rules;
+        ConeOfInfluenceSlicer slicer = sliceQueries ? new ConeOfInfluenceSlicer(rules) : null;
+        ConeOfInfluenceSlicer bigStepSlicer = sliceQueries ? (bigStepRules == rules ? slicer : new ConeOfInfluenceSlicer(bigStepRules)) : null;
+
+        String previousMemoryLimit = null;
+        if (memoryLimit > 0) {
+            previousMemoryLimit = Global.getParameter("memory_max_size");
+            Global.setParameter("memory_max_size", Integer.toString(memoryLimit));
+        }
+
+        ScheduledExecutorService watchdogService = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<Integer> pending = IntStream.range(0, queries.size()).boxed().collect(Collectors.toList());
+
+            for (int i = 0; i < budgets.size() && !pending.isEmpty(); ++i) {
+                QueryBudget budget = budgets.get(i);
+                if (i > 0) {
+                    logger.info("Escalating " + pending.size() + " queries to " + budget);
+                }
+
+                Round round = new Round(rules, bigStepRules, slicer, bigStepSlicer, queries, pending, budget, oracle, results, limitReached, contractDeadline, watchdogService, statistics);
+                round.execute();
+
+                pending = pending.stream().filter(j -> limitReached[j]).collect(Collectors.toList());
+            }
+        } finally {
+            watchdogService.shutdownNow();
+            if (previousMemoryLimit != null) {
+                Global.setParameter("memory_max_size", previousMemoryLimit);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Executes a set of queries with the same budget. Results are stored at the index of the query, so the order of
+     * the results does not depend on the scheduling of the workers.
+     */
+    private class Round {
+        private final List<Rule> rules;
+        private final List<Rule> bigStepRules;
+        private final ConeOfInfluenceSlicer slicer;
+        private final ConeOfInfluenceSlicer bigStepSlicer;
+        private final List<Rule> queries;
+        private final List<Integer> indices;
+        private final QueryBudget budget;
+        private final RuleTypeOracle oracle;
+        private final ExecutionResult[] results;
+        private final boolean[] limitReached;
+        private final long contractDeadline;
+        private final ScheduledExecutorService watchdogService;
+        private final LemmaStatistics lemmaStatistics;
+        private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+        private Round(List<Rule> rules, List<Rule> bigStepRules, ConeOfInfluenceSlicer slicer, ConeOfInfluenceSlicer bigStepSlicer, List<Rule> queries, List<Integer> indices, QueryBudget budget, RuleTypeOracle oracle,
+                      ExecutionResult[] results, boolean[] limitReached, long contractDeadline, ScheduledExecutorService watchdogService, LemmaStatistics lemmaStatistics) {
+            this.rules = rules;
+            this.bigStepRules = bigStepRules;
+            this.slicer = slicer;
+            this.bigStepSlicer = bigStepSlicer;
+            this.queries = queries;
+            this.indices = indices;
+            this.budget = budget;
+            this.oracle = oracle;
+            this.results = results;
+            this.limitReached = limitReached;
+            this.contractDeadline = contractDeadline;
+            this.watchdogService = watchdogService;
+            this.lemmaStatistics = lemmaStatistics;
+        }
+
+        private void execute() {
+            int workerCount = Math.max(1, Math.min(threads, indices.size()));
+
+            if (workerCount == 1) {
+                new Worker(this).run();
+                return;
+            }
+
+            ExecutorService executorService = Executors.newFixedThreadPool(workerCount);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workerCount; ++i) {
+                    futures.add(executorService.submit(new Worker(this)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while executing queries", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error while executing queries", e.getCause());
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Executes queries of a round until there are no queries left. A worker owns one {@link Solver} per configuration.
+     * If there are several configurations, each query is raced on all of them and the first definitive answer wins.
+     */
+    private class Worker implements Runnable {
+        private final Round round;
+
+        private Worker(Round round) {
+            this.round = round;
+        }
+
+        @Override
+        public void run() {
+            List<Solver> solvers = new ArrayList<>();
+            ExecutorService portfolioService = configurations.size() > 1 ? Executors.newFixedThreadPool(configurations.size()) : null;
+
+            try {
+                for (SolverConfiguration configuration : configurations) {
+                    if (configuration.bigStep) {
+                        solvers.add(new Solver(configuration, round.bigStepRules, round.bigStepSlicer, round));
+                    } else {
+                        solvers.add(new Solver(configuration, round.rules, round.slicer, round));
+                    }
+                }
 
-        TranslateToZ3VisitorState z3TranslationState = TranslateToZ3VisitorState.withGeneralIntegers();
-        List<BoolExpr> rulesForZ3 = new ArrayList<>();
+                for (int i = round.nextIndex.getAndIncrement(); i < round.indices.size(); i = round.nextIndex.getAndIncrement()) {
+                    int index = round.indices.get(i);
+                    Rule query = round.queries.get(index);
 
-        for (Rule rule : rules) {
-            TranslateToZ3RuleVisitor translateToZ3RuleVisitor = new TranslateToZ3RuleVisitor(z3TranslationState);
-            rulesForZ3.addAll(rule.accept(translateToZ3RuleVisitor));
+                    Outcome outcome;
+                    if (System.currentTimeMillis() >= round.contractDeadline) {
+                        outcome = new Outcome(Status.UNKNOWN, Optional.of("contract timeout of " + contractTimeout + " ms exceeded"), false, 0, Optional.empty());
+                    } else if (portfolioService == null) {
+                        outcome = solvers.get(0).solve(query);
+                    } else {
+                        outcome = race(query, solvers, portfolioService);
+                    }
+
+                    logger.info("Query " + query.name + ": " + outcome.status + outcome.info.map(s -> " [" + s + "]").orElse("") +
+                            outcome.configuration.map(s -> " by " + s).orElse("") + " (" + outcome.duration + " ms)");
+
+                    round.limitReached[index] = outcome.limitReached;
+                    round.results[index] = toExecutionResult(query, outcome, round.oracle);
+                }
+
+                solvers.forEach(Solver::logLoadTimes);
+                solvers.forEach(s -> round.lemmaStatistics.add(s.lemmaStatistics));
+            } finally {
+                if (portfolioService != null) {
+                    portfolioService.shutdownNow();
+                }
+                solvers.forEach(Solver::close);
+            }
         }
 
-        for (Rule query : rules.stream().filter(oracle::isQueryOrTest).collect(Collectors.toList())) {
-            Fixedpoint fixedpoint = z3TranslationState.context.mkFixedpoint();
-            for (BoolExpr b : rulesForZ3) {
-                fixedpoint.addRule(b, null);
+        private Outcome race(Rule query, List<Solver> solvers, ExecutorService portfolioService) {
+            long start = System.currentTimeMillis();
+            CompletionService<Outcome> completionService = new ExecutorCompletionService<>(portfolioService);
+
+            solvers.forEach(Solver::resetCancellation);
+            for (Solver solver : solvers) {
+                completionService.submit(() -> solver.solve(query));
             }
-            z3TranslationState.registerRelations(fixedpoint, false);
+
+            Outcome winner = null;
+            List<Outcome> losers = new ArrayList<>();
+
+            try {
+                for (int i = 0; i < solvers.size(); ++i) {
+                    Outcome outcome = completionService.take().get();
+                    if (winner == null && outcome.status != Status.UNKNOWN) {
+                        winner = outcome;
+                        solvers.forEach(Solver::cancel);
+                    } else {
+                        losers.add(outcome);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while executing queries", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error while executing queries", e.getCause());
+            }
+
+            long duration = System.currentTimeMillis() - start;
+
+            if (winner != null) {
+                return new Outcome(winner.status, winner.info, false, duration, winner.configuration);
+            }
+
+            String reasons = losers.stream().map(o -> o.configuration.orElse("?") + ": " + o.info.orElse("unknown")).collect(Collectors.joining("; "));
+            boolean limitReached = losers.stream().anyMatch(o -> o.limitReached);
+            return new Outcome(Status.UNKNOWN, Optional.of(reasons), limitReached, duration, Optional.empty());
+        }
+    }
+
+    /**
+     * Counts the lemmas carried over with {@link Z3QueryExecutorBuilder#carryLemmas(boolean)} and the solving time of
+     * the queries whose fixedpoint was seeded with them. With {@link Z3QueryExecutorBuilder#measureLemmaSavings(boolean)}
+     * the same queries are timed without the lemmas as well. Times are in milliseconds.
+     */
+    public static class LemmaStatistics {
+        private int seededQueryCount = 0;
+        private int seededLemmaCount = 0;
+        private long seededSolveTime = 0;
+        private int baselineQueryCount = 0;
+        private long baselineSolveTime = 0;
+
+        private synchronized void add(LemmaStatistics other) {
+            seededQueryCount += other.seededQueryCount;
+            seededLemmaCount += other.seededLemmaCount;
+            seededSolveTime += other.seededSolveTime;
+            baselineQueryCount += other.baselineQueryCount;
+            baselineSolveTime += other.baselineSolveTime;
+        }
+
+        public synchronized int getSeededQueryCount() {
+            return seededQueryCount;
+        }
+
+        public synchronized int getSeededLemmaCount() {
+            return seededLemmaCount;
+        }
+
+        public synchronized long getSeededSolveTime() {
+            return seededSolveTime;
+        }
+
+        /**
+         * @return the number of seeded queries that were solved without the lemmas as well
+         */
+        public synchronized int getBaselineQueryCount() {
+            return baselineQueryCount;
+        }
+
+        public synchronized long getBaselineSolveTime() {
+            return baselineSolveTime;
+        }
+
+        /**
+         * @return the solving time without the lemmas minus the time with them, only meaningful if every seeded query
+         * was solved without the lemmas as well
+         */
+        public synchronized long getSavedSolveTime() {
+            return baselineSolveTime - seededSolveTime;
+        }
+    }
+
+    private static class Outcome {
+        private final Status status;
+        private final Optional<String> info;
+        private final boolean limitReached;
+        private final long duration;
+        private final Optional<String> configuration;
+
+        private Outcome(Status status, Optional<String> info, boolean limitReached, long duration, Optional<String> configuration) {
+            this.status = status;
+            this.info = info;
+            this.limitReached = limitReached;
+            this.duration = duration;
+            this.configuration = configuration;
+        }
+    }
+
+    /**
+     * Owns one Z3 context with the rules translated according to a {@link SolverConfiguration}.
+     */
+    private class Solver {
+        private final SolverConfiguration configuration;
+        private final Round round;
+        private final TranslateToZ3VisitorState z3TranslationState;
+        private final ConeOfInfluenceSlicer slicer;
+        private final List<BoolExpr> rulesForZ3 = new ArrayList<>();
+        private final Map<Clause, BoolExpr> translatedClauses = new HashMap<>();
+        private final List<FuncDecl<BoolSort>> definedPredicates;
+        private final Map<FuncDecl<BoolSort>, Expr<?>> learnedLemmas = new HashMap<>();
+        private final boolean namedResults;
+
+        private Fixedpoint fixedpoint = null;
+        private List<BoolExpr> fixedpointRules = Collections.emptyList();
+        private List<FuncDecl<BoolSort>> fixedpointPredicates = Collections.emptyList();
+        private long totalLoadTime = 0;
+        private int loadCount = 0;
+        private int queryCount = 0;
+        private int fixedpointSeededLemmaCount = 0;
+        private long totalSolveTime = 0;
+        private final LemmaStatistics lemmaStatistics = new LemmaStatistics();
+
+        private volatile boolean cancelled = false;
+        private volatile Watchdog watchdog = null;
+
+        private Solver(SolverConfiguration configuration, List<Rule> rules, ConeOfInfluenceSlicer slicer, Round round) {
+            this.configuration = configuration;
+            this.slicer = slicer;
+            this.round = round;
+            this.namedResults = configurations.size() > 1;
+
+            z3TranslationState = configuration.useBitVectorIntegers ? TranslateToZ3VisitorState.withBitVectorIntegers() : TranslateToZ3VisitorState.withGeneralIntegers();
+            if (carryLemmas) {
+                z3TranslationState.setFixedpointParameter("xform.slice", false);
+            }
+            for (Map.Entry<String, Object> parameter : fixedpointParameters.entrySet()) {
+                z3TranslationState.setFixedpointParameter(parameter.getKey(), parameter.getValue());
+            }
+            for (Map.Entry<String, Object> parameter : configuration.fixedpointParameters.entrySet()) {
+                z3TranslationState.setFixedpointParameter(parameter.getKey(), parameter.getValue());
+            }
+
+            // the resource limit applies to every solver call of the context, the fixedpoint reads it on each query
+            z3TranslationState.context.updateParamValue("rlimit", Integer.toString(round.budget.resourceLimit));
+
+            // with slicing, clauses are translated on demand as each query only needs a part of them
+            if (slicer == null) {
+                for (Rule rule : rules) {
+                    TranslateToZ3RuleVisitor translateToZ3RuleVisitor = new TranslateToZ3RuleVisitor(z3TranslationState);
+                    rulesForZ3.addAll(rule.accept(translateToZ3RuleVisitor));
+                }
+                // the queries only need the translated rules and the predicate declarations
+                z3TranslationState.clearTranslationCache();
+            }
+            definedPredicates = slicer == null ? getDefinedPredicates(rules) : Collections.emptyList();
+        }
+
+        private List<FuncDecl<BoolSort>> getDefinedPredicates(List<Rule> rules) {
+            return rules.stream()
+                    .flatMap(r -> r.clauses.stream())
+                    .map(c -> c.conclusion.predicate)
+                    .distinct()
+                    .map(z3TranslationState::getZ3PredicateDeclaration)
+                    .collect(Collectors.toList());
+        }
+
+        private List<BoolExpr> translateSlice(Rule query, List<Rule> slice) {
+            logger.info("Slice for query " + query.name + (namedResults ? " and configuration " + configuration.name : "") + ": " +
+                    ConeOfInfluenceSlicer.countClauses(slice) + " of " + slicer.getClauseCount() + " clauses, " +
+                    ConeOfInfluenceSlicer.countPredicates(slice) + " of " + slicer.getPredicateCount() + " predicates");
+
+            TranslateToZ3ClauseVisitor translateToZ3ClauseVisitor = new TranslateToZ3ClauseVisitor(z3TranslationState);
+            List<BoolExpr> translatedSlice = slice.stream()
+                    .flatMap(r -> r.clauses.stream())
+                    .map(c -> translatedClauses.computeIfAbsent(c, cc -> cc.accept(translateToZ3ClauseVisitor)))
+                    .collect(Collectors.toList());
+            // translated clauses are kept in translatedClauses, their sub-expressions are not needed any more
+            z3TranslationState.clearTranslationCache();
+            return translatedSlice;
+        }
+
+        private void resetCancellation() {
+            cancelled = false;
+        }
+
+        /**
+         * Stops the currently running query of this solver, or the next one if no query is running.
+         */
+        private void cancel() {
+            cancelled = true;
+            Watchdog currentWatchdog = watchdog;
+            if (currentWatchdog != null) {
+                currentWatchdog.fire();
+            }
+        }
+
+        private Outcome solve(Rule query) {
+            long loadStart = System.currentTimeMillis();
+
+            if (slicer != null) {
+                List<Rule> slice = slicer.slice(query);
+                fixedpointRules = translateSlice(query, slice);
+                fixedpoint = z3TranslationState.createFixedpoint(fixedpointRules, configuration.useRelationSettings);
+                fixedpointPredicates = getDefinedPredicates(slice);
+                ++loadCount;
+                seedLemmas();
+            } else if (fixedpoint == null || !reuseFixedpoint) {
+                fixedpointRules = rulesForZ3;
+                fixedpoint = z3TranslationState.createFixedpoint(fixedpointRules, configuration.useRelationSettings);
+                fixedpointPredicates = definedPredicates;
+                ++loadCount;
+                seedLemmas();
+            }
+
+            totalLoadTime += System.currentTimeMillis() - loadStart;
+            ++queryCount;
 
             String queryId = query.name;
             long start = System.currentTimeMillis();
 
+            long deadline = round.contractDeadline;
+            if (round.budget.timeout > 0) {
+                deadline = Math.min(deadline, start + round.budget.timeout);
+            }
+            Watchdog currentWatchdog = new Watchdog(z3TranslationState.context, round.watchdogService, deadline - start);
+            watchdog = currentWatchdog;
+            if (cancelled) {
+                currentWatchdog.fire();
+            }
+
             Status result = null;
             Optional<String> info = Optional.empty();
+            boolean queryLimitReached = false;
 
             try {
                 Predicate predicate = new Predicate(queryId, Collections.emptyList(), Collections.emptyList());
                 BoolExpr z3query = (BoolExpr) z3TranslationState.getZ3PredicateDeclaration(predicate).apply();
                 result = fixedpoint.query(z3query);
+                if (result == Status.UNKNOWN) {
+                    String reason = fixedpoint.getReasonUnknown();
+                    queryLimitReached = isLimitReason(reason);
+                    info = Optional.of(reason);
+                }
             } catch (Exception e) {
                 result = Status.UNKNOWN;
                 info = Optional.of(e.getMessage());
+                queryLimitReached = isLimitReason(e.getMessage());
             } finally {
-                long duration = System.currentTimeMillis() - start;
-                result = result == null ? Status.UNKNOWN : result;
-                if (oracle.isTest(query)) {
-                    boolean success = result != Status.UNKNOWN && oracle.isExpectedTestResult(query, z3ToHorstResult(result));
-                    results.add(new ExecutionResult.TestResult(queryId, result, duration, success, info));
+                currentWatchdog.stop();
+                watchdog = null;
+            }
+
+            long duration = System.currentTimeMillis() - start;
+            totalSolveTime += duration;
+            learnLemmas();
+
+            if (fixedpointSeededLemmaCount > 0) {
+                lemmaStatistics.seededQueryCount += 1;
+                lemmaStatistics.seededSolveTime += duration;
+                if (measureLemmaSavings && !currentWatchdog.hasFired()) {
+                    lemmaStatistics.baselineQueryCount += 1;
+                    lemmaStatistics.baselineSolveTime += solveWithoutLemmas(query, deadline);
+                }
+            }
+
+            if (result == Status.UNKNOWN && currentWatchdog.hasFired()) {
+                if (cancelled) {
+                    info = Optional.of("canceled");
+                    queryLimitReached = false;
+                } else if (deadline == round.contractDeadline) {
+                    info = Optional.of("contract timeout of " + contractTimeout + " ms exceeded");
+                    queryLimitReached = false;
                 } else {
-                    results.add(new ExecutionResult.QueryResult(queryId, result, duration, info));
+                    info = Optional.of("query timeout of " + round.budget.timeout + " ms exceeded");
+                    queryLimitReached = true;
                 }
+            } else if (queryLimitReached && round.budget.resourceLimit > 0) {
+                info = Optional.of("resource limit of " + round.budget.resourceLimit + " exceeded (" + info.orElse("") + ")");
             }
+
+            Optional<String> configurationName = namedResults ? Optional.of(configuration.name) : Optional.empty();
+            return new Outcome(result, info, queryLimitReached, duration, configurationName);
         }
 
-        return results;
+        /**
+         * Adds the invariants learned so far as covers to the current fixedpoint. The covers are over-approximations
+         * of the reachable states of the respective predicates, as their defining clauses are the same in every
+         * fixedpoint of this context.
+         */
+        private void seedLemmas() {
+            fixedpointSeededLemmaCount = 0;
+            if (!carryLemmas || learnedLemmas.isEmpty()) {
+                return;
+            }
+            int seeded = 0;
+            for (FuncDecl<BoolSort> predicate : fixedpointPredicates) {
+                Expr<?> lemma = learnedLemmas.get(predicate);
+                if (lemma == null) {
+                    continue;
+                }
+                try {
+                    fixedpoint.addCover(-1, predicate, lemma);
+                    ++seeded;
+                } catch (Z3Exception e) {
+                    logger.debug("Could not add cover for " + predicate.getName() + ": " + e.getMessage());
+                }
+            }
+            fixedpointSeededLemmaCount = seeded;
+            lemmaStatistics.seededLemmaCount += seeded;
+        }
+
+        /**
+         * Solves the query again on a fresh fixedpoint with the same rules but without any seeded lemmas.
+         *
+         * @return the solving time in milliseconds, bounded by the deadline of the query
+         */
+        private long solveWithoutLemmas(Rule query, long deadline) {
+            Fixedpoint baselineFixedpoint = z3TranslationState.createFixedpoint(fixedpointRules, configuration.useRelationSettings);
+            long start = System.currentTimeMillis();
+
+            Watchdog currentWatchdog = new Watchdog(z3TranslationState.context, round.watchdogService, deadline - start);
+            watchdog = currentWatchdog;
+            if (cancelled) {
+                currentWatchdog.fire();
+            }
+
+            try {
+                Predicate predicate = new Predicate(query.name, Collections.emptyList(), Collections.emptyList());
+                baselineFixedpoint.query((BoolExpr) z3TranslationState.getZ3PredicateDeclaration(predicate).apply());
+            } catch (Exception e) {
+                logger.debug("Solving query " + query.name + " without carried lemmas failed: " + e.getMessage());
+            } finally {
+                currentWatchdog.stop();
+                watchdog = null;
+            }
+            return System.currentTimeMillis() - start;
+        }
+
+        /**
+         * Retrieves the invariants (level infinity) the last query established. As the covers of a fixedpoint include
+         * the seeded ones, they replace the previously learned invariants.
+         */
+        private void learnLemmas() {
+            if (!carryLemmas) {
+                return;
+            }
+            for (FuncDecl<BoolSort> predicate : fixedpointPredicates) {
+                try {
+                    Expr<?> lemma = fixedpoint.getCoverDelta(-1, predicate);
+                    if (!lemma.isTrue()) {
+                        learnedLemmas.put(predicate, lemma);
+                    }
+                } catch (Z3Exception e) {
+                    logger.debug("Could not retrieve cover for " + predicate.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private void logLoadTimes() {
+            if (loadCount == 0) {
+                return;
+            }
+            long averageLoadTime = totalLoadTime / loadCount;
+            logger.info("Loaded rules" + (namedResults ? " for configuration " + configuration.name : "") + " into " + loadCount + " fixedpoint(s) for " +
+                    queryCount + " queries in " + totalLoadTime + " ms (" + averageLoadTime + " ms per load, " + (averageLoadTime * queryCount) + " ms when loading once per query)");
+            logger.info("Translated expressions" + (namedResults ? " for configuration " + configuration.name : "") + ": " +
+                    z3TranslationState.getTranslationCacheMisses() + " built, " + z3TranslationState.getTranslationCacheHits() + " reused");
+            if (carryLemmas) {
+                logger.info("Carried learned lemmas" + (namedResults ? " for configuration " + configuration.name : "") + " into " + lemmaStatistics.seededQueryCount +
+                        " of " + queryCount + " queries (" + lemmaStatistics.seededLemmaCount + " covers), solving them took " + lemmaStatistics.seededSolveTime + " ms" +
+                        (lemmaStatistics.baselineQueryCount > 0 ? ", " + lemmaStatistics.baselineSolveTime + " ms without the lemmas (" + lemmaStatistics.getSavedSolveTime() + " ms saved)" : "") +
+                        ", total solving time " + totalSolveTime + " ms");
+            }
+        }
+
+        private void close() {
+            z3TranslationState.context.close();
+        }
+    }
+
+    /**
+     * Interrupts the given context once the time is up. Stopping and firing are mutually exclusive, so an interrupt
+     * can never hit a solver call that starts after {@link #stop()} returned.
+     */
+    private static class Watchdog {
+        private final Context context;
+        private final ScheduledFuture<?> future;
+        private boolean active = true;
+        private boolean fired = false;
+
+        private Watchdog(Context context, ScheduledExecutorService watchdogService, long delay) {
+            this.context = context;
+            this.future = delay >= Long.MAX_VALUE / 2 ? null : watchdogService.schedule(this::fire, Math.max(0, delay), TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void fire() {
+            if (active) {
+                fired = true;
+                context.interrupt();
+            }
+        }
+
+        private synchronized void stop() {
+            active = false;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private synchronized boolean hasFired() {
+            return fired;
+        }
+    }
+
+    private static boolean isLimitReason(String reason) {
+        if (reason == null) {
+            return false;
+        }
+        return reason.contains("canceled") || reason.contains("timeout") || reason.contains("resource limit") || reason.contains("max. resource");
+    }
+
+    private static ExecutionResult toExecutionResult(Rule query, Outcome outcome, RuleTypeOracle oracle) {
+        return toExecutionResult(query, outcome.status, outcome.duration, outcome.info, outcome.configuration, oracle);
+    }
+
+    static ExecutionResult toExecutionResult(Rule query, Status status, long duration, Optional<String> info, Optional<String> configuration, RuleTypeOracle oracle) {
+        if (oracle.isTest(query)) {
+            boolean success = status != Status.UNKNOWN && oracle.isExpectedTestResult(query, z3ToHorstResult(status));
+            return new ExecutionResult.TestResult(query.name, status, duration, success, info, configuration);
+        }
+        return new ExecutionResult.QueryResult(query.name, status, duration, info, configuration);
     }
 
     private static VisitorState.TestResult z3ToHorstResult(Status result) {
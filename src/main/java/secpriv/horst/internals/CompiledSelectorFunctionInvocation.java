@@ -0,0 +1,88 @@
+package secpriv.horst.internals;
+
+import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.SelectorFunctionInvocation;
+import secpriv.horst.translation.visitors.EvaluateExpressionVisitor;
+import secpriv.horst.translation.visitors.ToObjectBaseTypeValueVisitor;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A selector function invocation prepared to be invoked for many parameter maps. Constant arguments are converted once
+ * and parameter arguments are looked up directly, only other arguments are evaluated by
+ * {@link EvaluateExpressionVisitor}. The selector function is called through its {@link MethodHandle}.
+ */
+public class CompiledSelectorFunctionInvocation {
+    private static final ToObjectBaseTypeValueVisitor toObjectVisitor = new ToObjectBaseTypeValueVisitor();
+
+    public final SelectorFunctionInvocation invocation;
+    public final List<String> parameterNames;
+    private final MethodHandle methodHandle;
+    private final List<Function<Map<String, BaseTypeValue>, Object>> argumentEvaluators;
+
+    public CompiledSelectorFunctionInvocation(SelectorFunctionInvocation invocation, SelectorFunctionHelper selectorFunctionHelper) {
+        this.invocation = Objects.requireNonNull(invocation, "Invocation may not be null!");
+        this.methodHandle = Objects.requireNonNull(selectorFunctionHelper, "SelectorFunctionHelper may not be null!").getMethodHandle(invocation.selectorFunction);
+        this.parameterNames = Collections.unmodifiableList(invocation.parameters.stream().map(p -> p.name).collect(Collectors.toList()));
+
+        Class<?>[] parameterClasses = selectorFunctionHelper.getMethod(invocation.selectorFunction).getParameterTypes();
+        List<Function<Map<String, BaseTypeValue>, Object>> argumentEvaluators = new ArrayList<>();
+        for (int i = 0; i < parameterClasses.length; ++i) {
+            Function<Map<String, BaseTypeValue>, Object> argumentEvaluator = compile(invocation.arguments.get(i));
+            argumentEvaluators.add(parameterClasses[i] == long.class ? toLong(argumentEvaluator) : argumentEvaluator);
+        }
+        this.argumentEvaluators = argumentEvaluators;
+    }
+
+    private static Function<Map<String, BaseTypeValue>, Object> toLong(Function<Map<String, BaseTypeValue>, Object> argumentEvaluator) {
+        // throws ArithmeticException if the argument does not fit into a long
+        return parameterMap -> ((BigInteger) argumentEvaluator.apply(parameterMap)).longValueExact();
+    }
+
+    private static Function<Map<String, BaseTypeValue>, Object> compile(Expression argument) {
+        if (argument instanceof Expression.IntConst) {
+            BigInteger value = ((Expression.IntConst) argument).value;
+            return parameterMap -> value;
+        }
+        if (argument instanceof Expression.BoolConst) {
+            Object value = ((Expression.BoolConst) argument).value;
+            return parameterMap -> value;
+        }
+        if (argument instanceof Expression.ParVarExpression) {
+            String name = ((Expression.ParVarExpression) argument).name;
+            return parameterMap -> parameterMap.get(name).accept(toObjectVisitor);
+        }
+        return parameterMap -> argument.accept(new EvaluateExpressionVisitor(parameterMap)).accept(toObjectVisitor);
+    }
+
+    /**
+     * @return the values of the arguments under the given parameters, as {@link BigInteger} or {@link Boolean}, or as
+     * {@link Long} for parameters declared as {@code long}
+     */
+    public Object[] evaluateArguments(Map<String, BaseTypeValue> parameterMap) {
+        Object[] arguments = new Object[argumentEvaluators.size()];
+        for (int i = 0; i < arguments.length; ++i) {
+            arguments[i] = argumentEvaluators.get(i).apply(parameterMap);
+        }
+        return arguments;
+    }
+
+    /**
+     * @return the result of the selector function for the given argument values, which is an {@link Iterable}, a
+     * {@code long[]} or a {@link java.util.stream.LongStream}
+     */
+    public Object invoke(Object[] arguments) {
+        try {
+            return (Object) methodHandle.invokeExact(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
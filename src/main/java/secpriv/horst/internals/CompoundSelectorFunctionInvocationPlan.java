@@ -0,0 +1,178 @@
+package secpriv.horst.internals;
+
+import secpriv.horst.data.CompoundSelectorFunctionInvocation;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.SelectorFunction;
+import secpriv.horst.data.SelectorFunctionInvocation;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Records for every selector function invocation of a {@link CompoundSelectorFunctionInvocation} the last preceding
+ * invocation binding a parameter its arguments use. The result of an invocation only changes if the binding of that
+ * invocation or of an earlier one changes, so {@link SelectorFunctionInvoker} invokes invocations that do not use
+ * preceding parameters only once, instead of once for every binding of the preceding invocations.
+ */
+class CompoundSelectorFunctionInvocationPlan {
+    public final List<SelectorFunctionInvocation> invocations;
+    // -1 if the arguments only use parameters the compound invocation is invoked with
+    private final int[] lastDependencies;
+
+    private CompoundSelectorFunctionInvocationPlan(List<SelectorFunctionInvocation> invocations, int[] lastDependencies) {
+        this.invocations = invocations;
+        this.lastDependencies = lastDependencies;
+    }
+
+    /**
+     * @param isImpure selector functions for which this holds are treated as depending on the preceding invocation, so
+     *                 that they are still invoked for every binding of the preceding invocations
+     */
+    public static CompoundSelectorFunctionInvocationPlan compile(CompoundSelectorFunctionInvocation invocation, Predicate<SelectorFunction> isImpure) {
+        List<SelectorFunctionInvocation> invocations = Objects.requireNonNull(invocation, "Invocation may not be null!").selectorFunctionInvocations;
+        Map<String, Integer> bindingInvocations = new HashMap<>();
+        int[] lastDependencies = new int[invocations.size()];
+
+        for (int i = 0; i < invocations.size(); ++i) {
+            ParameterNamesExpressionVisitor parameterNamesVisitor = new ParameterNamesExpressionVisitor();
+            invocations.get(i).arguments.forEach(a -> a.accept(parameterNamesVisitor));
+
+            if (parameterNamesVisitor.isComplete && !isImpure.test(invocations.get(i).selectorFunction)) {
+                lastDependencies[i] = -1;
+                for (String name : parameterNamesVisitor.parameterNames) {
+                    lastDependencies[i] = Math.max(lastDependencies[i], bindingInvocations.getOrDefault(name, -1));
+                }
+            } else {
+                lastDependencies[i] = i - 1;
+            }
+
+            for (Expression.ParVarExpression parameter : invocations.get(i).parameters) {
+                bindingInvocations.put(parameter.name, i);
+            }
+        }
+
+        return new CompoundSelectorFunctionInvocationPlan(invocations, lastDependencies);
+    }
+
+    /**
+     * @return the index of the last invocation before the given one binding a parameter the arguments of the given
+     * invocation use, or -1 if there is none
+     */
+    public int getLastDependency(int invocationIndex) {
+        return lastDependencies[invocationIndex];
+    }
+
+    private static class ParameterNamesExpressionVisitor implements Expression.Visitor<Void> {
+        private final Set<String> parameterNames = new HashSet<>();
+        // false if the arguments contain expressions whose parameters are not collected, they may use any parameter
+        private boolean isComplete = true;
+
+        private Void visitChildren(Expression... children) {
+            for (Expression child : children) {
+                child.accept(this);
+            }
+            return null;
+        }
+
+        private Void incomplete() {
+            isComplete = false;
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.IntConst expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.BoolConst expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.ArrayInitExpression expression) {
+            return visitChildren(expression.initializer);
+        }
+
+        @Override
+        public Void visit(Expression.VarExpression expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.FreeVarExpression expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.ParVarExpression expression) {
+            parameterNames.add(expression.name);
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.BinaryIntExpression expression) {
+            return visitChildren(expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Void visit(Expression.BinaryBoolExpression expression) {
+            return visitChildren(expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Void visit(Expression.SelectExpression expression) {
+            return visitChildren(expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Void visit(Expression.StoreExpression expression) {
+            return visitChildren(expression.expression1, expression.expression2, expression.expression3);
+        }
+
+        @Override
+        public Void visit(Expression.AppExpression expression) {
+            return incomplete();
+        }
+
+        @Override
+        public Void visit(Expression.ConstructorAppExpression expression) {
+            return incomplete();
+        }
+
+        @Override
+        public Void visit(Expression.MatchExpression expression) {
+            return incomplete();
+        }
+
+        @Override
+        public Void visit(Expression.NegationExpression expression) {
+            return visitChildren(expression.expression);
+        }
+
+        @Override
+        public Void visit(Expression.ConditionalExpression expression) {
+            return visitChildren(expression.expression1, expression.expression2, expression.expression3);
+        }
+
+        @Override
+        public Void visit(Expression.ComparisonExpression expression) {
+            return visitChildren(expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Void visit(Expression.ConstExpression expression) {
+            return visitChildren(expression.value);
+        }
+
+        @Override
+        public Void visit(Expression.SumExpression expression) {
+            return incomplete();
+        }
+
+        @Override
+        public Void visit(Expression.BitvectorNegationExpression expression) {
+            return visitChildren(expression.expression);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package secpriv.horst.internals;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a selector function, or all selector functions of a provider, whose result may differ between invocations
+ * with the same arguments. {@link SelectorFunctionInvoker} invokes such selector functions every time instead of
+ * reusing an earlier result.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Impure {
+}
@@ -2,12 +2,18 @@ package secpriv.horst.internals;
 
 // Adapted from https://gist.github.com/chrisvest/9873843
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import secpriv.horst.data.SelectorFunction;
 import secpriv.horst.data.tuples.Tuples;
+import secpriv.horst.tools.ProviderClassCache;
 import secpriv.horst.types.Type;
 
 import javax.tools.*;
 import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -18,11 +24,13 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static secpriv.horst.tools.Zipper.zipPredicate;
 
 public class SelectorFunctionHelper {
+    private static final Logger logger = LogManager.getLogger(SelectorFunctionHelper.class);
     private final Pattern extractClassNamePattern = Pattern.compile("^(?:.*[/\\\\])*([^/\\\\]+)\\.java$");
 
     private static final Set<String> ignoredNames = new HashSet<>(Stream.concat(Arrays.stream(Object.class.getMethods()).map(Method::getName), Stream.of("unit")).collect(Collectors.toList()));
@@ -35,31 +43,65 @@ public class SelectorFunctionHelper {
         return ret;
     }
 
+    /**
+     * Besides {@link BigInteger}, integer parameters may be declared as {@code long}. Arguments that do not fit into a
+     * long cannot be passed to such a selector function.
+     */
+    private static boolean isParameterClass(Class<?> clazz) {
+        return baseTypeMap.containsValue(clazz) || clazz == long.class;
+    }
+
+    /**
+     * Besides an {@link Iterable}, selector functions with a single integer result may return a {@code long[]} or a
+     * {@link LongStream}, so that small values are not allocated as {@link BigInteger} first.
+     */
+    static boolean isLongResultClass(Class<?> clazz) {
+        return clazz == long[].class || clazz == LongStream.class;
+    }
+
     private Map<String, Method> methods = new HashMap<>();
     private Map<String, Object> providers = new HashMap<>();
+    private Map<String, MethodHandle> methodHandles = new HashMap<>();
+    private ProviderClassCache providerClassCache;
 
     public SelectorFunctionHelper() {
         try {
             Method method = UnitProvider.class.getMethod("unit");
             methods.put("unit", method);
             providers.put("unit", UnitProvider.instance);
+            methodHandles.put("unit", bind(method, UnitProvider.instance));
         } catch (NoSuchMethodException e) {
             throw new RuntimeException("Unreachable Code!");
         }
     }
 
-    public void compileSelectorFunctionsProvider(String sourceCodeFileName, List<String> arguments) throws IOException, ClassNotFoundException, IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
-        byte[] fileContents;
-        File file = new File(sourceCodeFileName);
-        try (FileInputStream inputStream = new FileInputStream(file)) {
-            fileContents = new byte[(int) file.length()];
-            if (inputStream.read(fileContents) != fileContents.length) {
-                throw new IOException("Insufficient number of bytes read!");
-            }
+    /**
+     * Binds the method to the provider and adapts it to take the arguments as array and to return Object, so every
+     * selector function can be called through {@link MethodHandle#invokeExact(Object...)} with the same type.
+     */
+    private static MethodHandle bind(Method method, Object provider) {
+        try {
+            // providers may be classes that are not visible from this package, e.g. local classes
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method)
+                    .bindTo(provider)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    /**
+     * Compiled providers are taken from and stored into the cache, so that they are only compiled again when their source
+     * changed. Without a cache, every provider is compiled.
+     */
+    public void setProviderClassCache(ProviderClassCache providerClassCache) {
+        this.providerClassCache = providerClassCache;
+    }
 
+    public void compileSelectorFunctionsProvider(String sourceCodeFileName, List<String> arguments) throws IOException, ProviderCompilationException, ClassNotFoundException, IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        File file = new File(sourceCodeFileName);
         Matcher matcher = extractClassNamePattern.matcher(sourceCodeFileName);
 
         if (!matcher.matches()) {
@@ -69,18 +111,28 @@ public class SelectorFunctionHelper {
 
         String className = matcher.group(1);
 
-        JavaFileObject compilationUnit = new StringJavaFileObject(className, new String(fileContents));
-
-        SimpleJavaFileManager fileManager =
-                new SimpleJavaFileManager(compiler.getStandardFileManager(null, null, null));
-
-        JavaCompiler.CompilationTask compilationTask = compiler.getTask(
-                null, fileManager, null, null, null, Arrays.asList(compilationUnit));
+        Optional<Map<String, byte[]>> optCachedClasses = Optional.empty();
+        String cacheKey = null;
+        if (providerClassCache != null) {
+            cacheKey = ProviderClassCache.getKey(file);
+            optCachedClasses = providerClassCache.get(cacheKey);
+        }
 
-        compilationTask.call();
+        Map<String, byte[]> classes;
+        if (optCachedClasses.isPresent()) {
+            classes = optCachedClasses.get();
+        } else {
+            classes = compile(file, className);
+            if (providerClassCache != null) {
+                try {
+                    providerClassCache.put(cacheKey, classes);
+                } catch (IOException e) {
+                    logger.warn("Could not cache the compiled selector function provider " + sourceCodeFileName + "!", e);
+                }
+            }
+        }
 
-        CompiledClassLoader classLoader =
-                new CompiledClassLoader(fileManager.getGeneratedOutputFiles());
+        CompiledClassLoader classLoader = new CompiledClassLoader(classes);
 
         Class c = Class.forName(className, true, classLoader);
 
@@ -111,6 +163,18 @@ public class SelectorFunctionHelper {
             if (!Modifier.isPublic(method.getModifiers())) {
                 continue;
             }
+            if (Arrays.stream(method.getParameterTypes()).anyMatch(c -> !isParameterClass(c))) {
+                continue;
+            }
+
+            if (isLongResultClass(method.getReturnType())) {
+                ++methodCount;
+                methods.put(method.getName(), method);
+                providers.put(method.getName(), o);
+                methodHandles.put(method.getName(), bind(method, o));
+                continue;
+            }
+
             if (!(method.getGenericReturnType() instanceof ParameterizedType)) {
                 continue;
             }
@@ -137,13 +201,10 @@ public class SelectorFunctionHelper {
                 }
             }
 
-            if (Arrays.stream(method.getParameterTypes()).anyMatch(c -> !baseTypeMap.containsValue(c))) {
-                continue;
-            }
-
             ++methodCount;
             methods.put(method.getName(), method);
             providers.put(method.getName(), o);
+            methodHandles.put(method.getName(), bind(method, o));
         }
         return methodCount;
     }
@@ -160,11 +221,19 @@ public class SelectorFunctionHelper {
             throw new IllegalArgumentException("Selector function have to have at least one return type!");
         }
 
-        if (!zipPredicate(Arrays.asList(method.getParameterTypes()), parameterTypes, (mt, st) -> mt.equals(baseTypeMap.get(st)))) {
+        if (!zipPredicate(Arrays.asList(method.getParameterTypes()), parameterTypes, (mt, st) -> mt.equals(baseTypeMap.get(st)) || (mt == long.class && st.equals(Type.Integer)))) {
             //TODO report error
             return Optional.empty();
         }
 
+        if (isLongResultClass(method.getReturnType())) {
+            if (returnTypes.size() != 1 || !returnTypes.get(0).equals(Type.Integer)) {
+                //TODO report error
+                return Optional.empty();
+            }
+            return Optional.of(method);
+        }
+
         ParameterizedType iterableReturnType = (ParameterizedType) method.getGenericReturnType();
         java.lang.reflect.Type returnType = iterableReturnType.getActualTypeArguments()[0];
 
@@ -207,10 +276,75 @@ public class SelectorFunctionHelper {
         return getMethod(selectorFunction.name, selectorFunction.parameterTypes, selectorFunction.returnTypes).get();
     }
 
+    /**
+     * @return the method of the selector function bound to its provider, taking the arguments as {@code Object[]} and
+     * returning the {@link Iterable} of results as {@code Object}
+     */
+    public MethodHandle getMethodHandle(SelectorFunction selectorFunction) {
+        // looking up the method checks the types of the selector function
+        getMethod(selectorFunction);
+        return methodHandles.get(selectorFunction.name);
+    }
+
     public Object getProvider(SelectorFunction selectorFunction) {
         return providers.get(selectorFunction.name);
     }
 
+    /**
+     * @return the bytecode of the classes compiled from the file by class name
+     */
+    private static Map<String, byte[]> compile(File file, String className) throws IOException, ProviderCompilationException {
+        byte[] fileContents;
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            fileContents = new byte[(int) file.length()];
+            if (inputStream.read(fileContents) != fileContents.length) {
+                throw new IOException("Insufficient number of bytes read!");
+            }
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            // runtime images without the jdk.compiler module, e.g. JREs
+            throw new ProviderCompilationException("No Java compiler is available to compile " + file + ", selector function providers have to be compiled on a JDK!");
+        }
+
+        JavaFileObject compilationUnit = new StringJavaFileObject(className, new String(fileContents));
+
+        SimpleJavaFileManager fileManager =
+                new SimpleJavaFileManager(compiler.getStandardFileManager(null, null, null));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask compilationTask = compiler.getTask(
+                null, fileManager, diagnostics, null, null, Arrays.asList(compilationUnit));
+
+        if (!compilationTask.call()) {
+            StringBuilder message = new StringBuilder("Compilation of " + file + " failed:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append(System.lineSeparator()).append(diagnostic.getKind()).append(" in line ")
+                        .append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+            }
+            throw new ProviderCompilationException(message.toString());
+        }
+
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (ClassJavaFileObject outputFile : fileManager.getGeneratedOutputFiles()) {
+            classes.put(outputFile.getClassName(), outputFile.getBytes());
+        }
+        return classes;
+    }
+
+    /**
+     * Thrown if the source of a selector function provider cannot be compiled, the message contains the diagnostics of
+     * the compiler.
+     */
+    public static class ProviderCompilationException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public ProviderCompilationException(String message) {
+            super(message);
+        }
+    }
+
     private static class StringJavaFileObject extends SimpleJavaFileObject {
         private final String code;
 
@@ -271,22 +405,17 @@ public class SelectorFunctionHelper {
     }
 
     private static class CompiledClassLoader extends ClassLoader {
-        private final List<ClassJavaFileObject> files;
+        private final Map<String, byte[]> classes;
 
-        private CompiledClassLoader(List<ClassJavaFileObject> files) {
-            this.files = files;
+        private CompiledClassLoader(Map<String, byte[]> classes) {
+            this.classes = new HashMap<>(classes);
         }
 
         @Override
         protected Class<?> findClass(String name) throws ClassNotFoundException {
-            Iterator<ClassJavaFileObject> itr = files.iterator();
-            while (itr.hasNext()) {
-                ClassJavaFileObject file = itr.next();
-                if (file.getClassName().equals(name)) {
-                    itr.remove();
-                    byte[] bytes = file.getBytes();
-                    return super.defineClass(name, bytes, 0, bytes.length);
-                }
+            byte[] bytes = classes.remove(name);
+            if (bytes != null) {
+                return super.defineClass(name, bytes, 0, bytes.length);
             }
             return super.findClass(name);
         }
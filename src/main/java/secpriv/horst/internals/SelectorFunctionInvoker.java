@@ -2,65 +2,342 @@ package secpriv.horst.internals;
 
 import secpriv.horst.data.BaseTypeValue;
 import secpriv.horst.data.CompoundSelectorFunctionInvocation;
+import secpriv.horst.data.SelectorFunction;
 import secpriv.horst.data.SelectorFunctionInvocation;
 import secpriv.horst.data.tuples.Tuple;
-import secpriv.horst.tools.CartesianHelper;
-import secpriv.horst.tools.MapHelper;
 import secpriv.horst.tools.MappingIterator;
-import secpriv.horst.translation.visitors.EvaluateExpressionVisitor;
-import secpriv.horst.translation.visitors.ToObjectBaseTypeValueVisitor;
 
 import java.lang.reflect.Method;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
 
+/**
+ * Invokes the selector functions of a {@link SelectorFunctionHelper}. The results are remembered per selector function
+ * and argument values, since the same invocations recur for every binding of an enclosing selector function and every
+ * sum expression. Per selector function, at most a fixed number of result values is remembered, the least recently
+ * used results are forgotten first. Selector functions marked {@link Impure} are invoked every time. Every invocation is compiled once,
+ * see {@link CompiledSelectorFunctionInvocation}. Invocations of a compound invocation are only invoked again when the
+ * parameters they use change, see {@link CompoundSelectorFunctionInvocationPlan}.
+ */
 public class SelectorFunctionInvoker {
+    public static final int DEFAULT_MAX_REMEMBERED_VALUES = 1 << 20;
+
     private final SelectorFunctionHelper selectorFunctionHelper;
+    private final int maxRememberedValues;
+    private final Map<String, Memo> memos = new ConcurrentHashMap<>();
+    // invocations are compared by identity, they are the ones of the rules and sum expressions being instantiated
+    private final Map<SelectorFunctionInvocation, CompiledSelectorFunctionInvocation> compiledInvocations = new ConcurrentHashMap<>();
+    private final Map<CompoundSelectorFunctionInvocation, CompoundSelectorFunctionInvocationPlan> plans = new ConcurrentHashMap<>();
 
     public SelectorFunctionInvoker(SelectorFunctionHelper selectorFunctionHelper) {
+        this(selectorFunctionHelper, DEFAULT_MAX_REMEMBERED_VALUES);
+    }
+
+    /**
+     * @param maxRememberedValues maximal number of result values remembered per selector function, every result counts
+     *                            one more than its number of values; results exceeding the maximum are not remembered
+     */
+    public SelectorFunctionInvoker(SelectorFunctionHelper selectorFunctionHelper, int maxRememberedValues) {
         this.selectorFunctionHelper = Objects.requireNonNull(selectorFunctionHelper, "SelectorFunctionHelper may not be null!");
+        if (maxRememberedValues < 0) {
+            throw new IllegalArgumentException("Maximal number of remembered values may not be negative!");
+        }
+        this.maxRememberedValues = maxRememberedValues;
     }
 
     public Iterable<Map<String, BaseTypeValue>> invoke(CompoundSelectorFunctionInvocation invocation) {
-        return invoke(Collections.emptyMap(), selectorFunctionHelper, invocation.selectorFunctionInvocations);
+        return invoke(Collections.emptyMap(), invocation);
     }
 
     public Iterable<Map<String, BaseTypeValue>> invoke(Map<String, BaseTypeValue> parameterMap, CompoundSelectorFunctionInvocation invocation) {
-        return invoke(parameterMap, selectorFunctionHelper, invocation.selectorFunctionInvocations);
+        if (invocation.selectorFunctionInvocations.size() == 1) {
+            // a single invocation does not have to be materialized to be iterated again
+            return invoke(parameterMap, invocation.selectorFunctionInvocations.get(0));
+        }
+
+        CompoundSelectorFunctionInvocationPlan plan = plans.computeIfAbsent(invocation, i -> CompoundSelectorFunctionInvocationPlan.compile(i, this::isImpure));
+        return () -> new PlanIterator(parameterMap, plan);
     }
 
-    private static Iterable<Map<String, BaseTypeValue>> invoke(Map<String, BaseTypeValue> parameterMap, SelectorFunctionHelper selectorFunctionHelper, List<SelectorFunctionInvocation> invocations) {
-        if (invocations.isEmpty()) {
-            return Collections.singletonList(Collections.emptyMap());
+    /**
+     * @return how often the results of every invoked selector function were reused and how much time that saved, by name
+     * of the selector function
+     */
+    public Map<String, MemoStatistics> getStatistics() {
+        Map<String, MemoStatistics> statistics = new TreeMap<>();
+        for (Map.Entry<String, Memo> entry : memos.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().toStatistics());
         }
-
-        return () -> new MappingIterator<>(
-                CartesianHelper.dependentProduct(
-                        invoke(parameterMap, selectorFunctionHelper, invocations.get(0)),
-                        x -> invoke(MapHelper.joinDistinct(parameterMap, x), selectorFunctionHelper, invocations.subList(1, invocations.size()))
-                ).iterator(),
-                x -> MapHelper.joinDistinct(x.v0, x.v1));
+        return statistics;
     }
 
-    private static Iterable<Map<String, BaseTypeValue>> invoke(Map<String, BaseTypeValue> parameterMap, SelectorFunctionHelper selectorFunctionHelper, SelectorFunctionInvocation invocation) {
+    private Iterable<Map<String, BaseTypeValue>> invoke(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvocation invocation) {
         try {
-            Method method = selectorFunctionHelper.getMethod(invocation.selectorFunction);
-            Object provider = selectorFunctionHelper.getProvider(invocation.selectorFunction);
-
-            EvaluateExpressionVisitor evaluateExpressionVisitor = new EvaluateExpressionVisitor(parameterMap);
-            Object o = method.invoke(provider, invocation.arguments.stream().map(e -> e.accept(evaluateExpressionVisitor).accept(new ToObjectBaseTypeValueVisitor())).toArray());
-            List<String> names = invocation.parameters.stream().map(p -> p.name).collect(Collectors.toList());
+            CompiledSelectorFunctionInvocation compiledInvocation = compiledInvocations.computeIfAbsent(invocation, i -> new CompiledSelectorFunctionInvocation(i, selectorFunctionHelper));
+            Memo memo = getMemo(invocation.selectorFunction);
 
-            return resultToBindings(o, names);
+            return resultToBindings(memo.invoke(compiledInvocation, compiledInvocation.evaluateArguments(parameterMap)), compiledInvocation.parameterNames);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private boolean isImpure(SelectorFunction selectorFunction) {
+        Method method = selectorFunctionHelper.getMethod(selectorFunction);
+        Object provider = selectorFunctionHelper.getProvider(selectorFunction);
+        return method.isAnnotationPresent(Impure.class) || provider.getClass().isAnnotationPresent(Impure.class);
+    }
+
+    private Memo getMemo(SelectorFunction selectorFunction) {
+        return memos.computeIfAbsent(selectorFunction.name, n -> new Memo(selectorFunction));
+    }
+
+    /**
+     * Iterates the bindings of the invocations of a plan in the order of the nested loops over the invocations. The
+     * bindings of an invocation are kept while the bindings of the invocations it depends on are the same, so they are
+     * not computed again for every binding of the invocations in between.
+     */
+    private class PlanIterator implements Iterator<Map<String, BaseTypeValue>> {
+        private final Map<String, BaseTypeValue> parameterMap;
+        private final CompoundSelectorFunctionInvocationPlan plan;
+        private final List<List<Map<String, BaseTypeValue>>> bindings;
+        private final int[] positions;
+        private boolean hasNext;
+
+        private PlanIterator(Map<String, BaseTypeValue> parameterMap, CompoundSelectorFunctionInvocationPlan plan) {
+            this.parameterMap = parameterMap;
+            this.plan = plan;
+            this.bindings = new ArrayList<>(Collections.nCopies(plan.invocations.size(), null));
+            this.positions = new int[plan.invocations.size()];
+            this.hasNext = seek(0, false);
+        }
+
+        /**
+         * Moves to the next combination of bindings, either by advancing the given invocation or by starting the given
+         * invocation at its first binding. The following invocations are started at their first binding.
+         *
+         * @return false if there is no further combination
+         */
+        private boolean seek(int index, boolean advance) {
+            int firstChanged = index;
+
+            while (index >= 0 && index < positions.length) {
+                if (advance) {
+                    ++positions[index];
+                    firstChanged = Math.min(firstChanged, index);
+                } else {
+                    if (bindings.get(index) == null || plan.getLastDependency(index) >= firstChanged) {
+                        bindings.set(index, evaluate(index));
+                    }
+                    positions[index] = 0;
+                }
+
+                if (positions[index] < bindings.get(index).size()) {
+                    ++index;
+                    advance = false;
+                } else {
+                    --index;
+                    advance = true;
+                }
+            }
+            return index == positions.length;
+        }
+
+        private List<Map<String, BaseTypeValue>> evaluate(int index) {
+            Map<String, BaseTypeValue> invocationParameterMap = new HashMap<>(parameterMap);
+            for (int i = 0; i <= plan.getLastDependency(index); ++i) {
+                invocationParameterMap.putAll(bindings.get(i).get(positions[i]));
+            }
+
+            List<Map<String, BaseTypeValue>> ret = new ArrayList<>();
+            invoke(invocationParameterMap, plan.invocations.get(index)).forEach(ret::add);
+            return ret;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public Map<String, BaseTypeValue> next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+
+            Map<String, BaseTypeValue> ret = new HashMap<>();
+            for (int i = 0; i < positions.length; ++i) {
+                ret.putAll(bindings.get(i).get(positions[i]));
+            }
+
+            hasNext = seek(positions.length - 1, true);
+            return Collections.unmodifiableMap(ret);
+        }
+    }
+
+    /**
+     * Hits and misses of the remembered results of a selector function. Every invocation of an impure selector function
+     * counts as a miss. The saved time is estimated as the number of hits times the average time of a miss. The first
+     * miss is left out of the average if there are others, it includes loading and warming up the provider.
+     */
+    public static class MemoStatistics {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long missNanos;
+        public final long savedNanos;
+
+        private MemoStatistics(long hits, long misses, long evictions, long missNanos, long firstMissNanos) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.missNanos = missNanos;
+            if (misses == 0) {
+                this.savedNanos = 0;
+            } else if (misses == 1) {
+                this.savedNanos = missNanos * hits;
+            } else {
+                this.savedNanos = (long) ((double) (missNanos - firstMissNanos) / (misses - 1) * hits);
+            }
+        }
+    }
+
+    private class Memo {
+        private final boolean pure;
+        // the results are materialized into arrays, the bindings are created from them while iterating; guarded by this
+        private final LinkedHashMap<List<Object>, Object> results = new LinkedHashMap<>(16, 0.75f, true);
+        private long rememberedValues = 0;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder missNanos = new LongAdder();
+        private final AtomicLong firstMissNanos = new AtomicLong(-1);
+
+        private Memo(SelectorFunction selectorFunction) {
+            pure = !isImpure(selectorFunction);
+        }
+
+        private Object invoke(CompiledSelectorFunctionInvocation compiledInvocation, Object[] arguments) {
+            long start = System.nanoTime();
+            if (!pure) {
+                misses.increment();
+                Object result = compiledInvocation.invoke(arguments);
+                // a stream can only be iterated once, but the bindings may be iterated several times
+                result = result instanceof LongStream ? ((LongStream) result).toArray() : result;
+                recordMiss(System.nanoTime() - start);
+                return result;
+            }
+
+            List<Object> key = Arrays.asList(arguments);
+            Object result;
+            synchronized (this) {
+                result = results.get(key);
+            }
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+
+            misses.increment();
+            result = materialize(compiledInvocation.invoke(arguments));
+            recordMiss(System.nanoTime() - start);
+            remember(key, result);
+            return result;
+        }
+
+        private void recordMiss(long nanos) {
+            missNanos.add(nanos);
+            firstMissNanos.compareAndSet(-1, nanos);
+        }
+
+        private synchronized void remember(List<Object> key, Object result) {
+            long size = getRememberedSize(result);
+            // another thread may have computed the same result in the meantime
+            if (size > maxRememberedValues || results.containsKey(key)) {
+                return;
+            }
+
+            results.put(key, result);
+            rememberedValues += size;
+            Iterator<Object> leastRecentlyUsed = results.values().iterator();
+            while (rememberedValues > maxRememberedValues) {
+                Object evictedResult = leastRecentlyUsed.next();
+                rememberedValues -= getRememberedSize(evictedResult);
+                leastRecentlyUsed.remove();
+                evictions.increment();
+            }
+        }
+
+        private MemoStatistics toStatistics() {
+            return new MemoStatistics(hits.sum(), misses.sum(), evictions.sum(), missNanos.sum(), Math.max(firstMissNanos.get(), 0));
+        }
+    }
+
+    /**
+     * @return the number of values of a materialized result plus one, so that empty results are bounded as well
+     */
+    private static long getRememberedSize(Object result) {
+        return (result instanceof long[] ? ((long[]) result).length : ((Object[]) result).length) + 1L;
+    }
+
+    /**
+     * @return the result as {@code long[]} if it consists of integers that fit into a long, otherwise as {@code Object[]}
+     */
+    @SuppressWarnings("unchecked")
+    private static Object materialize(Object result) {
+        if (result instanceof long[]) {
+            return result;
+        }
+        if (result instanceof LongStream) {
+            return ((LongStream) result).toArray();
+        }
+
+        List<Object> values = new ArrayList<>();
+        ((Iterable<Object>) result).forEach(values::add);
+
+        long[] longValues = new long[values.size()];
+        for (int i = 0; i < longValues.length; ++i) {
+            Object value = values.get(i);
+            if (!(value instanceof BigInteger) || ((BigInteger) value).bitLength() >= Long.SIZE) {
+                return values.toArray();
+            }
+            longValues[i] = ((BigInteger) value).longValue();
+        }
+        return longValues;
+    }
+
+    @SuppressWarnings("unchecked")
     private static Iterable<Map<String, BaseTypeValue>> resultToBindings(Object result, List<String> names) {
-        List<String> unmodifiableNames = Collections.unmodifiableList(new ArrayList<>(names));
-        return () -> new MappingIterator<>(((Iterable<Object>) result).iterator(), o -> bindToNames(o, unmodifiableNames));
+        if (result instanceof long[]) {
+            long[] values = (long[]) result;
+            if (values.length > 0 && names.size() != 1) {
+                throw new IllegalArgumentException("When binding to more than one name (or not binding any names), the result type has to be an implementation of Tuple!");
+            }
+            // the values are only promoted to BigInteger when they are bound, small values are not allocated at all
+            return () -> new Iterator<Map<String, BaseTypeValue>>() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < values.length;
+                }
+
+                @Override
+                public Map<String, BaseTypeValue> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return Collections.singletonMap(names.get(0), BaseTypeValue.fromLong(values[i++]));
+                }
+            };
+        }
+
+        Iterable<Object> iterable = result instanceof Object[] ? Arrays.asList((Object[]) result) : (Iterable<Object>) result;
+        return () -> new MappingIterator<>(iterable.iterator(), o -> bindToNames(o, names));
     }
 
     private static Map<String, BaseTypeValue> bindToNames(Object o, List<String> names) {
@@ -0,0 +1,522 @@
+package secpriv.horst.tools;
+
+import secpriv.horst.data.*;
+import secpriv.horst.types.Type;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Compact binary representation of fully instantiated rules, i.e. the output of the translation pipeline. Names and
+ * predicates are written once and referenced by index afterwards. Expressions are numbered in the order they are
+ * written and expressions that are shared by reference are written once, so the rules read back share subexpressions
+ * like the rules that were written.
+ */
+public class BinaryRuleFormat {
+    private static final int MAGIC = 0x486f5253;
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_BOOLEAN = 0;
+    private static final byte TYPE_INTEGER = 1;
+    private static final byte TYPE_ARRAY = 2;
+
+    private static final byte REFERENCE = 0;
+    private static final byte INT_CONST = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte ARRAY_INIT = 4;
+    private static final byte VAR = 5;
+    private static final byte FREE_VAR = 6;
+    private static final byte BINARY_INT = 7;
+    private static final byte BINARY_BOOL = 8;
+    private static final byte SELECT = 9;
+    private static final byte STORE = 10;
+    private static final byte NEGATION = 11;
+    private static final byte CONDITIONAL = 12;
+    private static final byte COMPARISON = 13;
+    private static final byte CONST = 14;
+    private static final byte BITVECTOR_NEGATION = 15;
+
+    private static final byte PREDICATE_PROPOSITION = 0;
+    private static final byte EXPRESSION_PROPOSITION = 1;
+
+    private BinaryRuleFormat() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if a rule still has a selector function invocation or contains expressions that
+     *                                  are eliminated by the translation pipeline, e.g. sums or custom types
+     */
+    public static void write(List<Rule> rules, DataOutput out) throws IOException {
+        Objects.requireNonNull(rules, "Rules may not be null!");
+        Writer writer = new Writer(Objects.requireNonNull(out, "Out may not be null!"));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(rules.size());
+        try {
+            for (Rule rule : rules) {
+                writer.writeRule(rule);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @throws IOException if the input is not in this format or in another version of it
+     */
+    public static List<Rule> read(DataInput in) throws IOException {
+        Reader reader = new Reader(Objects.requireNonNull(in, "In may not be null!"));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Input is not in binary rule format!");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Expected version " + VERSION + " of binary rule format, but got version " + version + "!");
+        }
+
+        int ruleCount = in.readInt();
+        List<Rule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; ++i) {
+            rules.add(reader.readRule());
+        }
+        return rules;
+    }
+
+    private static class Writer implements Expression.Visitor<Void> {
+        private final DataOutput out;
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final Map<Predicate, Integer> predicateIndices = new HashMap<>();
+        private final Map<Expression, Integer> expressionIndices = new IdentityHashMap<>();
+
+        private Writer(DataOutput out) {
+            this.out = out;
+        }
+
+        private void writeRule(Rule rule) throws IOException {
+            if (rule.selectorFunctionInvocation != CompoundSelectorFunctionInvocation.UnitInvocation) {
+                throw new IllegalArgumentException("Rule " + rule.name + " is not instantiated!");
+            }
+            writeString(rule.name);
+            out.writeInt(rule.clauses.size());
+            for (Clause clause : rule.clauses) {
+                writeClause(clause);
+            }
+        }
+
+        private void writeClause(Clause clause) throws IOException {
+            out.writeInt(clause.freeVars.size());
+            for (Map.Entry<String, Type> freeVar : clause.freeVars.entrySet()) {
+                writeString(freeVar.getKey());
+                writeType(freeVar.getValue());
+            }
+            out.writeInt(clause.premises.size());
+            for (Proposition premise : clause.premises) {
+                if (premise instanceof Proposition.PredicateProposition) {
+                    out.writeByte(PREDICATE_PROPOSITION);
+                    writePredicateProposition((Proposition.PredicateProposition) premise);
+                } else {
+                    out.writeByte(EXPRESSION_PROPOSITION);
+                    writeExpression(((Proposition.ExpressionProposition) premise).expression);
+                }
+            }
+            writePredicateProposition(clause.conclusion);
+        }
+
+        private void writePredicateProposition(Proposition.PredicateProposition proposition) throws IOException {
+            writePredicate(proposition.predicate);
+            writeExpressions(proposition.parameters);
+            writeExpressions(proposition.arguments);
+        }
+
+        private void writePredicate(Predicate predicate) throws IOException {
+            Integer index = predicateIndices.get(predicate);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            out.writeInt(predicateIndices.size());
+            predicateIndices.put(predicate, predicateIndices.size());
+            writeString(predicate.name);
+            writeTypes(predicate.parameterTypes);
+            writeTypes(predicate.argumentsTypes);
+        }
+
+        private void writeTypes(List<Type> types) throws IOException {
+            out.writeInt(types.size());
+            for (Type type : types) {
+                writeType(type);
+            }
+        }
+
+        private void writeType(Type type) throws IOException {
+            if (type == Type.Boolean) {
+                out.writeByte(TYPE_BOOLEAN);
+            } else if (type == Type.Integer) {
+                out.writeByte(TYPE_INTEGER);
+            } else if (type instanceof Type.ArrayType) {
+                out.writeByte(TYPE_ARRAY);
+                writeType(((Type.ArrayType) type).type);
+            } else {
+                throw new IllegalArgumentException("Type " + type + " cannot be written!");
+            }
+        }
+
+        private void writeString(String string) throws IOException {
+            Integer index = stringIndices.get(string);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            out.writeInt(stringIndices.size());
+            stringIndices.put(string, stringIndices.size());
+            out.writeUTF(string);
+        }
+
+        private void writeExpressions(List<Expression> expressions) throws IOException {
+            out.writeInt(expressions.size());
+            for (Expression expression : expressions) {
+                writeExpression(expression);
+            }
+        }
+
+        private void writeExpression(Expression expression) {
+            Integer index = expressionIndices.get(expression);
+            try {
+                if (index != null) {
+                    out.writeByte(REFERENCE);
+                    out.writeInt(index);
+                    return;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            expression.accept(this);
+            // the reader numbers expressions in the same order, once it has read all children
+            expressionIndices.put(expression, expressionIndices.size());
+        }
+
+        private Void writeNode(byte tag, Expression... children) {
+            try {
+                out.writeByte(tag);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (Expression child : children) {
+                writeExpression(child);
+            }
+            return null;
+        }
+
+        private Void writeVariable(byte tag, Expression.VariableReferenceExpression expression) {
+            try {
+                out.writeByte(tag);
+                writeType(expression.type);
+                writeString(expression.name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+
+        private Void writeOperation(Enum<?> operation) {
+            try {
+                out.writeByte(operation.ordinal());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.IntConst expression) {
+            try {
+                out.writeByte(INT_CONST);
+                byte[] bytes = expression.value.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.BoolConst expression) {
+            return writeNode(expression.value ? TRUE : FALSE);
+        }
+
+        @Override
+        public Void visit(Expression.ArrayInitExpression expression) {
+            return writeNode(ARRAY_INIT, expression.initializer);
+        }
+
+        @Override
+        public Void visit(Expression.VarExpression expression) {
+            return writeVariable(VAR, expression);
+        }
+
+        @Override
+        public Void visit(Expression.FreeVarExpression expression) {
+            return writeVariable(FREE_VAR, expression);
+        }
+
+        @Override
+        public Void visit(Expression.ParVarExpression expression) {
+            throw new IllegalArgumentException("Parameter " + expression.name + " is not instantiated!");
+        }
+
+        @Override
+        public Void visit(Expression.BinaryIntExpression expression) {
+            writeNode(BINARY_INT, expression.expression1, expression.expression2);
+            return writeOperation(expression.operation);
+        }
+
+        @Override
+        public Void visit(Expression.BinaryBoolExpression expression) {
+            writeNode(BINARY_BOOL, expression.expression1, expression.expression2);
+            return writeOperation(expression.operation);
+        }
+
+        @Override
+        public Void visit(Expression.SelectExpression expression) {
+            return writeNode(SELECT, expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Void visit(Expression.StoreExpression expression) {
+            return writeNode(STORE, expression.expression1, expression.expression2, expression.expression3);
+        }
+
+        @Override
+        public Void visit(Expression.AppExpression expression) {
+            throw new IllegalArgumentException("Operation " + expression.operation.name + " is not inlined!");
+        }
+
+        @Override
+        public Void visit(Expression.ConstructorAppExpression expression) {
+            throw new IllegalArgumentException("Constructor " + expression.constructor.name + " is not inlined!");
+        }
+
+        @Override
+        public Void visit(Expression.MatchExpression expression) {
+            throw new IllegalArgumentException("Match expressions cannot be written!");
+        }
+
+        @Override
+        public Void visit(Expression.NegationExpression expression) {
+            return writeNode(NEGATION, expression.expression);
+        }
+
+        @Override
+        public Void visit(Expression.ConditionalExpression expression) {
+            return writeNode(CONDITIONAL, expression.expression1, expression.expression2, expression.expression3);
+        }
+
+        @Override
+        public Void visit(Expression.ComparisonExpression expression) {
+            writeNode(COMPARISON, expression.expression1, expression.expression2);
+            return writeOperation(expression.operation);
+        }
+
+        @Override
+        public Void visit(Expression.ConstExpression expression) {
+            writeNode(CONST, expression.value);
+            try {
+                writeString(expression.name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.SumExpression expression) {
+            throw new IllegalArgumentException("Sum expressions cannot be written!");
+        }
+
+        @Override
+        public Void visit(Expression.BitvectorNegationExpression expression) {
+            return writeNode(BITVECTOR_NEGATION, expression.expression);
+        }
+    }
+
+    private static class Reader {
+        private final DataInput in;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Predicate> predicates = new ArrayList<>();
+        private final List<Expression> expressions = new ArrayList<>();
+
+        private Reader(DataInput in) {
+            this.in = in;
+        }
+
+        private Rule readRule() throws IOException {
+            String name = readString();
+            int clauseCount = in.readInt();
+            List<Clause> clauses = new ArrayList<>(clauseCount);
+            for (int i = 0; i < clauseCount; ++i) {
+                clauses.add(readClause());
+            }
+            return new Rule(name, CompoundSelectorFunctionInvocation.UnitInvocation, clauses);
+        }
+
+        private Clause readClause() throws IOException {
+            int freeVarCount = in.readInt();
+            Map<String, Type> freeVars = new LinkedHashMap<>();
+            for (int i = 0; i < freeVarCount; ++i) {
+                String name = readString();
+                freeVars.put(name, readType());
+            }
+            int premiseCount = in.readInt();
+            List<Proposition> premises = new ArrayList<>(premiseCount);
+            for (int i = 0; i < premiseCount; ++i) {
+                byte tag = in.readByte();
+                if (tag == PREDICATE_PROPOSITION) {
+                    premises.add(readPredicateProposition());
+                } else if (tag == EXPRESSION_PROPOSITION) {
+                    premises.add(new Proposition.ExpressionProposition(readExpression()));
+                } else {
+                    throw new IOException("Unknown proposition tag " + tag + "!");
+                }
+            }
+            return new Clause(premises, readPredicateProposition(), freeVars);
+        }
+
+        private Proposition.PredicateProposition readPredicateProposition() throws IOException {
+            Predicate predicate = readPredicate();
+            List<Expression> parameters = readExpressions();
+            return new Proposition.PredicateProposition(predicate, parameters, readExpressions());
+        }
+
+        private Predicate readPredicate() throws IOException {
+            int index = in.readInt();
+            if (index < predicates.size()) {
+                return predicates.get(index);
+            }
+            String name = readString();
+            List<Type> parameterTypes = readTypes();
+            Predicate predicate = new Predicate(name, parameterTypes, readTypes());
+            predicates.add(predicate);
+            return predicate;
+        }
+
+        private List<Type> readTypes() throws IOException {
+            int typeCount = in.readInt();
+            List<Type> types = new ArrayList<>(typeCount);
+            for (int i = 0; i < typeCount; ++i) {
+                types.add(readType());
+            }
+            return types;
+        }
+
+        private Type readType() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case TYPE_BOOLEAN:
+                    return Type.Boolean;
+                case TYPE_INTEGER:
+                    return Type.Integer;
+                case TYPE_ARRAY:
+                    return Type.Array.of(readType());
+            }
+            throw new IOException("Unknown type tag " + tag + "!");
+        }
+
+        private String readString() throws IOException {
+            int index = in.readInt();
+            if (index < strings.size()) {
+                return strings.get(index);
+            }
+            String string = in.readUTF();
+            strings.add(string);
+            return string;
+        }
+
+        private List<Expression> readExpressions() throws IOException {
+            int expressionCount = in.readInt();
+            List<Expression> expressions = new ArrayList<>(expressionCount);
+            for (int i = 0; i < expressionCount; ++i) {
+                expressions.add(readExpression());
+            }
+            return expressions;
+        }
+
+        private Expression readExpression() throws IOException {
+            byte tag = in.readByte();
+            if (tag == REFERENCE) {
+                return expressions.get(in.readInt());
+            }
+            Expression expression = readNode(tag);
+            expressions.add(expression);
+            return expression;
+        }
+
+        private Expression readNode(byte tag) throws IOException {
+            switch (tag) {
+                case INT_CONST:
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    return new Expression.IntConst(new BigInteger(bytes));
+                case TRUE:
+                    return Expression.BoolConst.TRUE;
+                case FALSE:
+                    return Expression.BoolConst.FALSE;
+                case ARRAY_INIT:
+                    return new Expression.ArrayInitExpression(readExpression());
+                case VAR: {
+                    Type type = readType();
+                    return new Expression.VarExpression(type, readString());
+                }
+                case FREE_VAR: {
+                    Type type = readType();
+                    return new Expression.FreeVarExpression(type, readString());
+                }
+                case BINARY_INT: {
+                    Expression expression1 = readExpression();
+                    Expression expression2 = readExpression();
+                    return new Expression.BinaryIntExpression(expression1, expression2, Expression.IntOperation.values()[in.readByte()]);
+                }
+                case BINARY_BOOL: {
+                    Expression expression1 = readExpression();
+                    Expression expression2 = readExpression();
+                    return new Expression.BinaryBoolExpression(expression1, expression2, Expression.BoolOperation.values()[in.readByte()]);
+                }
+                case SELECT: {
+                    Expression expression1 = readExpression();
+                    return new Expression.SelectExpression(expression1, readExpression());
+                }
+                case STORE: {
+                    Expression expression1 = readExpression();
+                    Expression expression2 = readExpression();
+                    return new Expression.StoreExpression(expression1, expression2, readExpression());
+                }
+                case NEGATION:
+                    return new Expression.NegationExpression(readExpression());
+                case CONDITIONAL: {
+                    Expression expression1 = readExpression();
+                    Expression expression2 = readExpression();
+                    return new Expression.ConditionalExpression(expression1, expression2, readExpression());
+                }
+                case COMPARISON: {
+                    Expression expression1 = readExpression();
+                    Expression expression2 = readExpression();
+                    return new Expression.ComparisonExpression(expression1, expression2, Expression.CompOperation.values()[in.readByte()]);
+                }
+                case CONST: {
+                    Expression value = readExpression();
+                    return new Expression.ConstExpression(readString(), value);
+                }
+                case BITVECTOR_NEGATION:
+                    return new Expression.BitvectorNegationExpression(readExpression());
+            }
+            throw new IOException("Unknown expression tag " + tag + "!");
+        }
+    }
+}
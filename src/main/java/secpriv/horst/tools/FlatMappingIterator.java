@@ -0,0 +1,42 @@
+package secpriv.horst.tools;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Iterates the elements of the iterators the function maps the elements of the underlying iterator to. Unlike the
+ * iterator of {@link java.util.stream.Stream#flatMap(Function)}, the elements of a mapped iterator are not buffered, so
+ * only the current element of every level is held at a time.
+ */
+public class FlatMappingIterator<U, V> implements Iterator<V> {
+    private final Iterator<U> iterator;
+    private final Function<U, Iterator<V>> function;
+    private Iterator<V> current = Collections.emptyIterator();
+
+    public FlatMappingIterator(Iterator<U> iterator, Function<U, Iterator<V>> function) {
+        this.iterator = Objects.requireNonNull(iterator, "Iterator may not be null!");
+        this.function = Objects.requireNonNull(function, "Function may not be null!");
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = function.apply(iterator.next());
+        }
+        return true;
+    }
+
+    @Override
+    public V next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+}
@@ -0,0 +1,50 @@
+package secpriv.horst.tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+
+public class HeapUsageHelper {
+    private HeapUsageHelper() {
+    }
+
+    /**
+     * @return the sum of the peak usages of all heap memory pools in bytes since the start of the JVM or the last call
+     * of {@link #resetPeakHeapUsage()}. The pools may peak at different times, so this is an upper bound of the
+     * actual high-water mark.
+     */
+    public static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    public static void resetPeakHeapUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far or 0 if the JVM does not support measuring it.
+     */
+    public static long getAllocatedBytesOfCurrentThread() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            long allocatedBytes = ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+            return Math.max(allocatedBytes, 0);
+        }
+        return 0;
+    }
+
+    public static String format(long bytes) {
+        return (bytes / (1024 * 1024)) + " MB";
+    }
+}
@@ -0,0 +1,100 @@
+package secpriv.horst.tools;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Directory of the classes compiled from selector function provider sources, keyed by a hash of the source, the JDK and
+ * the compiler, so that a provider is only compiled again when one of them changed. Unlike the entries of
+ * {@link RuleCache}, the entries are small and are not evicted.
+ */
+public class ProviderClassCache {
+    private static final String SUFFIX = ".classes";
+
+    private final Path directory;
+
+    public ProviderClassCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "Directory may not be null!");
+    }
+
+    /**
+     * @return the key of the classes compiled from the source file by the running JDK
+     */
+    public static String getKey(File sourceFile) throws IOException {
+        return RuleCache.keyBuilder()
+                .addString("selector-function-provider")
+                .addString(System.getProperty("java.version"))
+                .addString(System.getProperty("java.vm.version"))
+                .addCodeSource(ProviderClassCache.class)
+                .addFile(sourceFile)
+                .build();
+    }
+
+    /**
+     * @return the bytecode of the classes stored under the key by class name, or empty if there is no entry or it cannot
+     * be read
+     */
+    public Optional<Map<String, byte[]>> get(String key) {
+        Path file = getFile(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int classCount = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (int i = 0; i < classCount; ++i) {
+                String className = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(className, bytes);
+            }
+            return Optional.of(classes);
+        } catch (IOException e) {
+            deleteIfExists(file);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the bytecode of the classes, given by class name, under the key.
+     */
+    public void put(String key, Map<String, byte[]> classes) throws IOException {
+        Objects.requireNonNull(classes, "Classes may not be null!");
+        Files.createDirectories(directory);
+
+        // other processes must not read half written entries, so the entry is moved into place once it is complete
+        Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(temporaryFile, getFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteIfExists(temporaryFile);
+        }
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // another process may still use the file
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package secpriv.horst.tools;
+
+import secpriv.horst.data.CompoundSelectorFunctionInvocation;
+import secpriv.horst.data.Rule;
+import secpriv.horst.visitors.VisitorState;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Directory of translated rules keyed by a hash of everything the translation depends on, so that translating the same
+ * specification and contract again can be skipped. Entries are evicted when they were not used for longer than the
+ * maximal age and, least recently used first, when the directory grows larger than the maximal size.
+ */
+public class RuleCache {
+    private static final String SUFFIX = ".rules";
+
+    private final Path directory;
+    private final long maxSize;
+    private final long maxAgeMillis;
+
+    /**
+     * @param maxSize      maximal size of all entries in bytes
+     * @param maxAgeMillis time in milliseconds after which an unused entry is evicted
+     */
+    public RuleCache(Path directory, long maxSize, long maxAgeMillis) {
+        this.directory = Objects.requireNonNull(directory, "Directory may not be null!");
+        if (maxSize < 0 || maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Maximal size and age may not be negative!");
+        }
+        this.maxSize = maxSize;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public static KeyBuilder keyBuilder() {
+        return new KeyBuilder();
+    }
+
+    /**
+     * @return the entry stored under the key or empty if there is none or it cannot be read
+     */
+    public Optional<Entry> get(String key) {
+        Path file = getFile(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            Entry entry = Entry.read(in);
+            // the modification time is the time of the last use, which eviction is based on
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(entry);
+        } catch (IOException e) {
+            deleteIfExists(file);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the entry under the key and evicts entries afterwards.
+     */
+    public void put(String key, Entry entry) throws IOException {
+        Objects.requireNonNull(entry, "Entry may not be null!");
+        Files.createDirectories(directory);
+
+        // other processes must not read half written entries, so the entry is moved into place once it is complete
+        Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporaryFile))))) {
+                entry.write(out);
+            }
+            Files.move(temporaryFile, getFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteIfExists(temporaryFile);
+        }
+
+        evict();
+    }
+
+    /**
+     * Deletes all entries older than the maximal age and then the least recently used entries until all entries fit into
+     * the maximal size.
+     */
+    public void evict() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).collect(Collectors.toList());
+        }
+
+        Map<Path, Long> lastUses = new HashMap<>();
+        for (Path file : files) {
+            lastUses.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort(Comparator.comparing(lastUses::get));
+
+        long oldestAllowedUse = System.currentTimeMillis() - maxAgeMillis;
+        long size = 0;
+        List<Path> keptFiles = new ArrayList<>();
+        for (Path file : files) {
+            if (lastUses.get(file) < oldestAllowedUse) {
+                deleteIfExists(file);
+            } else {
+                keptFiles.add(file);
+                size += Files.size(file);
+            }
+        }
+
+        for (Path file : keptFiles) {
+            if (size <= maxSize) {
+                break;
+            }
+            size -= Files.size(file);
+            deleteIfExists(file);
+        }
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // another process may still use the file, it is deleted by a later eviction
+        }
+    }
+
+    /**
+     * The translated rules together with the query and test names of the specification, which are needed to tell
+     * queries and tests apart from the other rules.
+     */
+    public static class Entry {
+        public final List<Rule> rules;
+        public final List<String> queryIds;
+        public final Map<String, VisitorState.TestResult> testResults;
+
+        public Entry(List<Rule> rules, List<String> queryIds, Map<String, VisitorState.TestResult> testResults) {
+            this.rules = Collections.unmodifiableList(Objects.requireNonNull(rules, "Rules may not be null!"));
+            this.queryIds = Collections.unmodifiableList(Objects.requireNonNull(queryIds, "QueryIds may not be null!"));
+            this.testResults = Collections.unmodifiableMap(Objects.requireNonNull(testResults, "TestResults may not be null!"));
+        }
+
+        public Entry(List<Rule> rules, VisitorState state) {
+            this(rules, new ArrayList<>(state.getQueryIds()), new LinkedHashMap<>(state.getTestResults()));
+        }
+
+        /**
+         * @return a state that defines the queries and tests of the entry, but no rules
+         */
+        public VisitorState toVisitorState() {
+            VisitorState state = new VisitorState();
+            // only the names of queries and tests are needed to classify the cached rules
+            for (String queryId : queryIds) {
+                state.defineQuery(new Rule(queryId, CompoundSelectorFunctionInvocation.UnitInvocation, Collections.emptyList()));
+            }
+            for (Map.Entry<String, VisitorState.TestResult> testResult : testResults.entrySet()) {
+                Rule test = new Rule(testResult.getKey(), CompoundSelectorFunctionInvocation.UnitInvocation, Collections.emptyList());
+                if (testResult.getValue() == VisitorState.TestResult.SAT) {
+                    state.defineSatisfiableTest(test);
+                } else {
+                    state.defineUnsatisfiableTest(test);
+                }
+            }
+            state.getRules().clear();
+            return state;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(queryIds.size());
+            for (String queryId : queryIds) {
+                out.writeUTF(queryId);
+            }
+            out.writeInt(testResults.size());
+            for (Map.Entry<String, VisitorState.TestResult> testResult : testResults.entrySet()) {
+                out.writeUTF(testResult.getKey());
+                out.writeBoolean(testResult.getValue() == VisitorState.TestResult.SAT);
+            }
+            BinaryRuleFormat.write(rules, out);
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            int queryCount = in.readInt();
+            List<String> queryIds = new ArrayList<>(queryCount);
+            for (int i = 0; i < queryCount; ++i) {
+                queryIds.add(in.readUTF());
+            }
+            int testCount = in.readInt();
+            Map<String, VisitorState.TestResult> testResults = new LinkedHashMap<>();
+            for (int i = 0; i < testCount; ++i) {
+                String testId = in.readUTF();
+                testResults.put(testId, in.readBoolean() ? VisitorState.TestResult.SAT : VisitorState.TestResult.UNSAT);
+            }
+            return new Entry(BinaryRuleFormat.read(in), queryIds, testResults);
+        }
+    }
+
+    /**
+     * Hashes the inputs of a translation into a cache key. Every input is prefixed with its length, so different
+     * sequences of inputs never hash the same bytes.
+     */
+    public static class KeyBuilder {
+        // 2: class directories are part of the key
+        private static final int KEY_VERSION = 2;
+        private static final Map<File, String> codeSourceDirectoryHashes = new ConcurrentHashMap<>();
+        private final MessageDigest digest;
+
+        private KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            addString(Integer.toString(KEY_VERSION));
+        }
+
+        public KeyBuilder addString(String string) {
+            return addBytes(Objects.requireNonNull(string, "String may not be null!").getBytes(StandardCharsets.UTF_8));
+        }
+
+        public KeyBuilder addFlag(String name, boolean value) {
+            return addString(name + "=" + value);
+        }
+
+        /**
+         * Adds the name and content of the file.
+         */
+        public KeyBuilder addFile(File file) throws IOException {
+            addString(file.getName());
+            return addBytes(Files.readAllBytes(file.toPath()));
+        }
+
+        /**
+         * Adds the names and contents of all files below the directory, ordered by their relative path.
+         */
+        public KeyBuilder addDirectory(File directory) throws IOException {
+            Path root = directory.toPath();
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(root)) {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            addString(Integer.toString(files.size()));
+            for (Path file : files) {
+                // separators differ between platforms, the key should not
+                addString(root.relativize(file).toString().replace(File.separatorChar, '/'));
+                addBytes(Files.readAllBytes(file));
+            }
+            return this;
+        }
+
+        /**
+         * Adds the jar or the class directory the class was loaded from, so that entries written by another build of the
+         * compiler are not used. The hash of a directory is computed once per run.
+         *
+         * @throws IOException if the class was not loaded from a jar or a directory
+         */
+        public KeyBuilder addCodeSource(Class<?> clazz) throws IOException {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            File file = null;
+            if (codeSource != null) {
+                try {
+                    file = new File(codeSource.getLocation().toURI());
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // the location is not a file
+                }
+            }
+
+            if (file != null && file.isFile()) {
+                return addFile(file);
+            }
+            if (file != null && file.isDirectory()) {
+                String directoryHash = codeSourceDirectoryHashes.get(file);
+                if (directoryHash == null) {
+                    directoryHash = new KeyBuilder().addDirectory(file).build();
+                    codeSourceDirectoryHashes.put(file, directoryHash);
+                }
+                return addString(directoryHash);
+            }
+            throw new IOException("Cannot hash the code source of " + clazz.getName() + ", it was neither loaded from a jar nor from a directory!");
+        }
+
+        private KeyBuilder addBytes(byte[] bytes) {
+            digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8), (byte) bytes.length});
+            digest.update(bytes);
+            return this;
+        }
+
+        public String build() {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package secpriv.horst.translation;
+
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.Predicate;
+import secpriv.horst.data.Rule;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Restricts a set of rules to the clauses a query depends on, i.e. the clauses whose conclusion is backward-reachable
+ * from the query in the clause dependency graph. Clauses outside of this cone cannot contribute to deriving the query,
+ * so the slice is equisatisfiable with the full set of rules for this query.
+ */
+public class ConeOfInfluenceSlicer {
+    private final List<Rule> rules;
+    private final Map<Predicate, List<Clause>> occurrencesAsConclusion = new HashMap<>();
+    private final int clauseCount;
+
+    public ConeOfInfluenceSlicer(List<Rule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(rules, "Rules may not be null!")));
+
+        MediumStepTransformer.MapPredicateToClauseClauseVisitor mapPredicateToClauseClauseVisitor = new MediumStepTransformer.MapPredicateToClauseClauseVisitor(new HashMap<>(), occurrencesAsConclusion);
+        this.rules.stream().flatMap(r -> r.clauses.stream()).forEach(c -> c.accept(mapPredicateToClauseClauseVisitor));
+        this.clauseCount = countClauses(this.rules);
+    }
+
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    public int getPredicateCount() {
+        return occurrencesAsConclusion.size();
+    }
+
+    /**
+     * @return the rules restricted to the cone of influence of the given query. Rules without any remaining clause
+     * are dropped, the order of rules and clauses is preserved.
+     */
+    public List<Rule> slice(Rule query) {
+        Set<Clause> relevantClauses = computeRelevantClauses(query);
+
+        List<Rule> slicedRules = new ArrayList<>();
+        for (Rule rule : rules) {
+            List<Clause> clauses = rule.clauses.stream().filter(relevantClauses::contains).collect(Collectors.toList());
+            if (clauses.size() == rule.clauses.size()) {
+                slicedRules.add(rule);
+            } else if (!clauses.isEmpty()) {
+                slicedRules.add(new Rule(rule.name, rule.selectorFunctionInvocation, clauses));
+            }
+        }
+        return slicedRules;
+    }
+
+    public static int countClauses(List<Rule> rules) {
+        return rules.stream().mapToInt(r -> r.clauses.size()).sum();
+    }
+
+    public static int countPredicates(List<Rule> rules) {
+        return (int) rules.stream().flatMap(r -> r.clauses.stream()).map(c -> c.conclusion.predicate).distinct().count();
+    }
+
+    private Set<Clause> computeRelevantClauses(Rule query) {
+        MediumStepTransformer.RetrievePredicatesPropositionVisitor retrievePredicatesPropositionVisitor = new MediumStepTransformer.RetrievePredicatesPropositionVisitor();
+
+        Set<Predicate> reachedPredicates = new HashSet<>();
+        Deque<Predicate> worklist = new ArrayDeque<>();
+        Set<Clause> relevantClauses = new HashSet<>();
+
+        for (Clause clause : query.clauses) {
+            if (reachedPredicates.add(clause.conclusion.predicate)) {
+                worklist.add(clause.conclusion.predicate);
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            Predicate predicate = worklist.poll();
+            for (Clause clause : occurrencesAsConclusion.getOrDefault(predicate, Collections.emptyList())) {
+                relevantClauses.add(clause);
+                clause.premises.stream()
+                        .map(p -> p.accept(retrievePredicatesPropositionVisitor))
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .filter(reachedPredicates::add)
+                        .forEach(worklist::add);
+            }
+        }
+
+        return relevantClauses;
+    }
+}
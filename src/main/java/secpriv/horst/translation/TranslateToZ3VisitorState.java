@@ -11,16 +11,23 @@ import secpriv.horst.translation.visitors.TranslateToZ3ExpressionVisitorWithBitV
 import secpriv.horst.types.Type;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class TranslateToZ3VisitorState {
     public final Context context;
-    private Map<Predicate, FuncDecl> z3Predicates = new HashMap<>();
-    private Map<Expression.FreeVarExpression, Expr> z3FreeVars = new HashMap<>();
+    private Map<Predicate, FuncDecl<BoolSort>> z3Predicates = new HashMap<>();
+    private Map<Expression.FreeVarExpression, Expr<?>> z3FreeVars = new HashMap<>();
     private Map<String, BaseTypeValue> constantDefinitions = new HashMap<>();
+    private Map<String, Object> fixedpointParameters = new LinkedHashMap<>();
+    private Map<Expression, Expr<?>> translatedExpressions = new HashMap<>();
+    private long translationCacheHits = 0;
+    private long translationCacheMisses = 0;
     private final Expression.Visitor<Expr> expressionVisitor;
 
-    private final static int BIT_WIDTH = 32;//64;//256;
+    public final static int BIT_WIDTH = 32;//64;//256;
     private int boundCount = 0;
 
     private final Type.Visitor<Sort> typeToSortVisitor;
@@ -48,6 +55,42 @@ public class TranslateToZ3VisitorState {
         return expressionVisitor;
     }
 
+    /**
+     * Translates an expression to Z3, returning the already built term if a structurally equal expression has been
+     * translated before. Expression visitors should translate their sub-expressions with this method, so that
+     * shared sub-terms are built only once per context.
+     */
+    public Expr<?> translate(Expression expression) {
+        Expr<?> translated = translatedExpressions.get(expression);
+        if (translated != null) {
+            ++translationCacheHits;
+            return translated;
+        }
+        // no computeIfAbsent, translating sub-expressions modifies the map
+        translated = expression.accept(expressionVisitor);
+        translatedExpressions.put(expression, translated);
+        return translated;
+    }
+
+    /**
+     * Drops the translated expressions and the free variable declarations, so they can be garbage collected once the
+     * rules they belong to are not needed any more. Each rule quantifies its free variables on its own, so rules
+     * translated afterwards are not affected. The hit and miss counts are kept.
+     */
+    public void clearTranslationCache() {
+        translationCacheMisses += translatedExpressions.size();
+        translatedExpressions.clear();
+        z3FreeVars.clear();
+    }
+
+    public long getTranslationCacheHits() {
+        return translationCacheHits;
+    }
+
+    public long getTranslationCacheMisses() {
+        return translationCacheMisses + translatedExpressions.size();
+    }
+
     private class TypeToSortVisitor implements Type.Visitor<Sort> {
         @Override
         public Sort visit(Type.BooleanType type) {
@@ -92,11 +135,26 @@ public class TranslateToZ3VisitorState {
         }
     }
 
-    public FuncDecl getZ3PredicateDeclaration(Predicate predicate) {
+    public FuncDecl<BoolSort> getZ3PredicateDeclaration(Predicate predicate) {
         return z3Predicates.computeIfAbsent(predicate, this::computeZ3PredicateDeclaration);
     }
 
-    private FuncDecl computeZ3PredicateDeclaration(Predicate predicate) {
+    /**
+     * @return the number of declared predicates, they are registered with every fixedpoint created by this state
+     */
+    public int getZ3PredicateCount() {
+        return z3Predicates.size();
+    }
+
+    /**
+     * Forgets the declaration of an auxiliary predicate, so it is not registered with the fixedpoints created
+     * afterwards.
+     */
+    public void removeZ3PredicateDeclaration(Predicate predicate) {
+        z3Predicates.remove(predicate);
+    }
+
+    private FuncDecl<BoolSort> computeZ3PredicateDeclaration(Predicate predicate) {
         String name = predicate.name;
         Sort[] arguments = predicate.argumentsTypes.stream().map(this::typeToSort).toArray(Sort[]::new);
 
@@ -107,11 +165,11 @@ public class TranslateToZ3VisitorState {
         return type.accept(typeToSortVisitor);
     }
 
-    public Expr getZ3FreeVar(Expression.FreeVarExpression expression) {
+    public Expr<?> getZ3FreeVar(Expression.FreeVarExpression expression) {
         return z3FreeVars.computeIfAbsent(expression, this::computeZ3FreeVarDeclaration);
     }
 
-    private Expr computeZ3FreeVarDeclaration(Expression.FreeVarExpression expression) {
+    private Expr<?> computeZ3FreeVarDeclaration(Expression.FreeVarExpression expression) {
         return context.mkBound(boundCount++, typeToSort(expression.type));
     }
 
@@ -122,9 +180,56 @@ public class TranslateToZ3VisitorState {
         }).accept(new ToConstExpressionBaseTypeValueVisitor());
     }
 
+    /**
+     * Sets a parameter that is applied to every fixedpoint created by {@link #createFixedpoint(List, boolean)}.
+     * In contrast to {@link Global#setParameter(String, String)} the parameter only affects this state's context,
+     * so states with different parameters can be used side by side.
+     *
+     * @param name  the name of the fixedpoint parameter without the "fp." prefix, e.g. "engine"
+     * @param value a {@link Boolean}, {@link Integer}, {@link Double} or {@link String}
+     */
+    public void setFixedpointParameter(String name, Object value) {
+        Objects.requireNonNull(name, "Name may not be null!");
+        Objects.requireNonNull(value, "Value may not be null!");
+        if (!(value instanceof Boolean || value instanceof Integer || value instanceof Double || value instanceof String)) {
+            throw new IllegalArgumentException("Unsupported type " + value.getClass().getSimpleName() + " for fixedpoint parameter " + name + "!");
+        }
+        fixedpointParameters.put(name, value);
+    }
+
+    private Params createFixedpointParams() {
+        Params params = context.mkParams();
+        for (Map.Entry<String, Object> parameter : fixedpointParameters.entrySet()) {
+            String name = parameter.getKey();
+            Object value = parameter.getValue();
+            if (value instanceof Boolean) {
+                params.add(name, (Boolean) value);
+            } else if (value instanceof Integer) {
+                params.add(name, (Integer) value);
+            } else if (value instanceof Double) {
+                params.add(name, (Double) value);
+            } else {
+                params.add(name, (String) value);
+            }
+        }
+        return params;
+    }
+
+    public Fixedpoint createFixedpoint(List<BoolExpr> rules, boolean settings) {
+        Fixedpoint fixedpoint = context.mkFixedpoint();
+        if (!fixedpointParameters.isEmpty()) {
+            fixedpoint.setParameters(createFixedpointParams());
+        }
+        for (BoolExpr rule : rules) {
+            fixedpoint.addRule(rule, null);
+        }
+        registerRelations(fixedpoint, settings);
+        return fixedpoint;
+    }
+
     public void registerRelations(Fixedpoint fixedpoint, boolean settings) {
         if (settings) {
-            for (FuncDecl predicate : z3Predicates.values()) {
+            for (FuncDecl<BoolSort> predicate : z3Predicates.values()) {
                 fixedpoint.registerRelation(predicate);
                 Symbol[] symbols = new Symbol[]{context.mkSymbol("interval_relation"),
                         context.mkSymbol("bound_relation")};
@@ -132,7 +237,7 @@ public class TranslateToZ3VisitorState {
             }
         }
         else{
-            for(FuncDecl predicate : z3Predicates.values()) {
+            for(FuncDecl<BoolSort> predicate : z3Predicates.values()) {
                 fixedpoint.registerRelation(predicate);
             }
         }
@@ -1,15 +1,83 @@
 package secpriv.horst.translation;
 
+import com.google.gson.Gson;
 import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.tools.FlatMappingIterator;
+import secpriv.horst.tools.HeapUsageHelper;
+import secpriv.horst.tools.MappingIterator;
+import secpriv.horst.translation.visitors.ConstantFoldingRuleVisitor;
+import secpriv.horst.translation.visitors.FilterUnapplicableClausesRuleVisitor;
+import secpriv.horst.translation.visitors.RemoveTruePremiseRuleVisitor;
+import secpriv.horst.translation.visitors.RenameFreeVariablesRuleVisitor;
+import secpriv.horst.translation.visitors.SimplifyPredicateArgumentsRuleVisitor;
+import secpriv.horst.translation.visitors.SimplifyingRuleVisitor;
+import secpriv.horst.visitors.NodeCountExpressionVisitor;
+import secpriv.horst.visitors.RuleTypeOracle;
 import secpriv.horst.visitors.SExpressionRuleVisitor;
 
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
     private interface Step {
-        List<Rule> apply(List<Rule> workingRules);
+        Stream<Rule> apply(Rule rule);
+
+        default Iterator<Rule> iterator(Rule rule) {
+            return apply(rule).iterator();
+        }
+
+        default List<Rule> apply(List<Rule> workingRules) {
+            return workingRules.stream().flatMap(r -> apply(r)).collect(Collectors.toList());
+        }
+
+        default boolean isWholeProgramStep() {
+            return false;
+        }
+
+        default boolean isClauseNumberingStep() {
+            return false;
+        }
+
+        default boolean isDeferredFlatMapStep() {
+            return false;
+        }
+
+        /**
+         * Only supported by deferred flat-mapping steps, enumerates the results of the step in order without computing
+         * them.
+         */
+        default Iterator<Supplier<Rule>> deferredIterator(Rule rule) {
+            throw new UnsupportedOperationException("Only deferred flat-mapping steps defer their results!");
+        }
+
+        /**
+         * Only supported by clause numbering steps, which count the clauses in the order of this method's calls.
+         *
+         * @return the number of the first clause of the rule
+         */
+        default int reserveClauseNumbers(Rule rule) {
+            throw new UnsupportedOperationException("Only clause numbering steps number clauses!");
+        }
+
+        /**
+         * Only supported by clause numbering steps, applies the step to a rule whose clauses were already numbered.
+         */
+        default Stream<Rule> apply(Rule rule, int firstClauseNumber) {
+            throw new UnsupportedOperationException("Only clause numbering steps number clauses!");
+        }
     }
 
     private static class MapStep implements Step {
@@ -20,8 +88,8 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
         }
 
         @Override
-        public List<Rule> apply(List<Rule> workingRules) {
-            return workingRules.stream().map(translation).collect(Collectors.toList());
+        public Stream<Rule> apply(Rule rule) {
+            return Stream.of(translation.apply(rule));
         }
     }
 
@@ -33,16 +101,333 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
         }
 
 
+        @Override
+        public Stream<Rule> apply(Rule rule) {
+            return translation.apply(rule).stream();
+        }
+    }
+
+    private static class LazyFlatMapStep implements Step {
+        final Function<Rule, Iterable<Rule>> translation;
+
+        private LazyFlatMapStep(Function<Rule, Iterable<Rule>> translation) {
+            this.translation = translation;
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule) {
+            return StreamSupport.stream(translation.apply(rule).spliterator(), false);
+        }
+
+        @Override
+        public Iterator<Rule> iterator(Rule rule) {
+            return translation.apply(rule).iterator();
+        }
+    }
+
+    private static class DeferredFlatMapStep implements Step {
+        final Function<Rule, Iterable<Supplier<Rule>>> translation;
+
+        private DeferredFlatMapStep(Function<Rule, Iterable<Supplier<Rule>>> translation) {
+            this.translation = translation;
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(rule), Spliterator.ORDERED), false);
+        }
+
+        @Override
+        public Iterator<Rule> iterator(Rule rule) {
+            return new MappingIterator<>(deferredIterator(rule), Supplier::get);
+        }
+
+        @Override
+        public Iterator<Supplier<Rule>> deferredIterator(Rule rule) {
+            return translation.apply(rule).iterator();
+        }
+
+        @Override
+        public boolean isDeferredFlatMapStep() {
+            return true;
+        }
+    }
+
+    /**
+     * Passes every rule together with the number of clauses the step saw before it. Only counting the clauses depends
+     * on the order of the rules, so in parallel mode the clauses are counted sequentially and the rules are translated
+     * concurrently.
+     */
+    private static class ClauseNumberingStep implements Step {
+        final BiFunction<Rule, Integer, Rule> translation;
+        private int clauseCount = 0;
+
+        private ClauseNumberingStep(BiFunction<Rule, Integer, Rule> translation) {
+            this.translation = translation;
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule) {
+            return apply(rule, reserveClauseNumbers(rule));
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule, int firstClauseNumber) {
+            return Stream.of(translation.apply(rule, firstClauseNumber));
+        }
+
+        @Override
+        public int reserveClauseNumbers(Rule rule) {
+            int firstClauseNumber = clauseCount;
+            clauseCount += rule.clauses.size();
+            return firstClauseNumber;
+        }
+
+        @Override
+        public boolean isClauseNumberingStep() {
+            return true;
+        }
+    }
+
+    private static class WholeProgramStep implements Step {
+        final Function<List<Rule>, List<Rule>> translation;
+
+        private WholeProgramStep(Function<List<Rule>, List<Rule>> translation) {
+            this.translation = translation;
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule) {
+            throw new UnsupportedOperationException("A whole-program step cannot be applied to a single rule!");
+        }
+
         @Override
         public List<Rule> apply(List<Rule> workingRules) {
-            return workingRules.stream().flatMap(r -> translation.apply(r).stream()).collect(Collectors.toList());
+            return translation.apply(workingRules);
+        }
+
+        @Override
+        public boolean isWholeProgramStep() {
+            return true;
+        }
+    }
+
+    private static class ProfilingStep implements Step {
+        private static final NodeCountExpressionVisitor nodeCountVisitor = new NodeCountExpressionVisitor();
+
+        final String name;
+        final Step step;
+        final SelectorFunctionInvoker selectorFunctionInvoker;
+        final LongAdder wallTimeNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder rulesIn = new LongAdder();
+        final LongAdder rulesOut = new LongAdder();
+        final LongAdder clausesOut = new LongAdder();
+        final LongAdder expressionNodesOut = new LongAdder();
+
+        private ProfilingStep(String name, Step step, SelectorFunctionInvoker selectorFunctionInvoker) {
+            this.name = name;
+            this.step = step;
+            this.selectorFunctionInvoker = selectorFunctionInvoker;
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule) {
+            if (step instanceof LazyFlatMapStep || step.isDeferredFlatMapStep()) {
+                return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(rule), Spliterator.ORDERED), false);
+            }
+
+            return profile(() -> step.apply(rule));
+        }
+
+        @Override
+        public Stream<Rule> apply(Rule rule, int firstClauseNumber) {
+            return profile(() -> step.apply(rule, firstClauseNumber));
+        }
+
+        private Stream<Rule> profile(Supplier<Stream<Rule>> application) {
+            rulesIn.increment();
+            long startTime = System.nanoTime();
+            long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+            Stream<Rule> result = application.get();
+            record(startTime, startAllocatedBytes);
+            return result.peek(this::countOutput);
+        }
+
+        @Override
+        public Iterator<Rule> iterator(Rule rule) {
+            if (step.isDeferredFlatMapStep()) {
+                return new MappingIterator<>(deferredIterator(rule), Supplier::get);
+            }
+            if (!(step instanceof LazyFlatMapStep)) {
+                return apply(rule).iterator();
+            }
+
+            rulesIn.increment();
+            long startTime = System.nanoTime();
+            long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+
+            // lazy steps do their work while being iterated, so hasNext and next are measured as well
+            Iterator<Rule> iterator = step.iterator(rule);
+            record(startTime, startAllocatedBytes);
+
+            return new Iterator<Rule>() {
+                @Override
+                public boolean hasNext() {
+                    long startTime = System.nanoTime();
+                    long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+                    boolean hasNext = iterator.hasNext();
+                    record(startTime, startAllocatedBytes);
+                    return hasNext;
+                }
+
+                @Override
+                public Rule next() {
+                    long startTime = System.nanoTime();
+                    long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+                    Rule next = iterator.next();
+                    record(startTime, startAllocatedBytes);
+
+                    countOutput(next);
+                    return next;
+                }
+            };
+        }
+
+        @Override
+        public Iterator<Supplier<Rule>> deferredIterator(Rule rule) {
+            rulesIn.increment();
+            long startTime = System.nanoTime();
+            long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+            Iterator<Supplier<Rule>> iterator = step.deferredIterator(rule);
+            record(startTime, startAllocatedBytes);
+
+            // the time of a result is split between enumerating it and calling its supplier, possibly on another thread
+            return new Iterator<Supplier<Rule>>() {
+                @Override
+                public boolean hasNext() {
+                    long startTime = System.nanoTime();
+                    long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+                    boolean hasNext = iterator.hasNext();
+                    record(startTime, startAllocatedBytes);
+                    return hasNext;
+                }
+
+                @Override
+                public Supplier<Rule> next() {
+                    long startTime = System.nanoTime();
+                    long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+                    Supplier<Rule> next = iterator.next();
+                    record(startTime, startAllocatedBytes);
+                    return profileDeferred(next);
+                }
+            };
+        }
+
+        private Supplier<Rule> profileDeferred(Supplier<Rule> result) {
+            return () -> {
+                long startTime = System.nanoTime();
+                long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+                Rule rule = result.get();
+                record(startTime, startAllocatedBytes);
+
+                countOutput(rule);
+                return rule;
+            };
+        }
+
+        @Override
+        public List<Rule> apply(List<Rule> workingRules) {
+            if (!step.isWholeProgramStep()) {
+                return Step.super.apply(workingRules);
+            }
+
+            rulesIn.add(workingRules.size());
+            long startTime = System.nanoTime();
+            long startAllocatedBytes = HeapUsageHelper.getAllocatedBytesOfCurrentThread();
+            List<Rule> result = step.apply(workingRules);
+            record(startTime, startAllocatedBytes);
+
+            result.forEach(this::countOutput);
+            return result;
+        }
+
+        @Override
+        public boolean isWholeProgramStep() {
+            return step.isWholeProgramStep();
+        }
+
+        @Override
+        public boolean isClauseNumberingStep() {
+            return step.isClauseNumberingStep();
+        }
+
+        @Override
+        public boolean isDeferredFlatMapStep() {
+            return step.isDeferredFlatMapStep();
+        }
+
+        @Override
+        public int reserveClauseNumbers(Rule rule) {
+            return step.reserveClauseNumbers(rule);
+        }
+
+        private void countOutput(Rule rule) {
+            rulesOut.increment();
+            clausesOut.add(rule.clauses.size());
+            expressionNodesOut.add(nodeCountVisitor.count(rule));
+        }
+
+        private void record(long startTime, long startAllocatedBytes) {
+            wallTimeNanos.add(System.nanoTime() - startTime);
+            allocatedBytes.add(HeapUsageHelper.getAllocatedBytesOfCurrentThread() - startAllocatedBytes);
+        }
+
+        private StepProfile toStepProfile() {
+            Map<String, SelectorFunctionInvoker.MemoStatistics> selectorFunctions = selectorFunctionInvoker == null ? null : selectorFunctionInvoker.getStatistics();
+            return new StepProfile(name, wallTimeNanos.sum(), allocatedBytes.sum(), rulesIn.sum(), rulesOut.sum(), clausesOut.sum(), expressionNodesOut.sum(), selectorFunctions);
+        }
+    }
+
+    /**
+     * What a step of a profiling pipeline did in all applications of the pipeline so far. In parallel mode the wall
+     * time is the sum over all threads.
+     */
+    public static class StepProfile {
+        public final String step;
+        public final long wallTimeNanos;
+        public final long allocatedBytes;
+        public final long rulesIn;
+        public final long rulesOut;
+        public final long clausesOut;
+        public final long expressionNodesOut;
+        /**
+         * Statistics of the selector function invoker of the step by name of the selector function or null if the step
+         * does not invoke selector functions, see {@link TranslationPipelineBuilder#profileSelectorFunctions(SelectorFunctionInvoker)}.
+         */
+        public final Map<String, SelectorFunctionInvoker.MemoStatistics> selectorFunctions;
+
+        private StepProfile(String step, long wallTimeNanos, long allocatedBytes, long rulesIn, long rulesOut, long clausesOut, long expressionNodesOut, Map<String, SelectorFunctionInvoker.MemoStatistics> selectorFunctions) {
+            this.step = step;
+            this.wallTimeNanos = wallTimeNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.rulesIn = rulesIn;
+            this.rulesOut = rulesOut;
+            this.clausesOut = clausesOut;
+            this.expressionNodesOut = expressionNodesOut;
+            this.selectorFunctions = selectorFunctions;
         }
     }
 
     public static class TranslationPipelineBuilder {
         private final List<Step> steps = new ArrayList<>();
         private final Map<Step, String> stepNames = new HashMap<>();
+        private final Set<Step> orderDependentSteps = new HashSet<>();
+        private final Map<Step, String> stepDescriptions = new HashMap<>();
+        private final Map<Step, SelectorFunctionInvoker> selectorFunctionInvokers = new HashMap<>();
         private boolean debug = false;
+        private boolean profile = false;
+        private int parallelism = 1;
 
         private TranslationPipelineBuilder() {
         }
@@ -54,6 +439,55 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
             return this;
         }
 
+        /**
+         * Marks the last added step as depending on the order in which it sees the rules, e.g. because it numbers
+         * them. In parallel mode such a step is applied sequentially, so the output stays identical to a sequential run.
+         */
+        public TranslationPipelineBuilder orderDependentStep() {
+            orderDependentSteps.add(steps.get(steps.size() - 1));
+            return this;
+        }
+
+        /**
+         * Applies the steps concurrently on the given number of threads. The steps before the first step added with
+         * {@link #addDeferredFlatMappingStep(Function)} run on the calling thread and only enumerate the rules, which are
+         * then translated in chunks: the suppliers of the deferred step and the steps after it are applied to the rules
+         * of a chunk concurrently, except for steps marked {@link #orderDependentStep()}. Without a deferred step the
+         * initial rules are translated concurrently. The order of the resulting rules is the same as in a sequential run.
+         */
+        public TranslationPipelineBuilder parallel(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Number of threads has to be positive!");
+            }
+            parallelism = threads;
+            return this;
+        }
+
+        /**
+         * Names the last added step in the profile. Steps added as visitors are named after the visitor by default.
+         */
+        public TranslationPipelineBuilder describeStep(String description) {
+            stepDescriptions.put(steps.get(steps.size() - 1), description);
+            return this;
+        }
+
+        /**
+         * Adds the hits and misses of the remembered selector function results of the invoker to the profile of the last
+         * added step, which is meant to be the step invoking the selector functions.
+         */
+        public TranslationPipelineBuilder profileSelectorFunctions(SelectorFunctionInvoker selectorFunctionInvoker) {
+            selectorFunctionInvokers.put(steps.get(steps.size() - 1), Objects.requireNonNull(selectorFunctionInvoker, "SelectorFunctionInvoker may not be null!"));
+            return this;
+        }
+
+        /**
+         * Records time, allocated bytes and the size of the output of every step, see {@link #getProfile()}.
+         */
+        public TranslationPipelineBuilder enableProfiling() {
+            profile = true;
+            return this;
+        }
+
         public TranslationPipelineBuilder enableDebug() {
             debug = true;
             return this;
@@ -65,7 +499,7 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
         }
 
         public TranslationPipelineBuilder addStep(Rule.Visitor<Rule> visitor) {
-            return addStep((Function<Rule, Rule>) visitor::visit);
+            return addStep((Function<Rule, Rule>) visitor::visit).describeStep(visitor.getClass().getSimpleName());
         }
 
         public TranslationPipelineBuilder addFlatMappingStep(Function<Rule, List<Rule>> translation) {
@@ -74,22 +508,124 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
         }
 
         public TranslationPipelineBuilder addFlatMappingStep(Rule.Visitor<List<Rule>> visitor) {
-            return addFlatMappingStep((Function<Rule, List<Rule>>) visitor::visit);
+            return addFlatMappingStep((Function<Rule, List<Rule>>) visitor::visit).describeStep(visitor.getClass().getSimpleName());
+        }
+
+        /**
+         * Adds a flat-mapping step whose results are only produced while they are consumed, so the downstream steps
+         * never see more than one of them at a time when the pipeline is streamed.
+         */
+        public TranslationPipelineBuilder addLazyFlatMappingStep(Function<Rule, Iterable<Rule>> translation) {
+            steps.add(new LazyFlatMapStep(translation));
+            return this;
+        }
+
+        /**
+         * Adds a flat-mapping step like {@link #addLazyFlatMappingStep(Function)} whose iterator only enumerates the
+         * results, e.g. the bindings of the parameters of a rule, while their suppliers compute them. In parallel mode
+         * the suppliers are called concurrently, so they have to be safe to call from several threads.
+         */
+        public TranslationPipelineBuilder addDeferredFlatMappingStep(Function<Rule, Iterable<Supplier<Rule>>> translation) {
+            steps.add(new DeferredFlatMapStep(translation));
+            return this;
+        }
+
+        /**
+         * Adds a step that needs all rules at once, e.g. to find the rules no query depends on. All initial rules pass
+         * the steps before it first, so a pipeline with such a step holds all rules in memory at this point instead of
+         * streaming them.
+         */
+        public TranslationPipelineBuilder addWholeProgramStep(Function<List<Rule>, List<Rule>> translation) {
+            steps.add(new WholeProgramStep(translation));
+            return this;
+        }
+
+        /**
+         * Adds a whole-program step deleting the clauses no query or test depends on, see {@link UnreachableClauseEliminator}.
+         */
+        public TranslationPipelineBuilder addUnreachableClauseEliminationStep(RuleTypeOracle ruleTypeOracle) {
+            return addWholeProgramStep(new UnreachableClauseEliminator(ruleTypeOracle)).describeStep(UnreachableClauseEliminator.class.getSimpleName());
+        }
+
+        /**
+         * Adds a step that is passed every rule together with the number of clauses the step was passed before it, e.g.
+         * to give the variables of every clause distinct names. Unlike a step marked {@link #orderDependentStep()}, it
+         * is applied concurrently in parallel mode, only the clauses are counted sequentially.
+         */
+        public TranslationPipelineBuilder addClauseNumberingStep(BiFunction<Rule, Integer, Rule> translation) {
+            steps.add(new ClauseNumberingStep(translation));
+            return this;
+        }
+
+        /**
+         * Adds a single step in place of {@link SimplifyPredicateArgumentsRuleVisitor}, {@link RenameFreeVariablesRuleVisitor},
+         * {@link ConstantFoldingRuleVisitor}, {@link FilterUnapplicableClausesRuleVisitor} and, if requested,
+         * {@link RemoveTruePremiseRuleVisitor}, see {@link SimplifyingRuleVisitor}.
+         */
+        public TranslationPipelineBuilder addSimplificationStep(RuleTypeOracle ruleTypeOracle, boolean removeTruePremises) {
+            return addClauseNumberingStep(new SimplifyingRuleVisitor(ruleTypeOracle, removeTruePremises)::visit)
+                    .describeStep(SimplifyingRuleVisitor.class.getSimpleName());
+        }
+
+        /**
+         * Adds the steps {@link #addSimplificationStep(RuleTypeOracle, boolean)} fuses, one after another. The resulting
+         * rules are the same, but every step traverses and rebuilds the clauses again.
+         */
+        public TranslationPipelineBuilder addChainedSimplificationSteps(RuleTypeOracle ruleTypeOracle, boolean removeTruePremises) {
+            addStep(new SimplifyPredicateArgumentsRuleVisitor())
+                    .addStep(new RenameFreeVariablesRuleVisitor())
+                    .orderDependentStep()
+                    .addStep(new ConstantFoldingRuleVisitor())
+                    .addStep(new FilterUnapplicableClausesRuleVisitor(ruleTypeOracle));
+            if (removeTruePremises) {
+                addStep(new RemoveTruePremiseRuleVisitor());
+            }
+            return this;
         }
 
         public TranslationPipeline build() {
-            return new TranslationPipeline(steps, stepNames, debug);
+            if (parallelism > 1 && (debug || !stepNames.isEmpty())) {
+                throw new IllegalStateException("Debug output is not supported in parallel mode!");
+            }
+            if (!profile) {
+                return new TranslationPipeline(steps, stepNames, orderDependentSteps, debug, parallelism);
+            }
+
+            List<Step> profilingSteps = new ArrayList<>();
+            Map<Step, String> profilingStepNames = new HashMap<>();
+            Set<Step> profilingOrderDependentSteps = new HashSet<>();
+
+            for (Step step : steps) {
+                String description = stepNames.getOrDefault(step, stepDescriptions.getOrDefault(step, "Step " + (profilingSteps.size() + 1)));
+                Step profilingStep = new ProfilingStep(description, step, selectorFunctionInvokers.get(step));
+
+                profilingSteps.add(profilingStep);
+                if (stepNames.containsKey(step)) {
+                    profilingStepNames.put(profilingStep, stepNames.get(step));
+                }
+                if (orderDependentSteps.contains(step)) {
+                    profilingOrderDependentSteps.add(profilingStep);
+                }
+            }
+            return new TranslationPipeline(profilingSteps, profilingStepNames, profilingOrderDependentSteps, debug, parallelism);
         }
     }
 
+    // rules translated concurrently at a time in parallel mode, bounds the rules held in memory
+    private static final int PARALLEL_CHUNK_SIZE = 1024;
+
     private final List<Step> steps;
     private final Map<Step, StringBuilder> debugOutput;
     private final Map<Step, String> stepNames;
     private final StringBuilder debugForRuleOutput;
+    private final Set<Step> orderDependentSteps;
+    private final int parallelism;
 
-    private TranslationPipeline(List<Step> steps, Map<Step, String> stepNames, boolean debug) {
+    private TranslationPipeline(List<Step> steps, Map<Step, String> stepNames, Set<Step> orderDependentSteps, boolean debug, int parallelism) {
         this.steps = Collections.unmodifiableList(steps);
         this.stepNames = stepNames;
+        this.orderDependentSteps = orderDependentSteps;
+        this.parallelism = parallelism;
         this.debugForRuleOutput = debug ? new StringBuilder() : null;
         this.debugOutput = new HashMap<>();
 
@@ -104,8 +640,49 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
 
     public List<Rule> apply(List<Rule> initialRules) {
         ArrayList<Rule> ret = new ArrayList<>();
+        apply(initialRules, ret::add);
+        return ret;
+    }
+
+    /**
+     * Passes every rule to the consumer as soon as it left the last step, so the translated rules never have to be
+     * held in memory at the same time, unless the pipeline has a whole-program step.
+     */
+    public void apply(List<Rule> initialRules, Consumer<Rule> consumer) {
+        if (isDebugging()) {
+            generateStepDebugHeaders();
+        }
+        if (!hasWholeProgramStep()) {
+            apply(steps, initialRules, consumer);
+            return;
+        }
+
+        // the rules are pushed rule by rule through the steps between two whole-program steps
+        List<Rule> workingRules = initialRules;
+        int stageStart = 0;
+        for (int i = 0; i < steps.size(); ++i) {
+            Step step = steps.get(i);
+            if (step.isWholeProgramStep()) {
+                List<Rule> stageOutput = new ArrayList<>();
+                apply(steps.subList(stageStart, i), workingRules, stageOutput::add);
+                workingRules = step.apply(stageOutput);
+                generateDebugOutputForStep(step, workingRules);
+                stageStart = i + 1;
+            }
+        }
+        apply(steps.subList(stageStart, steps.size()), workingRules, consumer);
+    }
+
+    private void apply(List<Step> steps, List<Rule> initialRules, Consumer<Rule> consumer) {
+        if (parallelism > 1) {
+            applyInParallel(steps, initialRules, consumer);
+            return;
+        }
+        if (!isDebugging()) {
+            stream(steps, initialRules).forEach(consumer);
+            return;
+        }
 
-        generateStepDebugHeaders();
         int ruleId = 1;
 
         for (Rule rule : initialRules) {
@@ -120,11 +697,153 @@ public class TranslationPipeline implements Function<List<Rule>, List<Rule>> {
                 generateDebugOutputForRule(stepId, workingRules);
                 ++stepId;
             }
-            ret.addAll(workingRules);
+            workingRules.forEach(consumer);
             ++ruleId;
         }
+    }
 
-        return ret;
+    /**
+     * Lazily pushes every rule through all steps before the next rule is produced. The resulting rules and their order
+     * are the same as the ones of {@link #apply(List)}. Pipelines in parallel or debug mode or with a whole-program step
+     * are applied eagerly.
+     */
+    public Stream<Rule> stream(List<Rule> initialRules) {
+        if (parallelism > 1 || isDebugging() || hasWholeProgramStep()) {
+            return apply(initialRules).stream();
+        }
+        return stream(steps, initialRules);
+    }
+
+    private static Stream<Rule> stream(List<Step> steps, List<Rule> initialRules) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(steps, initialRules), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Like {@link #stream(List)}, only the current rule of every step is held at a time, even if a lazy flat-mapping
+     * step produces many rules from one rule.
+     */
+    public Iterator<Rule> iterator(List<Rule> initialRules) {
+        if (parallelism > 1 || isDebugging() || hasWholeProgramStep()) {
+            return apply(initialRules).iterator();
+        }
+        return iterator(steps, initialRules);
+    }
+
+    // the iterator of Stream.flatMap buffers all rules a step produces from one rule, these iterators do not
+    private static Iterator<Rule> iterator(List<Step> steps, List<Rule> initialRules) {
+        Iterator<Rule> rules = initialRules.iterator();
+        for (Step step : steps) {
+            rules = new FlatMappingIterator<>(rules, step::iterator);
+        }
+        return rules;
+    }
+
+    private boolean hasWholeProgramStep() {
+        return steps.stream().anyMatch(Step::isWholeProgramStep);
+    }
+
+    private boolean isDebugging() {
+        return debugForRuleOutput != null || !stepNames.isEmpty();
+    }
+
+    private void applyInParallel(List<Step> steps, List<Rule> initialRules, Consumer<Rule> consumer) {
+        int deferredStepIndex = IntStream.range(0, steps.size()).filter(i -> steps.get(i).isDeferredFlatMapStep()).findFirst().orElse(-1);
+        Iterator<Supplier<Rule>> work;
+        List<Step> concurrentSteps;
+
+        if (deferredStepIndex < 0) {
+            work = new MappingIterator<Rule, Supplier<Rule>>(initialRules.iterator(), r -> () -> r);
+            concurrentSteps = steps;
+        } else {
+            work = new FlatMappingIterator<>(iterator(steps.subList(0, deferredStepIndex), initialRules), steps.get(deferredStepIndex)::deferredIterator);
+            concurrentSteps = steps.subList(deferredStepIndex + 1, steps.size());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ForkJoinTask<List<Rule>> previousChunk = null;
+            while (work.hasNext()) {
+                List<Supplier<Rule>> chunk = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+                while (work.hasNext() && chunk.size() < PARALLEL_CHUNK_SIZE) {
+                    chunk.add(work.next());
+                }
+                // the next chunk is enumerated while the pool translates the previous one, which has to be finished
+                // before the next one starts, so order-dependent steps see the rules in order
+                if (previousChunk != null) {
+                    previousChunk.join().forEach(consumer);
+                }
+                previousChunk = pool.submit(() -> applyChunk(concurrentSteps, chunk));
+            }
+            if (previousChunk != null) {
+                previousChunk.join().forEach(consumer);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<Rule> applyChunk(List<Step> steps, List<Supplier<Rule>> chunk) {
+        int segmentEnd = 0;
+        while (segmentEnd < steps.size() && !orderDependentSteps.contains(steps.get(segmentEnd)) && !steps.get(segmentEnd).isClauseNumberingStep()) {
+            ++segmentEnd;
+        }
+        List<Step> segment = steps.subList(0, segmentEnd);
+        List<Rule> workingRules = chunk.parallelStream()
+                .flatMap(s -> applySegment(segment, Collections.singletonList(s.get())).stream())
+                .collect(Collectors.toList());
+
+        int segmentStart = segmentEnd;
+        while (segmentStart < steps.size()) {
+            Step step = steps.get(segmentStart);
+            if (orderDependentSteps.contains(step)) {
+                workingRules = step.apply(workingRules);
+                ++segmentStart;
+            } else {
+                // a clause numbering step needs all rules before it in order, so it can only start a segment
+                segmentEnd = segmentStart + 1;
+                while (segmentEnd < steps.size() && !orderDependentSteps.contains(steps.get(segmentEnd)) && !steps.get(segmentEnd).isClauseNumberingStep()) {
+                    ++segmentEnd;
+                }
+                workingRules = applySegment(steps.subList(segmentStart, segmentEnd), workingRules);
+                segmentStart = segmentEnd;
+            }
+        }
+        return workingRules;
+    }
+
+    // Parallel streams in a task of the pool fork into the pool, so the rules produced by a flat-mapping step are
+    // processed concurrently as well. Ordered collection keeps the sequential order.
+    private static List<Rule> applySegment(List<Step> segment, List<Rule> rules) {
+        if (segment.isEmpty()) {
+            return rules;
+        }
+        Step step = segment.get(0);
+        List<Step> remainingSteps = segment.subList(1, segment.size());
+
+        if (step.isClauseNumberingStep()) {
+            // the clauses are counted in the order of the rules, then the rules are translated concurrently
+            int[] firstClauseNumbers = rules.stream().mapToInt(step::reserveClauseNumbers).toArray();
+            return IntStream.range(0, rules.size()).parallel().boxed()
+                    .flatMap(i -> applySegment(remainingSteps, step.apply(rules.get(i), firstClauseNumbers[i]).collect(Collectors.toList())).stream())
+                    .collect(Collectors.toList());
+        }
+
+        return rules.parallelStream()
+                .flatMap(r -> applySegment(remainingSteps, step.apply(Collections.singletonList(r))).stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the profile of every step in the order of the steps or an empty list if profiling is not enabled.
+     */
+    public List<StepProfile> getProfile() {
+        return steps.stream().filter(s -> s instanceof ProfilingStep).map(s -> ((ProfilingStep) s).toStepProfile()).collect(Collectors.toList());
+    }
+
+    public void writeProfileAsJson(String fileName) throws FileNotFoundException {
+        try (PrintWriter writer = new PrintWriter(fileName)) {
+            new Gson().toJson(getProfile(), writer);
+        }
     }
 
     public String getDebugOutput() {
@@ -0,0 +1,78 @@
+package secpriv.horst.translation;
+
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.Predicate;
+import secpriv.horst.data.Proposition;
+import secpriv.horst.data.Rule;
+import secpriv.horst.translation.visitors.FilterClauseRuleVisitor;
+import secpriv.horst.visitors.RuleTypeOracle;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes the clauses no query or test depends on, i.e. the clauses whose conclusion is neither queried nor occurs in
+ * a premise of a clause that is kept. Deleting a clause may make the predicates of its premises unused, so they are put
+ * on a worklist and every clause is looked at once, instead of rescanning all clauses until nothing changes.
+ */
+public class UnreachableClauseEliminator implements Function<List<Rule>, List<Rule>> {
+    private final RuleTypeOracle ruleTypeOracle;
+
+    public UnreachableClauseEliminator(RuleTypeOracle ruleTypeOracle) {
+        this.ruleTypeOracle = Objects.requireNonNull(ruleTypeOracle, "RuleTypeOracle may not be null!");
+    }
+
+    /**
+     * @return the rules without the unreachable clauses. Rules without any remaining clause are dropped, the order of
+     * rules and clauses is preserved. If no clause is unreachable, the given list is returned.
+     */
+    @Override
+    public List<Rule> apply(List<Rule> allRules) {
+        Set<Predicate> queriedPredicates = allRules.stream().filter(ruleTypeOracle::isQueryOrTest).flatMap(r -> r.clauses.stream()).map(c -> c.conclusion.predicate).collect(Collectors.toSet());
+
+        Map<Predicate, List<Clause>> occurrencesAsConclusion = new HashMap<>();
+        // a clause mentioning a predicate in n premises counts n times
+        Map<Predicate, Integer> occurrenceCountsAsPremise = new HashMap<>();
+        MediumStepTransformer.RetrievePredicatesPropositionVisitor propositionVisitor = new MediumStepTransformer.RetrievePredicatesPropositionVisitor();
+
+        for (Rule rule : allRules) {
+            for (Clause clause : rule.clauses) {
+                occurrencesAsConclusion.computeIfAbsent(clause.conclusion.predicate, p -> new ArrayList<>()).add(clause);
+                for (Proposition premise : clause.premises) {
+                    premise.accept(propositionVisitor).ifPresent(p -> occurrenceCountsAsPremise.merge(p, 1, Integer::sum));
+                }
+            }
+        }
+
+        Deque<Predicate> unusedPredicates = new ArrayDeque<>();
+        for (Predicate predicate : occurrencesAsConclusion.keySet()) {
+            if (!occurrenceCountsAsPremise.containsKey(predicate) && !queriedPredicates.contains(predicate)) {
+                unusedPredicates.push(predicate);
+            }
+        }
+
+        // every predicate becomes unused at most once, since the counts only decrease
+        Set<Clause> unreachableClauses = new HashSet<>();
+        while (!unusedPredicates.isEmpty()) {
+            for (Clause clause : occurrencesAsConclusion.get(unusedPredicates.pop())) {
+                unreachableClauses.add(clause);
+                for (Proposition premise : clause.premises) {
+                    premise.accept(propositionVisitor).ifPresent(p -> {
+                        int count = occurrenceCountsAsPremise.merge(p, -1, Integer::sum);
+                        if (count == 0 && occurrencesAsConclusion.containsKey(p) && !queriedPredicates.contains(p)) {
+                            unusedPredicates.push(p);
+                        }
+                    });
+                }
+            }
+        }
+
+        if (unreachableClauses.isEmpty()) {
+            return allRules;
+        }
+
+        FilterClauseRuleVisitor filterClauseRuleVisitor = new FilterClauseRuleVisitor(unreachableClauses);
+        return allRules.stream().map(r -> r.accept(filterClauseRuleVisitor)).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
+    }
+}
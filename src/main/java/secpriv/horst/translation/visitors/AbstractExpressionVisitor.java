@@ -2,47 +2,125 @@ package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.CompoundSelectorFunctionInvocation;
 import secpriv.horst.data.Expression;
+import secpriv.horst.data.ExpressionInterner;
 
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 public abstract class AbstractExpressionVisitor implements Expression.Visitor<Expression> {
+    protected final ExpressionInterner interner;
+
+    public AbstractExpressionVisitor() {
+        this(null);
+    }
+
+    /**
+     * @param interner interns every resulting expression, may be null.
+     */
+    public AbstractExpressionVisitor(ExpressionInterner interner) {
+        this.interner = interner;
+    }
+
+    protected <T extends Expression> T intern(T expression) {
+        return interner == null ? expression : interner.intern(expression);
+    }
+
+    // Returns the original expression if visiting it did not change anything, so unchanged subterms stay shared.
+    // The children are compared by reference, a deep comparison would be quadratic in the depth of the expression.
+    protected Expression rebuilt(Expression original, Expression result) {
+        return intern(hasSameChildren(original, result) && result.equals(original) ? original : result);
+    }
+
+    static boolean hasSameChildren(Expression original, Expression result) {
+        if (original.getClass() != result.getClass()) {
+            return false;
+        }
+        if (original instanceof Expression.UnaryExpression) {
+            return ((Expression.UnaryExpression) original).expression == ((Expression.UnaryExpression) result).expression;
+        }
+        if (original instanceof Expression.BinaryExpression) {
+            Expression.BinaryExpression binaryOriginal = (Expression.BinaryExpression) original;
+            Expression.BinaryExpression binaryResult = (Expression.BinaryExpression) result;
+            return binaryOriginal.expression1 == binaryResult.expression1 && binaryOriginal.expression2 == binaryResult.expression2;
+        }
+        if (original instanceof Expression.TernaryExpression) {
+            Expression.TernaryExpression ternaryOriginal = (Expression.TernaryExpression) original;
+            Expression.TernaryExpression ternaryResult = (Expression.TernaryExpression) result;
+            return ternaryOriginal.expression1 == ternaryResult.expression1 && ternaryOriginal.expression2 == ternaryResult.expression2 && ternaryOriginal.expression3 == ternaryResult.expression3;
+        }
+        if (original instanceof Expression.ArrayInitExpression) {
+            return ((Expression.ArrayInitExpression) original).initializer == ((Expression.ArrayInitExpression) result).initializer;
+        }
+        if (original instanceof Expression.ConstExpression) {
+            return ((Expression.ConstExpression) original).value == ((Expression.ConstExpression) result).value;
+        }
+        if (original instanceof Expression.SumExpression) {
+            return ((Expression.SumExpression) original).body == ((Expression.SumExpression) result).body;
+        }
+        if (original instanceof Expression.AppExpression) {
+            Expression.AppExpression appOriginal = (Expression.AppExpression) original;
+            Expression.AppExpression appResult = (Expression.AppExpression) result;
+            return haveSameElements(appOriginal.parameters, appResult.parameters) && haveSameElements(appOriginal.expressions, appResult.expressions);
+        }
+        if (original instanceof Expression.VariadicExpression) {
+            return haveSameElements(((Expression.VariadicExpression) original).expressions, ((Expression.VariadicExpression) result).expressions);
+        }
+        if (original instanceof Expression.MatchExpression) {
+            Expression.MatchExpression matchOriginal = (Expression.MatchExpression) original;
+            Expression.MatchExpression matchResult = (Expression.MatchExpression) result;
+            return haveSameElements(matchOriginal.matchedExpressions, matchResult.matchedExpressions) && haveSameElements(matchOriginal.resultExpressions, matchResult.resultExpressions);
+        }
+        return true;
+    }
+
+    private static boolean haveSameElements(List<Expression> original, List<Expression> result) {
+        if (original.size() != result.size()) {
+            return false;
+        }
+        for (int i = 0; i < original.size(); ++i) {
+            if (original.get(i) != result.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public Expression visit(Expression.IntConst expression) {
-        return expression;
+        return intern(expression);
     }
 
     @Override
     public Expression visit(Expression.BoolConst expression) {
-        return expression;
+        return intern(expression);
     }
 
     @Override
     public Expression visit(Expression.ArrayInitExpression expression) {
-        return new Expression.ArrayInitExpression(expression.initializer.accept(this));
+        return rebuilt(expression, new Expression.ArrayInitExpression(expression.initializer.accept(this)));
     }
 
     @Override
     public Expression visit(Expression.VarExpression expression) {
-        return expression;
+        return intern(expression);
     }
 
     @Override
     public Expression visit(Expression.FreeVarExpression expression) {
-        return expression;
+        return intern(expression);
     }
 
     @Override
     public Expression visit(Expression.ParVarExpression expression) {
-        return expression;
+        return intern(expression);
     }
 
     private Expression visitBinaryExpression(Expression.BinaryExpression expression, BiFunction<Expression, Expression, Expression> constructor) {
         Expression child1 = expression.expression1.accept(this);
         Expression child2 = expression.expression2.accept(this);
 
-        return constructor.apply(child1, child2);
+        return rebuilt(expression, constructor.apply(child1, child2));
     }
 
     @Override
@@ -66,7 +144,7 @@ public abstract class AbstractExpressionVisitor implements Expression.Visitor<Ex
         Expression child2 = expression.expression2.accept(this);
         Expression child3 = expression.expression3.accept(this);
 
-        return new Expression.StoreExpression(child1, child2, child3);
+        return rebuilt(expression, new Expression.StoreExpression(child1, child2, child3));
     }
 
     @Override
@@ -74,14 +152,14 @@ public abstract class AbstractExpressionVisitor implements Expression.Visitor<Ex
         List<Expression> visitedParameters = expression.parameters.stream().map(e -> e.accept(this)).collect(Collectors.toList());
         List<Expression> visitedArgumentExpressions = expression.expressions.stream().map(e -> e.accept(this)).collect(Collectors.toList());
 
-        return new Expression.AppExpression(expression.operation, visitedParameters, visitedArgumentExpressions);
+        return rebuilt(expression, new Expression.AppExpression(expression.operation, visitedParameters, visitedArgumentExpressions));
     }
 
     @Override
     public Expression visit(Expression.ConstructorAppExpression expression) {
         List<Expression> visitedArgumentExpressions = expression.expressions.stream().map(e -> e.accept(this)).collect(Collectors.toList());
 
-        return new Expression.ConstructorAppExpression(expression.constructor, expression.getCustomType(), visitedArgumentExpressions);
+        return rebuilt(expression, new Expression.ConstructorAppExpression(expression.constructor, expression.getCustomType(), visitedArgumentExpressions));
     }
 
     @Override
@@ -89,17 +167,17 @@ public abstract class AbstractExpressionVisitor implements Expression.Visitor<Ex
         List<Expression> visitedMatchedExpressions = expression.matchedExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList());
         List<Expression> visitedResultExpressions = expression.resultExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList());
 
-        return new Expression.MatchExpression(expression.branchPatterns, visitedMatchedExpressions, visitedResultExpressions);
+        return rebuilt(expression, new Expression.MatchExpression(expression.branchPatterns, visitedMatchedExpressions, visitedResultExpressions));
     }
 
     @Override
     public Expression visit(Expression.NegationExpression expression) {
-        return new Expression.NegationExpression(expression.expression.accept(this));
+        return rebuilt(expression, new Expression.NegationExpression(expression.expression.accept(this)));
     }
 
     @Override
     public Expression visit(Expression.BitvectorNegationExpression expression) {
-        return new Expression.BitvectorNegationExpression(expression.expression.accept(this));
+        return rebuilt(expression, new Expression.BitvectorNegationExpression(expression.expression.accept(this)));
     }
 
     @Override
@@ -108,7 +186,7 @@ public abstract class AbstractExpressionVisitor implements Expression.Visitor<Ex
         Expression child2 = expression.expression2.accept(this);
         Expression child3 = expression.expression3.accept(this);
 
-        return new Expression.ConditionalExpression(child1, child2, child3);
+        return rebuilt(expression, new Expression.ConditionalExpression(child1, child2, child3));
     }
 
     @Override
@@ -118,7 +196,7 @@ public abstract class AbstractExpressionVisitor implements Expression.Visitor<Ex
 
     @Override
     public Expression visit(Expression.ConstExpression expression) {
-        return new Expression.ConstExpression(expression.name, expression.value.accept(this));
+        return rebuilt(expression, new Expression.ConstExpression(expression.name, expression.value.accept(this)));
     }
 
     @Override
@@ -129,6 +207,6 @@ public abstract class AbstractExpressionVisitor implements Expression.Visitor<Ex
                 .mapArguments(e -> e.accept(this))
                 .mapParameters(e -> (Expression.ParVarExpression) e.accept(this));
 
-        return new Expression.SumExpression(visitedSelectorFunctionInvocation, visitedBody, expression.operation);
+        return rebuilt(expression, new Expression.SumExpression(visitedSelectorFunctionInvocation, visitedBody, expression.operation));
     }
 }
@@ -1,6 +1,7 @@
 package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.Clause;
+import secpriv.horst.data.ExpressionInterner;
 import secpriv.horst.data.Proposition;
 import secpriv.horst.types.Type;
 
@@ -15,7 +16,7 @@ public class AlphaRenamingClauseVisitor implements Clause.Visitor<Clause> {
     @Override
     public Clause visit(Clause clause) {
         Map<String, String> renamedFreeVars = renameFreeVars(clause.freeVars);
-        RenameFreeVariablesPropositionVisitor propositionVisitor = new RenameFreeVariablesPropositionVisitor(renamedFreeVars);
+        RenameFreeVariablesPropositionVisitor propositionVisitor = new RenameFreeVariablesPropositionVisitor(renamedFreeVars, new ExpressionInterner());
 
         ++renamedClauseCount;
 
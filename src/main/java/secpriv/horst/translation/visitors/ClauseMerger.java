@@ -59,46 +59,42 @@ public class ClauseMerger {
 
     public Clause merge(List<Clause> clauses){
         Clause currentClause = clauses.get(0);
+        if (clauses.size() == 1) {
+            return currentClause;
+        }
         List<Proposition> currentPremises = new ArrayList<>(currentClause.premises);
+        Proposition.PredicateProposition currentConclusion = currentClause.conclusion;
         Map<String, Type> currentFreeVars = new HashMap<>(currentClause.freeVars);
         Map<String, String> renames = new HashMap<>();
 
         for(int i = 1; i < clauses.size(); ++i) {
             Clause clauseToMerge = clauses.get(i);
-
-            final Clause currentClauseForLambda = currentClause;
+            FilterConclusionVisitor filterConclusionVisitor = new FilterConclusionVisitor(currentConclusion.predicate.name);
 
             Proposition.PredicateProposition filteredPredicate =
-                    (Proposition.PredicateProposition) clauseToMerge.premises.stream().filter(p ->
-                    !p.accept(new FilterConclusionVisitor(currentClauseForLambda.conclusion.predicate.name))).findFirst().get();
+                    (Proposition.PredicateProposition) clauseToMerge.premises.stream().filter(p -> !p.accept(filterConclusionVisitor)).findFirst().get();
             // creating rename map
-            for(int j = 0; j < currentClause.conclusion.arguments.size(); ++j) {
+            for(int j = 0; j < currentConclusion.arguments.size(); ++j) {
                 String name1 = ((Expression.FreeVarExpression) filteredPredicate.arguments.get(j)).name;
-                String name2 = ((Expression.FreeVarExpression) currentClause.conclusion.arguments.get(j)).name;
+                String name2 = ((Expression.FreeVarExpression) currentConclusion.arguments.get(j)).name;
                 renames.put(name1, name2);
             }
-            // renaming variables in the premise expressions
-            clauseToMerge.premises.stream().filter(p ->
-                    p.accept(new FilterConclusionVisitor(currentClauseForLambda.conclusion.predicate.name))).forEach(currentPremises::add);
-
-            currentPremises =
-                    currentPremises.stream().map(p ->
-                            p.accept(new RenameFreeVariablesPropositionVisitor(renames))).collect(Collectors.toList());
+            clauseToMerge.premises.stream().filter(p -> p.accept(filterConclusionVisitor)).forEach(currentPremises::add);
             //renaming variables in conclusion
-            Proposition.PredicateProposition currentConclusion =
-                    (Proposition.PredicateProposition) clauseToMerge.conclusion.accept(new RenameFreeVariablesPropositionVisitor(renames));
+            currentConclusion = (Proposition.PredicateProposition) clauseToMerge.conclusion.accept(new RenameFreeVariablesPropositionVisitor(renames));
             // renaming free variables
-            Map<String, Type> clauseToMergeFreeVars = new HashMap<>(clauseToMerge.freeVars);
-            Map<String, Type> filteredToMergeFreeVars = new HashMap<>();
-            for (Map.Entry<String, Type> freeVar: clauseToMergeFreeVars.entrySet()){
+            for (Map.Entry<String, Type> freeVar: clauseToMerge.freeVars.entrySet()){
                 if (!renames.containsKey(freeVar.getKey())){
-                    filteredToMergeFreeVars.put(freeVar.getKey(), freeVar.getValue());
+                    currentFreeVars.put(freeVar.getKey(), freeVar.getValue());
                 }
             }
-            currentFreeVars.putAll(filteredToMergeFreeVars);
-
-            currentClause = new Clause(currentPremises, currentConclusion, currentFreeVars);
         }
-        return currentClause;
+
+        // The free variables of different clauses have different names, so renaming the premises once with all renames
+        // gives the same premises as renaming the premises merged so far after every clause, in linear instead of
+        // quadratic time.
+        RenameFreeVariablesPropositionVisitor renamePropositionVisitor = new RenameFreeVariablesPropositionVisitor(renames);
+        List<Proposition> renamedPremises = currentPremises.stream().map(p -> p.accept(renamePropositionVisitor)).collect(Collectors.toList());
+        return new Clause(renamedPremises, currentConclusion, currentFreeVars);
     }
 }
@@ -1,7 +1,12 @@
 package secpriv.horst.translation.visitors;
 
-public class ConstantFoldingClauseVisitor extends PropositionMappingClauseVisitor {
-    public ConstantFoldingClauseVisitor() {
-        super(new ConstantFoldingPropositionVisitor());
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.ExpressionInterner;
+
+public class ConstantFoldingClauseVisitor implements Clause.Visitor<Clause> {
+    @Override
+    public Clause visit(Clause clause) {
+        // LinearConstantFoldingExpressionVisitor caches per instance, so every clause gets a fresh one and its own interner
+        return clause.accept(new PropositionMappingClauseVisitor(new ExpressionMappingPropositionVisitor(new LinearConstantFoldingExpressionVisitor(new ExpressionInterner()))));
     }
 }
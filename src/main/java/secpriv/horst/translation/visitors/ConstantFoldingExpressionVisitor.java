@@ -23,7 +23,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
 
     @Override
     public Expression visit(Expression.ArrayInitExpression expression) {
-        return new Expression.ArrayInitExpression(expression.initializer.accept(this));
+        return rebuilt(expression, new Expression.ArrayInitExpression(expression.initializer.accept(this)));
     }
 
     @Override
@@ -41,6 +41,11 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         throw new UnsupportedOperationException("Expression should have already been instantiated.");
     }
 
+    // Returns the original expression if folding did not change anything, so unchanged subterms stay shared
+    private static Expression rebuilt(Expression original, Expression result) {
+        return AbstractExpressionVisitor.hasSameChildren(original, result) && result.equals(original) ? original : result;
+    }
+
     private Expression evaluateToConstIfPossible(Expression expression) {
         if (expression.accept(constnessExpressionVisitor)) {
             try {
@@ -102,7 +107,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression result = optimizeBinaryIntExpression(child1, child2, expression.operation);
 
         // There is a chance the previous steps reduced the expression to all constants, so check again
-        return evaluateToConstIfPossible(result);
+        return rebuilt(expression, evaluateToConstIfPossible(result));
     }
 
     private Expression optimizeBinaryBoolExpression(Expression child1, Expression child2, Expression.BoolOperation operation) {
@@ -143,7 +148,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression result = optimizeBinaryBoolExpression(child1, child2, expression.operation);
 
         // There is a chance the previous steps reduced the expression to all constants, so check again
-        return evaluateToConstIfPossible(result);
+        return rebuilt(expression, evaluateToConstIfPossible(result));
     }
 
     @Override
@@ -155,7 +160,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression result = new Expression.SelectExpression(child1, child2);
 
         // There is a chance the previous steps reduced the expression to all constants, so check again
-        return evaluateToConstIfPossible(result);
+        return rebuilt(expression, evaluateToConstIfPossible(result));
     }
 
     @Override
@@ -165,7 +170,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression child2 = expression.expression2.accept(this);
         Expression child3 = expression.expression3.accept(this);
 
-        return new Expression.StoreExpression(child1, child2, child3);
+        return rebuilt(expression, new Expression.StoreExpression(child1, child2, child3));
     }
 
     @Override
@@ -189,12 +194,12 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression child = expression.expression.accept(this);
 
         if (child instanceof Expression.NegationExpression) {
-            return ((Expression.NegationExpression) child).expression;
+            return rebuilt(expression, ((Expression.NegationExpression) child).expression);
         }
         Expression result = new Expression.NegationExpression(child);
 
         // There is a chance the previous steps reduced the expression to all constants, so check again
-        return evaluateToConstIfPossible(result);
+        return rebuilt(expression, evaluateToConstIfPossible(result));
     }
 
     @Override
@@ -204,7 +209,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression child2 = expression.expression2.accept(this);
         Expression child3 = expression.expression3.accept(this);
 
-        return optimizeConditionalExpression(child1, child2, child3);
+        return rebuilt(expression, optimizeConditionalExpression(child1, child2, child3));
     }
 
     private Expression optimizeConditionalExpression(Expression child1, Expression child2, Expression child3) {
@@ -251,7 +256,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression result = new Expression.ComparisonExpression(child1, child2, expression.operation);
 
         // There is a chance the previous steps reduced the expression to all constants, so check again
-        return evaluateToConstIfPossible(result);
+        return rebuilt(expression, evaluateToConstIfPossible(result));
     }
 
     @Override
@@ -261,7 +266,7 @@ public class ConstantFoldingExpressionVisitor implements Expression.Visitor<Expr
         Expression result = new Expression.ConstExpression(expression.name, child);
 
         // There is a chance the previous steps reduced the expression to all constants, so check again
-        return evaluateToConstIfPossible(result);
+        return rebuilt(expression, evaluateToConstIfPossible(result));
     }
 
     @Override
@@ -39,7 +39,7 @@ public class FilterUnapplicableClausesRuleVisitor implements Rule.Visitor<Rule>
         }
     }
 
-    private boolean doesNotContainFalsePremise(Clause clause) {
+    boolean doesNotContainFalsePremise(Clause clause) {
         FilterFalsePropositionVisitor filterFalsePropositionVisitor = new FilterFalsePropositionVisitor();
         return clause.premises.stream().allMatch(p -> p.accept(filterFalsePropositionVisitor));
     }
@@ -1,11 +1,22 @@
 package secpriv.horst.translation.visitors;
 
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.ExpressionInterner;
 import secpriv.horst.data.Operation;
 
 import java.util.List;
 
-public class InlineOperationsClauseVisitor extends PropositionMappingClauseVisitor {
+public class InlineOperationsClauseVisitor implements Clause.Visitor<Clause> {
+    private final InlineOperationsExpressionVisitor expressionVisitor;
+
     public InlineOperationsClauseVisitor(List<Operation> operations) {
-        super(new InlineOperationsPropositionVisitor(operations));
+        this.expressionVisitor = new InlineOperationsExpressionVisitor(operations);
+    }
+
+    @Override
+    public Clause visit(Clause clause) {
+        // every clause gets its own interner, so the canonical expressions do not outlive it and clauses can be
+        // visited concurrently
+        return clause.accept(new PropositionMappingClauseVisitor(new InlineOperationsPropositionVisitor(expressionVisitor.withInterner(new ExpressionInterner()))));
     }
 }
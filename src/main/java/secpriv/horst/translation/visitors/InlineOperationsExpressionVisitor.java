@@ -33,10 +33,11 @@ public class InlineOperationsExpressionVisitor extends AbstractExpressionVisitor
      * @param operations Operation definitions ordered such that operations[i].body contains no call to operations[j] where j >= i
      */
     public InlineOperationsExpressionVisitor(List<Operation> operations) {
-        this(Collections.emptyMap(), Collections.emptyMap(), flattenOperations(operations), "");
+        this(Collections.emptyMap(), Collections.emptyMap(), flattenOperations(operations), "", null);
     }
 
-    private InlineOperationsExpressionVisitor(Map<Expression.ParVarExpression, Expression> parameterBindings, Map<Expression.VarExpression, Expression> variableBindings, Map<Operation, Operation> flattenedOperations, String renamePrefix) {
+    private InlineOperationsExpressionVisitor(Map<Expression.ParVarExpression, Expression> parameterBindings, Map<Expression.VarExpression, Expression> variableBindings, Map<Operation, Operation> flattenedOperations, String renamePrefix, ExpressionInterner interner) {
+        super(interner);
         this.renamePrefix = renamePrefix;
         this.parameterBindings = Collections.unmodifiableMap(parameterBindings);
         this.variableBindings = Collections.unmodifiableMap(variableBindings);
@@ -60,16 +61,24 @@ public class InlineOperationsExpressionVisitor extends AbstractExpressionVisitor
         return flattenedOperations;
     }
 
+    /**
+     * Returns a visitor that inlines the same operations without flattening them again and interns every resulting
+     * expression with the given interner.
+     */
+    public InlineOperationsExpressionVisitor withInterner(ExpressionInterner interner) {
+        return new InlineOperationsExpressionVisitor(parameterBindings, variableBindings, flattenedOperations, renamePrefix, interner);
+    }
+
     private static InlineOperationsExpressionVisitor copyWithoutRenamePrefix(InlineOperationsExpressionVisitor other) {
-        return new InlineOperationsExpressionVisitor(other.parameterBindings, other.variableBindings, other.flattenedOperations, "");
+        return new InlineOperationsExpressionVisitor(other.parameterBindings, other.variableBindings, other.flattenedOperations, "", other.interner);
     }
 
     private InlineOperationsExpressionVisitor visitorWithNewBindings(Map<Expression.ParVarExpression, Expression> parameterBindings, Map<Expression.VarExpression, Expression> variableBindings, Map<Operation, Operation> flattenedOperations) {
-        return new InlineOperationsExpressionVisitor(parameterBindings, variableBindings, flattenedOperations, "");
+        return new InlineOperationsExpressionVisitor(parameterBindings, variableBindings, flattenedOperations, "", interner);
     }
 
     private static InlineOperationsExpressionVisitor visitorForFlatten(Map<Operation, Operation> flattenedOperations, String renamePrefix) {
-        return new InlineOperationsExpressionVisitor(new HashMap<>(), new HashMap<>(), flattenedOperations, renamePrefix);
+        return new InlineOperationsExpressionVisitor(new HashMap<>(), new HashMap<>(), flattenedOperations, renamePrefix, null);
     }
 
     @Override
@@ -77,7 +86,7 @@ public class InlineOperationsExpressionVisitor extends AbstractExpressionVisitor
         if (variableBindings.containsKey(expression)) {
             return variableBindings.get(expression).accept(copyWithoutRenamePrefix(this));
         }
-        return new Expression.VarExpression(expression.type, renamePrefix + expression.name);
+        return intern(new Expression.VarExpression(expression.type, renamePrefix + expression.name));
     }
 
     @Override
@@ -85,7 +94,7 @@ public class InlineOperationsExpressionVisitor extends AbstractExpressionVisitor
         if (parameterBindings.containsKey(expression)) {
             return parameterBindings.get(expression).accept(copyWithoutRenamePrefix(this));
         }
-        return new Expression.ParVarExpression(expression.type, renamePrefix + expression.name);
+        return intern(new Expression.ParVarExpression(expression.type, renamePrefix + expression.name));
     }
 
     @Override
@@ -121,9 +130,9 @@ public class InlineOperationsExpressionVisitor extends AbstractExpressionVisitor
     @Override
     public Expression visit(Expression.MatchExpression expression) {
         if (renamePrefix.isEmpty()) {
-            return new Expression.MatchExpression(expression.branchPatterns, expression.matchedExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList()), expression.resultExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList()));
+            return intern(new Expression.MatchExpression(expression.branchPatterns, expression.matchedExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList()), expression.resultExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList())));
         }
-        return new Expression.MatchExpression(expression.branchPatterns.stream().map(l -> l.stream().map(p -> p.accept(patternRenameVisitor)).collect(Collectors.toList())).collect(Collectors.toList()), expression.matchedExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList()), expression.resultExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList()));
+        return intern(new Expression.MatchExpression(expression.branchPatterns.stream().map(l -> l.stream().map(p -> p.accept(patternRenameVisitor)).collect(Collectors.toList())).collect(Collectors.toList()), expression.matchedExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList()), expression.resultExpressions.stream().map(e -> e.accept(this)).collect(Collectors.toList())));
     }
 
     @Override
@@ -135,6 +144,6 @@ public class InlineOperationsExpressionVisitor extends AbstractExpressionVisitor
         SumOperation visitedSumOperation = expression.operation.mapSubExpressions(e -> e.accept(this));
         visitedSelectorFunctionInvocation = visitedSelectorFunctionInvocation.mapArguments(e -> e.accept(this));
 
-        return new Expression.SumExpression(visitedSelectorFunctionInvocation, expression.body.accept(this), visitedSumOperation);
+        return intern(new Expression.SumExpression(visitedSelectorFunctionInvocation, expression.body.accept(this), visitedSumOperation));
     }
 }
@@ -6,6 +6,10 @@ import java.util.List;
 
 public class InlineOperationsPropositionVisitor extends ExpressionMappingPropositionVisitor {
     public InlineOperationsPropositionVisitor(List<Operation> operations) {
-        super(new InlineOperationsExpressionVisitor(operations));
+        this(new InlineOperationsExpressionVisitor(operations));
+    }
+
+    public InlineOperationsPropositionVisitor(InlineOperationsExpressionVisitor expressionVisitor) {
+        super(expressionVisitor);
     }
 }
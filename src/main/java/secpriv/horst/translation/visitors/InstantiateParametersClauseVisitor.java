@@ -1,6 +1,7 @@
 package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.ExpressionInterner;
 import secpriv.horst.internals.SelectorFunctionInvoker;
 
 import java.util.Map;
@@ -9,4 +10,8 @@ public class InstantiateParametersClauseVisitor extends PropositionMappingClause
     public InstantiateParametersClauseVisitor(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvoker selectorFunctionInvoker) {
         super(new InstantiateParametersPropositionVisitor(parameterMap, selectorFunctionInvoker));
     }
+
+    public InstantiateParametersClauseVisitor(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvoker selectorFunctionInvoker, InstantiationTemplate template, ExpressionInterner interner) {
+        super(new InstantiateParametersPropositionVisitor(parameterMap, selectorFunctionInvoker, template, interner));
+    }
 }
@@ -2,6 +2,7 @@ package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.BaseTypeValue;
 import secpriv.horst.data.Expression;
+import secpriv.horst.data.ExpressionInterner;
 import secpriv.horst.internals.SelectorFunctionInvoker;
 import secpriv.horst.visitors.ConstnessExpressionVisitor;
 
@@ -11,19 +12,83 @@ import java.util.Objects;
 public class InstantiateParametersExpressionVisitor extends AbstractExpressionVisitor {
     private final Map<String, BaseTypeValue> parameterMap;
     private final SelectorFunctionInvoker selectorFunctionInvoker;
+    private final InstantiationTemplate template;
 
     private final ConstnessExpressionVisitor constnessExpressionVisitor = new ConstnessExpressionVisitor();
     private final EvaluateExpressionVisitor evaluateExpressionVisitor = new EvaluateExpressionVisitor();
 
     public InstantiateParametersExpressionVisitor(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvoker selectorFunctionInvoker) {
+        this(parameterMap, selectorFunctionInvoker, null, null);
+    }
+
+    /**
+     * @param template subexpressions the template records as parameter independent are returned without visiting them, may be null.
+     * @param interner interns every instantiated expression, may be null.
+     */
+    public InstantiateParametersExpressionVisitor(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvoker selectorFunctionInvoker, InstantiationTemplate template, ExpressionInterner interner) {
+        super(interner);
         this.parameterMap = Objects.requireNonNull(parameterMap, "ParameterMap may not be null!");
         this.selectorFunctionInvoker = Objects.requireNonNull(selectorFunctionInvoker, "SelectorFunctionInvoker may not be null!");
+        this.template = template;
+    }
+
+    private boolean isParameterIndependent(Expression expression) {
+        return template != null && !template.isParameterDependent(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.ArrayInitExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.BinaryIntExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.BinaryBoolExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.SelectExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.StoreExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.NegationExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.BitvectorNegationExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.ComparisonExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.ConstExpression expression) {
+        return isParameterIndependent(expression) ? expression : super.visit(expression);
     }
 
     // This override is not necessary from a semantic perspective but can reduce the time need to compile
     // match expressions immensely
     @Override
     public Expression visit(Expression.ConditionalExpression expression) {
+        if (isParameterIndependent(expression)) {
+            return expression;
+        }
+
         Expression condition = expression.expression1.accept(this);
 
         if(condition.accept(constnessExpressionVisitor)) {
@@ -34,13 +99,13 @@ public class InstantiateParametersExpressionVisitor extends AbstractExpressionVi
                 return expression.expression3.accept(this);
             }
         } else {
-            return new Expression.ConditionalExpression(condition, expression.expression2.accept(this), expression.expression3.accept(this));
+            return rebuilt(expression, new Expression.ConditionalExpression(condition, expression.expression2.accept(this), expression.expression3.accept(this)));
         }
     }
 
     @Override
     public Expression visit(Expression.ParVarExpression expression) {
-        return parameterMap.get(expression.name).accept(new ToConstExpressionBaseTypeValueVisitor());
+        return intern(parameterMap.get(expression.name).accept(new ToConstExpressionBaseTypeValueVisitor()));
     }
 
     @Override
@@ -60,6 +125,6 @@ public class InstantiateParametersExpressionVisitor extends AbstractExpressionVi
 
     @Override
     public Expression visit(Expression.SumExpression expression) {
-        return expression.operation.apply(expression.selectorFunctionInvocation, selectorFunctionInvoker, parameterMap, expression.body);
+        return intern(expression.operation.apply(expression.selectorFunctionInvocation, selectorFunctionInvoker, parameterMap, expression.body));
     }
 }
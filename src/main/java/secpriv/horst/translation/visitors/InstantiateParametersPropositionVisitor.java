@@ -1,6 +1,7 @@
 package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.ExpressionInterner;
 import secpriv.horst.data.Predicate;
 import secpriv.horst.data.Proposition;
 import secpriv.horst.internals.SelectorFunctionInvoker;
@@ -14,16 +15,32 @@ import java.util.stream.Collectors;
 public class InstantiateParametersPropositionVisitor implements Proposition.Visitor<Proposition> {
     private final Map<String, BaseTypeValue> parameterMap;
     private final SelectorFunctionInvoker selectorFunctionInvoker;
+    private final ExpressionInterner interner;
+    private final InstantiationTemplate template;
 
     public InstantiateParametersPropositionVisitor(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvoker selectorFunctionInvoker) {
+        this(parameterMap, selectorFunctionInvoker, null, null);
+    }
+
+    /**
+     * @param template the template compiled from the instantiated rule, may be null.
+     * @param interner interns the instantiated expressions of all propositions, may be null.
+     */
+    public InstantiateParametersPropositionVisitor(Map<String, BaseTypeValue> parameterMap, SelectorFunctionInvoker selectorFunctionInvoker, InstantiationTemplate template, ExpressionInterner interner) {
+        this.template = template;
+        this.interner = interner;
         this.parameterMap = Objects.requireNonNull(parameterMap, "ParameterMap may not be null!");
         this.selectorFunctionInvoker = Objects.requireNonNull(selectorFunctionInvoker, "SelectorFunctionInvoker may not be null!");
     }
 
+    private InstantiateParametersExpressionVisitor createExpressionVisitor() {
+        return new InstantiateParametersExpressionVisitor(parameterMap, selectorFunctionInvoker, template, interner);
+    }
+
     @Override
     public Proposition visit(Proposition.PredicateProposition proposition) {
         EvaluateExpressionVisitor evaluateExpressionVisitor = new EvaluateExpressionVisitor(parameterMap);
-        InstantiateParametersExpressionVisitor expressionVisitor = new InstantiateParametersExpressionVisitor(parameterMap, selectorFunctionInvoker);
+        InstantiateParametersExpressionVisitor expressionVisitor = createExpressionVisitor();
 
         List<BaseTypeValue> parameterValues = proposition.parameters.stream().map(p -> p.accept(expressionVisitor)).map(p -> p.accept(evaluateExpressionVisitor)).collect(Collectors.toList());
         Predicate instantiatedPredicate = instantiatePredicate(proposition.predicate, parameterValues);
@@ -33,7 +50,7 @@ public class InstantiateParametersPropositionVisitor implements Proposition.Visi
 
     @Override
     public Proposition visit(Proposition.ExpressionProposition proposition) {
-        InstantiateParametersExpressionVisitor expressionVisitor = new InstantiateParametersExpressionVisitor(parameterMap, selectorFunctionInvoker);
+        InstantiateParametersExpressionVisitor expressionVisitor = createExpressionVisitor();
 
         return new Proposition.ExpressionProposition(proposition.expression.accept(expressionVisitor));
     }
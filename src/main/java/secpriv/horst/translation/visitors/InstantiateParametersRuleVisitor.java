@@ -2,13 +2,16 @@ package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.BaseTypeValue;
 import secpriv.horst.data.CompoundSelectorFunctionInvocation;
+import secpriv.horst.data.ExpressionInterner;
 import secpriv.horst.data.Rule;
 import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.tools.MappingIterator;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class InstantiateParametersRuleVisitor implements Rule.Visitor<List<Rule>> {
@@ -20,18 +23,10 @@ public class InstantiateParametersRuleVisitor implements Rule.Visitor<List<Rule>
 
     @Override
     public List<Rule> visit(Rule rule) {
-        CompoundSelectorFunctionInvocation invocation = rule.selectorFunctionInvocation;
         List<Rule> rules = new ArrayList<>();
-        List<String> names = rule.selectorFunctionInvocation.parameters().stream().map(e -> e.name).collect(Collectors.toList());
 
         try {
-            for (Map<String, BaseTypeValue> parameterMap : selectorFunctionInvoker.invoke(invocation)) {
-                InstantiateParametersClauseVisitor clauseVisitor = new InstantiateParametersClauseVisitor(parameterMap, selectorFunctionInvoker);
-
-                String instantiatedRuleName = instantiateRuleName(rule, names.stream().map(parameterMap::get).collect(Collectors.toList()));
-
-                rules.add(new Rule(instantiatedRuleName, CompoundSelectorFunctionInvocation.UnitInvocation, rule.clauses.stream().map(c -> c.accept(clauseVisitor)).collect(Collectors.toList())));
-            }
+            instantiate(rule).forEach(rules::add);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -39,6 +34,37 @@ public class InstantiateParametersRuleVisitor implements Rule.Visitor<List<Rule>
         return rules;
     }
 
+    /**
+     * Instantiates the rule lazily, i.e. the next instance is only created (and the selector functions only advanced)
+     * when it is requested from the iterator.
+     */
+    public Iterable<Rule> instantiate(Rule rule) {
+        Iterable<Supplier<Rule>> instances = instantiateDeferred(rule);
+        return () -> new MappingIterator<>(instances.iterator(), Supplier::get);
+    }
+
+    /**
+     * Like {@link #instantiate(Rule)}, but the iterator only advances the selector functions and the instance is
+     * created when its supplier is called. The suppliers may be called in any order and from several threads.
+     */
+    public Iterable<Supplier<Rule>> instantiateDeferred(Rule rule) {
+        CompoundSelectorFunctionInvocation invocation = rule.selectorFunctionInvocation;
+        List<String> names = rule.selectorFunctionInvocation.parameters().stream().map(e -> e.name).collect(Collectors.toList());
+
+        return () -> {
+            InstantiationTemplate template = InstantiationTemplate.compile(rule);
+            return new MappingIterator<Map<String, BaseTypeValue>, Supplier<Rule>>(selectorFunctionInvoker.invoke(invocation).iterator(), parameterMap -> () -> instantiate(rule, template, names, parameterMap));
+        };
+    }
+
+    private Rule instantiate(Rule rule, InstantiationTemplate template, List<String> names, Map<String, BaseTypeValue> parameterMap) {
+        // one interner per instance, the suppliers may run concurrently
+        InstantiateParametersClauseVisitor clauseVisitor = new InstantiateParametersClauseVisitor(parameterMap, selectorFunctionInvoker, template, new ExpressionInterner());
+
+        String instantiatedRuleName = instantiateRuleName(rule, names.stream().map(parameterMap::get).collect(Collectors.toList()));
+
+        return new Rule(instantiatedRuleName, CompoundSelectorFunctionInvocation.UnitInvocation, rule.clauses.stream().map(c -> c.accept(clauseVisitor)).collect(Collectors.toList()));
+    }
 
     private String instantiateRuleName(Rule rule, List<BaseTypeValue> parameterValues) {
         String ruleName = rule.name;
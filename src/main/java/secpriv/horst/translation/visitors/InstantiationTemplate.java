@@ -0,0 +1,193 @@
+package secpriv.horst.translation.visitors;
+
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.Proposition;
+import secpriv.horst.data.Rule;
+import secpriv.horst.visitors.ConstnessExpressionVisitor;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Records which subexpressions of a rule {@link InstantiateParametersExpressionVisitor} may change, i.e. the ones
+ * containing parameters, sums or conditionals it resolves. All other subexpressions are the same for every parameter
+ * binding, so instantiating the rule only has to visit the recorded ones.
+ */
+public class InstantiationTemplate {
+    private final Set<Expression> parameterDependentExpressions;
+
+    private InstantiationTemplate(Set<Expression> parameterDependentExpressions) {
+        this.parameterDependentExpressions = parameterDependentExpressions;
+    }
+
+    public static InstantiationTemplate compile(Rule rule) {
+        Objects.requireNonNull(rule, "Rule may not be null!");
+        ParameterDependenceExpressionVisitor expressionVisitor = new ParameterDependenceExpressionVisitor();
+
+        for (Clause clause : rule.clauses) {
+            for (Proposition premise : clause.premises) {
+                visit(premise, expressionVisitor);
+            }
+            visit(clause.conclusion, expressionVisitor);
+        }
+
+        Set<Expression> parameterDependentExpressions = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<Expression, Boolean> entry : expressionVisitor.parameterDependence.entrySet()) {
+            if (entry.getValue()) {
+                parameterDependentExpressions.add(entry.getKey());
+            }
+        }
+        return new InstantiationTemplate(parameterDependentExpressions);
+    }
+
+    private static void visit(Proposition proposition, ParameterDependenceExpressionVisitor expressionVisitor) {
+        if (proposition instanceof Proposition.PredicateProposition) {
+            Proposition.PredicateProposition predicateProposition = (Proposition.PredicateProposition) proposition;
+            predicateProposition.parameters.forEach(e -> e.accept(expressionVisitor));
+            predicateProposition.arguments.forEach(e -> e.accept(expressionVisitor));
+        } else {
+            ((Proposition.ExpressionProposition) proposition).expression.accept(expressionVisitor);
+        }
+    }
+
+    /**
+     * @return false if instantiating the expression with any parameter binding returns the expression itself.
+     */
+    public boolean isParameterDependent(Expression expression) {
+        return parameterDependentExpressions.contains(expression);
+    }
+
+    private static class ParameterDependenceExpressionVisitor implements Expression.Visitor<Boolean> {
+        // Rules are DAGs after inlining, so results are memoized to visit every node once
+        private final Map<Expression, Boolean> parameterDependence = new IdentityHashMap<>();
+        private final ConstnessExpressionVisitor constnessExpressionVisitor = new ConstnessExpressionVisitor();
+
+        private Boolean memoized(Expression expression, boolean isParameterDependent) {
+            parameterDependence.put(expression, isParameterDependent);
+            return isParameterDependent;
+        }
+
+        private boolean anyDependent(Expression... expressions) {
+            boolean isParameterDependent = false;
+            // every child has to be visited, so that its own dependence is recorded
+            for (Expression expression : expressions) {
+                isParameterDependent |= expression.accept(this);
+            }
+            return isParameterDependent;
+        }
+
+        private Boolean visitComposite(Expression expression, Expression... children) {
+            Boolean cached = parameterDependence.get(expression);
+            if (cached != null) {
+                return cached;
+            }
+            return memoized(expression, anyDependent(children));
+        }
+
+        @Override
+        public Boolean visit(Expression.IntConst expression) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Expression.BoolConst expression) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Expression.ArrayInitExpression expression) {
+            return visitComposite(expression, expression.initializer);
+        }
+
+        @Override
+        public Boolean visit(Expression.VarExpression expression) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Expression.FreeVarExpression expression) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Expression.ParVarExpression expression) {
+            return memoized(expression, true);
+        }
+
+        @Override
+        public Boolean visit(Expression.BinaryIntExpression expression) {
+            return visitComposite(expression, expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Boolean visit(Expression.BinaryBoolExpression expression) {
+            return visitComposite(expression, expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Boolean visit(Expression.SelectExpression expression) {
+            return visitComposite(expression, expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Boolean visit(Expression.StoreExpression expression) {
+            return visitComposite(expression, expression.expression1, expression.expression2, expression.expression3);
+        }
+
+        // The following expressions are not eliminated by instantiation, they are visited to keep its exceptions
+        @Override
+        public Boolean visit(Expression.AppExpression expression) {
+            return memoized(expression, true);
+        }
+
+        @Override
+        public Boolean visit(Expression.ConstructorAppExpression expression) {
+            return memoized(expression, true);
+        }
+
+        @Override
+        public Boolean visit(Expression.MatchExpression expression) {
+            return memoized(expression, true);
+        }
+
+        @Override
+        public Boolean visit(Expression.NegationExpression expression) {
+            return visitComposite(expression, expression.expression);
+        }
+
+        @Override
+        public Boolean visit(Expression.ConditionalExpression expression) {
+            Boolean cached = parameterDependence.get(expression);
+            if (cached != null) {
+                return cached;
+            }
+            boolean isParameterDependent = anyDependent(expression.expression1, expression.expression2, expression.expression3);
+            // instantiation resolves conditionals with constant conditions
+            return memoized(expression, isParameterDependent || expression.expression1.accept(constnessExpressionVisitor));
+        }
+
+        @Override
+        public Boolean visit(Expression.ComparisonExpression expression) {
+            return visitComposite(expression, expression.expression1, expression.expression2);
+        }
+
+        @Override
+        public Boolean visit(Expression.ConstExpression expression) {
+            return visitComposite(expression, expression.value);
+        }
+
+        @Override
+        public Boolean visit(Expression.SumExpression expression) {
+            return memoized(expression, true);
+        }
+
+        @Override
+        public Boolean visit(Expression.BitvectorNegationExpression expression) {
+            return visitComposite(expression, expression.expression);
+        }
+    }
+}
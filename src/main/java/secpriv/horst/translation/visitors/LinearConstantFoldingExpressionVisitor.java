@@ -0,0 +1,426 @@
+package secpriv.horst.translation.visitors;
+
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.ExpressionInterner;
+import secpriv.horst.translation.TranslateToZ3VisitorState;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds constants like {@link ConstantFoldingExpressionVisitor}, but decides whether an expression is constant from its
+ * already folded children instead of visiting the whole subtree again on every level, so folding takes time linear in
+ * the size of the expression. Results are cached for shared subexpressions, so an instance should be used for one
+ * clause only.
+ * <p>
+ * Additionally, constant factors of multiplication chains, as they result from {@code pow}, are multiplied out and
+ * nested modulo operations with constant moduli, as they result from {@code mod MAX}, are collapsed. Both are only
+ * done where the result is the same for unbounded and for bit vector integers.
+ */
+public class LinearConstantFoldingExpressionVisitor implements Expression.Visitor<Expression> {
+    // the folded expressions are translated with unbounded and with bit vector integers, so folding has to be sound
+    // for both, see TranslateToZ3VisitorState#BIT_WIDTH
+    private static final BigInteger BIT_VECTOR_MODULUS = BigInteger.ONE.shiftLeft(TranslateToZ3VisitorState.BIT_WIDTH);
+
+    private final EvaluateExpressionVisitor evaluateExpressionVisitor = new EvaluateExpressionVisitor();
+    private final ToConstExpressionBaseTypeValueVisitor toConstExpressionVisitor = new ToConstExpressionBaseTypeValueVisitor();
+    private final Map<Expression, Expression> foldedExpressions = new IdentityHashMap<>();
+    private final Set<Expression> constantArrays = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ExpressionInterner interner;
+
+    public LinearConstantFoldingExpressionVisitor() {
+        this(null);
+    }
+
+    /**
+     * @param interner interns every folded expression, may be null.
+     */
+    public LinearConstantFoldingExpressionVisitor(ExpressionInterner interner) {
+        this.interner = interner;
+    }
+
+    protected <T extends Expression> T intern(T expression) {
+        return interner == null ? expression : interner.intern(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.IntConst expression) {
+        return intern(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.BoolConst expression) {
+        return intern(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.ArrayInitExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        return cache(expression, rebuilt(expression, new Expression.ArrayInitExpression(expression.initializer.accept(this))));
+    }
+
+    @Override
+    public Expression visit(Expression.VarExpression expression) {
+        throw new UnsupportedOperationException("Expression should have already been inlined/translated.");
+    }
+
+    @Override
+    public Expression visit(Expression.FreeVarExpression expression) {
+        return intern(expression);
+    }
+
+    @Override
+    public Expression visit(Expression.ParVarExpression expression) {
+        throw new UnsupportedOperationException("Expression should have already been instantiated.");
+    }
+
+    private Expression cache(Expression expression, Expression folded) {
+        Expression interned = intern(folded);
+        foldedExpressions.put(expression, interned);
+        return interned;
+    }
+
+    private static Expression rebuilt(Expression original, Expression result) {
+        return AbstractExpressionVisitor.hasSameChildren(original, result) && result.equals(original) ? original : result;
+    }
+
+    // Children are folded before their parents, so an expression is constant iff it is a value after folding
+    private boolean isValue(Expression expression) {
+        if (expression instanceof Expression.IntConst || expression instanceof Expression.BoolConst) {
+            return true;
+        }
+        if (constantArrays.contains(expression)) {
+            return true;
+        }
+
+        boolean isConstantArray = false;
+        if (expression instanceof Expression.ArrayInitExpression) {
+            isConstantArray = isValue(((Expression.ArrayInitExpression) expression).initializer);
+        } else if (expression instanceof Expression.StoreExpression) {
+            Expression.StoreExpression storeExpression = (Expression.StoreExpression) expression;
+            isConstantArray = isValue(storeExpression.expression1) && storeExpression.expression2 instanceof Expression.IntConst && isValue(storeExpression.expression3);
+        }
+
+        if (isConstantArray) {
+            constantArrays.add(expression);
+        }
+        return isConstantArray;
+    }
+
+    private Expression evaluate(Expression expression) {
+        try {
+            return expression.accept(evaluateExpressionVisitor).accept(toConstExpressionVisitor);
+        } catch (ArithmeticException e) {
+            // if a undefined (w.r.t to BigInteger semantics) arithmetic operation occurs, we return the unmodified
+            // expression, to let z3 handle it
+            return expression;
+        }
+    }
+
+    private static boolean isPositive(Expression.IntConst expression) {
+        return expression.value.signum() > 0;
+    }
+
+    /**
+     * Bit vector constants are truncated to {@link TranslateToZ3VisitorState#BIT_WIDTH} bits and the remainder of a
+     * division by zero is the dividend, so {@code (e mod c1) mod c2 = e mod c2} only holds for bit vectors if c2 is not
+     * truncated and divides the truncated c1 or the truncated c1 is zero.
+     */
+    private static boolean dividesInBothModes(BigInteger divisor, BigInteger dividend) {
+        if (dividend.mod(divisor).signum() != 0 || divisor.compareTo(BIT_VECTOR_MODULUS) >= 0) {
+            return false;
+        }
+        return dividend.mod(BIT_VECTOR_MODULUS).mod(divisor).signum() == 0;
+    }
+
+    private static Expression.IntConst getConstOperand(Expression expression, Expression.IntOperation operation) {
+        if (expression instanceof Expression.BinaryIntExpression) {
+            Expression.BinaryIntExpression binaryIntExpression = (Expression.BinaryIntExpression) expression;
+            if (binaryIntExpression.operation == operation && binaryIntExpression.expression2 instanceof Expression.IntConst) {
+                return (Expression.IntConst) binaryIntExpression.expression2;
+            }
+            if (binaryIntExpression.operation == operation && binaryIntExpression.expression1 instanceof Expression.IntConst) {
+                return (Expression.IntConst) binaryIntExpression.expression1;
+            }
+        }
+        return null;
+    }
+
+    private static Expression getNonConstOperand(Expression.BinaryIntExpression expression) {
+        return expression.expression1 instanceof Expression.IntConst ? expression.expression2 : expression.expression1;
+    }
+
+    private Expression optimizeBinaryIntExpression(Expression child1, Expression child2, Expression.IntOperation operation) {
+        boolean isConst1 = child1 instanceof Expression.IntConst;
+        boolean isConst2 = child2 instanceof Expression.IntConst;
+
+        if (isConst1 && isConst2) {
+            return evaluate(new Expression.BinaryIntExpression(child1, child2, operation));
+        } else if (!isConst1 && !isConst2) {
+            return new Expression.BinaryIntExpression(child1, child2, operation);
+        }
+
+        Expression.IntConst constExp = (Expression.IntConst) (isConst1 ? child1 : child2);
+        Expression nonConstExp = isConst2 ? child1 : child2;
+
+        boolean isConstEqualToOne = constExp.value.equals(BigInteger.ONE);
+
+        if (operation == Expression.IntOperation.ADD) {
+            if (constExp.value.equals(BigInteger.ZERO)) {
+                return nonConstExp;
+            }
+        } else if (operation == Expression.IntOperation.MUL) {
+            if (constExp.value.equals(BigInteger.ZERO)) {
+                return constExp;
+            }
+            if (isConstEqualToOne) {
+                return nonConstExp;
+            }
+            // (e * c1) * c2 = e * (c1 * c2)
+            Expression.IntConst innerConstExp = getConstOperand(nonConstExp, Expression.IntOperation.MUL);
+            if (innerConstExp != null) {
+                Expression innerNonConstExp = getNonConstOperand((Expression.BinaryIntExpression) nonConstExp);
+                return optimizeBinaryIntExpression(innerNonConstExp, new Expression.IntConst(innerConstExp.value.multiply(constExp.value)), operation);
+            }
+        } else if (operation == Expression.IntOperation.DIV) {
+            if (isConst2 && isConstEqualToOne) {
+                return nonConstExp;
+            }
+        } else if (operation == Expression.IntOperation.MOD) {
+            if (isConst2 && isConstEqualToOne) {
+                return new Expression.IntConst(BigInteger.ZERO);
+            }
+            if (isConst2 && isPositive(constExp)) {
+                // (e mod c1) mod c2 = e mod c2 if c2 divides c1, see dividesInBothModes for bit vectors
+                Expression.IntConst innerModulus = getConstOperand(nonConstExp, Expression.IntOperation.MOD);
+                if (innerModulus != null && nonConstExp instanceof Expression.BinaryIntExpression && ((Expression.BinaryIntExpression) nonConstExp).expression2 == innerModulus
+                        && isPositive(innerModulus) && dividesInBothModes(constExp.value, innerModulus.value)) {
+                    return optimizeBinaryIntExpression(((Expression.BinaryIntExpression) nonConstExp).expression1, constExp, operation);
+                }
+                // (e * c1) mod c2 = 0 if c2 divides c1 and c2 divides the modulus a bit vector multiplication wraps around at
+                Expression.IntConst innerFactor = getConstOperand(nonConstExp, Expression.IntOperation.MUL);
+                if (innerFactor != null && innerFactor.value.mod(constExp.value).signum() == 0 && BIT_VECTOR_MODULUS.mod(constExp.value).signum() == 0) {
+                    return new Expression.IntConst(BigInteger.ZERO);
+                }
+            }
+        }
+        return new Expression.BinaryIntExpression(child1, child2, operation);
+    }
+
+    @Override
+    public Expression visit(Expression.BinaryIntExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child1 = expression.expression1.accept(this);
+        Expression child2 = expression.expression2.accept(this);
+
+        return cache(expression, rebuilt(expression, optimizeBinaryIntExpression(child1, child2, expression.operation)));
+    }
+
+    private Expression optimizeBinaryBoolExpression(Expression child1, Expression child2, Expression.BoolOperation operation) {
+        boolean isConst1 = child1 instanceof Expression.BoolConst;
+        boolean isConst2 = child2 instanceof Expression.BoolConst;
+
+        if (isConst1 && isConst2) {
+            return evaluate(new Expression.BinaryBoolExpression(child1, child2, operation));
+        } else if (!isConst1 && !isConst2) {
+            return new Expression.BinaryBoolExpression(child1, child2, operation);
+        }
+
+        Expression.BoolConst constExp = (Expression.BoolConst) (isConst1 ? child1 : child2);
+        Expression nonConstExp = isConst2 ? child1 : child2;
+
+        if (operation == Expression.BoolOperation.OR) {
+            return constExp.value ? constExp : nonConstExp;
+        } else if (operation == Expression.BoolOperation.AND) {
+            return constExp.value ? nonConstExp : constExp;
+        }
+        return new Expression.BinaryBoolExpression(child1, child2, operation);
+    }
+
+    @Override
+    public Expression visit(Expression.BinaryBoolExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child1 = expression.expression1.accept(this);
+        Expression child2 = expression.expression2.accept(this);
+
+        return cache(expression, rebuilt(expression, optimizeBinaryBoolExpression(child1, child2, expression.operation)));
+    }
+
+    @Override
+    public Expression visit(Expression.SelectExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child1 = expression.expression1.accept(this);
+        Expression child2 = expression.expression2.accept(this);
+
+        Expression result = new Expression.SelectExpression(child1, child2);
+
+        if (isValue(child1) && isValue(child2)) {
+            result = evaluate(result);
+        }
+        return cache(expression, rebuilt(expression, result));
+    }
+
+    @Override
+    public Expression visit(Expression.StoreExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child1 = expression.expression1.accept(this);
+        Expression child2 = expression.expression2.accept(this);
+        Expression child3 = expression.expression3.accept(this);
+
+        return cache(expression, rebuilt(expression, new Expression.StoreExpression(child1, child2, child3)));
+    }
+
+    @Override
+    public Expression visit(Expression.AppExpression expression) {
+        throw new UnsupportedOperationException("AppExpression should be eliminated at this point!");
+    }
+
+    @Override
+    public Expression visit(Expression.ConstructorAppExpression expression) {
+        throw new UnsupportedOperationException("ConstructorAppExpression should be eliminated at this point!");
+    }
+
+    @Override
+    public Expression visit(Expression.MatchExpression expression) {
+        throw new UnsupportedOperationException("MatchExpression should be eliminated at this point!");
+    }
+
+    @Override
+    public Expression visit(Expression.NegationExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child = expression.expression.accept(this);
+
+        if (child instanceof Expression.NegationExpression) {
+            return cache(expression, ((Expression.NegationExpression) child).expression);
+        }
+
+        Expression result = new Expression.NegationExpression(child);
+
+        if (isValue(child)) {
+            result = evaluate(result);
+        }
+        return cache(expression, rebuilt(expression, result));
+    }
+
+    @Override
+    public Expression visit(Expression.ConditionalExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child1 = expression.expression1.accept(this);
+        Expression child2 = expression.expression2.accept(this);
+        Expression child3 = expression.expression3.accept(this);
+
+        return cache(expression, rebuilt(expression, optimizeConditionalExpression(child1, child2, child3)));
+    }
+
+    private Expression optimizeConditionalExpression(Expression child1, Expression child2, Expression child3) {
+        if (child1 instanceof Expression.BoolConst) {
+            return ((Expression.BoolConst) child1).value ? child2 : child3;
+        }
+
+        if (isValue(child2) && isValue(child3)) {
+            if (child2.equals(child3)) {
+                return child2;
+            }
+            if (child2 instanceof Expression.BoolConst && child3 instanceof Expression.BoolConst) {
+                boolean child2Value = ((Expression.BoolConst) child2).value;
+                boolean child3Value = ((Expression.BoolConst) child3).value;
+                if (child2Value && !child3Value) {
+                    return child1;
+                }
+                if (!child2Value && child3Value) {
+                    if (child1 instanceof Expression.NegationExpression) {
+                        return ((Expression.NegationExpression) child1).expression;
+                    } else {
+                        return new Expression.NegationExpression(child1);
+                    }
+                }
+            }
+        }
+        return new Expression.ConditionalExpression(child1, child2, child3);
+    }
+
+    @Override
+    public Expression visit(Expression.ComparisonExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child1 = expression.expression1.accept(this);
+        Expression child2 = expression.expression2.accept(this);
+
+        Expression result = new Expression.ComparisonExpression(child1, child2, expression.operation);
+
+        if (isValue(child1) && isValue(child2)) {
+            result = evaluate(result);
+        }
+        return cache(expression, rebuilt(expression, result));
+    }
+
+    @Override
+    public Expression visit(Expression.ConstExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child = expression.value.accept(this);
+
+        if (isValue(child)) {
+            return cache(expression, child);
+        }
+        return cache(expression, rebuilt(expression, new Expression.ConstExpression(expression.name, child)));
+    }
+
+    @Override
+    public Expression visit(Expression.SumExpression expression) {
+        throw new UnsupportedOperationException("SumExpression should be eliminated at this point!");
+    }
+
+    @Override
+    public Expression visit(Expression.BitvectorNegationExpression expression) {
+        Expression cached = foldedExpressions.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+
+        Expression child = expression.expression.accept(this);
+        Expression result = new Expression.BitvectorNegationExpression(child);
+
+        if (isValue(child)) {
+            result = evaluate(result);
+        }
+        return cache(expression, rebuilt(expression, result));
+    }
+}
@@ -1,6 +1,7 @@
 package secpriv.horst.translation.visitors;
 
 import secpriv.horst.data.Expression;
+import secpriv.horst.data.ExpressionInterner;
 
 import java.util.Collections;
 import java.util.Map;
@@ -9,12 +10,17 @@ public class RenameFreeVariablesExpressionVisitor extends AbstractExpressionVisi
     final private Map<String, String> renamingMap;
 
     public RenameFreeVariablesExpressionVisitor(Map<String, String> renamingMap) {
+        this(renamingMap, null);
+    }
+
+    public RenameFreeVariablesExpressionVisitor(Map<String, String> renamingMap, ExpressionInterner interner) {
+        super(interner);
         this.renamingMap = Collections.unmodifiableMap(renamingMap);
     }
 
     @Override
     public Expression visit(Expression.FreeVarExpression expression) {
         String newName = renamingMap.getOrDefault(expression.name, expression.name);
-        return new Expression.FreeVarExpression(expression.type, newName);
+        return intern(new Expression.FreeVarExpression(expression.type, newName));
     }
 }
@@ -1,9 +1,15 @@
 package secpriv.horst.translation.visitors;
 
+import secpriv.horst.data.ExpressionInterner;
+
 import java.util.Map;
 
 public class RenameFreeVariablesPropositionVisitor extends ExpressionMappingPropositionVisitor {
     public RenameFreeVariablesPropositionVisitor(Map<String, String> renamingMap) {
         super(new RenameFreeVariablesExpressionVisitor(renamingMap));
     }
+
+    public RenameFreeVariablesPropositionVisitor(Map<String, String> renamingMap, ExpressionInterner interner) {
+        super(new RenameFreeVariablesExpressionVisitor(renamingMap, interner));
+    }
 }
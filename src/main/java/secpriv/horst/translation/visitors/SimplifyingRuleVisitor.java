@@ -0,0 +1,99 @@
+package secpriv.horst.translation.visitors;
+
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.ExpressionInterner;
+import secpriv.horst.data.Proposition;
+import secpriv.horst.data.Rule;
+import secpriv.horst.types.Type;
+import secpriv.horst.visitors.RuleTypeOracle;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Applies {@link SimplifyPredicateArgumentsRuleVisitor}, {@link RenameFreeVariablesRuleVisitor},
+ * {@link ConstantFoldingRuleVisitor}, {@link FilterUnapplicableClausesRuleVisitor} and optionally
+ * {@link RemoveTruePremiseRuleVisitor} with a single traversal of the expressions of each clause. The result is the same
+ * as applying these visitors one after another. Like {@link RenameFreeVariablesRuleVisitor} it numbers the clauses it
+ * sees, so {@link #visit(Rule)} depends on the order of the rules. {@link #visit(Rule, int)} takes the number of the
+ * first clause instead, so rules can be simplified concurrently once the numbers of their clauses are known.
+ */
+public class SimplifyingRuleVisitor implements Rule.Visitor<Rule> {
+    private final RuleTypeOracle ruleTypeOracle;
+    private final boolean removeTruePremises;
+    private final SimplifyPredicateArgumentsClauseVisitor simplifyPredicateArgumentsClauseVisitor = new SimplifyPredicateArgumentsClauseVisitor();
+    private final FilterUnapplicableClausesRuleVisitor filterUnapplicableClausesRuleVisitor;
+    private final RemoveTruePremiseClauseVisitor removeTruePremiseClauseVisitor = new RemoveTruePremiseClauseVisitor();
+    private int renamedClauseCount = 0;
+
+    public SimplifyingRuleVisitor(RuleTypeOracle ruleTypeOracle, boolean removeTruePremises) {
+        this.ruleTypeOracle = Objects.requireNonNull(ruleTypeOracle, "RuleTypeOracle may not be null!");
+        this.removeTruePremises = removeTruePremises;
+        this.filterUnapplicableClausesRuleVisitor = new FilterUnapplicableClausesRuleVisitor(ruleTypeOracle);
+    }
+
+    @Override
+    public Rule visit(Rule rule) {
+        int firstClauseNumber = renamedClauseCount;
+        renamedClauseCount += rule.clauses.size();
+        return visit(rule, firstClauseNumber);
+    }
+
+    /**
+     * Simplifies the rule as if the visitor had seen {@code firstClauseNumber} clauses before, without changing the
+     * visitor.
+     */
+    public Rule visit(Rule rule, int firstClauseNumber) {
+        boolean filterUnapplicableClauses = !ruleTypeOracle.isQueryOrTest(rule);
+        List<Clause> visitedClauses = new ArrayList<>();
+        int clauseNumber = firstClauseNumber;
+
+        for (Clause clause : rule.clauses) {
+            Clause visitedClause = renameAndFold(clause.accept(simplifyPredicateArgumentsClauseVisitor), clauseNumber++);
+
+            if (filterUnapplicableClauses && !filterUnapplicableClausesRuleVisitor.doesNotContainFalsePremise(visitedClause)) {
+                continue;
+            }
+            visitedClauses.add(removeTruePremises ? visitedClause.accept(removeTruePremiseClauseVisitor) : visitedClause);
+        }
+
+        return new Rule(rule.name, rule.selectorFunctionInvocation, visitedClauses);
+    }
+
+    private Clause renameAndFold(Clause clause, int clauseNumber) {
+        String suffix = "?r" + clauseNumber;
+
+        Map<String, String> renamedFreeVars = new HashMap<>();
+        Map<String, Type> renamedFreeVarMap = new HashMap<>();
+
+        for (Map.Entry<String, Type> entry : clause.freeVars.entrySet()) {
+            String renamedFreeVar = entry.getKey() + suffix;
+            renamedFreeVars.put(entry.getKey(), renamedFreeVar);
+            renamedFreeVarMap.put(renamedFreeVar, entry.getValue());
+        }
+
+        ExpressionMappingPropositionVisitor propositionVisitor = new ExpressionMappingPropositionVisitor(new RenamingConstantFoldingExpressionVisitor(renamedFreeVars));
+
+        List<Proposition> visitedPremises = clause.premises.stream().map(p -> p.accept(propositionVisitor)).collect(Collectors.toList());
+        Proposition.PredicateProposition visitedConclusion = (Proposition.PredicateProposition) clause.conclusion.accept(propositionVisitor);
+
+        return new Clause(visitedPremises, visitedConclusion, renamedFreeVarMap);
+    }
+
+    // Renaming is injective, so folding the renamed leaves gives the same result as folding after renaming
+    private static class RenamingConstantFoldingExpressionVisitor extends LinearConstantFoldingExpressionVisitor {
+        private final Map<String, String> renamingMap;
+
+        private RenamingConstantFoldingExpressionVisitor(Map<String, String> renamingMap) {
+            super(new ExpressionInterner());
+            this.renamingMap = renamingMap;
+        }
+
+        @Override
+        public Expression visit(Expression.FreeVarExpression expression) {
+            String newName = renamingMap.getOrDefault(expression.name, expression.name);
+            return intern(new Expression.FreeVarExpression(expression.type, newName));
+        }
+    }
+}
@@ -30,7 +30,7 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.ArrayInitExpression expression) {
-        return context.mkConstArray(context.mkIntSort(), expression.initializer.accept(this));
+        return context.mkConstArray(context.mkIntSort(), state.translate(expression.initializer));
     }
 
     @Override
@@ -50,8 +50,8 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.BinaryIntExpression expression) {
-        IntExpr i1 = (IntExpr) expression.expression1.accept(this);
-        IntExpr i2 = (IntExpr) expression.expression2.accept(this);
+        IntExpr i1 = (IntExpr) state.translate(expression.expression1);
+        IntExpr i2 = (IntExpr) state.translate(expression.expression2);
 
         switch (expression.operation) {
             case ADD:
@@ -76,8 +76,8 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.BinaryBoolExpression expression) {
-        BoolExpr b1 = (BoolExpr) expression.expression1.accept(this);
-        BoolExpr b2 = (BoolExpr) expression.expression2.accept(this);
+        BoolExpr b1 = (BoolExpr) state.translate(expression.expression1);
+        BoolExpr b2 = (BoolExpr) state.translate(expression.expression2);
 
         //Check which Translation is smarter
         switch (expression.operation) {
@@ -93,16 +93,16 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.SelectExpression expression) {
-        ArrayExpr a = (ArrayExpr) expression.expression1.accept(this);
-        IntExpr i = (IntExpr) expression.expression2.accept(this);
+        ArrayExpr a = (ArrayExpr) state.translate(expression.expression1);
+        IntExpr i = (IntExpr) state.translate(expression.expression2);
         return context.mkSelect(a, i);
     }
 
     @Override
     public Expr visit(Expression.StoreExpression expression) {
-        ArrayExpr a = (ArrayExpr) expression.expression1.accept(this);
-        IntExpr i = (IntExpr) expression.expression2.accept(this);
-        Expr e = expression.expression3.accept(this);
+        ArrayExpr a = (ArrayExpr) state.translate(expression.expression1);
+        IntExpr i = (IntExpr) state.translate(expression.expression2);
+        Expr e = state.translate(expression.expression3);
         return context.mkStore(a, i, e);
     }
 
@@ -123,21 +123,21 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.NegationExpression expression) {
-        return context.mkNot((BoolExpr) expression.expression.accept(this));
+        return context.mkNot((BoolExpr) state.translate(expression.expression));
     }
 
     @Override
     public Expr visit(Expression.ConditionalExpression expression) {
-        BoolExpr b1 = (BoolExpr) expression.expression1.accept(this);
-        Expr e1 = expression.expression2.accept(this);
-        Expr e2 = expression.expression3.accept(this);
+        BoolExpr b1 = (BoolExpr) state.translate(expression.expression1);
+        Expr e1 = state.translate(expression.expression2);
+        Expr e2 = state.translate(expression.expression3);
         return context.mkITE(b1, e1, e2);
     }
 
     @Override
     public Expr visit(Expression.ComparisonExpression expression) {
-        Expr e1 = expression.expression1.accept(this);
-        Expr e2 = expression.expression2.accept(this);
+        Expr e1 = state.translate(expression.expression1);
+        Expr e2 = state.translate(expression.expression2);
 
         switch (expression.operation) {
             case EQ:
@@ -158,7 +158,7 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.ConstExpression expression) {
-        return state.getConstant(expression).accept(this);
+        return state.translate(state.getConstant(expression));
     }
 
     @Override
@@ -168,7 +168,7 @@ public class TranslateToZ3ExpressionVisitor implements Expression.Visitor<Expr>
 
     @Override
     public Expr visit(Expression.BitvectorNegationExpression expression) {
-        return bitVectorTranslator.bvneg(context, (IntExpr) expression.expression.accept(this));
+        return bitVectorTranslator.bvneg(context, (IntExpr) state.translate(expression.expression));
     }
 
 }
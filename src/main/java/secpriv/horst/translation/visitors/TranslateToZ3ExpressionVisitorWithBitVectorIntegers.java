@@ -7,7 +7,7 @@ import secpriv.horst.translation.TranslateToZ3VisitorState;
 public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expression.Visitor<Expr> {
     private final TranslateToZ3VisitorState state;
     private final Context context;
-    private final static int BIT_WIDTH = 32;//64;//256;
+    private final static int BIT_WIDTH = TranslateToZ3VisitorState.BIT_WIDTH;
 
     public TranslateToZ3ExpressionVisitorWithBitVectorIntegers(TranslateToZ3VisitorState state) {
         this.context = state.context;
@@ -26,7 +26,7 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.ArrayInitExpression expression) {
-        return context.mkConstArray(context.mkBitVecSort(BIT_WIDTH), expression.initializer.accept(this));
+        return context.mkConstArray(context.mkBitVecSort(BIT_WIDTH), state.translate(expression.initializer));
     }
 
     @Override
@@ -46,8 +46,8 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.BinaryIntExpression expression) {
-        BitVecExpr b1 = (BitVecExpr) expression.expression1.accept(this);
-        BitVecExpr b2 = (BitVecExpr) expression.expression2.accept(this);
+        BitVecExpr b1 = (BitVecExpr) state.translate(expression.expression1);
+        BitVecExpr b2 = (BitVecExpr) state.translate(expression.expression2);
 
         switch (expression.operation) {
             case ADD:
@@ -72,8 +72,8 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.BinaryBoolExpression expression) {
-        BoolExpr b1 = (BoolExpr) expression.expression1.accept(this);
-        BoolExpr b2 = (BoolExpr) expression.expression2.accept(this);
+        BoolExpr b1 = (BoolExpr) state.translate(expression.expression1);
+        BoolExpr b2 = (BoolExpr) state.translate(expression.expression2);
 
         //Check which Translation is smarter
         switch (expression.operation) {
@@ -89,16 +89,16 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.SelectExpression expression) {
-        ArrayExpr a = (ArrayExpr) expression.expression1.accept(this);
-        BitVecExpr b = (BitVecExpr) expression.expression2.accept(this);
+        ArrayExpr a = (ArrayExpr) state.translate(expression.expression1);
+        BitVecExpr b = (BitVecExpr) state.translate(expression.expression2);
         return context.mkSelect(a, b);
     }
 
     @Override
     public Expr visit(Expression.StoreExpression expression) {
-        ArrayExpr a = (ArrayExpr) expression.expression1.accept(this);
-        BitVecExpr b = (BitVecExpr) expression.expression2.accept(this);
-        Expr e = expression.expression3.accept(this);
+        ArrayExpr a = (ArrayExpr) state.translate(expression.expression1);
+        BitVecExpr b = (BitVecExpr) state.translate(expression.expression2);
+        Expr e = state.translate(expression.expression3);
         return context.mkStore(a, b, e);
     }
 
@@ -119,21 +119,21 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.NegationExpression expression) {
-        return context.mkNot((BoolExpr) expression.expression.accept(this));
+        return context.mkNot((BoolExpr) state.translate(expression.expression));
     }
 
     @Override
     public Expr visit(Expression.ConditionalExpression expression) {
-        BoolExpr b1 = (BoolExpr) expression.expression1.accept(this);
-        Expr e1 = expression.expression2.accept(this);
-        Expr e2 = expression.expression3.accept(this);
+        BoolExpr b1 = (BoolExpr) state.translate(expression.expression1);
+        Expr e1 = state.translate(expression.expression2);
+        Expr e2 = state.translate(expression.expression3);
         return context.mkITE(b1, e1, e2);
     }
 
     @Override
     public Expr visit(Expression.ComparisonExpression expression) {
-        Expr e1 = expression.expression1.accept(this);
-        Expr e2 = expression.expression2.accept(this);
+        Expr e1 = state.translate(expression.expression1);
+        Expr e2 = state.translate(expression.expression2);
 
         switch (expression.operation) {
             case EQ:
@@ -154,7 +154,7 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.ConstExpression expression) {
-        return state.getConstant(expression).accept(this);
+        return state.translate(state.getConstant(expression));
     }
 
     @Override
@@ -164,7 +164,7 @@ public class TranslateToZ3ExpressionVisitorWithBitVectorIntegers implements Expr
 
     @Override
     public Expr visit(Expression.BitvectorNegationExpression expression) {
-        return context.mkBVNeg((BitVecExpr) expression.expression.accept(this));
+        return context.mkBVNeg((BitVecExpr) state.translate(expression.expression));
     }
 
 }
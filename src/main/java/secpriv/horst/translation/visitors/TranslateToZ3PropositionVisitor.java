@@ -4,7 +4,6 @@ import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Context;
 import com.microsoft.z3.Expr;
 import com.microsoft.z3.FuncDecl;
-import secpriv.horst.data.Expression;
 import secpriv.horst.data.Proposition;
 import secpriv.horst.translation.TranslateToZ3VisitorState;
 
@@ -19,9 +18,7 @@ public class TranslateToZ3PropositionVisitor implements Proposition.Visitor<Bool
 
     @Override
     public BoolExpr visit(Proposition.PredicateProposition proposition) {
-        Expression.Visitor<Expr> translateToZ3ExpressionVisitor = state.getExpressionVisitor();
-
-        Expr[] arguments = proposition.arguments.stream().map(a -> a.accept(translateToZ3ExpressionVisitor)).toArray(Expr[]::new);
+        Expr[] arguments = proposition.arguments.stream().map(state::translate).toArray(Expr[]::new);
         FuncDecl predicate = state.getZ3PredicateDeclaration(proposition.predicate);
 
         return (BoolExpr) predicate.apply(arguments);
@@ -29,8 +26,6 @@ public class TranslateToZ3PropositionVisitor implements Proposition.Visitor<Bool
 
     @Override
     public BoolExpr visit(Proposition.ExpressionProposition proposition) {
-        Expression.Visitor<Expr> translateToZ3ExpressionVisitor = state.getExpressionVisitor();
-
-        return (BoolExpr) proposition.expression.accept(translateToZ3ExpressionVisitor);
+        return (BoolExpr) state.translate(proposition.expression);
     }
 }
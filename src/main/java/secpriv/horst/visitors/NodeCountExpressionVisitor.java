@@ -0,0 +1,143 @@
+package secpriv.horst.visitors;
+
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.Proposition;
+import secpriv.horst.data.Rule;
+
+import java.util.List;
+
+/**
+ * Counts the expression nodes of an expression. Shared subexpressions are counted once per occurrence.
+ */
+public class NodeCountExpressionVisitor implements Expression.Visitor<Long> {
+    public long count(Rule rule) {
+        long count = 0;
+        for (Clause clause : rule.clauses) {
+            for (Proposition premise : clause.premises) {
+                count += count(premise);
+            }
+            count += count(clause.conclusion);
+        }
+        return count;
+    }
+
+    private long count(Proposition proposition) {
+        if (proposition instanceof Proposition.PredicateProposition) {
+            Proposition.PredicateProposition predicateProposition = (Proposition.PredicateProposition) proposition;
+            return count(predicateProposition.parameters) + count(predicateProposition.arguments);
+        }
+        return ((Proposition.ExpressionProposition) proposition).expression.accept(this);
+    }
+
+    private long count(List<Expression> expressions) {
+        long count = 0;
+        for (Expression expression : expressions) {
+            count += expression.accept(this);
+        }
+        return count;
+    }
+
+    @Override
+    public Long visit(Expression.IntConst expression) {
+        return 1L;
+    }
+
+    @Override
+    public Long visit(Expression.BoolConst expression) {
+        return 1L;
+    }
+
+    @Override
+    public Long visit(Expression.ArrayInitExpression expression) {
+        return 1 + expression.initializer.accept(this);
+    }
+
+    @Override
+    public Long visit(Expression.VarExpression expression) {
+        return 1L;
+    }
+
+    @Override
+    public Long visit(Expression.FreeVarExpression expression) {
+        return 1L;
+    }
+
+    @Override
+    public Long visit(Expression.ParVarExpression expression) {
+        return 1L;
+    }
+
+    private Long visitBinaryExpression(Expression.BinaryExpression expression) {
+        return 1 + expression.expression1.accept(this) + expression.expression2.accept(this);
+    }
+
+    private Long visitTernaryExpression(Expression.TernaryExpression expression) {
+        return 1 + expression.expression1.accept(this) + expression.expression2.accept(this) + expression.expression3.accept(this);
+    }
+
+    @Override
+    public Long visit(Expression.BinaryIntExpression expression) {
+        return visitBinaryExpression(expression);
+    }
+
+    @Override
+    public Long visit(Expression.BinaryBoolExpression expression) {
+        return visitBinaryExpression(expression);
+    }
+
+    @Override
+    public Long visit(Expression.SelectExpression expression) {
+        return visitBinaryExpression(expression);
+    }
+
+    @Override
+    public Long visit(Expression.StoreExpression expression) {
+        return visitTernaryExpression(expression);
+    }
+
+    @Override
+    public Long visit(Expression.AppExpression expression) {
+        return 1 + count(expression.parameters) + count(expression.expressions);
+    }
+
+    @Override
+    public Long visit(Expression.ConstructorAppExpression expression) {
+        return 1 + count(expression.expressions);
+    }
+
+    @Override
+    public Long visit(Expression.MatchExpression expression) {
+        return 1 + count(expression.matchedExpressions) + count(expression.resultExpressions);
+    }
+
+    @Override
+    public Long visit(Expression.NegationExpression expression) {
+        return 1 + expression.expression.accept(this);
+    }
+
+    @Override
+    public Long visit(Expression.ConditionalExpression expression) {
+        return visitTernaryExpression(expression);
+    }
+
+    @Override
+    public Long visit(Expression.ComparisonExpression expression) {
+        return visitBinaryExpression(expression);
+    }
+
+    @Override
+    public Long visit(Expression.ConstExpression expression) {
+        return 1L;
+    }
+
+    @Override
+    public Long visit(Expression.SumExpression expression) {
+        return 1 + expression.body.accept(this);
+    }
+
+    @Override
+    public Long visit(Expression.BitvectorNegationExpression expression) {
+        return 1 + expression.expression.accept(this);
+    }
+}
@@ -77,6 +77,14 @@ public class VisitorState {
         return defineRule(queryAsRule);
     }
 
+    public List<String> getQueryIds() {
+        return Collections.unmodifiableList(queryIds);
+    }
+
+    public Map<String, TestResult> getTestResults() {
+        return Collections.unmodifiableMap(testResults);
+    }
+
     boolean isQueryOrTest(Rule rule) {
         return Stream.concat(queryIds.stream(), testIds.stream()).anyMatch(s -> rule.name.startsWith(s + "_") || s.equals(rule.name));
     }
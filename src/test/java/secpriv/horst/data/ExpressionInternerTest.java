@@ -0,0 +1,40 @@
+package secpriv.horst.data;
+
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Expression.*;
+import secpriv.horst.types.Constructor;
+import secpriv.horst.types.Type;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpressionInternerTest {
+    @Test
+    public void testInternReturnsCanonicalInstanceOfEqualExpressions() {
+        ExpressionInterner interner = new ExpressionInterner();
+
+        Expression a = new BinaryIntExpression(new FreeVarExpression(Type.Integer, "a"), new IntConst(BigInteger.ONE), IntOperation.ADD);
+        Expression b = new BinaryIntExpression(new FreeVarExpression(Type.Integer, "a"), new IntConst(BigInteger.ONE), IntOperation.ADD);
+        Expression c = new BinaryIntExpression(new FreeVarExpression(Type.Integer, "b"), new IntConst(BigInteger.ONE), IntOperation.ADD);
+
+        assertThat(interner.intern(a)).isSameAs(a);
+        assertThat(interner.intern(b)).isSameAs(a);
+        assertThat(interner.intern(c)).isSameAs(c);
+        assertThat(interner.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConstructorAppExpressionsAreStructurallyEqual() {
+        Constructor constructor = new Constructor("TV", new ArrayList<>());
+        Type.CustomType customType = new Type.CustomType("custom", Collections.singletonList(constructor));
+
+        Expression a = new ConstructorAppExpression(constructor, customType, Collections.emptyList());
+        Expression b = new ConstructorAppExpression(constructor, customType, Collections.emptyList());
+
+        assertThat(a).isEqualTo(b);
+        assertThat(a.hashCode()).isEqualTo(b.hashCode());
+    }
+}
@@ -26,7 +26,7 @@ public class ConstantAnalysisTest {
         ca.runBlocks();
         ca.printBlocks();
         ca.getCFGs();
-        ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(22)).forEach(pc -> pcs.add(pc));
+        Arrays.stream(ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(22))).mapToObj(BigInteger::valueOf).forEach(pc -> pcs.add(pc));
         pcs.forEach
                 (pc -> ca.argumentsTwoForIdAndPc(BigInteger.valueOf(id), pc).forEach(set::add));
         pcs.forEach
@@ -54,7 +54,7 @@ public class ConstantAnalysisTest {
         ca.printBlocks();
         ca.getCFGs();
 
-        ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(22)).forEach(pc -> pcs.add(pc));
+        Arrays.stream(ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(22))).mapToObj(BigInteger::valueOf).forEach(pc -> pcs.add(pc));
         pcs.forEach
                 (pc -> ca.argumentsTwoForIdAndPc(BigInteger.valueOf(id), pc).forEach(arg -> map.put(pc, arg)));
         pcs.forEach
@@ -97,7 +97,7 @@ public class ConstantAnalysisTest {
         ca.getCFGs();
         //ca.splitToStandardAndRichOpcodeToPosition();
         //ca.idsAndPcsAndArgumentsForOpcode(BigInteger.valueOf(23)).forEach(set::add);
-        ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(23)).forEach(pc -> pcs.add(pc));
+        Arrays.stream(ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(23))).mapToObj(BigInteger::valueOf).forEach(pc -> pcs.add(pc));
         pcs.forEach
                 (pc -> ca.argumentsTwoForIdAndPc(BigInteger.valueOf(id), pc).forEach(set::add));
         pcs.forEach
@@ -119,11 +119,11 @@ public class ConstantAnalysisTest {
         ca.runBlocks();
         int id = 583913548;
         Set<BigInteger> set = new HashSet<>();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(9)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(9))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(21));
         set.clear();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(20)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(20))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(4));
     }
@@ -135,28 +135,28 @@ public class ConstantAnalysisTest {
         ca.runBlocks();
         int id = 1383431771;
         Set<BigInteger> set = new HashSet<>();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(11)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(11))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(63));
         set.clear();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(62)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(62))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(68));
         set.clear();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(73)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(73))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(78));
         set.clear();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(119)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(119))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(122));
         set.clear();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(142)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(142))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(215));
         //217 -> tricky
         set.clear();
-        ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(217)).forEach(set::add);
+        Arrays.stream(ca.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(217))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(6);
         assertThat(set).contains(BigInteger.valueOf(63));
         assertThat(set).contains(BigInteger.valueOf(68));
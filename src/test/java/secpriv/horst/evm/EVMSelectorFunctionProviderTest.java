@@ -22,13 +22,13 @@ public class EVMSelectorFunctionProviderTest {
         final Set<BigInteger> pcsJump = new HashSet<>();
         Map<BigInteger, BigInteger> map = new HashMap<>();
         Map<BigInteger, Boolean> mapUnique = new HashMap<>();
-        ca.pcsForIdAndOpcode(id, BigInteger.valueOf(86)).forEach(pc -> pcsJump.add(pc));
+        Arrays.stream(ca.pcsForIdAndOpcode(id, BigInteger.valueOf(86))).mapToObj(BigInteger::valueOf).forEach(pc -> pcsJump.add(pc));
         assertThat(pcsJump).hasSize(5);
-        pcsJump.forEach(pc -> ca.jumpDestsForIdAndPc(id, pc).forEach(t -> map.put(pc, t)));
+        pcsJump.forEach(pc -> Arrays.stream(ca.jumpDestsForIdAndPc(id, pc)).mapToObj(BigInteger::valueOf).forEach(t -> map.put(pc, t)));
         pcsJump.forEach(pc -> ca.jumpDestUniqueForIdAndPc(id, pc).forEach(t -> mapUnique.put(pc, t)));
         final Set<BigInteger> pcsJumpi = new HashSet<>();
-        ca.pcsForIdAndOpcode(id, BigInteger.valueOf(87)).forEach(pc -> pcsJumpi.add(pc));
-        pcsJumpi.forEach(pc -> ca.jumpDestsForIdAndPc(id, pc).forEach(t -> map.put(pc, t)));
+        Arrays.stream(ca.pcsForIdAndOpcode(id, BigInteger.valueOf(87))).mapToObj(BigInteger::valueOf).forEach(pc -> pcsJumpi.add(pc));
+        pcsJumpi.forEach(pc -> Arrays.stream(ca.jumpDestsForIdAndPc(id, pc)).mapToObj(BigInteger::valueOf).forEach(t -> map.put(pc, t)));
         pcsJumpi.forEach(pc -> ca.jumpDestUniqueForIdAndPc(id, pc).forEach(t -> mapUnique.put(pc, t)));
         assertThat(pcsJumpi).hasSize(7);
 
@@ -76,7 +76,7 @@ public class EVMSelectorFunctionProviderTest {
         ca.printBlocks();
         ca.getCFGs();
 
-        ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(96)).forEach(pc -> pcs.add(pc));
+        Arrays.stream(ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(96))).mapToObj(BigInteger::valueOf).forEach(pc -> pcs.add(pc));
         pcs.forEach
                 (pc -> ca.argumentsOneForIdAndPc(BigInteger.valueOf(id), pc).forEach(arg -> map.put(pc, arg)));
         pcs.forEach
@@ -106,7 +106,7 @@ public class EVMSelectorFunctionProviderTest {
         ca.printBlocks();
         ca.getCFGs();
 
-        ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(91)).forEach(pc -> pcs.add(pc));
+        Arrays.stream(ca.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(91))).mapToObj(BigInteger::valueOf).forEach(pc -> pcs.add(pc));
         assertThat(pcs).hasSize(2);
         assertThat(pcs).contains(BigInteger.valueOf(4));
         assertThat(pcs).contains(BigInteger.valueOf(21));
@@ -118,12 +118,12 @@ public class EVMSelectorFunctionProviderTest {
         EvmSelectorFunctionProvider provider = new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos());
         int id = 583913548;
         Set<BigInteger> set = new HashSet<>();
-        provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(9)).forEach(set::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(9))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(2);
         assertThat(set).contains(BigInteger.valueOf(4));
         assertThat(set).contains(BigInteger.valueOf(21));
         set.clear();
-        provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(20)).forEach(set::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(20))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(2);
         assertThat(set).contains(BigInteger.valueOf(4));
         assertThat(set).contains(BigInteger.valueOf(21));
@@ -134,7 +134,7 @@ public class EVMSelectorFunctionProviderTest {
         ContractInfoReader contractInfoReader = new ContractInfoReader(Collections.singletonList("data/sum_run.txt"), false);
         EvmSelectorFunctionProvider provider = new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos());
         Set<BigInteger> set = new HashSet<>();
-        provider.interval(new BigInteger("0"), new BigInteger("10")).forEach(set::add);
+        Arrays.stream(provider.interval(new BigInteger("0"), new BigInteger("10"))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(10);
         assertThat(set).contains(BigInteger.valueOf(0));
         assertThat(set).contains(BigInteger.valueOf(1));
@@ -153,7 +153,7 @@ public class EVMSelectorFunctionProviderTest {
         ContractInfoReader contractInfoReader = new ContractInfoReader(Collections.singletonList("data/sum_run.txt"), false);
         EvmSelectorFunctionProvider provider = new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos());
         Set<BigInteger> set = new HashSet<>();
-        provider.interval(new BigInteger("0"), new BigInteger("0")).forEach(set::add);
+        Arrays.stream(provider.interval(new BigInteger("0"), new BigInteger("0"))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(0);
     }
 
@@ -296,7 +296,7 @@ public class EVMSelectorFunctionProviderTest {
         EvmSelectorFunctionProvider provider = new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos());
         int id = 583913548;
         Set<BigInteger> set = new HashSet<>();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.PUSH1.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.PUSH1.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(6);
         assertThat(set).contains(BigInteger.valueOf(0));
         assertThat(set).contains(BigInteger.valueOf(2));
@@ -305,54 +305,54 @@ public class EVMSelectorFunctionProviderTest {
         assertThat(set).contains(BigInteger.valueOf(18));
         assertThat(set).contains(BigInteger.valueOf(23));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.JUMPDEST.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.JUMPDEST.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(2);
         assertThat(set).contains(BigInteger.valueOf(4));
         assertThat(set).contains(BigInteger.valueOf(21));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.DUP1.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.DUP1.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(2);
         assertThat(set).contains(BigInteger.valueOf(5));
         assertThat(set).contains(BigInteger.valueOf(10));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.ISZERO.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.ISZERO.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(6));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.JUMPI.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.JUMPI.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(9));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SWAP2.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SWAP2.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(11));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(12));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SWAP1.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SWAP1.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(2);
         assertThat(set).contains(BigInteger.valueOf(13));
         assertThat(set).contains(BigInteger.valueOf(16));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SUB.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SUB.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(17));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.JUMP.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.JUMP.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(20));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.POP.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.POP.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(22));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SSTORE.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.SSTORE.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(1);
         assertThat(set).contains(BigInteger.valueOf(25));
         set.clear();
-        provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.CALL.opcode)).forEach(set::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(BigInteger.valueOf(id), BigInteger.valueOf(ContractLexer.Opcode.CALL.opcode))).mapToObj(BigInteger::valueOf).forEach(set::add);
         assertThat(set).hasSize(0);
     }
 
@@ -476,7 +476,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThat(set2).hasSize(0);
         set2.clear();
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(4));
         set1.clear();
@@ -517,7 +517,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsOneForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.ADD.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(3));
         set1.clear();
@@ -556,7 +556,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThat(set2).hasSize(0);
         set2.clear();
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MUL.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MUL.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(4));
         set1.clear();
@@ -597,7 +597,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsOneForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MUL.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MUL.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(3));
         set1.clear();
@@ -638,7 +638,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(2))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(2))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MLOAD.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MLOAD.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(2));
         set1.clear();
@@ -678,7 +678,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(1))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(1))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MLOAD.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.MLOAD.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(1));
         set1.clear();
@@ -719,7 +719,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsOneForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.SWAP1.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.SWAP1.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(4));
         set1.clear();
@@ -761,7 +761,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsOneForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.SWAP1.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.SWAP1.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(3));
         set1.clear();
@@ -803,7 +803,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsOneForIdAndPc(id, BigInteger.valueOf(34))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(34))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.SWAP16.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.SWAP16.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(34));
         set1.clear();
@@ -853,7 +853,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThat(set2).contains(new Tuple2<>(BigInteger.valueOf(1), BigInteger.valueOf(0)));
         set2.clear();
 
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.DUP1.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.DUP1.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(2));
         set1.clear();
@@ -886,7 +886,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThat(set2).hasSize(1);
         assertThat(set2).contains(new Tuple2<>(BigInteger.valueOf(1), BigInteger.valueOf(0)));
         set2.clear();
-        provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.DUP16.opcode)).forEach(set1::add);
+        Arrays.stream(provider.pcsForIdAndOpcode(id, BigInteger.valueOf(ContractLexer.Opcode.DUP16.opcode))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(32));
         set1.clear();
@@ -942,7 +942,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(4)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(4))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(0); // as the jump destination is invalid
         set1.clear();
     }
@@ -984,7 +984,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(4)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(4))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(0); // as the jump destination is invalid
         set1.clear();
     }
@@ -1027,7 +1027,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(5))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(5))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(5)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(5))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(0));
         set1.clear();
@@ -1076,7 +1076,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(3))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(3)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(3))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(0); // as the jump destination is invalid
         set1.clear();
     }
@@ -1119,7 +1119,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThatThrownBy(() ->  provider.argumentsTwoForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
         assertThatThrownBy(() ->  provider.argumentsThreeForIdAndPc(id, BigInteger.valueOf(4))).isInstanceOf(IllegalArgumentException.class);
 
-        provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(4)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(id, BigInteger.valueOf(4))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(0));
         set1.clear();
@@ -1279,7 +1279,7 @@ public class EVMSelectorFunctionProviderTest {
         Set<BigInteger> set1 = new HashSet<>();
         Set<Boolean> setb = new HashSet<>();
 
-        provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(9)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(9))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(21));
         set1.clear();
@@ -1289,7 +1289,7 @@ public class EVMSelectorFunctionProviderTest {
         assertThat(setb).contains(true);
         setb.clear();
 
-        provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(20)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(20))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(4));
         set1.clear();
@@ -1312,7 +1312,7 @@ public class EVMSelectorFunctionProviderTest {
 
         Set<BigInteger> set1 = new HashSet<>();
 
-        provider.pcsForId(BigInteger.valueOf(id)).forEach(set1::add);
+        Arrays.stream(provider.pcsForId(BigInteger.valueOf(id))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(20);
         assertThat(set1).contains(BigInteger.valueOf(0));
         assertThat(set1).contains(BigInteger.valueOf(2));
@@ -1349,7 +1349,7 @@ public class EVMSelectorFunctionProviderTest {
 
         Set<BigInteger> set1 = new HashSet<>();
 
-        provider.lastPcsForId(BigInteger.valueOf(id)).forEach(set1::add);
+        Arrays.stream(provider.lastPcsForId(BigInteger.valueOf(id))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(26)); //TODO: @Ilya: we should rename the selector function to outOfBoundsPc, and make sure that Pushes are taken into account
     }
@@ -1373,7 +1373,7 @@ public class EVMSelectorFunctionProviderTest {
         Set<BigInteger> set1 = new HashSet<>();
         Set<Tuple2<BigInteger, BigInteger>> set2 = new HashSet<>();
 
-        provider.lastPcsForId(id).forEach(set1::add);
+        Arrays.stream(provider.lastPcsForId(id)).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(2));
     }
@@ -1397,7 +1397,7 @@ public class EVMSelectorFunctionProviderTest {
         Set<BigInteger> set1 = new HashSet<>();
         Set<Tuple2<BigInteger, BigInteger>> set2 = new HashSet<>();
 
-        provider.lastPcsForId(id).forEach(set1::add);
+        Arrays.stream(provider.lastPcsForId(id)).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(33));
     }
@@ -1443,7 +1443,7 @@ public class EVMSelectorFunctionProviderTest {
         Set<Boolean> setb = new HashSet<>();
         Set<Tuple2<BigInteger, BigInteger>> set2 = new HashSet<>();
 
-        provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(62)).forEach(set1::add);
+        Arrays.stream(provider.jumpDestsForIdAndPc(BigInteger.valueOf(id), BigInteger.valueOf(62))).mapToObj(BigInteger::valueOf).forEach(set1::add);
         assertThat(set1).hasSize(1);
         assertThat(set1).contains(BigInteger.valueOf(68));
         set1.clear();
@@ -0,0 +1,128 @@
+package secpriv.horst.evm.benchmark;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import picocli.CommandLine;
+import secpriv.horst.evm.ContractInfoReader;
+import secpriv.horst.evm.EvmSelectorFunctionProvider;
+import secpriv.horst.evm.EvmSourceProvider;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.translation.TranslationPipeline;
+import secpriv.horst.translation.layout.FlatTypeLayouterWithBoolean;
+import secpriv.horst.translation.visitors.InlineOperationsRuleVisitor;
+import secpriv.horst.translation.visitors.InlineTypesExpressionVisitor;
+import secpriv.horst.translation.visitors.InlineTypesRuleVisitor;
+import secpriv.horst.visitors.ProgramVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+/**
+ * Common command line and measuring loop of the benchmarks on EVM contracts. For every contract file the HoRSt specs
+ * are parsed with the selector functions of the contract and handed to {@link #run(String, SelectorFunctionHelper, VisitorState)}.
+ * <p>
+ * The benchmarks are not part of the distributed jar, run them from the test classpath, e.g. with
+ * {@code mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=secpriv.horst.evm.benchmark.EvmMediumStepBenchmark -Dexec.args="..."}.
+ */
+public abstract class AbstractEvmBenchmark implements Runnable {
+    @CommandLine.Option(names = {"-s", "--spec"}, description = "Provide the HoRSt spec to compile. You can specify multiple files. The definitions of one file " +
+            "will be visible in the the subsequent files.", arity = "1..*")
+    private String[] horstFiles = new String[0];
+
+    @CommandLine.Option(names = {"-r", "--runs"}, description = "Number of measured runs per variant. The fastest run is reported.")
+    private int runs = 5;
+
+    @CommandLine.Parameters
+    private File[] contractFiles;
+
+    protected static class Measurement<T> {
+        public final long bestNanos;
+        public final T result;
+
+        private Measurement(long bestNanos, T result) {
+            this.bestNanos = bestNanos;
+            this.result = result;
+        }
+    }
+
+    @Override
+    public void run() {
+        for (File contractFile : contractFiles) {
+            SelectorFunctionHelper compiler = new SelectorFunctionHelper();
+            ContractInfoReader contractInfoReader = new ContractInfoReader(EvmSourceProvider.fromPlainFile(contractFile), false);
+            compiler.registerProvider(new EvmSelectorFunctionProvider(contractInfoReader.getContractInfos()));
+
+            VisitorState state = new VisitorState();
+            state.setSelectorFunctionHelper(compiler);
+
+            run(contractFile.getName(), compiler, parseAllHorstFiles(state));
+        }
+    }
+
+    protected abstract void run(String contractName, SelectorFunctionHelper compiler, VisitorState state);
+
+    /**
+     * @return a pipeline builder that already inlines the operations and types of the parsed specs
+     */
+    protected static TranslationPipeline.TranslationPipelineBuilder inliningPipelineBuilder(VisitorState state) {
+        return TranslationPipeline
+                .builder()
+                .addStep(new InlineOperationsRuleVisitor(new ArrayList<>(state.getOperations().values())))
+                .addStep(new InlineTypesRuleVisitor(new InlineTypesExpressionVisitor(new FlatTypeLayouterWithBoolean())));
+    }
+
+    /**
+     * Runs the variant once to warm up the JIT and then the configured number of times.
+     *
+     * @return the time of the fastest measured run and the result of the last one
+     */
+    protected <T> Measurement<T> measure(Callable<T> variant) {
+        long bestNanos = Long.MAX_VALUE;
+        T result = null;
+
+        try {
+            for (int i = 0; i <= runs; ++i) {
+                long start = System.nanoTime();
+                result = variant.call();
+                long nanos = System.nanoTime() - start;
+
+                if (i > 0) {
+                    bestNanos = Math.min(bestNanos, nanos);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return new Measurement<>(bestNanos, result);
+    }
+
+    protected static void printContract(String contractName, String summary) {
+        System.out.println(contractName + ": " + summary);
+    }
+
+    protected static void printMeasurement(String name, Measurement<?> measurement, String details) {
+        System.out.println("  " + name + ": " + String.format("%.3f", measurement.bestNanos / 1e6) + " ms, " + details);
+    }
+
+    private VisitorState parseAllHorstFiles(VisitorState state) {
+        try {
+            for (String horstFile : horstFiles) {
+                ASLexer lexer = new ASLexer(CharStreams.fromFileName(horstFile));
+                CommonTokenStream tokens = new CommonTokenStream(lexer);
+                ASParser parser = new ASParser(tokens);
+
+                ProgramVisitor visitor = new ProgramVisitor(state);
+                state = visitor.visit(parser.abstractProgram()).get();
+            }
+            return state;
+        } catch (IOException e) {
+            throw new RuntimeException("Error while parsing Horst files", e);
+        }
+    }
+}
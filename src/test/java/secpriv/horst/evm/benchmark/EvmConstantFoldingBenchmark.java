@@ -0,0 +1,61 @@
+package secpriv.horst.evm.benchmark;
+
+import picocli.CommandLine;
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.CompoundSelectorFunctionInvocation;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.translation.TranslationPipeline;
+import secpriv.horst.translation.visitors.*;
+import secpriv.horst.visitors.NodeCountExpressionVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link ConstantFoldingExpressionVisitor} with {@link LinearConstantFoldingExpressionVisitor} on the
+ * instantiated rules of EVM contracts. Both visitors get a fresh instance per clause, like in the translation pipeline.
+ */
+@CommandLine.Command(name = "EvmConstantFoldingBenchmark", mixinStandardHelpOptions = true, version = "ConstantFoldingBenchmark version 0.0")
+public class EvmConstantFoldingBenchmark extends AbstractEvmBenchmark {
+    public static void main(String[] args) {
+        CommandLine.run(new EvmConstantFoldingBenchmark(), args);
+    }
+
+    @Override
+    protected void run(String contractName, SelectorFunctionHelper compiler, VisitorState state) {
+        TranslationPipeline pipeline = inliningPipelineBuilder(state)
+                .addLazyFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(compiler))::instantiate)
+                .addStep(new SimplifyPredicateArgumentsRuleVisitor())
+                .addStep(new RenameFreeVariablesRuleVisitor()).orderDependentStep()
+                .build();
+
+        List<Clause> clauses = new ArrayList<>();
+        for (Rule rule : pipeline.apply(new ArrayList<>(state.getRules().values()))) {
+            clauses.addAll(rule.clauses);
+        }
+
+        printContract(contractName, clauses.size() + " clauses");
+        report("ConstantFoldingExpressionVisitor", clauses, ConstantFoldingExpressionVisitor::new);
+        report("LinearConstantFoldingExpressionVisitor", clauses, LinearConstantFoldingExpressionVisitor::new);
+    }
+
+    private void report(String name, List<Clause> clauses, Supplier<Expression.Visitor<Expression>> expressionVisitorSupplier) {
+        Measurement<List<Clause>> measurement = measure(() -> fold(clauses, expressionVisitorSupplier));
+
+        Rule foldedRule = new Rule("folded", CompoundSelectorFunctionInvocation.UnitInvocation, measurement.result);
+        printMeasurement(name, measurement, new NodeCountExpressionVisitor().count(foldedRule) + " nodes");
+    }
+
+    private static List<Clause> fold(List<Clause> clauses, Supplier<Expression.Visitor<Expression>> expressionVisitorSupplier) {
+        List<Clause> foldedClauses = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) {
+            foldedClauses.add(clause.accept(new PropositionMappingClauseVisitor(new ExpressionMappingPropositionVisitor(expressionVisitorSupplier.get()))));
+        }
+        return foldedClauses;
+    }
+}
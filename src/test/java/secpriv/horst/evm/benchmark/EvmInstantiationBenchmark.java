@@ -0,0 +1,65 @@
+package secpriv.horst.evm.benchmark;
+
+import picocli.CommandLine;
+import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.Clause;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.translation.visitors.InstantiateParametersClauseVisitor;
+import secpriv.horst.translation.visitors.InstantiateParametersRuleVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Measures the throughput of {@link InstantiateParametersRuleVisitor} on the EVM semantics, compared to visiting every
+ * clause completely for each parameter binding.
+ */
+@CommandLine.Command(name = "EvmInstantiationBenchmark", mixinStandardHelpOptions = true, version = "InstantiationBenchmark version 0.0")
+public class EvmInstantiationBenchmark extends AbstractEvmBenchmark {
+    public static void main(String[] args) {
+        CommandLine.run(new EvmInstantiationBenchmark(), args);
+    }
+
+    @Override
+    protected void run(String contractName, SelectorFunctionHelper compiler, VisitorState state) {
+        List<Rule> rules = inliningPipelineBuilder(state).build().apply(new ArrayList<>(state.getRules().values()));
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(compiler);
+        InstantiateParametersRuleVisitor ruleVisitor = new InstantiateParametersRuleVisitor(selectorFunctionInvoker);
+
+        printContract(contractName, rules.size() + " rules");
+        report("full visit per binding", rules, rule -> instantiateWithoutTemplate(rule, selectorFunctionInvoker));
+        report("InstantiateParametersRuleVisitor", rules, ruleVisitor::instantiate);
+    }
+
+    private static Iterable<List<Clause>> instantiateWithoutTemplate(Rule rule, SelectorFunctionInvoker selectorFunctionInvoker) {
+        List<List<Clause>> instances = new ArrayList<>();
+        for (Map<String, BaseTypeValue> parameterMap : selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation)) {
+            InstantiateParametersClauseVisitor clauseVisitor = new InstantiateParametersClauseVisitor(parameterMap, selectorFunctionInvoker);
+            List<Clause> clauses = new ArrayList<>();
+            for (Clause clause : rule.clauses) {
+                clauses.add(clause.accept(clauseVisitor));
+            }
+            instances.add(clauses);
+        }
+        return instances;
+    }
+
+    private void report(String name, List<Rule> rules, Function<Rule, Iterable<?>> instantiation) {
+        Measurement<Long> measurement = measure(() -> {
+            long instanceCount = 0;
+            for (Rule rule : rules) {
+                for (Object ignored : instantiation.apply(rule)) {
+                    ++instanceCount;
+                }
+            }
+            return instanceCount;
+        });
+
+        printMeasurement(name, measurement, measurement.result + " instances, " + measurement.result * 1000000000L / Math.max(1, measurement.bestNanos) + " instances/s");
+    }
+}
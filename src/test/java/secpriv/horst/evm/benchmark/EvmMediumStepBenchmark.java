@@ -0,0 +1,45 @@
+package secpriv.horst.evm.benchmark;
+
+import picocli.CommandLine;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.translation.MediumStepTransformer;
+import secpriv.horst.translation.TranslationPipeline;
+import secpriv.horst.translation.visitors.InstantiateParametersRuleVisitor;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures {@link MediumStepTransformer#foldToMediumSteps(List, RuleTypeOracle)} on the simplified rules of EVM
+ * contracts, so that the time can be related to the number of clauses of contracts of different sizes.
+ */
+@CommandLine.Command(name = "EvmMediumStepBenchmark", mixinStandardHelpOptions = true, version = "MediumStepBenchmark version 0.0")
+public class EvmMediumStepBenchmark extends AbstractEvmBenchmark {
+    public static void main(String[] args) {
+        CommandLine.run(new EvmMediumStepBenchmark(), args);
+    }
+
+    @Override
+    protected void run(String contractName, SelectorFunctionHelper compiler, VisitorState state) {
+        RuleTypeOracle ruleTypeOracle = new RuleTypeOracle(state);
+
+        TranslationPipeline pipeline = inliningPipelineBuilder(state)
+                .addLazyFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(compiler))::instantiate)
+                .addSimplificationStep(ruleTypeOracle, true)
+                .build();
+
+        List<Rule> rules = pipeline.apply(new ArrayList<>(state.getRules().values()));
+
+        printContract(contractName, countClauses(rules) + " clauses");
+        Measurement<List<Rule>> measurement = measure(() -> MediumStepTransformer.foldToMediumSteps(rules, ruleTypeOracle));
+        printMeasurement("foldToMediumSteps", measurement, countClauses(measurement.result) + " clauses after folding");
+    }
+
+    private static int countClauses(List<Rule> rules) {
+        return rules.stream().mapToInt(r -> r.clauses.size()).sum();
+    }
+}
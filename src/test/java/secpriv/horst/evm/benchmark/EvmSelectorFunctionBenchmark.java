@@ -0,0 +1,115 @@
+package secpriv.horst.evm.benchmark;
+
+import picocli.CommandLine;
+import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.CompoundSelectorFunctionInvocation;
+import secpriv.horst.data.Rule;
+import secpriv.horst.data.SelectorFunctionInvocation;
+import secpriv.horst.internals.CompiledSelectorFunctionInvocation;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.translation.visitors.EvaluateExpressionVisitor;
+import secpriv.horst.translation.visitors.ToObjectBaseTypeValueVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Compares calling the selector functions of the EVM semantics through {@link Method#invoke(Object, Object...)} with
+ * arguments evaluated by {@link EvaluateExpressionVisitor} against calling them as {@link CompiledSelectorFunctionInvocation}.
+ * The calls are the ones made while instantiating the rules of a contract, without reusing earlier results.
+ */
+@CommandLine.Command(name = "EvmSelectorFunctionBenchmark", mixinStandardHelpOptions = true, version = "SelectorFunctionBenchmark version 0.0")
+public class EvmSelectorFunctionBenchmark extends AbstractEvmBenchmark {
+    private static class Call {
+        final SelectorFunctionInvocation invocation;
+        final Map<String, BaseTypeValue> parameterMap;
+
+        private Call(SelectorFunctionInvocation invocation, Map<String, BaseTypeValue> parameterMap) {
+            this.invocation = invocation;
+            this.parameterMap = parameterMap;
+        }
+    }
+
+    private interface CallVariant {
+        Object call(Call call) throws Exception;
+    }
+
+    public static void main(String[] args) {
+        CommandLine.run(new EvmSelectorFunctionBenchmark(), args);
+    }
+
+    @Override
+    protected void run(String contractName, SelectorFunctionHelper compiler, VisitorState state) {
+        List<Call> calls = collectCalls(inliningPipelineBuilder(state).build().apply(new ArrayList<>(state.getRules().values())), new SelectorFunctionInvoker(compiler));
+
+        Map<SelectorFunctionInvocation, CompiledSelectorFunctionInvocation> compiledInvocations = new IdentityHashMap<>();
+        for (Call call : calls) {
+            compiledInvocations.computeIfAbsent(call.invocation, i -> new CompiledSelectorFunctionInvocation(i, compiler));
+        }
+
+        printContract(contractName, calls.size() + " calls");
+        report("Method.invoke", calls, call -> {
+            Method method = compiler.getMethod(call.invocation.selectorFunction);
+            Object provider = compiler.getProvider(call.invocation.selectorFunction);
+            EvaluateExpressionVisitor evaluateExpressionVisitor = new EvaluateExpressionVisitor(call.parameterMap);
+            Object[] arguments = call.invocation.arguments.stream().map(e -> e.accept(evaluateExpressionVisitor).accept(new ToObjectBaseTypeValueVisitor())).toArray();
+            return method.invoke(provider, arguments);
+        });
+        report("CompiledSelectorFunctionInvocation", calls, call -> {
+            CompiledSelectorFunctionInvocation compiledInvocation = compiledInvocations.get(call.invocation);
+            return compiledInvocation.invoke(compiledInvocation.evaluateArguments(call.parameterMap));
+        });
+    }
+
+    /**
+     * @return every invocation of the selector functions of the rules together with the parameters it is invoked with,
+     * i.e. the bindings of the preceding selector functions of its rule
+     */
+    private static List<Call> collectCalls(List<Rule> rules, SelectorFunctionInvoker selectorFunctionInvoker) {
+        List<Call> calls = new ArrayList<>();
+        for (Rule rule : rules) {
+            List<SelectorFunctionInvocation> invocations = rule.selectorFunctionInvocation.selectorFunctionInvocations;
+            for (int i = 0; i < invocations.size(); ++i) {
+                Iterable<Map<String, BaseTypeValue>> parameterMaps = i == 0 ? Collections.singletonList(Collections.emptyMap()) :
+                        selectorFunctionInvoker.invoke(new CompoundSelectorFunctionInvocation(invocations.subList(0, i)));
+                for (Map<String, BaseTypeValue> parameterMap : parameterMaps) {
+                    calls.add(new Call(invocations.get(i), parameterMap));
+                }
+            }
+        }
+        return calls;
+    }
+
+    private void report(String name, List<Call> calls, CallVariant variant) {
+        Measurement<Long> measurement = measure(() -> {
+            long resultCount = 0;
+            for (Call call : calls) {
+                resultCount += countResults(variant.call(call));
+            }
+            return resultCount;
+        });
+
+        printMeasurement(name, measurement, measurement.result + " results, " + measurement.bestNanos / Math.max(1, calls.size()) + " ns/call");
+    }
+
+    private static long countResults(Object result) {
+        if (result instanceof long[]) {
+            return ((long[]) result).length;
+        }
+        if (result instanceof LongStream) {
+            return ((LongStream) result).count();
+        }
+        long count = 0;
+        for (Object ignored : (Iterable<?>) result) {
+            ++count;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,131 @@
+package secpriv.horst.execution;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Status;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.translation.TranslateToZ3VisitorState;
+import secpriv.horst.translation.TranslationPipeline;
+import secpriv.horst.translation.visitors.InstantiateParametersRuleVisitor;
+import secpriv.horst.translation.visitors.TranslateToZ3RuleVisitor;
+import secpriv.horst.visitors.ProgramVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CombinedQuerySolverTest {
+    private static final String PROGRAM = "pred Counter{}: int;\n" +
+            "rule start := clause true => Counter(0);\n" +
+            "rule step := clause [?i: int] Counter(?i), ?i < 10 => Counter(?i + 1);\n" +
+            "query reachesFive [?i: int] Counter(?i), ?i = 5;\n" +
+            "query reachesSeven [?i: int] Counter(?i), ?i = 7;\n" +
+            "query reachesEleven [?i: int] Counter(?i), ?i = 11;\n" +
+            "query reachesNegative [?i: int] Counter(?i), ?i < 0;\n";
+
+    private Map<String, Rule> queries;
+    private TranslateToZ3VisitorState z3TranslationState;
+    private List<BoolExpr> rulesForZ3;
+    private CombinedQuerySolver solver;
+
+    @BeforeEach
+    public void setUp() {
+        SelectorFunctionHelper selectorFunctionHelper = new SelectorFunctionHelper();
+        VisitorState state = new VisitorState();
+        state.setSelectorFunctionHelper(selectorFunctionHelper);
+
+        ASParser parser = new ASParser(new CommonTokenStream(new ASLexer(CharStreams.fromString(PROGRAM))));
+        Optional<VisitorState> optState = new ProgramVisitor(state).visit(parser.abstractProgram());
+        assertThat(optState).isPresent();
+        state = optState.get();
+
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(selectorFunctionHelper)))
+                .build();
+        List<Rule> rules = pipeline.apply(new ArrayList<>(state.getRules().values()));
+
+        z3TranslationState = TranslateToZ3VisitorState.withGeneralIntegers();
+        z3TranslationState.setFixedpointParameter("engine", "spacer");
+
+        rulesForZ3 = new ArrayList<>();
+        queries = new HashMap<>();
+        for (Rule rule : rules) {
+            rulesForZ3.addAll(rule.accept(new TranslateToZ3RuleVisitor(z3TranslationState)));
+            queries.put(rule.name, rule);
+        }
+
+        solver = new CombinedQuerySolver(z3TranslationState, rulesForZ3, false, false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        queries = null;
+        z3TranslationState = null;
+        rulesForZ3 = null;
+        solver = null;
+    }
+
+    private List<Rule> queries(String... names) {
+        List<Rule> ret = new ArrayList<>();
+        for (String name : names) {
+            ret.add(queries.get(name));
+        }
+        return ret;
+    }
+
+    @Test
+    public void unsatisfiableQueriesNeedOneSolverCall() {
+        CombinedQuerySolver.Result result = solver.findSatisfiableQuery(queries("reachesEleven", "reachesNegative"));
+
+        assertThat(result.status).isEqualTo(Status.UNSATISFIABLE);
+        assertThat(result.satisfiableQuery).isEmpty();
+        assertThat(result.solverCalls).isEqualTo(1);
+    }
+
+    @Test
+    public void bisectionFindsSatisfiableQuery() {
+        CombinedQuerySolver.Result result = solver.findSatisfiableQuery(queries("reachesEleven", "reachesNegative", "reachesFive"));
+
+        assertThat(result.status).isEqualTo(Status.SATISFIABLE);
+        assertThat(result.satisfiableQuery.map(q -> q.name)).contains("reachesFive");
+        assertThat(result.solverCalls).isEqualTo(3);
+    }
+
+    @Test
+    public void bisectionFindsFirstSatisfiableQuery() {
+        CombinedQuerySolver.Result result = solver.findSatisfiableQuery(queries("reachesEleven", "reachesSeven", "reachesNegative", "reachesFive"));
+
+        assertThat(result.status).isEqualTo(Status.SATISFIABLE);
+        assertThat(result.satisfiableQuery.map(q -> q.name)).contains("reachesSeven");
+    }
+
+    @Test
+    public void reusedFixedpointFindsFirstSatisfiableQuery() {
+        solver = new CombinedQuerySolver(z3TranslationState, rulesForZ3, false, true);
+        CombinedQuerySolver.Result result = solver.findSatisfiableQuery(queries("reachesEleven", "reachesSeven", "reachesNegative", "reachesFive"));
+
+        assertThat(result.status).isEqualTo(Status.SATISFIABLE);
+        assertThat(result.satisfiableQuery.map(q -> q.name)).contains("reachesSeven");
+        assertThat(result.solverCalls).isEqualTo(3);
+
+        result = solver.findSatisfiableQuery(queries("reachesEleven", "reachesNegative"));
+        assertThat(result.status).isEqualTo(Status.UNSATISFIABLE);
+    }
+
+    @Test
+    public void goalsDoNotOutliveTheSearch() {
+        int predicateCount = z3TranslationState.getZ3PredicateCount();
+        solver.findSatisfiableQuery(queries("reachesEleven", "reachesSeven", "reachesNegative", "reachesFive"));
+
+        assertThat(z3TranslationState.getZ3PredicateCount()).isEqualTo(predicateCount);
+    }
+}
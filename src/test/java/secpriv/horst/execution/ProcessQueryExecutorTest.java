@@ -0,0 +1,182 @@
+package secpriv.horst.execution;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Fixedpoint;
+import com.microsoft.z3.Params;
+import com.microsoft.z3.Status;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.visitors.ProgramVisitor;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.VisitorState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisabledOnOs(OS.WINDOWS)
+class ProcessQueryExecutorTest {
+    private static final String PROGRAM = "pred Counter{}: int;\n" +
+            "rule start := clause true => Counter(0);\n" +
+            "rule step := clause [?i: int] Counter(?i), ?i < 10 => Counter(?i + 1);\n" +
+            "query reachesFive [?i: int] Counter(?i), ?i = 5;\n" +
+            "test staysBelowEleven expect UNSAT [?i: int] Counter(?i), ?i > 10;\n" +
+            "test reachesTen expect SAT [?i: int] Counter(?i), ?i = 10;\n";
+
+    private List<Rule> rules;
+    private RuleTypeOracle oracle;
+    private List<File> scripts;
+
+    @BeforeEach
+    public void setUp() {
+        VisitorState state = new VisitorState();
+        state.setSelectorFunctionHelper(new SelectorFunctionHelper());
+
+        ASParser parser = new ASParser(new CommonTokenStream(new ASLexer(CharStreams.fromString(PROGRAM))));
+        Optional<VisitorState> optState = new ProgramVisitor(state).visit(parser.abstractProgram());
+        assertThat(optState).isPresent();
+
+        rules = new ArrayList<>(optState.get().getRules().values());
+        oracle = new RuleTypeOracle(optState.get());
+        scripts = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scripts.forEach(File::delete);
+        rules = null;
+        oracle = null;
+        scripts = null;
+    }
+
+    private List<String> createSolver(String body) throws IOException {
+        File script = File.createTempFile("solver", ".sh");
+        Files.write(script.toPath(), ("#!/bin/sh\n" + body + "\n").getBytes(StandardCharsets.UTF_8));
+        assertThat(script.setExecutable(true)).isTrue();
+        scripts.add(script);
+        return Collections.singletonList(script.getAbsolutePath());
+    }
+
+    @Test
+    public void resultsAreParsedInQueryOrder() throws IOException {
+        List<ExecutionResult> results = ProcessQueryExecutor.builder(createSolver("echo sat")).processes(2).build().executeQueries(rules, oracle);
+
+        List<String> expectedIds = rules.stream().filter(oracle::isQueryOrTest).map(r -> r.name).collect(Collectors.toList());
+        assertThat(results.stream().map(r -> r.queryId).collect(Collectors.toList())).isEqualTo(expectedIds);
+
+        for (ExecutionResult result : results) {
+            assertThat(result.status).isEqualTo(Status.SATISFIABLE);
+            if (result.queryId.equals("reachesTen")) {
+                assertThat(((ExecutionResult.TestResult) result).success).isTrue();
+            } else if (result.queryId.equals("staysBelowEleven")) {
+                assertThat(((ExecutionResult.TestResult) result).success).isFalse();
+            }
+        }
+    }
+
+    @Test
+    public void problemContainsQuery() throws IOException {
+        List<String> solver = createSolver("problem=$(cat)\n" +
+                "echo \"$problem\" | grep -q \"declare-rel Counter\" && echo \"$problem\" | tail -n 1 | grep -q \"^(query [A-Za-z]*)$\" && echo unsat");
+        List<ExecutionResult> results = ProcessQueryExecutor.builder(solver).build().executeQueries(rules, oracle);
+
+        assertThat(results).isNotEmpty();
+        for (ExecutionResult result : results) {
+            assertThat(result.status).isEqualTo(Status.UNSATISFIABLE);
+        }
+    }
+
+    @Test
+    public void solverIsKilledOnTimeout() throws IOException {
+        List<ExecutionResult> results = ProcessQueryExecutor.builder(createSolver("exec sleep 20")).processes(3).timeout(200).build().executeQueries(rules, oracle);
+
+        for (ExecutionResult result : results) {
+            assertThat(result.status).isEqualTo(Status.UNKNOWN);
+            assertThat(result.info).contains("query timeout of 200 ms exceeded");
+            assertThat(result.executionTime).isLessThan(10000);
+        }
+    }
+
+    @Test
+    public void crashingSolverGivesUnknown() throws IOException {
+        List<ExecutionResult> results = ProcessQueryExecutor.builder(createSolver("echo 'segmentation fault'\nexit 139")).build().executeQueries(rules, oracle);
+
+        for (ExecutionResult result : results) {
+            assertThat(result.status).isEqualTo(Status.UNKNOWN);
+            assertThat(result.info).isPresent();
+            assertThat(result.info.get()).contains("exit code 139").contains("segmentation fault");
+        }
+    }
+
+    @Test
+    public void rulesAreWrittenOnce() throws IOException {
+        File directory = Files.createTempDirectory("problems").toFile();
+        try {
+            ProcessQueryExecutor.builder(createSolver("cat > /dev/null\necho sat")).problemDirectory(directory).build().executeQueries(rules, oracle);
+
+            List<String> fileNames = new ArrayList<>();
+            for (File file : directory.listFiles()) {
+                fileNames.add(file.getName());
+            }
+            List<String> expectedFileNames = new ArrayList<>(Collections.singletonList("rules.smt2"));
+            List<Rule> queries = rules.stream().filter(oracle::isQueryOrTest).collect(Collectors.toList());
+            for (int i = 0; i < queries.size(); ++i) {
+                expectedFileNames.add(i + "-" + queries.get(i).name + ".out");
+            }
+            assertThat(fileNames).containsExactlyInAnyOrderElementsOf(expectedFileNames);
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void rulesAreReadByZ3() throws IOException {
+        File directory = Files.createTempDirectory("problems").toFile();
+        try {
+            ProcessQueryExecutor.builder(createSolver("echo sat")).problemDirectory(directory).build().executeQueries(rules, oracle);
+            String problem = new String(Files.readAllBytes(new File(directory, "rules.smt2").toPath()), StandardCharsets.UTF_8);
+
+            try (Context context = new Context()) {
+                assertThat(solveWithZ3(context, problem, "reachesFive")).isEqualTo(Status.SATISFIABLE);
+                assertThat(solveWithZ3(context, problem, "staysBelowEleven")).isEqualTo(Status.UNSATISFIABLE);
+            }
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static Status solveWithZ3(Context context, String problem, String query) {
+        Fixedpoint fixedpoint = context.mkFixedpoint();
+        Params params = context.mkParams();
+        params.add("engine", "spacer");
+        fixedpoint.setParameters(params);
+
+        BoolExpr[] queries = fixedpoint.ParseString(problem + "(query " + query + ")\n");
+        assertThat(queries).hasSize(1);
+        return fixedpoint.query(queries[0]);
+    }
+}
@@ -0,0 +1,229 @@
+package secpriv.horst.execution;
+
+import com.microsoft.z3.Global;
+import com.microsoft.z3.Status;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.translation.TranslationPipeline;
+import secpriv.horst.translation.visitors.InstantiateParametersRuleVisitor;
+import secpriv.horst.visitors.ProgramVisitor;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Z3QueryExecutorTest {
+    private static final String PROGRAM = "pred Counter{}: int;\n" +
+            "rule start := clause true => Counter(0);\n" +
+            "rule step := clause [?i: int] Counter(?i), ?i < 10 => Counter(?i + 1);\n" +
+            "query reachesFive [?i: int] Counter(?i), ?i = 5;\n" +
+            "query reachesEleven [?i: int] Counter(?i), ?i = 11;\n" +
+            "test staysBelowEleven expect UNSAT [?i: int] Counter(?i), ?i > 10;\n" +
+            "test reachesTen expect SAT [?i: int] Counter(?i), ?i = 10;\n" +
+            "query reachesNegative [?i: int] Counter(?i), ?i < 0;\n";
+
+    private List<Rule> rules;
+    private RuleTypeOracle oracle;
+
+    @BeforeEach
+    public void setUp() {
+        SelectorFunctionHelper selectorFunctionHelper = new SelectorFunctionHelper();
+        VisitorState state = new VisitorState();
+        state.setSelectorFunctionHelper(selectorFunctionHelper);
+
+        ASParser parser = new ASParser(new CommonTokenStream(new ASLexer(CharStreams.fromString(PROGRAM))));
+        Optional<VisitorState> optState = new ProgramVisitor(state).visit(parser.abstractProgram());
+        assertThat(optState).isPresent();
+        state = optState.get();
+
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addFlatMappingStep(new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(selectorFunctionHelper)))
+                .build();
+
+        rules = pipeline.apply(new ArrayList<>(state.getRules().values()));
+        oracle = new RuleTypeOracle(state);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        rules = null;
+        oracle = null;
+    }
+
+    private static List<String> ids(List<ExecutionResult> results) {
+        return results.stream().map(r -> r.queryId).collect(Collectors.toList());
+    }
+
+    private static List<Status> statuses(List<ExecutionResult> results) {
+        return results.stream().map(r -> r.status).collect(Collectors.toList());
+    }
+
+    @Test
+    public void sequentialExecution() {
+        List<ExecutionResult> results = new Z3QueryExecutor().executeQueries(rules, oracle);
+
+        List<String> expectedIds = rules.stream().filter(oracle::isQueryOrTest).map(r -> r.name).collect(Collectors.toList());
+        assertThat(ids(results)).isEqualTo(expectedIds);
+
+        for (ExecutionResult result : results) {
+            if (result instanceof ExecutionResult.TestResult) {
+                assertThat(((ExecutionResult.TestResult) result).success).isTrue();
+            } else if (result.queryId.equals("reachesFive")) {
+                assertThat(result.status).isEqualTo(Status.SATISFIABLE);
+            } else {
+                assertThat(result.status).isEqualTo(Status.UNSATISFIABLE);
+            }
+        }
+    }
+
+    @Test
+    public void parallelExecutionKeepsOrderAndResults() {
+        List<ExecutionResult> sequentialResults = new Z3QueryExecutor().executeQueries(rules, oracle);
+        List<ExecutionResult> parallelResults = Z3QueryExecutor.builder().threads(3).build().executeQueries(rules, oracle);
+
+        assertThat(ids(parallelResults)).isEqualTo(ids(sequentialResults));
+        assertThat(statuses(parallelResults)).isEqualTo(statuses(sequentialResults));
+    }
+
+    @Test
+    public void reusedFixedpointGivesSameResults() {
+        List<ExecutionResult> sequentialResults = new Z3QueryExecutor().executeQueries(rules, oracle);
+        List<ExecutionResult> reusedResults = Z3QueryExecutor.builder().reuseFixedpoint(true).threads(2).build().executeQueries(rules, oracle);
+
+        assertThat(ids(reusedResults)).isEqualTo(ids(sequentialResults));
+        assertThat(statuses(reusedResults)).isEqualTo(statuses(sequentialResults));
+    }
+
+    @Test
+    public void exhaustedResourceLimitGivesUnknown() {
+        List<ExecutionResult> results = Z3QueryExecutor.builder().queryBudget(new QueryBudget(0, 1)).build().executeQueries(rules, oracle);
+
+        assertThat(results).isNotEmpty();
+        for (ExecutionResult result : results) {
+            assertThat(result.status).isEqualTo(Status.UNKNOWN);
+            assertThat(result.info).isPresent();
+            assertThat(result.info.get()).contains("resource limit");
+        }
+    }
+
+    @Test
+    public void memoryLimitIsRestoredAfterExecution() {
+        String previousMemoryLimit = Global.getParameter("memory_max_size");
+        List<ExecutionResult> sequentialResults = new Z3QueryExecutor().executeQueries(rules, oracle);
+        List<ExecutionResult> limitedResults = Z3QueryExecutor.builder().memoryLimit(4096).build().executeQueries(rules, oracle);
+
+        assertThat(statuses(limitedResults)).isEqualTo(statuses(sequentialResults));
+        assertThat(Global.getParameter("memory_max_size")).isEqualTo(previousMemoryLimit);
+    }
+
+    @Test
+    public void escalationResolvesUnknownQueries() {
+        List<ExecutionResult> sequentialResults = new Z3QueryExecutor().executeQueries(rules, oracle);
+        List<ExecutionResult> escalatedResults = Z3QueryExecutor.builder()
+                .queryBudget(new QueryBudget(0, 1))
+                .escalateTo(new QueryBudget(60000, 0))
+                .build().executeQueries(rules, oracle);
+
+        assertThat(ids(escalatedResults)).isEqualTo(ids(sequentialResults));
+        assertThat(statuses(escalatedResults)).isEqualTo(statuses(sequentialResults));
+    }
+
+    @Test
+    public void parseQueryBudget() {
+        QueryBudget timeoutOnly = QueryBudget.parse("1000");
+        assertThat(timeoutOnly.timeout).isEqualTo(1000);
+        assertThat(timeoutOnly.resourceLimit).isEqualTo(0);
+
+        QueryBudget both = QueryBudget.parse("2000:300");
+        assertThat(both.timeout).isEqualTo(2000);
+        assertThat(both.resourceLimit).isEqualTo(300);
+
+        assertThatThrownBy(() -> QueryBudget.parse("1:2:3")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> QueryBudget.parse("-1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void portfolioRecordsWinningConfiguration() {
+        List<ExecutionResult> sequentialResults = new Z3QueryExecutor().executeQueries(rules, oracle);
+        List<ExecutionResult> portfolioResults = Z3QueryExecutor.builder()
+                .addConfiguration(SolverConfiguration.parse("int"))
+                .addConfiguration(SolverConfiguration.parse("bv"))
+                .addConfiguration(SolverConfiguration.parse("int,relations"))
+                .build().executeQueries(rules, oracle);
+
+        assertThat(ids(portfolioResults)).isEqualTo(ids(sequentialResults));
+        assertThat(statuses(portfolioResults)).isEqualTo(statuses(sequentialResults));
+
+        for (ExecutionResult result : portfolioResults) {
+            assertThat(result.configuration).isPresent();
+            assertThat(result.configuration.get()).isIn("int", "bv", "int,relations");
+        }
+    }
+
+    @Test
+    public void parseSolverConfiguration() {
+        SolverConfiguration configuration = SolverConfiguration.parse("bv,relations,big-step,spacer.random_seed=3,xform.slice=false,engine=spacer");
+        assertThat(configuration.name).isEqualTo("bv,relations,big-step,spacer.random_seed=3,xform.slice=false,engine=spacer");
+        assertThat(configuration.useBitVectorIntegers).isTrue();
+        assertThat(configuration.useRelationSettings).isTrue();
+        assertThat(configuration.bigStep).isTrue();
+        assertThat(configuration.fixedpointParameters).containsEntry("spacer.random_seed", 3).containsEntry("xform.slice", false).containsEntry("engine", "spacer");
+
+        assertThatThrownBy(() -> SolverConfiguration.parse("int,fancy")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void slicedExecutionGivesSameResults() {
+        List<ExecutionResult> sequentialResults = new Z3QueryExecutor().executeQueries(rules, oracle);
+        List<ExecutionResult> slicedResults = Z3QueryExecutor.builder().sliceQueries(true).build().executeQueries(rules, oracle);
+
+        assertThat(ids(slicedResults)).isEqualTo(ids(sequentialResults));
+        assertThat(statuses(slicedResults)).isEqualTo(statuses(sequentialResults));
+    }
+
+    @Test
+    public void carriedLemmasGiveSameResults() {
+        List<ExecutionResult> plainResults = Z3QueryExecutor.builder().carryLemmas(false).build().executeQueries(rules, oracle);
+        List<ExecutionResult> carriedResults = Z3QueryExecutor.builder().carryLemmas(true).build().executeQueries(rules, oracle);
+        List<ExecutionResult> slicedCarriedResults = Z3QueryExecutor.builder().carryLemmas(true).sliceQueries(true).build().executeQueries(rules, oracle);
+
+        assertThat(ids(carriedResults)).isEqualTo(ids(plainResults));
+        assertThat(statuses(carriedResults)).isEqualTo(statuses(plainResults));
+        assertThat(statuses(slicedCarriedResults)).isEqualTo(statuses(plainResults));
+    }
+
+    @Test
+    public void carriedLemmasAreCounted() {
+        Z3QueryExecutor executor = Z3QueryExecutor.builder().carryLemmas(true).measureLemmaSavings(true).build();
+        executor.executeQueries(rules, oracle);
+
+        Z3QueryExecutor.LemmaStatistics statistics = executor.getLemmaStatistics();
+        assertThat(statistics.getSeededLemmaCount()).isGreaterThan(0);
+        assertThat(statistics.getSeededQueryCount()).isGreaterThan(0);
+        assertThat(statistics.getBaselineQueryCount()).isEqualTo(statistics.getSeededQueryCount());
+        assertThat(statistics.getSavedSolveTime()).isEqualTo(statistics.getBaselineSolveTime() - statistics.getSeededSolveTime());
+    }
+
+    @Test
+    public void lemmasAreNotCountedWithoutCarrying() {
+        Z3QueryExecutor executor = Z3QueryExecutor.builder().carryLemmas(false).measureLemmaSavings(true).build();
+        executor.executeQueries(rules, oracle);
+
+        assertThat(executor.getLemmaStatistics().getSeededLemmaCount()).isEqualTo(0);
+        assertThat(executor.getLemmaStatistics().getBaselineQueryCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,93 @@
+package secpriv.horst.internals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.Rule;
+import secpriv.horst.tools.TestBuilder;
+import secpriv.horst.visitors.VisitorState;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledSelectorFunctionInvocationTest {
+    private TestBuilder testBuilder;
+    private SelectorFunctionHelper selectorFunctionHelper;
+
+    private static class Provider {
+        public Iterable<BigInteger> pick(BigInteger a, Boolean b, BigInteger c) {
+            return Collections.singletonList(b ? a : c);
+        }
+
+        public long[] twice(long a) {
+            return new long[]{a, 2 * a};
+        }
+
+        public Iterable<BigInteger> fail(BigInteger a) {
+            throw new IllegalStateException("fail " + a);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        testBuilder = new TestBuilder(new VisitorState());
+        selectorFunctionHelper = new SelectorFunctionHelper();
+        selectorFunctionHelper.registerProvider(new Provider());
+        testBuilder.setSelectorFunctionHelper(selectorFunctionHelper);
+        testBuilder.defineSelectorFunction("sel pick: int*bool*int -> [int];");
+        testBuilder.defineSelectorFunction("sel twice: int -> [int];");
+        testBuilder.defineSelectorFunction("sel fail: int -> [int];");
+        testBuilder.definePredicate("pred Pa{}: int;");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        testBuilder = null;
+        selectorFunctionHelper = null;
+    }
+
+    @Test
+    public void constantParameterAndComputedArgumentsAreEvaluated() {
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in pick(7, true, 0), (!b:int) in pick(!a, false, !a * 2 + 1) clause Pa(!a) => Pa(!b);");
+        CompiledSelectorFunctionInvocation compiledInvocation = new CompiledSelectorFunctionInvocation(rule.selectorFunctionInvocation.selectorFunctionInvocations.get(1), selectorFunctionHelper);
+
+        Map<String, BaseTypeValue> parameterMap = new HashMap<>();
+        parameterMap.put("!a", BaseTypeValue.fromBigInteger(BigInteger.valueOf(7)));
+        Object[] arguments = compiledInvocation.evaluateArguments(parameterMap);
+
+        assertThat(arguments).containsExactly(BigInteger.valueOf(7), false, BigInteger.valueOf(15));
+        assertThat((Iterable<Object>) compiledInvocation.invoke(arguments)).containsExactly(BigInteger.valueOf(15));
+        assertThat(compiledInvocation.parameterNames).containsExactly("!b");
+    }
+
+    @Test
+    public void longParametersAreConvertedExactly() {
+        Rule rule = testBuilder.defineRule("rule r := for (!b:int) in pick(21, true, 0), (!a:int) in twice(!b) clause Pa(!a) => Pa(!a);");
+        CompiledSelectorFunctionInvocation compiledInvocation = new CompiledSelectorFunctionInvocation(rule.selectorFunctionInvocation.selectorFunctionInvocations.get(1), selectorFunctionHelper);
+
+        Map<String, BaseTypeValue> parameterMap = new HashMap<>();
+        parameterMap.put("!b", BaseTypeValue.fromBigInteger(BigInteger.valueOf(21)));
+        Object[] arguments = compiledInvocation.evaluateArguments(parameterMap);
+
+        assertThat(arguments).containsExactly(21L);
+        assertThat((long[]) compiledInvocation.invoke(arguments)).containsExactly(21, 42);
+
+        parameterMap.put("!b", BaseTypeValue.fromBigInteger(BigInteger.ONE.shiftLeft(64)));
+        assertThatThrownBy(() -> compiledInvocation.evaluateArguments(parameterMap)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void exceptionsOfTheProviderArePropagated() {
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in fail(3) clause Pa(!a) => Pa(!a);");
+        CompiledSelectorFunctionInvocation compiledInvocation = new CompiledSelectorFunctionInvocation(rule.selectorFunctionInvocation.selectorFunctionInvocations.get(0), selectorFunctionHelper);
+
+        assertThatThrownBy(() -> compiledInvocation.invoke(compiledInvocation.evaluateArguments(Collections.emptyMap())))
+                .isInstanceOf(IllegalStateException.class).hasMessage("fail 3");
+    }
+}
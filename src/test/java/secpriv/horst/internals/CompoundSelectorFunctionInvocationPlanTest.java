@@ -0,0 +1,50 @@
+package secpriv.horst.internals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+import secpriv.horst.tools.TestBuilder;
+import secpriv.horst.visitors.VisitorState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompoundSelectorFunctionInvocationPlanTest {
+    private TestBuilder testBuilder;
+
+    @BeforeEach
+    public void setUp() {
+        testBuilder = new TestBuilder(new VisitorState());
+        SelectorFunctionHelper selectorFunctionHelper = new SelectorFunctionHelper();
+        selectorFunctionHelper.registerProvider(new IntervalProvider());
+        testBuilder.setSelectorFunctionHelper(selectorFunctionHelper);
+        testBuilder.defineSelectorFunction("sel interval: int*int -> [int];");
+        testBuilder.definePredicate("pred Pa{}: int;");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        testBuilder = null;
+    }
+
+    @Test
+    public void lastDependenciesAreTheLastInvocationsBindingUsedParameters() {
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in interval(0,2), (!c:int) in interval(!a, 5), (!d:int) in interval(!b, !a + !c) clause Pa(!a + !b + !c + !d) => Pa(0);");
+        CompoundSelectorFunctionInvocationPlan plan = CompoundSelectorFunctionInvocationPlan.compile(rule.selectorFunctionInvocation, f -> false);
+
+        assertThat(plan.getLastDependency(0)).isEqualTo(-1);
+        assertThat(plan.getLastDependency(1)).isEqualTo(-1);
+        assertThat(plan.getLastDependency(2)).isEqualTo(0);
+        assertThat(plan.getLastDependency(3)).isEqualTo(2);
+    }
+
+    @Test
+    public void impureInvocationsDependOnThePrecedingInvocation() {
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in interval(0,2), (!c:int) in interval(0,2) clause Pa(!a + !b + !c) => Pa(0);");
+        CompoundSelectorFunctionInvocationPlan plan = CompoundSelectorFunctionInvocationPlan.compile(rule.selectorFunctionInvocation, f -> true);
+
+        assertThat(plan.getLastDependency(0)).isEqualTo(-1);
+        assertThat(plan.getLastDependency(1)).isEqualTo(0);
+        assertThat(plan.getLastDependency(2)).isEqualTo(1);
+    }
+}
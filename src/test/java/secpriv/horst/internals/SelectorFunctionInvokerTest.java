@@ -0,0 +1,225 @@
+package secpriv.horst.internals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.BaseTypeValue;
+import secpriv.horst.data.Rule;
+import secpriv.horst.tools.TestBuilder;
+import secpriv.horst.visitors.VisitorState;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SelectorFunctionInvokerTest {
+    private TestBuilder testBuilder;
+    private SelectorFunctionHelper selectorFunctionHelper;
+
+    static class CountingProvider {
+        int calls = 0;
+
+        public Iterable<BigInteger> upTo(BigInteger n) {
+            ++calls;
+            List<BigInteger> ret = new ArrayList<>();
+            for (int i = 0; i < n.intValue(); ++i) {
+                ret.add(BigInteger.valueOf(i));
+            }
+            return ret;
+        }
+    }
+
+    @Impure
+    static class ImpureCountingProvider {
+        int calls = 0;
+
+        public Iterable<BigInteger> calls(BigInteger n) {
+            ++calls;
+            List<BigInteger> ret = new ArrayList<>();
+            ret.add(BigInteger.valueOf(calls));
+            return ret;
+        }
+    }
+
+    static class LongProvider {
+        public long[] squares(long n) {
+            long[] ret = new long[(int) n];
+            for (int i = 0; i < n; ++i) {
+                ret[i] = (long) i * i;
+            }
+            return ret;
+        }
+
+        public LongStream range(long n) {
+            return LongStream.range(0, n);
+        }
+
+        public Iterable<BigInteger> huge(BigInteger n) {
+            return Arrays.asList(BigInteger.ONE, BigInteger.ONE.shiftLeft(n.intValue()));
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        testBuilder = new TestBuilder(new VisitorState());
+        selectorFunctionHelper = new SelectorFunctionHelper();
+        selectorFunctionHelper.registerProvider(new IntervalProvider());
+        testBuilder.setSelectorFunctionHelper(selectorFunctionHelper);
+        testBuilder.defineSelectorFunction("sel interval: int*int -> [int];");
+        testBuilder.definePredicate("pred Pa{}: int;");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        testBuilder = null;
+        selectorFunctionHelper = null;
+    }
+
+    private static List<Map<String, BaseTypeValue>> toList(Iterable<Map<String, BaseTypeValue>> bindings) {
+        List<Map<String, BaseTypeValue>> ret = new ArrayList<>();
+        bindings.forEach(ret::add);
+        return ret;
+    }
+
+    private static BaseTypeValue toValue(int i) {
+        return BaseTypeValue.fromBigInteger(BigInteger.valueOf(i));
+    }
+
+    @Test
+    public void resultsAreReusedForEqualArguments() {
+        CountingProvider provider = new CountingProvider();
+        selectorFunctionHelper.registerProvider(provider);
+        testBuilder.defineSelectorFunction("sel upTo: int -> [int];");
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in upTo(!a * 0 + 2) clause Pa(!a + !b) => Pa(0);");
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        List<Map<String, BaseTypeValue>> bindings = toList(selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation));
+
+        assertThat(bindings).hasSize(6);
+        assertThat(bindings.get(5).get("!a")).isEqualTo(BaseTypeValue.fromBigInteger(BigInteger.valueOf(2)));
+        assertThat(bindings.get(5).get("!b")).isEqualTo(BaseTypeValue.fromBigInteger(BigInteger.ONE));
+        assertThat(provider.calls).isEqualTo(1);
+
+        Map<String, SelectorFunctionInvoker.MemoStatistics> statistics = selectorFunctionInvoker.getStatistics();
+        assertThat(statistics).containsOnlyKeys("interval", "upTo");
+        assertThat(statistics.get("upTo").hits).isEqualTo(2);
+        assertThat(statistics.get("upTo").misses).isEqualTo(1);
+        assertThat(statistics.get("interval").misses).isEqualTo(1);
+    }
+
+    @Test
+    public void leastRecentlyUsedResultsAreForgottenBeyondTheBound() {
+        CountingProvider provider = new CountingProvider();
+        selectorFunctionHelper.registerProvider(provider);
+        testBuilder.defineSelectorFunction("sel upTo: int -> [int];");
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in upTo(!a + 1) clause Pa(!a + !b) => Pa(0);");
+
+        // upTo(1), upTo(2) and upTo(3) count 2, 3 and 4 towards the bound, so at most two of them are remembered
+        SelectorFunctionInvoker boundedInvoker = new SelectorFunctionInvoker(selectorFunctionHelper, 5);
+        assertThat(toList(boundedInvoker.invoke(rule.selectorFunctionInvocation))).hasSize(6);
+        assertThat(toList(boundedInvoker.invoke(rule.selectorFunctionInvocation))).hasSize(6);
+
+        assertThat(provider.calls).isEqualTo(6);
+        assertThat(boundedInvoker.getStatistics().get("upTo").hits).isEqualTo(0);
+        assertThat(boundedInvoker.getStatistics().get("upTo").evictions).isEqualTo(5);
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        assertThat(toList(selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation))).hasSize(6);
+        assertThat(toList(selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation))).hasSize(6);
+
+        assertThat(provider.calls).isEqualTo(9);
+        SelectorFunctionInvoker.MemoStatistics statistics = selectorFunctionInvoker.getStatistics().get("upTo");
+        assertThat(statistics.hits).isEqualTo(3);
+        assertThat(statistics.evictions).isEqualTo(0);
+        assertThat(statistics.savedNanos).isLessThanOrEqualTo(statistics.missNanos * 3);
+    }
+
+    @Test
+    public void impureSelectorFunctionsAreInvokedEveryTime() {
+        ImpureCountingProvider provider = new ImpureCountingProvider();
+        selectorFunctionHelper.registerProvider(provider);
+        testBuilder.defineSelectorFunction("sel calls: int -> [int];");
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in calls(2) clause Pa(!a + !b) => Pa(0);");
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        List<Map<String, BaseTypeValue>> bindings = toList(selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation));
+
+        assertThat(bindings).extracting(b -> b.get("!b")).containsExactly(
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(1)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(2)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(3)));
+        assertThat(selectorFunctionInvoker.getStatistics().get("calls").hits).isEqualTo(0);
+        assertThat(selectorFunctionInvoker.getStatistics().get("calls").misses).isEqualTo(3);
+    }
+
+    @Test
+    public void longResultsAreBoundAsIntegers() {
+        selectorFunctionHelper.registerProvider(new LongProvider());
+        testBuilder.defineSelectorFunction("sel squares: int -> [int];");
+        testBuilder.defineSelectorFunction("sel range: int -> [int];");
+        testBuilder.defineSelectorFunction("sel huge: int -> [int];");
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in range(2), (!b:int) in squares(!a + 2), (!c:int) in huge(100) clause Pa(!a + !b + !c) => Pa(0);");
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        Iterable<Map<String, BaseTypeValue>> bindings = selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation);
+
+        // iterating twice must not consume the stream returned by range
+        assertThat(toList(bindings)).hasSize(10);
+        List<Map<String, BaseTypeValue>> bindingList = toList(bindings);
+        assertThat(bindingList).hasSize(10);
+        assertThat(bindingList).extracting(b -> b.get("!b")).containsExactly(
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(0)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(0)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(1)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(1)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(0)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(0)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(1)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(1)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(4)),
+                BaseTypeValue.fromBigInteger(BigInteger.valueOf(4)));
+        assertThat(bindingList.get(1).get("!c")).isEqualTo(BaseTypeValue.fromBigInteger(BigInteger.ONE.shiftLeft(100)));
+    }
+
+    @Test
+    public void independentInvocationsAreInvokedOnce() {
+        CountingProvider provider = new CountingProvider();
+        selectorFunctionHelper.registerProvider(provider);
+        testBuilder.defineSelectorFunction("sel upTo: int -> [int];");
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in upTo(2) clause Pa(!a + !b) => Pa(0);");
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        assertThat(toList(selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation))).hasSize(6);
+
+        assertThat(selectorFunctionInvoker.getStatistics().get("upTo").hits).isEqualTo(0);
+        assertThat(selectorFunctionInvoker.getStatistics().get("upTo").misses).isEqualTo(1);
+    }
+
+    @Test
+    public void bindingsAreInTheOrderOfTheNestedInvocations() {
+        selectorFunctionHelper.registerProvider(new CountingProvider());
+        testBuilder.defineSelectorFunction("sel upTo: int -> [int];");
+        Rule rule = testBuilder.defineRule("rule r := for (!a:int) in interval(0,3), (!b:int) in interval(0,2), (!c:int) in upTo(!a), (!d:int) in upTo(!b + 1) clause Pa(!a + !b + !c + !d) => Pa(0);");
+
+        List<List<BaseTypeValue>> expectedBindings = new ArrayList<>();
+        for (int a = 0; a < 3; ++a) {
+            for (int b = 0; b < 2; ++b) {
+                for (int c = 0; c < a; ++c) {
+                    for (int d = 0; d < b + 1; ++d) {
+                        expectedBindings.add(Arrays.asList(toValue(a), toValue(b), toValue(c), toValue(d)));
+                    }
+                }
+            }
+        }
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        assertThat(toList(selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation)))
+                .extracting(m -> Arrays.asList(m.get("!a"), m.get("!b"), m.get("!c"), m.get("!d")))
+                .containsExactlyElementsOf(expectedBindings);
+    }
+}
@@ -0,0 +1,144 @@
+package secpriv.horst.tools;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.SelectorFunction;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.types.Type;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderClassCacheTest {
+    private static final String PROVIDER_SOURCE = "import java.math.BigInteger;\n" +
+            "import java.util.Collections;\n" +
+            "public class CachedProvider {\n" +
+            "    public Iterable<BigInteger> answer() {\n" +
+            "        return Collections.singletonList(BigInteger.valueOf(%d));\n" +
+            "    }\n" +
+            "}\n";
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("provider-class-cache-test");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private File writeProvider(int answer) throws IOException {
+        Path sourceDirectory = Files.createDirectories(directory.resolve("src"));
+        Path source = sourceDirectory.resolve("CachedProvider.java");
+        Files.write(source, String.format(PROVIDER_SOURCE, answer).getBytes(StandardCharsets.UTF_8));
+        return source.toFile();
+    }
+
+    private static Object answer(SelectorFunctionHelper selectorFunctionHelper) throws Exception {
+        SelectorFunction selectorFunction = new SelectorFunction("answer", Collections.emptyList(), Collections.singletonList(Type.Integer));
+        return selectorFunctionHelper.getMethod(selectorFunction).invoke(selectorFunctionHelper.getProvider(selectorFunction));
+    }
+
+    private List<Path> getEntries(Path cacheDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testEntryRoundTrip() throws IOException {
+        ProviderClassCache providerClassCache = new ProviderClassCache(directory);
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put("A", new byte[]{1, 2, 3});
+        classes.put("A$1", new byte[0]);
+
+        assertThat(providerClassCache.get("key")).isEmpty();
+        providerClassCache.put("key", classes);
+
+        Optional<Map<String, byte[]>> optLoadedClasses = providerClassCache.get("key");
+        assertThat(optLoadedClasses).isPresent();
+        assertThat(optLoadedClasses.get()).containsOnlyKeys("A", "A$1");
+        assertThat(optLoadedClasses.get().get("A")).containsExactly(1, 2, 3);
+        assertThat(optLoadedClasses.get().get("A$1")).isEmpty();
+    }
+
+    @Test
+    public void testCorruptEntryIsDeleted() throws IOException {
+        ProviderClassCache providerClassCache = new ProviderClassCache(directory);
+        Files.write(directory.resolve("key.classes"), new byte[]{0, 0, 0, 1, 0});
+
+        assertThat(providerClassCache.get("key")).isEmpty();
+        assertThat(directory.resolve("key.classes")).doesNotExist();
+    }
+
+    @Test
+    public void testKeyChangesWithTheSource() throws IOException {
+        String key = ProviderClassCache.getKey(writeProvider(1));
+
+        assertThat(ProviderClassCache.getKey(writeProvider(1))).isEqualTo(key);
+        assertThat(ProviderClassCache.getKey(writeProvider(2))).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testCompiledProviderIsLoadedFromTheCache() throws Exception {
+        Path cacheDirectory = directory.resolve("cache");
+        File source = writeProvider(42);
+
+        SelectorFunctionHelper selectorFunctionHelper = new SelectorFunctionHelper();
+        selectorFunctionHelper.setProviderClassCache(new ProviderClassCache(cacheDirectory));
+        selectorFunctionHelper.compileSelectorFunctionsProvider(source.getPath(), Collections.emptyList());
+
+        assertThat(answer(selectorFunctionHelper)).isEqualTo(Collections.singletonList(BigInteger.valueOf(42)));
+        List<Path> entries = getEntries(cacheDirectory);
+        assertThat(entries).hasSize(1);
+
+        // an entry that cannot have been compiled from the source shows that the source is not compiled again
+        Map<String, byte[]> classes = new ProviderClassCache(cacheDirectory).get(ProviderClassCache.getKey(source)).get();
+        File otherSource = writeProvider(7);
+        SelectorFunctionHelper otherSelectorFunctionHelper = new SelectorFunctionHelper();
+        otherSelectorFunctionHelper.compileSelectorFunctionsProvider(otherSource.getPath(), Collections.emptyList());
+        new ProviderClassCache(cacheDirectory).put(ProviderClassCache.getKey(otherSource), classes);
+
+        SelectorFunctionHelper cachedSelectorFunctionHelper = new SelectorFunctionHelper();
+        cachedSelectorFunctionHelper.setProviderClassCache(new ProviderClassCache(cacheDirectory));
+        cachedSelectorFunctionHelper.compileSelectorFunctionsProvider(otherSource.getPath(), Collections.emptyList());
+
+        assertThat(answer(otherSelectorFunctionHelper)).isEqualTo(Collections.singletonList(BigInteger.valueOf(7)));
+        assertThat(answer(cachedSelectorFunctionHelper)).isEqualTo(Collections.singletonList(BigInteger.valueOf(42)));
+    }
+
+    @Test
+    public void testCompilationFailureIsReportedWithDiagnostics() throws IOException {
+        Path sourceDirectory = Files.createDirectories(directory.resolve("src"));
+        Path source = sourceDirectory.resolve("CachedProvider.java");
+        Files.write(source, "public class CachedProvider { int x = \"no int\"; }".getBytes(StandardCharsets.UTF_8));
+        Path cacheDirectory = directory.resolve("cache");
+
+        SelectorFunctionHelper selectorFunctionHelper = new SelectorFunctionHelper();
+        selectorFunctionHelper.setProviderClassCache(new ProviderClassCache(cacheDirectory));
+
+        assertThatThrownBy(() -> selectorFunctionHelper.compileSelectorFunctionsProvider(source.toString(), Collections.emptyList()))
+                .isInstanceOf(SelectorFunctionHelper.ProviderCompilationException.class)
+                .hasMessageContaining("Compilation of " + source + " failed")
+                .hasMessageContaining("ERROR in line 1");
+        assertThat(cacheDirectory).doesNotExist();
+    }
+}
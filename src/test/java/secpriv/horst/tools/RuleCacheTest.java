@@ -0,0 +1,181 @@
+package secpriv.horst.tools;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.*;
+import secpriv.horst.data.Expression.*;
+import secpriv.horst.types.Type;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.SExpressionRuleVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleCacheTest {
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rule-cache-test");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Rule rule(String name, Expression expression) {
+        Predicate predicate = new Predicate("P", Collections.emptyList(), Arrays.asList(Type.Integer, Type.Array.of(Type.Boolean)));
+        FreeVarExpression a = new FreeVarExpression(Type.Array.of(Type.Boolean), "a");
+        Map<String, Type> freeVars = new LinkedHashMap<>();
+        freeVars.put("x", Type.Integer);
+        freeVars.put("a", a.type);
+
+        Proposition.PredicateProposition premise = new Proposition.PredicateProposition(predicate, Collections.emptyList(), Arrays.asList(new FreeVarExpression(Type.Integer, "x"), a));
+        Proposition.PredicateProposition conclusion = new Proposition.PredicateProposition(predicate, Collections.emptyList(), Arrays.asList(expression, new StoreExpression(a, expression, BoolConst.TRUE)));
+        Clause clause = new Clause(Arrays.asList(premise, new Proposition.ExpressionProposition(new ComparisonExpression(expression, new ConstExpression("c", new IntConst(BigInteger.TEN)), CompOperation.LE))), conclusion, freeVars);
+
+        return new Rule(name, CompoundSelectorFunctionInvocation.UnitInvocation, Collections.singletonList(clause));
+    }
+
+    private static RuleCache.Entry entry(String... ruleNames) {
+        Expression expression = new BinaryIntExpression(new FreeVarExpression(Type.Integer, "x"), new IntConst(BigInteger.valueOf(-300)), IntOperation.MOD);
+        List<Rule> rules = new ArrayList<>();
+        for (String ruleName : ruleNames) {
+            rules.add(rule(ruleName, expression));
+        }
+        Map<String, VisitorState.TestResult> testResults = new LinkedHashMap<>();
+        testResults.put("t", VisitorState.TestResult.UNSAT);
+        return new RuleCache.Entry(rules, Collections.singletonList("q"), testResults);
+    }
+
+    private static List<String> toSExpressions(List<Rule> rules) {
+        SExpressionRuleVisitor sExpressionRuleVisitor = new SExpressionRuleVisitor();
+        return rules.stream().map(r -> r.accept(sExpressionRuleVisitor)).collect(Collectors.toList());
+    }
+
+    private void setLastUse(String key, long millisAgo) throws IOException {
+        Files.setLastModifiedTime(directory.resolve(key + ".rules"), FileTime.fromMillis(System.currentTimeMillis() - millisAgo));
+    }
+
+    @Test
+    public void testEntryRoundTrip() throws IOException {
+        RuleCache ruleCache = new RuleCache(directory, Long.MAX_VALUE, Long.MAX_VALUE);
+        RuleCache.Entry entry = entry("q_1", "r", "t_2");
+
+        ruleCache.put("key", entry);
+        Optional<RuleCache.Entry> optCachedEntry = ruleCache.get("key");
+
+        assertThat(optCachedEntry).isPresent();
+        RuleCache.Entry cachedEntry = optCachedEntry.get();
+        assertThat(toSExpressions(cachedEntry.rules)).isEqualTo(toSExpressions(entry.rules));
+        assertThat(cachedEntry.rules.get(0).clauses.get(0).freeVars.keySet()).containsExactly("x", "a");
+        assertThat(cachedEntry.queryIds).containsExactly("q");
+        assertThat(cachedEntry.testResults).containsEntry("t", VisitorState.TestResult.UNSAT).hasSize(1);
+
+        List<Expression> arguments = cachedEntry.rules.get(2).clauses.get(0).conclusion.arguments;
+        assertThat(((StoreExpression) arguments.get(1)).expression2).isSameAs(arguments.get(0));
+        assertThat(cachedEntry.rules.get(0).clauses.get(0).conclusion.arguments.get(0)).isSameAs(arguments.get(0));
+    }
+
+    @Test
+    public void testMissingOrUnreadableEntryIsEmpty() throws IOException {
+        RuleCache ruleCache = new RuleCache(directory, Long.MAX_VALUE, Long.MAX_VALUE);
+        Files.write(directory.resolve("broken.rules"), new byte[]{1, 2, 3});
+
+        assertThat(ruleCache.get("missing")).isEmpty();
+        assertThat(ruleCache.get("broken")).isEmpty();
+        assertThat(directory.resolve("broken.rules")).doesNotExist();
+    }
+
+    @Test
+    public void testVisitorStateOfEntryClassifiesQueriesAndTests() {
+        RuleCache.Entry entry = entry("q_1", "r", "t_2");
+        VisitorState state = entry.toVisitorState();
+        RuleTypeOracle ruleTypeOracle = new RuleTypeOracle(state);
+
+        assertThat(entry.rules.stream().map(ruleTypeOracle::isQueryOrTest)).containsExactly(true, false, true);
+        assertThat(entry.rules.stream().map(ruleTypeOracle::isTest)).containsExactly(false, false, true);
+        assertThat(state.isExpectedTestResult(entry.rules.get(2), VisitorState.TestResult.UNSAT)).isTrue();
+        assertThat(state.getRules()).isEmpty();
+    }
+
+    @Test
+    public void testEntriesOlderThanMaxAgeAreEvicted() throws IOException {
+        RuleCache ruleCache = new RuleCache(directory, Long.MAX_VALUE, TimeUnit.DAYS.toMillis(1));
+
+        ruleCache.put("old", entry("r"));
+        ruleCache.put("young", entry("r"));
+        setLastUse("old", TimeUnit.DAYS.toMillis(2));
+        ruleCache.evict();
+
+        assertThat(ruleCache.get("old")).isEmpty();
+        assertThat(ruleCache.get("young")).isPresent();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvictedWhenTooLarge() throws IOException {
+        new RuleCache(directory, Long.MAX_VALUE, Long.MAX_VALUE).put("size", entry("r"));
+        long entrySize = Files.size(directory.resolve("size.rules"));
+        Files.delete(directory.resolve("size.rules"));
+
+        RuleCache ruleCache = new RuleCache(directory, 2 * entrySize, Long.MAX_VALUE);
+        ruleCache.put("first", entry("r"));
+        ruleCache.put("second", entry("r"));
+        setLastUse("first", 2000);
+        setLastUse("second", 1000);
+        // using the first entry makes the second one the least recently used
+        assertThat(ruleCache.get("first")).isPresent();
+        ruleCache.put("third", entry("r"));
+
+        assertThat(ruleCache.get("first")).isPresent();
+        assertThat(ruleCache.get("second")).isEmpty();
+        assertThat(ruleCache.get("third")).isPresent();
+    }
+
+    @Test
+    public void testKeyDependsOnOrderAndBoundariesOfInputs() {
+        String key = RuleCache.keyBuilder().addString("ab").addString("c").build();
+
+        assertThat(RuleCache.keyBuilder().addString("ab").addString("c").build()).isEqualTo(key);
+        assertThat(RuleCache.keyBuilder().addString("a").addString("bc").build()).isNotEqualTo(key);
+        assertThat(RuleCache.keyBuilder().addString("c").addString("ab").build()).isNotEqualTo(key);
+        assertThat(RuleCache.keyBuilder().addString("ab").addString("c").addFlag("p", false).build()).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testKeyDependsOnNamesAndContentsOfDirectoryFiles() throws IOException {
+        Files.write(directory.resolve("A.class"), new byte[]{1, 2});
+        Files.write(directory.resolve("B.class"), new byte[]{3});
+        String key = RuleCache.keyBuilder().addDirectory(directory.toFile()).build();
+
+        assertThat(RuleCache.keyBuilder().addDirectory(directory.toFile()).build()).isEqualTo(key);
+        Files.write(directory.resolve("B.class"), new byte[]{4});
+        assertThat(RuleCache.keyBuilder().addDirectory(directory.toFile()).build()).isNotEqualTo(key);
+        Files.write(directory.resolve("B.class"), new byte[]{3});
+        Files.move(directory.resolve("B.class"), directory.resolve("C.class"));
+        assertThat(RuleCache.keyBuilder().addDirectory(directory.toFile()).build()).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testKeyContainsClassDirectoryCodeSource() throws IOException {
+        // the tests run from target/test-classes, so this hashes the directory instead of adding nothing
+        assertThat(RuleCache.keyBuilder().addCodeSource(RuleCacheTest.class).build()).isNotEqualTo(RuleCache.keyBuilder().build());
+    }
+}
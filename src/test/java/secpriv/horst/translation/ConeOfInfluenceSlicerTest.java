@@ -0,0 +1,67 @@
+package secpriv.horst.translation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static secpriv.horst.translation.RuleTestHelper.getRule;
+import static secpriv.horst.translation.RuleTestHelper.names;
+
+class ConeOfInfluenceSlicerTest {
+    private static final String PROGRAM = "pred Pa{}: int;\n" +
+            "pred Pb{}: int;\n" +
+            "pred Pc{}: int;\n" +
+            "pred Pd{}: int;\n" +
+            "rule a := clause true => Pa(0);\n" +
+            "rule b := clause [?i: int] Pa(?i) => Pb(?i + 1), clause [?i: int] Pb(?i), ?i < 5 => Pb(?i + 1);\n" +
+            "rule c := clause true => Pc(0), clause [?i: int] Pc(?i) => Pc(?i + 1);\n" +
+            "rule d := clause [?i: int] Pc(?i), Pb(?i) => Pd(?i);\n" +
+            "query onB [?i: int] Pb(?i), ?i > 3;\n" +
+            "query onD [?i: int] Pd(?i);\n";
+
+    private List<Rule> rules;
+
+    @BeforeEach
+    public void setUp() {
+        rules = new ArrayList<>(RuleTestHelper.parse(PROGRAM).getRules().values());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        rules = null;
+    }
+
+    @Test
+    public void sliceKeepsOnlyBackwardReachableClauses() {
+        ConeOfInfluenceSlicer slicer = new ConeOfInfluenceSlicer(rules);
+        List<Rule> slice = slicer.slice(getRule(rules, "onB"));
+
+        assertThat(names(slice)).containsExactly("a", "b", "onB");
+        assertThat(getRule(slice, "b").clauses).hasSize(2);
+        assertThat(ConeOfInfluenceSlicer.countClauses(slice)).isEqualTo(4);
+        assertThat(ConeOfInfluenceSlicer.countPredicates(slice)).isEqualTo(3);
+    }
+
+    @Test
+    public void sliceFollowsAllPremises() {
+        ConeOfInfluenceSlicer slicer = new ConeOfInfluenceSlicer(rules);
+        List<Rule> slice = slicer.slice(getRule(rules, "onD"));
+
+        assertThat(names(slice)).containsExactly("a", "b", "c", "d", "onD");
+        assertThat(ConeOfInfluenceSlicer.countClauses(slice)).isEqualTo(slicer.getClauseCount() - 1);
+    }
+
+    @Test
+    public void sliceReusesCompleteRules() {
+        ConeOfInfluenceSlicer slicer = new ConeOfInfluenceSlicer(rules);
+        List<Rule> slice = slicer.slice(getRule(rules, "onB"));
+
+        assertThat(getRule(slice, "b")).isSameAs(getRule(rules, "b"));
+        assertThat(slicer.getPredicateCount()).isEqualTo(6);
+    }
+}
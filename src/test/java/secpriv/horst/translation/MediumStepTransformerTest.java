@@ -0,0 +1,77 @@
+package secpriv.horst.translation;
+
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Proposition;
+import secpriv.horst.data.Rule;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static secpriv.horst.translation.RuleTestHelper.names;
+
+class MediumStepTransformerTest {
+    private List<Rule> rules;
+    private RuleTypeOracle ruleTypeOracle;
+
+    private void parse(String program) {
+        VisitorState state = RuleTestHelper.parse(program);
+
+        rules = new ArrayList<>(state.getRules().values());
+        ruleTypeOracle = new RuleTypeOracle(state);
+    }
+
+    @Test
+    public void chainIsFoldedIntoOneClause() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "pred Pc{}: int;\n" +
+                "rule a := clause [?a: int] ?a = 0 => Pa(?a);\n" +
+                "rule b := clause [?b: int, ?c: int] Pa(?b), ?c = ?b + 1 => Pb(?c);\n" +
+                "rule c := clause [?d: int, ?e: int] Pb(?d), ?e = ?d + 2 => Pc(?e), clause [?f: int] Pc(?f) => Pc(?f);\n" +
+                "query onC [?g: int] Pc(?g), ?g > 3;\n");
+
+        List<Rule> foldedRules = MediumStepTransformer.foldToMediumSteps(rules, ruleTypeOracle);
+
+        assertThat(names(foldedRules)).containsExactly("c", "merge1", "onC");
+        Rule mergedRule = foldedRules.stream().filter(r -> r.name.equals("merge1")).findFirst().get();
+        assertThat(mergedRule.clauses).hasSize(1);
+        assertThat(mergedRule.clauses.get(0).conclusion.predicate.name).isEqualTo("Pc");
+        assertThat(mergedRule.clauses.get(0).premises).hasSize(3).allMatch(p -> p instanceof Proposition.ExpressionProposition);
+    }
+
+    @Test
+    public void clausesJoiningChainsAreNotFolded() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "pred Pc{}: int;\n" +
+                "rule a := clause [?a: int] ?a = 0 => Pa(?a);\n" +
+                "rule b := clause [?b: int] ?b = 1 => Pb(?b);\n" +
+                "rule c := clause [?c: int, ?d: int] Pa(?c), Pb(?d) => Pc(?c);\n" +
+                "query onC [?g: int] Pc(?g), ?g > 3;\n");
+
+        List<Rule> foldedRules = MediumStepTransformer.foldToMediumSteps(rules, ruleTypeOracle);
+
+        assertThat(names(foldedRules)).containsExactly("a", "b", "merge1");
+        Rule mergedRule = foldedRules.stream().filter(r -> r.name.equals("merge1")).findFirst().get();
+        assertThat(mergedRule.clauses.get(0).premises).hasSize(3);
+        assertThat(mergedRule.clauses.get(0).premises.stream().filter(p -> p instanceof Proposition.PredicateProposition)).hasSize(2);
+    }
+
+    @Test
+    public void cyclesAreNotFolded() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "pred Pc{}: int;\n" +
+                "rule a := clause [?a: int] Pb(?a) => Pa(?a);\n" +
+                "rule b := clause [?b: int] Pa(?b) => Pb(?b);\n" +
+                "rule c := clause [?c: int] ?c = 0 => Pc(?c);\n" +
+                "query onC [?g: int] Pc(?g), ?g > 3;\n");
+
+        List<Rule> foldedRules = MediumStepTransformer.foldToMediumSteps(rules, ruleTypeOracle);
+
+        assertThat(names(foldedRules)).containsExactly("a", "b", "merge1");
+    }
+}
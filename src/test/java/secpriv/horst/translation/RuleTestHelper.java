@@ -0,0 +1,47 @@
+package secpriv.horst.translation;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.visitors.ProgramVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parses HoRSt programs without selector functions and inspects the resulting rules for the tests of the rule
+ * transformations.
+ */
+final class RuleTestHelper {
+    private RuleTestHelper() {
+    }
+
+    static VisitorState parse(String program) {
+        VisitorState state = new VisitorState();
+        state.setSelectorFunctionHelper(new SelectorFunctionHelper());
+
+        ASParser parser = new ASParser(new CommonTokenStream(new ASLexer(CharStreams.fromString(program))));
+        Optional<VisitorState> optState = new ProgramVisitor(state).visit(parser.abstractProgram());
+        assertThat(optState).isPresent();
+
+        return optState.get();
+    }
+
+    static Rule getRule(List<Rule> rules, String name) {
+        return rules.stream().filter(r -> r.name.equals(name)).findFirst().get();
+    }
+
+    /**
+     * @return the names of the rules in alphabetical order
+     */
+    static List<String> names(List<Rule> rules) {
+        return rules.stream().map(r -> r.name).sorted().collect(Collectors.toList());
+    }
+}
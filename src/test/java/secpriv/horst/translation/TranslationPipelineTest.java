@@ -0,0 +1,330 @@
+package secpriv.horst.translation;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.internals.SelectorFunctionInvoker;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.translation.visitors.InstantiateParametersRuleVisitor;
+import secpriv.horst.visitors.NodeCountExpressionVisitor;
+import secpriv.horst.visitors.ProgramVisitor;
+import secpriv.horst.visitors.SExpressionRuleVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TranslationPipelineTest {
+    private static final String PROGRAM = "pred Pa{}: int;\n" +
+            "pred Pb{}: int;\n" +
+            "rule startA := clause true => Pa(0);\n" +
+            "rule startB := clause true => Pb(0);\n" +
+            "rule stepA := clause [?i: int] Pa(?i), ?i < 10 => Pa(?i + 1);\n" +
+            "rule stepB := clause [?i: int] Pb(?i) => Pb(?i + 2);\n" +
+            "query reachesFive [?i: int] Pa(?i), ?i = 5;\n";
+
+    private List<Rule> rules;
+
+    @BeforeEach
+    public void setUp() {
+        VisitorState state = new VisitorState();
+        state.setSelectorFunctionHelper(new SelectorFunctionHelper());
+
+        ASParser parser = new ASParser(new CommonTokenStream(new ASLexer(CharStreams.fromString(PROGRAM))));
+        Optional<VisitorState> optState = new ProgramVisitor(state).visit(parser.abstractProgram());
+        assertThat(optState).isPresent();
+
+        rules = new ArrayList<>(optState.get().getRules().values());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        rules = null;
+    }
+
+    private static Rule rename(Rule rule, String suffix) {
+        return new Rule(rule.name + suffix, rule.selectorFunctionInvocation, rule.clauses);
+    }
+
+    private static TranslationPipeline createPipeline() {
+        return TranslationPipeline.builder()
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_renamed"))
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_0"), rename(r, "_1"), rename(r, "_2")))
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .build();
+    }
+
+    private static TranslationPipeline createPipelineWithCounter(int threads) {
+        int[] counter = {0};
+        return TranslationPipeline.builder()
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_0"), rename(r, "_1"), rename(r, "_2")))
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_a"), rename(r, "_b")))
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_" + (counter[0]++)))
+                .orderDependentStep()
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .parallel(threads)
+                .build();
+    }
+
+    private static List<String> names(List<Rule> rules) {
+        return rules.stream().map(r -> r.name).collect(Collectors.toList());
+    }
+
+    private static List<String> sExpressions(List<Rule> rules) {
+        return rules.stream().map(r -> r.accept(new SExpressionRuleVisitor())).collect(Collectors.toList());
+    }
+
+    @Test
+    public void applyProcessesEveryRuleThroughAllSteps() {
+        List<Rule> result = createPipeline().apply(rules);
+
+        List<String> expectedNames = new ArrayList<>();
+        for (Rule rule : rules) {
+            for (int i = 0; i < 3; ++i) {
+                expectedNames.add(rule.name + "_renamed_" + i + "_done");
+            }
+        }
+
+        assertThat(names(result)).isEqualTo(expectedNames);
+    }
+
+    @Test
+    public void consumerReceivesRulesInOrder() {
+        List<Rule> consumed = new ArrayList<>();
+        createPipeline().apply(rules, consumed::add);
+
+        assertThat(names(consumed)).isEqualTo(names(createPipeline().apply(rules)));
+    }
+
+    @Test
+    public void parallelApplyGivesSameRulesInSameOrder() {
+        List<Rule> sequential = createPipelineWithCounter(1).apply(rules);
+        List<Rule> parallel = createPipelineWithCounter(4).apply(rules);
+
+        assertThat(parallel).hasSize(rules.size() * 6);
+        assertThat(names(parallel)).isEqualTo(names(sequential));
+    }
+
+    @Test
+    public void parallelConsumerReceivesRulesInOrder() {
+        List<Rule> consumed = new ArrayList<>();
+        createPipelineWithCounter(4).apply(rules, consumed::add);
+
+        assertThat(names(consumed)).isEqualTo(names(createPipelineWithCounter(1).apply(rules)));
+    }
+
+    @Test
+    public void parallelClauseNumberingStepNumbersClausesInSequentialOrder() {
+        Function<Integer, TranslationPipeline> createPipeline = threads -> TranslationPipeline.builder()
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_0"), rename(r, "_1"), rename(r, "_2")))
+                .addClauseNumberingStep((r, firstClauseNumber) -> rename(r, "_" + firstClauseNumber))
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .parallel(threads)
+                .build();
+
+        List<Rule> sequential = createPipeline.apply(1).apply(rules);
+
+        assertThat(sequential.get(1).name).isEqualTo(rules.get(0).name + "_1_" + rules.get(0).clauses.size() + "_done");
+        assertThat(names(createPipeline.apply(4).apply(rules))).isEqualTo(names(sequential));
+    }
+
+    private static TranslationPipeline createPipelineWithDeferredStep(int threads, Set<Thread> supplyingThreads) {
+        int[] counter = {0};
+        return TranslationPipeline.builder()
+                .addDeferredFlatMappingStep(r -> () -> IntStream.range(0, 3000).<Supplier<Rule>>mapToObj(i -> () -> {
+                    supplyingThreads.add(Thread.currentThread());
+                    return rename(r, "_" + i);
+                }).iterator())
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_" + (counter[0]++)))
+                .orderDependentStep()
+                .addClauseNumberingStep((r, firstClauseNumber) -> rename(r, "_" + firstClauseNumber))
+                .parallel(threads)
+                .enableProfiling()
+                .build();
+    }
+
+    @Test
+    public void parallelDeferredFlatMappingStepGivesSameRulesInSameOrder() {
+        Set<Thread> sequentialThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        TranslationPipeline sequentialPipeline = createPipelineWithDeferredStep(1, sequentialThreads);
+        List<Rule> sequential = sequentialPipeline.apply(rules);
+
+        Set<Thread> parallelThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        TranslationPipeline parallelPipeline = createPipelineWithDeferredStep(4, parallelThreads);
+        List<Rule> parallel = parallelPipeline.apply(rules);
+
+        assertThat(parallel).hasSize(rules.size() * 3000);
+        assertThat(names(parallel)).isEqualTo(names(sequential));
+        assertThat(sequentialThreads).containsOnly(Thread.currentThread());
+        assertThat(parallelThreads).doesNotContain(Thread.currentThread());
+        assertThat(parallelPipeline.getProfile().get(0).rulesIn).isEqualTo(rules.size());
+        assertThat(parallelPipeline.getProfile().get(0).rulesOut).isEqualTo(rules.size() * 3000);
+    }
+
+    @Test
+    public void parallelInstantiationGivesSameRulesAsLazyInstantiation() {
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(new SelectorFunctionHelper());
+        List<Rule> sequential = TranslationPipeline.builder()
+                .addLazyFlatMappingStep(new InstantiateParametersRuleVisitor(selectorFunctionInvoker)::instantiate)
+                .build().apply(rules);
+        List<Rule> parallel = TranslationPipeline.builder()
+                .addDeferredFlatMappingStep(new InstantiateParametersRuleVisitor(selectorFunctionInvoker)::instantiateDeferred)
+                .parallel(4)
+                .build().apply(rules);
+
+        assertThat(sExpressions(parallel)).isEqualTo(sExpressions(sequential));
+    }
+
+    @Test
+    public void parallelModeRejectsDebugOutput() {
+        assertThatThrownBy(() -> TranslationPipeline.builder()
+                .addStep((Function<Rule, Rule>) r -> r)
+                .debugStep("identity")
+                .parallel(2)
+                .build()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void streamGivesSameRulesAsApply() {
+        assertThat(names(createPipeline().stream(rules).collect(Collectors.toList()))).isEqualTo(names(createPipeline().apply(rules)));
+
+        List<Rule> iterated = new ArrayList<>();
+        createPipeline().iterator(rules).forEachRemaining(iterated::add);
+        assertThat(names(iterated)).isEqualTo(names(createPipeline().apply(rules)));
+    }
+
+    @Test
+    public void lazyFlatMappingStepProducesRulesOnDemand() {
+        int[] produced = {0};
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addLazyFlatMappingStep(r -> () -> IntStream.range(0, 1000).mapToObj(i -> {
+                    ++produced[0];
+                    return rename(r, "_" + i);
+                }).iterator())
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .build();
+
+        int[] consumed = {0};
+        pipeline.apply(rules, r -> {
+            ++consumed[0];
+            assertThat(produced[0]).isEqualTo(consumed[0]);
+        });
+
+        assertThat(consumed[0]).isEqualTo(rules.size() * 1000);
+    }
+
+    @Test
+    public void iteratorDoesNotBufferTheRulesOfALargeFanOut() {
+        int[] produced = {0};
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addLazyFlatMappingStep(r -> () -> IntStream.range(0, 1000000).mapToObj(i -> {
+                    ++produced[0];
+                    return rename(r, "_" + i);
+                }).iterator())
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .enableProfiling()
+                .build();
+
+        Iterator<Rule> iterator = pipeline.iterator(rules);
+        for (int i = 0; i < 3; ++i) {
+            assertThat(iterator.next().name).isEqualTo(rules.get(0).name + "_" + i + "_done");
+        }
+        assertThat(produced[0]).isEqualTo(3);
+
+        Iterator<Rule> streamIterator = pipeline.stream(rules).iterator();
+        streamIterator.next();
+        assertThat(produced[0]).isEqualTo(4);
+    }
+
+    @Test
+    public void profileCountsRulesAndNodesOfEveryStep() {
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_renamed"))
+                .describeStep("rename")
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_0"), rename(r, "_1"), rename(r, "_2")))
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .enableProfiling()
+                .build();
+
+        List<Rule> result = pipeline.apply(rules);
+
+        NodeCountExpressionVisitor nodeCountVisitor = new NodeCountExpressionVisitor();
+        long clauses = rules.stream().mapToLong(r -> r.clauses.size()).sum();
+        long nodes = rules.stream().mapToLong(nodeCountVisitor::count).sum();
+
+        List<TranslationPipeline.StepProfile> profile = pipeline.getProfile();
+        assertThat(profile).extracting(p -> p.step).containsExactly("rename", "Step 2", "Step 3");
+        assertThat(profile).extracting(p -> p.rulesIn).containsExactly((long) rules.size(), (long) rules.size(), (long) result.size());
+        assertThat(profile).extracting(p -> p.rulesOut).containsExactly((long) rules.size(), (long) result.size(), (long) result.size());
+        assertThat(profile).extracting(p -> p.clausesOut).containsExactly(clauses, 3 * clauses, 3 * clauses);
+        assertThat(profile).extracting(p -> p.expressionNodesOut).containsExactly(nodes, 3 * nodes, 3 * nodes);
+        assertThat(profile).allSatisfy(p -> assertThat(p.wallTimeNanos).isPositive());
+    }
+
+    @Test
+    public void profilingDoesNotChangeResult() {
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_renamed"))
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_0"), rename(r, "_1"), rename(r, "_2")))
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .enableProfiling()
+                .build();
+
+        assertThat(names(pipeline.apply(rules))).isEqualTo(names(createPipeline().apply(rules)));
+        assertThat(createPipeline().getProfile()).isEmpty();
+    }
+
+    @Test
+    public void wholeProgramStepSeesAllRulesOfThePreviousSteps() {
+        List<Integer> seenRuleCounts = new ArrayList<>();
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addFlatMappingStep((Function<Rule, List<Rule>>) r -> Arrays.asList(rename(r, "_0"), rename(r, "_1")))
+                .addWholeProgramStep(rs -> {
+                    seenRuleCounts.add(rs.size());
+                    return rs.subList(0, 3);
+                })
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .parallel(2)
+                .enableProfiling()
+                .build();
+
+        List<Rule> result = pipeline.apply(rules);
+
+        assertThat(seenRuleCounts).containsExactly(rules.size() * 2);
+        assertThat(names(result)).containsExactly(rules.get(0).name + "_0_done", rules.get(0).name + "_1_done", rules.get(1).name + "_0_done");
+        assertThat(pipeline.getProfile()).extracting(p -> p.rulesIn).containsExactly((long) rules.size(), (long) rules.size() * 2, 3L);
+        assertThat(pipeline.getProfile()).extracting(p -> p.rulesOut).containsExactly((long) rules.size() * 2, 3L, 3L);
+        assertThat(names(pipeline.stream(rules).collect(Collectors.toList()))).isEqualTo(names(result));
+    }
+
+    @Test
+    public void profileOfInstantiationStepContainsSelectorFunctionStatistics() {
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(new SelectorFunctionHelper());
+        TranslationPipeline pipeline = TranslationPipeline.builder()
+                .addLazyFlatMappingStep(new InstantiateParametersRuleVisitor(selectorFunctionInvoker)::instantiate)
+                .profileSelectorFunctions(selectorFunctionInvoker)
+                .addStep((Function<Rule, Rule>) r -> rename(r, "_done"))
+                .enableProfiling()
+                .build();
+
+        pipeline.apply(rules);
+
+        List<TranslationPipeline.StepProfile> profile = pipeline.getProfile();
+        assertThat(profile.get(0).selectorFunctions).containsOnlyKeys("unit");
+        assertThat(profile.get(0).selectorFunctions.get("unit").misses).isEqualTo(1);
+        assertThat(profile.get(0).selectorFunctions.get("unit").hits).isEqualTo(rules.size() - 1);
+        assertThat(profile.get(1).selectorFunctions).isNull();
+    }
+}
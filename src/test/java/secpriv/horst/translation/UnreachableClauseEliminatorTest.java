@@ -0,0 +1,78 @@
+package secpriv.horst.translation;
+
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static secpriv.horst.translation.RuleTestHelper.getRule;
+import static secpriv.horst.translation.RuleTestHelper.names;
+
+class UnreachableClauseEliminatorTest {
+    private List<Rule> rules;
+    private RuleTypeOracle ruleTypeOracle;
+
+    private void parse(String program) {
+        VisitorState state = RuleTestHelper.parse(program);
+
+        rules = new ArrayList<>(state.getRules().values());
+        ruleTypeOracle = new RuleTypeOracle(state);
+    }
+
+    @Test
+    public void chainsOfUnusedPredicatesAreDeleted() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "pred Pc{}: int;\n" +
+                "pred Pd{}: int;\n" +
+                "rule a := clause true => Pa(0);\n" +
+                "rule b := clause [?i: int] Pa(?i) => Pb(?i + 1), clause [?i: int] Pb(?i) => Pc(?i);\n" +
+                "rule c := clause [?i: int] Pc(?i), Pa(?i) => Pd(?i);\n" +
+                "query onB [?i: int] Pb(?i), ?i > 3;\n");
+
+        List<Rule> reachableRules = new UnreachableClauseEliminator(ruleTypeOracle).apply(rules);
+
+        assertThat(names(reachableRules)).containsExactly("a", "b", "onB");
+        assertThat(getRule(reachableRules, "b").clauses).containsExactly(getRule(rules, "b").clauses.get(0));
+    }
+
+    @Test
+    public void predicatesUsedByTheirOwnClausesAreKept() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "rule a := clause true => Pa(0), clause [?i: int] Pa(?i) => Pa(?i + 1);\n" +
+                "rule b := clause [?i: int] Pa(?i) => Pb(?i);\n" +
+                "query onB [?i: int] Pb(?i), ?i > 3;\n");
+
+        List<Rule> reachableRules = new UnreachableClauseEliminator(ruleTypeOracle).apply(rules);
+
+        assertThat(reachableRules).isSameAs(rules);
+    }
+
+    @Test
+    public void everythingIsDeletedWithoutQueries() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "rule a := clause true => Pa(0);\n" +
+                "rule b := clause [?i: int] Pa(?i), Pa(?i + 1) => Pb(?i);\n");
+
+        assertThat(new UnreachableClauseEliminator(ruleTypeOracle).apply(rules)).isEmpty();
+    }
+
+    @Test
+    public void pipelineStepGivesSameRules() {
+        parse("pred Pa{}: int;\n" +
+                "pred Pb{}: int;\n" +
+                "rule a := clause true => Pa(0);\n" +
+                "rule b := clause [?i: int] Pa(?i) => Pb(?i);\n" +
+                "query onA [?i: int] Pa(?i), ?i > 3;\n");
+
+        TranslationPipeline pipeline = TranslationPipeline.builder().addUnreachableClauseEliminationStep(ruleTypeOracle).build();
+
+        assertThat(names(pipeline.apply(rules))).containsExactly("a", "onA");
+    }
+}
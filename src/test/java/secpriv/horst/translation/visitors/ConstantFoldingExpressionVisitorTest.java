@@ -843,4 +843,14 @@ public class ConstantFoldingExpressionVisitorTest {
         assertThatThrownBy(() -> expressionVisitor.visit(sumExpression)).isInstanceOf(UnsupportedOperationException.class);
     }
 
+    @Test
+    public void testUnfoldableExpressionIsReturnedAsSameInstance() {
+        Expression left = new BinaryIntExpression(new FreeVarExpression(Type.Integer, "a"), new FreeVarExpression(Type.Integer, "b"), IntOperation.MUL);
+        ComparisonExpression expression = new ComparisonExpression(left, new FreeVarExpression(Type.Integer, "c"), CompOperation.LT);
+
+        Expression visited = expressionVisitor.visit(expression);
+
+        assertThat(visited).isSameAs(expression);
+    }
+
 }
@@ -67,6 +67,21 @@ class InlineOperationsExpressionVisitorTest {
         assertThat(app).isInstanceOfSatisfying(BinaryIntExpression.class, e -> assertThat(e.expression2).isInstanceOfSatisfying(IntConst.class, i -> assertThat(i.value).isEqualTo(456)));
     }
 
+    @Test
+    public void testInlinedCopiesAreInterned() {
+        Expression body = new BinaryIntExpression(new VarExpression(Type.Integer, "a"), new IntConst(BigInteger.ONE), IntOperation.ADD);
+        Operation operation = new Operation("op1", body, Collections.emptyList(), Arrays.asList(new VarExpression(Type.Integer, "a")));
+        Expression argument = new FreeVarExpression(Type.Integer, "x");
+
+        expressionVisitor = new InlineOperationsExpressionVisitor(Collections.singletonList(operation)).withInterner(new ExpressionInterner());
+        Expression app = expressionVisitor.visit(new BinaryIntExpression(
+                new AppExpression(operation, Collections.emptyList(), Arrays.asList(argument)),
+                new AppExpression(operation, Collections.emptyList(), Arrays.asList(new FreeVarExpression(Type.Integer, "x"))), IntOperation.MUL));
+
+        assertThat(app).isInstanceOfSatisfying(BinaryIntExpression.class, e -> assertThat(e.expression1).isEqualTo(new BinaryIntExpression(argument, new IntConst(BigInteger.ONE), IntOperation.ADD)));
+        assertThat(app).isInstanceOfSatisfying(BinaryIntExpression.class, e -> assertThat(e.expression1).isSameAs(e.expression2));
+    }
+
     @Test
     public void testFlatten3() {
         Expression body1 = new SumExpression(
@@ -5,6 +5,7 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import secpriv.horst.data.BaseTypeValue;
 import secpriv.horst.data.Proposition;
 import secpriv.horst.data.Rule;
 import secpriv.horst.data.SelectorFunction;
@@ -25,6 +26,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -521,4 +523,66 @@ public class InstantiateParametersRuleVisitorTest {
             assertThat(r.selectorFunctionInvocation.selectorFunctionInvocations.get(0).selectorFunction).isEqualTo(SelectorFunction.Unit);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLazyInstantiationGivesSameRules() {
+        String p = "pred FunnyFun{}: int;";
+
+        String s = "rule unitRule :=   \n" +
+                "for (!a:int) in oneToFive(), (!b:bool) in allBools()\n" +
+                "clause [?i : int]  \n" +
+                "FunnyFun(?i)       \n" +
+                "=> FunnyFun(?i+!a)  \n" +
+                ";";
+
+        testBuilder.definePredicate(p);
+        Rule rule = testBuilder.defineRule(s);
+
+        InstantiateParametersRuleVisitor instantiateParametersRuleVisitor = new InstantiateParametersRuleVisitor(new SelectorFunctionInvoker(selectorFunctionHelper));
+        List<String> expectedRules = instantiateParametersRuleVisitor.visit(rule).stream().map(r -> r.accept(new SExpressionRuleVisitor())).collect(Collectors.toList());
+
+        List<String> lazilyInstantiatedRules = new ArrayList<>();
+        for (Rule r : instantiateParametersRuleVisitor.instantiate(rule)) {
+            lazilyInstantiatedRules.add(r.accept(new SExpressionRuleVisitor()));
+        }
+
+        assertThat(expectedRules).hasSize(10);
+        assertThat(lazilyInstantiatedRules).isEqualTo(expectedRules);
+    }
+
+    @Test
+    public void testTemplateInstantiationEqualsFullVisit() {
+        String p = "pred FunnyFun{int}: int;";
+
+        String s = "rule unitRule :=   \n" +
+                "for (!k:int) in oneToFive(), (!i:int, !b:bool) in intPlusParity(!k) \n" +
+                "clause [?i : int, ?j : int]  \n" +
+                "?j * 2 > ?i + 1,   \n" +
+                "((true) ? (?i) : (?j)) > 0, \n" +
+                "((!b) ? (?i + !i) : (?j)) > (for (!a: int) in oneToFive() : + (!a * ?j)), \n" +
+                "FunnyFun{!k}(?i)   \n" +
+                "=> FunnyFun{!i}(?i + ?j * !k)  \n" +
+                ";";
+
+        testBuilder.definePredicate(p);
+        Rule rule = testBuilder.defineRule(s);
+
+        SelectorFunctionInvoker selectorFunctionInvoker = new SelectorFunctionInvoker(selectorFunctionHelper);
+        List<Rule> instantiatedRules = new InstantiateParametersRuleVisitor(selectorFunctionInvoker).visit(rule);
+
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        SExpressionRuleVisitor sExpressionRuleVisitor = new SExpressionRuleVisitor();
+        int i = 0;
+        for (Map<String, BaseTypeValue> parameterMap : selectorFunctionInvoker.invoke(rule.selectorFunctionInvocation)) {
+            InstantiateParametersClauseVisitor clauseVisitor = new InstantiateParametersClauseVisitor(parameterMap, selectorFunctionInvoker);
+            Rule expectedRule = new Rule(instantiatedRules.get(i).name, instantiatedRules.get(i).selectorFunctionInvocation, rule.clauses.stream().map(c -> c.accept(clauseVisitor)).collect(Collectors.toList()));
+
+            expected.add(expectedRule.accept(sExpressionRuleVisitor));
+            actual.add(instantiatedRules.get(i++).accept(sExpressionRuleVisitor));
+        }
+
+        assertThat(instantiatedRules).hasSize(15);
+        assertThat(actual).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,81 @@
+package secpriv.horst.translation.visitors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.Proposition;
+import secpriv.horst.data.Rule;
+import secpriv.horst.internals.SelectorFunctionHelper;
+import secpriv.horst.tools.TestBuilder;
+import secpriv.horst.visitors.VisitorState;
+
+import java.math.BigInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstantiationTemplateTest {
+    private TestBuilder testBuilder;
+
+    public class Provider {
+        public Iterable<BigInteger> oneToFive() {
+            return Stream.of(1, 2, 3, 4, 5).map(BigInteger::valueOf).collect(Collectors.toList());
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        SelectorFunctionHelper selectorFunctionHelper = new SelectorFunctionHelper();
+        selectorFunctionHelper.registerProvider(new Provider());
+
+        testBuilder = new TestBuilder(new VisitorState());
+        testBuilder.setSelectorFunctionHelper(selectorFunctionHelper);
+        testBuilder.defineSelectorFunction("sel oneToFive: unit -> [int];");
+        testBuilder.definePredicate("pred FunnyFun{} : int;");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        testBuilder = null;
+    }
+
+    private static Expression.BinaryExpression getPremise(Rule rule, int index) {
+        return (Expression.BinaryExpression) ((Proposition.ExpressionProposition) rule.clauses.get(0).premises.get(index)).expression;
+    }
+
+    @Test
+    public void testOnlyExpressionsContainingParametersAreDependent() {
+        Rule rule = testBuilder.defineRule("rule unitRule :=   \n" +
+                "for (!k:int) in oneToFive()     \n" +
+                "clause [?i : int, ?j : int]    \n" +
+                "?j * 2 > ?i + !k,  \n" +
+                "FunnyFun(?i)       \n" +
+                "=> FunnyFun(?i)    \n" +
+                ";");
+
+        Expression.BinaryExpression premise = getPremise(rule, 0);
+        InstantiationTemplate template = InstantiationTemplate.compile(rule);
+
+        assertThat(template.isParameterDependent(premise)).isTrue();
+        assertThat(template.isParameterDependent(premise.expression1)).isFalse();
+        assertThat(template.isParameterDependent(premise.expression2)).isTrue();
+    }
+
+    @Test
+    public void testConditionalWithConstantConditionIsDependent() {
+        Rule rule = testBuilder.defineRule("rule unitRule :=   \n" +
+                "clause [?i : int, ?j : int]    \n" +
+                "((true) ? (?i) : (?j)) > ((?i > 0) ? (?i) : (?j)),  \n" +
+                "FunnyFun(?i)       \n" +
+                "=> FunnyFun(?i)    \n" +
+                ";");
+
+        Expression.BinaryExpression premise = getPremise(rule, 0);
+        InstantiationTemplate template = InstantiationTemplate.compile(rule);
+
+        assertThat(template.isParameterDependent(premise.expression1)).isTrue();
+        assertThat(template.isParameterDependent(premise.expression2)).isFalse();
+    }
+}
@@ -0,0 +1,154 @@
+package secpriv.horst.translation.visitors;
+
+import com.microsoft.z3.Solver;
+import com.microsoft.z3.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Expression;
+import secpriv.horst.data.Expression.*;
+import secpriv.horst.translation.TranslateToZ3VisitorState;
+import secpriv.horst.types.Type;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LinearConstantFoldingExpressionVisitorTest {
+    private LinearConstantFoldingExpressionVisitor expressionVisitor;
+
+    @BeforeEach
+    public void setUp() {
+        expressionVisitor = new LinearConstantFoldingExpressionVisitor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        expressionVisitor = null;
+    }
+
+    private static IntConst intConst(long value) {
+        return new IntConst(BigInteger.valueOf(value));
+    }
+
+    @Test
+    public void testSameResultAsConstantFoldingExpressionVisitor() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        FreeVarExpression b = new FreeVarExpression(Type.Boolean, "b");
+        Expression array = new StoreExpression(new ArrayInitExpression(intConst(0)), intConst(1), new BinaryIntExpression(intConst(2), intConst(3), IntOperation.ADD));
+
+        List<Expression> expressions = Arrays.asList(
+                new BinaryIntExpression(new BinaryIntExpression(intConst(5), intConst(7), IntOperation.MUL), a, IntOperation.ADD),
+                new BinaryIntExpression(a, new BinaryIntExpression(intConst(3), intConst(3), IntOperation.SUB), IntOperation.ADD),
+                new BinaryIntExpression(intConst(1), intConst(0), IntOperation.DIV),
+                new BinaryBoolExpression(b, new ComparisonExpression(intConst(1), intConst(2), CompOperation.GT), BoolOperation.OR),
+                new ConditionalExpression(b, BoolConst.FALSE, new NegationExpression(BoolConst.FALSE)),
+                new NegationExpression(new NegationExpression(b)),
+                new SelectExpression(array, new BinaryIntExpression(intConst(0), a, IntOperation.MUL)),
+                new SelectExpression(array, intConst(1)),
+                new ConstExpression("c", new BinaryIntExpression(intConst(6), intConst(7), IntOperation.MUL)));
+
+        for (Expression expression : expressions) {
+            assertThat(expression.accept(expressionVisitor)).isEqualTo(expression.accept(new ConstantFoldingExpressionVisitor()));
+        }
+    }
+
+    @Test
+    public void testConstantFactorsOfMultiplicationChainAreMultipliedOut() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        Expression expression = new BinaryIntExpression(intConst(3), new BinaryIntExpression(new BinaryIntExpression(a, intConst(2), IntOperation.MUL), intConst(-1), IntOperation.MUL), IntOperation.MUL);
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isEqualTo(new BinaryIntExpression(a, intConst(-6), IntOperation.MUL));
+    }
+
+    @Test
+    public void testMultiplicationChainWithInverseFactorsVanishes() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        Expression expression = new BinaryIntExpression(new BinaryIntExpression(a, intConst(-1), IntOperation.MUL), intConst(-1), IntOperation.MUL);
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isSameAs(a);
+    }
+
+    @Test
+    public void testNestedModuloIsCollapsed() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        Expression expression = new BinaryIntExpression(new BinaryIntExpression(a, intConst(256), IntOperation.MOD), intConst(16), IntOperation.MOD);
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isEqualTo(new BinaryIntExpression(a, intConst(16), IntOperation.MOD));
+    }
+
+    @Test
+    public void testNestedModuloWithNonDividingModulusIsKept() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        Expression expression = new BinaryIntExpression(new BinaryIntExpression(a, intConst(10), IntOperation.MOD), intConst(4), IntOperation.MOD);
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isSameAs(expression);
+    }
+
+    @Test
+    public void testModuloOfMultipleOfModulusIsZero() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        Expression expression = new BinaryIntExpression(new BinaryIntExpression(intConst(512), a, IntOperation.MUL), intConst(256), IntOperation.MOD);
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isEqualTo(intConst(0));
+    }
+
+    @Test
+    public void testModuloFoldingIsSoundForBitVectors() {
+        FreeVarExpression a = new FreeVarExpression(Type.Integer, "a");
+        BigInteger max = BigInteger.valueOf(2).pow(256);
+        // a * 3 wraps around at 2^32, so (a * 3) mod 3 is not 0 for bit vectors
+        Expression multipleOfThree = new BinaryIntExpression(new BinaryIntExpression(intConst(3), a, IntOperation.MUL), intConst(3), IntOperation.MOD);
+        List<Expression> expressions = Arrays.asList(
+                multipleOfThree,
+                new BinaryIntExpression(new BinaryIntExpression(intConst(512), a, IntOperation.MUL), intConst(256), IntOperation.MOD),
+                new BinaryIntExpression(new BinaryIntExpression(a, new IntConst(max), IntOperation.MOD), intConst(16), IntOperation.MOD),
+                // 2^32 + 2 = 2 * (2^31 + 1) is truncated to 2
+                new BinaryIntExpression(new BinaryIntExpression(a, intConst((1L << 32) + 2), IntOperation.MOD), intConst((1L << 31) + 1), IntOperation.MOD));
+
+        assertThat(multipleOfThree.accept(new LinearConstantFoldingExpressionVisitor())).isSameAs(multipleOfThree);
+
+        TranslateToZ3VisitorState state = TranslateToZ3VisitorState.withBitVectorIntegers();
+        for (Expression expression : expressions) {
+            Expression visited = expression.accept(new LinearConstantFoldingExpressionVisitor());
+            Solver solver = state.context.mkSolver();
+            solver.add(state.context.mkNot(state.context.mkEq(state.translate(expression), state.translate(visited))));
+
+            assertThat(solver.check()).isEqualTo(Status.UNSATISFIABLE);
+        }
+    }
+
+    @Test
+    public void testSharedSubexpressionIsFoldedOnce() {
+        Expression shared = new BinaryIntExpression(new FreeVarExpression(Type.Integer, "a"), new BinaryIntExpression(intConst(0), intConst(1), IntOperation.ADD), IntOperation.ADD);
+        Expression expression = new BinaryIntExpression(shared, shared, IntOperation.MUL);
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isInstanceOfSatisfying(BinaryIntExpression.class, e -> assertThat(e.expression1).isSameAs(e.expression2));
+    }
+
+    @Test
+    public void testDeeplySharedExpressionFoldsInLinearTime() {
+        Expression expression = new FreeVarExpression(Type.Integer, "a");
+        for (int i = 0; i < 200; ++i) {
+            expression = new BinaryIntExpression(expression, new BinaryIntExpression(expression, intConst(0), IntOperation.ADD), IntOperation.SUB);
+        }
+
+        Expression visited = expression.accept(expressionVisitor);
+
+        assertThat(visited).isInstanceOf(BinaryIntExpression.class);
+    }
+}
@@ -0,0 +1,119 @@
+package secpriv.horst.translation.visitors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Rule;
+import secpriv.horst.tools.TestBuilder;
+import secpriv.horst.visitors.RuleTypeOracle;
+import secpriv.horst.visitors.SExpressionRuleVisitor;
+import secpriv.horst.visitors.VisitorState;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimplifyingRuleVisitorTest {
+    private TestBuilder testBuilder;
+    private RuleTypeOracle ruleTypeOracle;
+
+    @BeforeEach
+    public void setUp() {
+        VisitorState state = new VisitorState();
+        testBuilder = new TestBuilder(state);
+        testBuilder.definePredicate("pred FunnyFun{} : int;)");
+        ruleTypeOracle = new RuleTypeOracle(state);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        testBuilder = null;
+        ruleTypeOracle = null;
+    }
+
+    private List<Rule> defineRules() {
+        String r1 = "rule firstRule :=  \n" +
+                "clause [?i : int]  \n" +
+                "FunnyFun(?i),      \n" +
+                "1 + 2 < 3          \n" +
+                "=> FunnyFun(?i+1)  \n" +
+                ";";
+
+        String r2 = "rule secondRule := \n" +
+                "clause [?i : int]  \n" +
+                "FunnyFun(?i * 1),  \n" +
+                "true && true       \n" +
+                "=> FunnyFun(?i),   \n" +
+                "clause [?j : int]  \n" +
+                "FunnyFun(?j),      \n" +
+                "?j > 0 || false    \n" +
+                "=> FunnyFun(2 * 3) \n" +
+                ";";
+
+        return Arrays.asList(testBuilder.defineRule(r1), testBuilder.defineRule(r2));
+    }
+
+    private String applyChained(List<Rule> rules, boolean removeTruePremises) {
+        List<Rule.Visitor<Rule>> visitors = Arrays.asList(
+                new SimplifyPredicateArgumentsRuleVisitor(),
+                new RenameFreeVariablesRuleVisitor(),
+                new ConstantFoldingRuleVisitor(),
+                new FilterUnapplicableClausesRuleVisitor(ruleTypeOracle),
+                new RemoveTruePremiseRuleVisitor());
+
+        StringBuilder sb = new StringBuilder();
+        for (Rule rule : rules) {
+            for (Rule.Visitor<Rule> visitor : visitors.subList(0, removeTruePremises ? visitors.size() : visitors.size() - 1)) {
+                rule = rule.accept(visitor);
+            }
+            sb.append(rule.accept(new SExpressionRuleVisitor())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String applyFused(List<Rule> rules, boolean removeTruePremises) {
+        SimplifyingRuleVisitor ruleVisitor = new SimplifyingRuleVisitor(ruleTypeOracle, removeTruePremises);
+
+        StringBuilder sb = new StringBuilder();
+        for (Rule rule : rules) {
+            sb.append(rule.accept(ruleVisitor).accept(new SExpressionRuleVisitor())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSameResultAsChainedVisitors() {
+        List<Rule> rules = defineRules();
+
+        assertThat(applyFused(rules, true)).isEqualTo(applyChained(rules, true));
+    }
+
+    @Test
+    public void testSameResultAsChainedVisitorsWithoutRemovingTruePremises() {
+        List<Rule> rules = defineRules();
+
+        assertThat(applyFused(rules, false)).isEqualTo(applyChained(rules, false));
+    }
+
+    @Test
+    public void testGivenClauseNumbersGiveSameResultAsSequentialVisit() {
+        List<Rule> rules = defineRules();
+        SimplifyingRuleVisitor ruleVisitor = new SimplifyingRuleVisitor(ruleTypeOracle, true);
+
+        // the first rule has one clause, so the clauses of the second one start at 1
+        String secondRule = ruleVisitor.visit(rules.get(1), 1).accept(new SExpressionRuleVisitor());
+        String firstRule = ruleVisitor.visit(rules.get(0), 0).accept(new SExpressionRuleVisitor());
+
+        assertThat(firstRule + "\n" + secondRule + "\n").isEqualTo(applyFused(rules, true));
+    }
+
+    @Test
+    public void testImpossibleClauseGetsFiltered() {
+        List<Rule> rules = defineRules();
+        SimplifyingRuleVisitor ruleVisitor = new SimplifyingRuleVisitor(ruleTypeOracle, true);
+
+        assertThat(rules.get(0).accept(ruleVisitor).clauses).isEmpty();
+        assertThat(rules.get(1).accept(ruleVisitor).clauses).hasSize(2);
+    }
+}
@@ -1,6 +1,7 @@
 package secpriv.horst.translation.visitors;
 
 import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Expr;
 import com.microsoft.z3.Fixedpoint;
 import com.microsoft.z3.Log;
 import com.microsoft.z3.Status;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Expression;
 import secpriv.horst.data.Predicate;
 import secpriv.horst.data.Rule;
 import secpriv.horst.data.SelectorFunction;
@@ -219,4 +221,30 @@ class TranslateToZ3RuleVisitorTest {
 
         assertThat(status).isEqualTo(Status.UNSATISFIABLE);
     }
+
+    @Test
+    public void testStructurallyEqualExpressionsAreTranslatedOnce() {
+        Expression.FreeVarExpression x = new Expression.FreeVarExpression(Type.Integer, "?x");
+        Expression sum1 = new Expression.BinaryIntExpression(x, new Expression.IntConst(BigInteger.ONE), Expression.IntOperation.ADD);
+        Expression sum2 = new Expression.BinaryIntExpression(new Expression.FreeVarExpression(Type.Integer, "?x"), new Expression.IntConst(BigInteger.ONE), Expression.IntOperation.ADD);
+        Expression other = new Expression.BinaryIntExpression(x, new Expression.IntConst(BigInteger.ONE), Expression.IntOperation.SUB);
+
+        assertThat(sum1).isEqualTo(sum2);
+        assertThat(sum1.hashCode()).isEqualTo(sum2.hashCode());
+        assertThat(sum1).isNotEqualTo(other);
+
+        Expr z3Sum1 = z3state.translate(sum1);
+        long misses = z3state.getTranslationCacheMisses();
+        Expr z3Sum2 = z3state.translate(sum2);
+
+        assertThat(z3Sum2).isSameAs(z3Sum1);
+        assertThat(z3state.getTranslationCacheMisses()).isEqualTo(misses);
+        assertThat(z3state.getTranslationCacheHits()).isEqualTo(1);
+
+        Expr z3Comparison = z3state.translate(new Expression.ComparisonExpression(sum2, other, Expression.CompOperation.LT));
+        assertThat(z3Comparison.getArgs()[0]).isEqualTo(z3Sum1);
+        // only the comparison and the subtraction are new, the sum and the leaves of the subtraction are reused
+        assertThat(z3state.getTranslationCacheMisses()).isEqualTo(misses + 2);
+        assertThat(z3state.getTranslationCacheHits()).isEqualTo(4);
+    }
 }
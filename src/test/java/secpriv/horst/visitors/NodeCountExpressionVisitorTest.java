@@ -0,0 +1,63 @@
+package secpriv.horst.visitors;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import secpriv.horst.data.Expression;
+import secpriv.horst.parser.ASLexer;
+import secpriv.horst.parser.ASParser;
+import secpriv.horst.types.Type;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+class NodeCountExpressionVisitorTest {
+    private NodeCountExpressionVisitor visitor;
+    private VisitorState state;
+
+    private Expression getExpressionFromString(String s) {
+        ASLexer lexer = new ASLexer(CharStreams.fromString(s));
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        ASParser parser = new ASParser(tokens);
+
+        ExpressionVisitor expressionVisitor = new ExpressionVisitor(state);
+
+        Optional<Expression> optionalExpression = expressionVisitor.visit(parser.exp());
+        assertThat(optionalExpression).isPresent();
+
+        return optionalExpression.get();
+    }
+
+    @BeforeEach
+    void setUp() {
+        visitor = new NodeCountExpressionVisitor();
+        state = new VisitorState();
+        state.defineType(Type.Integer);
+        state.defineType(Type.Boolean);
+    }
+
+    @AfterEach
+    void tearDown() {
+        visitor = null;
+        state = null;
+    }
+
+    @Test
+    void testLeafIsOneNode() {
+        state.defineVar("a", Type.Integer);
+        assertThat(getExpressionFromString("a").accept(visitor)).isEqualTo(1);
+        assertThat(getExpressionFromString("5").accept(visitor)).isEqualTo(1);
+    }
+
+    @Test
+    void testNestedExpressionCountsEveryNode() {
+        state.defineVar("a", Type.Integer);
+        state.defineVar("b", Type.Boolean);
+        Expression expression = getExpressionFromString("(~b) ? (a + 1) : (a * 2)");
+
+        assertThat(expression.accept(visitor)).isEqualTo(9);
+    }
+}